@@ -0,0 +1,16 @@
+#!/bin/bash
+
+# Runs the tool daemon on the socket named by ASTROJAVA_DAEMON, or a default
+# socket in the temporary directory.  Export the same ASTROJAVA_DAEMON to make
+# the other scripts use the daemon.
+
+SCRIPT_DIR=`dirname $0`
+
+SOCKET=${ASTROJAVA_DAEMON:-${TMPDIR:-/tmp}/astrojava-${USER:-daemon}.sock}
+
+# The daemon itself must not be sent to a daemon.
+unset ASTROJAVA_DAEMON
+
+export APPCLASS=com.obliquity.astronomy.almanac.test.AlmanacDaemon
+
+exec ${SCRIPT_DIR}/runapp.sh -socket ${SOCKET} "$@"
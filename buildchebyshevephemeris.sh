@@ -0,0 +1,7 @@
+#!/bin/bash
+
+SCRIPT_DIR=`dirname $0`
+
+export APPCLASS=com.obliquity.astronomy.almanac.test.BuildChebyshevEphemeris
+
+exec ${SCRIPT_DIR}/runapp.sh "$@"
@@ -14,7 +14,7 @@ if [ -f "${JAR_FILE}" ]
 then
   CLASSPATH="${JAR_FILE}"
 else
-  CLASSPATH="${SCRIPT_DIR}/build/classes/java/main"
+  CLASSPATH="${SCRIPT_DIR}/build/classes/java/main:${SCRIPT_DIR}/build/classes/java/vector"
 fi
 
 if [ ! -z "${EPHEMERIS_FILE}" -a -f "${EPHEMERIS_FILE}" ]
@@ -22,4 +22,14 @@ then
   EPHEMERIS_OPTS="-ephemeris ${EPHEMERIS_FILE}"
 fi
 
+# If ASTROJAVA_DAEMON names the socket of a running tool daemon (see
+# almanacdaemon.sh), ask the daemon to run the application instead of
+# starting it in a new JVM.
+
+if [ ! -z "${ASTROJAVA_DAEMON}" -a -S "${ASTROJAVA_DAEMON}" ]
+then
+  exec java ${CLIENT_JAVA_OPTS:--XX:TieredStopAtLevel=1 -Xshare:auto} -classpath ${CLASSPATH} \
+    com.obliquity.astronomy.almanac.daemon.ToolClient ${ASTROJAVA_DAEMON} ${APPCLASS} ${EPHEMERIS_OPTS} "$@"
+fi
+
 java ${JAVA_OPTS} -classpath ${CLASSPATH} ${APPCLASS} ${EPHEMERIS_OPTS} "$@"
@@ -0,0 +1,13 @@
+#!/bin/bash
+
+# Runs the jobs in a manifest in a single JVM.  See JobManifest for the format
+# of the manifest.
+
+SCRIPT_DIR=`dirname $0`
+
+# The jobs run here, not in a tool daemon.
+unset ASTROJAVA_DAEMON
+
+export APPCLASS=com.obliquity.astronomy.almanac.test.RunBatch
+
+exec ${SCRIPT_DIR}/runapp.sh "$@"
@@ -24,11 +24,20 @@
 
 package com.obliquity.astronomy.almanac;
 
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Histogram;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
 public class ApparentPlace {
+	private static final Counter CALLS = Metrics.counter("apparentPlace.calls");
+	private static final Histogram LIGHT_TIME_ITERATIONS = Metrics.histogram("apparentPlace.lightTimeIterations");
+	private static final Histogram LATENCY = Metrics.histogram("apparentPlace.latencyNanos");
+	
 	protected MovingPoint defaultObserver;
 	protected MovingPoint target;
 	protected MovingPoint sun;
 	protected EarthRotationModel erm;
+	protected EpochContext context = null;
 
 	protected double pl = 0.0;
 	protected double gd = 0.0;
@@ -53,6 +62,8 @@ public class ApparentPlace {
 	protected boolean isValid = false;
 	protected boolean isValidOfDate = false;
 	
+	private double contextTime = Double.NaN;
+	
 	private final double KM_PER_SECOND;
 	
 	protected final String NO_POSITION_OF_DATE = "The position referred to the equator and equinox of date is not available.";
@@ -73,6 +84,17 @@ public class ApparentPlace {
 		
 		KM_PER_SECOND = target.getEphemeris().getAU() / 86400.0;
 	}
+	
+	/*
+	 * An apparent place which is constructed from an epoch context shares the
+	 * observer, Sun and Earth rotation model of the context, and takes the
+	 * quantities which do not depend upon the target from the context.
+	 */
+	
+	public ApparentPlace(EpochContext context, MovingPoint target) {
+		this(context.getObserver(), target, context.getSun(), context.getEarthRotationModel());
+		this.context = context;
+	}
 
 	public Vector getDirectionCosinesOfDate() throws IllegalStateException {
 		if (isValidOfDate)
@@ -180,28 +202,63 @@ public class ApparentPlace {
 	public EarthRotationModel getEarthRotationModel() {
 		return erm;
 	}
+	
+	public EpochContext getEpochContext() {
+		return context;
+	}
 
 	public void calculateApparentPlace(double t) throws JPLEphemerisException {
 		calculateApparentPlace(t, defaultObserver);
 	}
 	
 	public void calculateApparentPlace(double t, MovingPoint observer) throws JPLEphemerisException {
-		StateVector svObserver = null;
+		if (context != null && observer == context.getObserver()) {
+			// The place is already known if it was calculated at this time via the context.
+			if (t == contextTime)
+				return;
+			
+			contextTime = Double.NaN;
+			
+			context.setTime(t);
+			
+			calculateApparentPlace(t, context.getObserverStateVector(), context);
+			
+			contextTime = t;
+		} else {
+			contextTime = Double.NaN;
+			
+			calculateApparentPlace(t, observer.getStateVector(t), null);
+		}
+	}
+	
+	private void calculateApparentPlace(double t, StateVector svObserver, EpochContext context)
+			throws JPLEphemerisException {
+		long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+		
 		Vector EB = null;
 		Vector SB = new Vector();
-		Vector QB = new Vector();
+		Vector QB = null;
 
 		Vector P = new Vector();
 		Vector Q = new Vector();
 		Vector E = new Vector();
+		
+		StateVector svTarget = null;
 
 		double factor = 2.0 * 9.87e-9;
 
-		svObserver = observer.getStateVector(t);
 		EB = svObserver.getPosition();
 
-		if (sun != null)
-			sun.getPosition(t, SB);
+		if (context != null) {
+			SB.copy(context.getSunStateVector().getPosition());
+			svTarget = new StateVector(new Vector(), new Vector());
+			QB = svTarget.getPosition();
+		} else {
+			QB = new Vector();
+			
+			if (sun != null)
+				sun.getPosition(t, SB);
+		}
 
 		E.copy(EB);
 		E.subtract(SB);
@@ -211,11 +268,25 @@ public class ApparentPlace {
 		double dtau;
 
 		double tau = 0.0;
+		
+		int nIters = 0;
 
 		do {
-			target.getPosition(t - tau, QB);
-
-			sun.getPosition(t - tau, SB);
+			nIters++;
+			
+			if (context != null) {
+				// The velocity of the target is needed later, so evaluate it along with the position.
+				target.getStateVector(t - tau, svTarget);
+				
+				if (target == sun)
+					SB.copy(QB);
+				else
+					context.getSunPosition(t - tau, SB);
+			} else {
+				target.getPosition(t - tau, QB);
+
+				sun.getPosition(t - tau, SB);
+			}
 
 			P.copy(QB);
 			P.subtract(EB);
@@ -238,11 +309,17 @@ public class ApparentPlace {
 				pl += factor * Math.log((EE + PP + QQ) / (EE - PP + QQ));
 
 			double newtau = pl / SPEED_OF_LIGHT;
+			
+			if (context != null && tau == 0.0)
+				newtau = predictLightTime(t, newtau, svTarget, EB, EE, factor, context);
 
 			dtau = newtau - tau;
 
 			tau = newtau;
 		} while (Math.abs(dtau) > EPSILON);
+		
+		if (Metrics.ENABLED)
+			LIGHT_TIME_ITERATIONS.record(nIters);
 
 		P.normalise();
 		Q.normalise();
@@ -264,9 +341,11 @@ public class ApparentPlace {
 			P.add(pa);
 		}
 
-		Vector V = svObserver.getVelocity();
+		Vector V = context != null ? new Vector(svObserver.getVelocity()) : svObserver.getVelocity();
 
-		StateVector svTarget = target.getStateVector(t - tau);
+		if (svTarget == null)
+			svTarget = target.getStateVector(t - tau);
+		
 		Vector vRelative= svTarget.getVelocity();
 		vRelative.subtract(V);
 		vRelative.multiplyBy(KM_PER_SECOND);
@@ -305,10 +384,17 @@ public class ApparentPlace {
 		isValid = true;
 
 		if (erm != null) {
-			double ut = t - erm.deltaT(t);
-
-			erm.precessionMatrix(target.getEpoch(), ut, precess);
-			erm.nutationMatrix(ut, nutate);
+			if (context != null) {
+				double ut = context.getUniversalTime();
+				
+				precess.copy(context.getPrecessionMatrix(target.getEpoch(), ut));
+				nutate.copy(context.getNutationMatrix(ut));
+			} else {
+				double ut = t - erm.deltaT(t);
+
+				erm.precessionMatrix(target.getEpoch(), ut, precess);
+				erm.nutationMatrix(ut, nutate);
+			}
 
 			P.multiplyBy(precess);
 			
@@ -334,5 +420,54 @@ public class ApparentPlace {
 			
 			isValidOfDate = true;
 		}
+		
+		if (Metrics.ENABLED) {
+			CALLS.increment();
+			LATENCY.record(System.nanoTime() - startTime);
+		}
+	}
+	
+	/*
+	 * Solves the light-time equation using the state of the target at the
+	 * instant of observation, assuming uniform motion over the light time.
+	 * The result is accurate enough that one more evaluation of the target
+	 * confirms convergence, so each target costs two evaluations rather than
+	 * three or four.
+	 */
+	
+	private double predictLightTime(double t, double tau, StateVector svTarget, Vector EB, double EE, double factor,
+			EpochContext context) {
+		Vector QB = svTarget.getPosition();
+		Vector W = svTarget.getVelocity();
+		
+		Vector P = new Vector();
+		Vector Q = new Vector();
+		Vector SB = new Vector();
+		
+		for (int i = 0; i < 3; i++) {
+			P.setComponents(QB.getX() - tau * W.getX(), QB.getY() - tau * W.getY(), QB.getZ() - tau * W.getZ());
+			
+			if (target == sun)
+				SB.copy(P);
+			else
+				context.getSunPosition(t - tau, SB);
+			
+			Q.copy(P);
+			Q.subtract(SB);
+			
+			P.subtract(EB);
+			
+			double PP = P.magnitude();
+			double QQ = Q.magnitude();
+			
+			double pl = PP;
+			
+			if (target != sun)
+				pl += factor * Math.log((EE + PP + QQ) / (EE - PP + QQ));
+			
+			tau = pl / SPEED_OF_LIGHT;
+		}
+		
+		return tau;
 	}
 }
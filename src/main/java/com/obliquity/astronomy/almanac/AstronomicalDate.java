@@ -8,6 +8,8 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 
 	private static final int GREGORIAN_TRANSITION_JD = 2299160;
 	private static final int GREGORIAN_TRANSITION_DATE = 15821004;
+	
+	private static final int ML[] = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
 
 	public AstronomicalDate(int year, int month, int day, int hour, int minute,
 			double second) {
@@ -32,6 +34,22 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 	}
 
 	public AstronomicalDate(double djd, boolean useProlepticGregorianCalendar) {
+		setJulianDate(djd, useProlepticGregorianCalendar);
+	}
+	
+	/*
+	 * An empty date, to be filled in by setJulianDate or setDate.  A single
+	 * instance can be re-used for every row of a table, so that converting
+	 * Julian Dates to calendar dates need not allocate anything.
+	 */
+	public AstronomicalDate() {
+	}
+	
+	public void setJulianDate(double djd) {
+		setJulianDate(djd, false);
+	}
+	
+	public void setJulianDate(double djd, boolean useProlepticGregorianCalendar) {
 		julianDate = djd;
 		
 		int K, L, N, I, J, D, M, Y;
@@ -83,17 +101,36 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 		t -= Math.floor(t);
 		this.second = 60.0 * t;
 	}
+	
+	public void setDate(int year, int month, int day, int hour, int minute, double second) {
+		this.year = year;
+		this.month = month;
+		this.day = day;
+		this.hour = hour;
+		this.minute = minute;
+		this.second = second;
+		
+		julianDate = Double.NaN;
+	}
 
 	public double getJulianDate() {
-		if (!Double.isNaN(julianDate))
-			return julianDate;
+		if (Double.isNaN(julianDate))
+			julianDate = toJulianDate(year, month, day, hour, minute, second);
 		
+		return julianDate;
+	}
+	
+	/*
+	 * Convert a calendar date and time to a Julian Date, using the Julian
+	 * calendar before 1582 October 15 and the Gregorian calendar thereafter.
+	 */
+	public static double toJulianDate(int year, int month, int day, int hour, int minute, double second) {
 		int D, M, Y, mu, JD;
 		int ThisDate;
 
-		D = this.day;
-		M = this.month;
-		Y = this.year;
+		D = day;
+		M = month;
+		Y = year;
 
 		ThisDate = 10000 * Y + 100 * M + D;
 
@@ -118,10 +155,8 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 			JD = 367 * Y - mu + (275 * M) / 9 + D + 1729777;
 		}
 
-		julianDate = (double) JD - 0.5 + ((double) this.hour) / 24.0
-				+ ((double) this.minute) / 1440.0 + (this.second) / 86400.0;
-		
-		return julianDate;
+		return (double) JD - 0.5 + ((double) hour) / 24.0
+				+ ((double) minute) / 1440.0 + (second) / 86400.0;
 	}
 
 	public int getYear() {
@@ -168,7 +203,7 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 				
 				day++;
 				
-				int maxday = getLengthOfMonth();
+				int maxday = getLengthOfMonth(year, month);
 				
 				if (day > maxday) {
 					day -= maxday;
@@ -190,18 +225,16 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 		return true;
 	}
 	
-	private int getLengthOfMonth() {
-		  final int ML[] = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
-		  
+	static int getLengthOfMonth(int year, int month) {
 		  int ml = ML[month];
 		  
-		  if (isLeapYear() && (month == 2))
+		  if (isLeapYear(year) && (month == 2))
 			  ml++;
 		  
 		  return ml;
 	}
 	
-	private boolean isLeapYear() {
+	private static boolean isLeapYear(int year) {
 	  /* is it divisible by 4? */
 	  if ((year % 4) != 0)
 		  return false;
@@ -267,6 +300,6 @@ public class AstronomicalDate implements Comparable<AstronomicalDate> {
 	}
 	
 	public String toISO8601String() {
-		return String.format("%04d-%02d-%02dT%02d:%02d:%05.2f", year, month, day, hour, minute, second);
+		return new ISO8601Format(2).format(this);
 	}
 }
@@ -0,0 +1,172 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+/**
+ * This class evaluates the Chebyshev series for the coordinates of a single
+ * granule of a JPL ephemeris data record.
+ * <P>
+ * The default kernel is a scalar loop. When the JVM has been started with the
+ * incubating Vector API module, using the option
+ * <code>--add-modules jdk.incubator.vector</code>, a kernel which uses SIMD
+ * instructions is selected instead. The choice may be forced by setting the
+ * system property <code>astrojava.chebyshev.kernel</code> to
+ * <code>scalar</code> or <code>vector</code>.
+ * <P>
+ * The two kernels add the terms of each series in a different order, so
+ * their results may differ in the last bit.
+ */
+
+public abstract class ChebyshevKernel {
+	public static final String KERNEL_PROPERTY = "astrojava.chebyshev.kernel";
+
+	private static final String VECTOR_KERNEL_CLASS = "com.obliquity.astronomy.almanac.VectorChebyshevKernel";
+
+	private static final ChebyshevKernel SCALAR_KERNEL = new ScalarChebyshevKernel();
+
+	private static final ChebyshevKernel VECTOR_KERNEL = loadVectorKernel();
+
+	private static final ChebyshevKernel INSTANCE = selectKernel(System.getProperty(KERNEL_PROPERTY, "auto"));
+
+	/**
+	 * Evaluates the series for each coordinate of a granule.
+	 * 
+	 * @param data
+	 *            The data record.
+	 * 
+	 * @param offset
+	 *            The offset of the first coefficient of the first coordinate.
+	 *            The coefficients of each coordinate follow those of the
+	 *            previous coordinate.
+	 * 
+	 * @param nCoeffs
+	 *            The number of coefficients for each coordinate.
+	 * 
+	 * @param nCoords
+	 *            The number of coordinates.
+	 * 
+	 * @param P
+	 *            The Chebyshev polynomials T_j(x) for j = 0 to nCoeffs - 1.
+	 * 
+	 * @param V
+	 *            The derivatives of the Chebyshev polynomials with respect to
+	 *            x, or null if the velocity is not required.
+	 * 
+	 * @param pos
+	 *            The output array for the coordinates.
+	 * 
+	 * @param vel
+	 *            The output array for the derivatives of the coordinates with
+	 *            respect to x, or null if the velocity is not required.
+	 */
+	public abstract void evaluate(double[] data, int offset, int nCoeffs,
+			int nCoords, double[] P, double[] V, double[] pos, double[] vel);
+
+	/**
+	 * Returns the name of this kernel.
+	 * 
+	 * @return The name of this kernel, "scalar" or "vector".
+	 */
+	public abstract String getName();
+
+	/**
+	 * Returns the kernel which was selected when this class was loaded.
+	 * 
+	 * @return The selected kernel.
+	 */
+	public static ChebyshevKernel getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the scalar kernel, which is always available.
+	 * 
+	 * @return The scalar kernel.
+	 */
+	public static ChebyshevKernel getScalarKernel() {
+		return SCALAR_KERNEL;
+	}
+
+	/**
+	 * Returns the SIMD kernel.
+	 * 
+	 * @return The SIMD kernel, or null if the Vector API is not available.
+	 */
+	public static ChebyshevKernel getVectorKernel() {
+		return VECTOR_KERNEL;
+	}
+
+	private static ChebyshevKernel loadVectorKernel() {
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent())
+			return null;
+
+		try {
+			return (ChebyshevKernel) Class.forName(VECTOR_KERNEL_CLASS)
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	private static ChebyshevKernel selectKernel(String name) {
+		if (name.equalsIgnoreCase("scalar"))
+			return SCALAR_KERNEL;
+
+		if (VECTOR_KERNEL != null)
+			return VECTOR_KERNEL;
+
+		if (name.equalsIgnoreCase("vector"))
+			System.err.println("WARNING: The Vector API is not available, using the scalar Chebyshev kernel");
+
+		return SCALAR_KERNEL;
+	}
+}
+
+class ScalarChebyshevKernel extends ChebyshevKernel {
+	public void evaluate(double[] data, int offset, int nCoeffs,
+			int nCoords, double[] P, double[] V, double[] pos, double[] vel) {
+		for (int i = 0; i < nCoords; i++, offset += nCoeffs) {
+			double sum = data[offset];
+
+			for (int j = 1; j < nCoeffs; j++)
+				sum += P[j] * data[offset + j];
+
+			pos[i] = sum;
+
+			if (vel != null) {
+				sum = 0.0;
+
+				for (int j = 1; j < nCoeffs; j++)
+					sum += V[j] * data[offset + j];
+
+				vel[i] = sum;
+			}
+		}
+	}
+
+	public String getName() {
+		return "scalar";
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class reads a compressed ephemeris file written by EphemerisCompressor.
+ * <P>
+ * The file is memory-mapped, and only its header and record index are read
+ * when the object is created. Data records are reconstructed, in the layout
+ * of a binary JPL ephemeris file, when they are requested, so a JPLEphemeris
+ * object which is obtained from getEphemeris evaluates positions exactly as
+ * it would for a binary file, and may be used with PlanetCentre, EarthCentre,
+ * MoonCentre and the rest of the library. Coefficients which were discarded
+ * by the compressor are reconstructed as zero.
+ * <P>
+ * The records are read using absolute positions in the mapped file, so an
+ * object of this class may be used by several threads at once.
+ */
+
+public class CompressedEphemerisFile implements RecordSource, Closeable {
+	public static final int DEFAULT_BLOCK_SIZE = 4;
+	
+	private final File file;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+
+	private final int numde;
+	private final double AU;
+	private final double EMRAT;
+	private final double[] limits = new double[3];
+	private final int ndata;
+	private final int[][] offsets = new int[JPLEphemeris.LAST_COMPONENT + 1][3];
+	private final double tolerance;
+	private final double angleTolerance;
+	private final double[] maximumError = new double[JPLEphemeris.LAST_COMPONENT + 1];
+	private final Map<String, Double> constants = new HashMap<String, Double>();
+	private final int numrecs;
+	private final long[] recordOffsets;
+	private final boolean[] covered;
+
+	/**
+	 * Opens a compressed ephemeris file and reads its header.
+	 * 
+	 * @param file
+	 *            The compressed ephemeris file.
+	 */
+
+	public CompressedEphemerisFile(File file) throws IOException, JPLEphemerisException {
+		this.file = file;
+
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		ByteBuffer header = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+		if (header.remaining() < 8 || header.getInt() != EphemerisCompressor.MAGIC) {
+			channel.close();
+			throw new JPLEphemerisException("File " + file + " is not a compressed ephemeris");
+		}
+
+		int version = header.getInt();
+
+		if (version != EphemerisCompressor.VERSION) {
+			channel.close();
+			throw new JPLEphemerisException("Unsupported compressed ephemeris version " + version + " in " + file);
+		}
+
+		numde = header.getInt();
+		AU = header.getDouble();
+		EMRAT = header.getDouble();
+
+		for (int j = 0; j < 3; j++)
+			limits[j] = header.getDouble();
+
+		ndata = header.getInt();
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++)
+			for (int j = 0; j < 3; j++)
+				offsets[k][j] = header.getInt();
+
+		tolerance = header.getDouble();
+		angleTolerance = header.getDouble();
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++)
+			maximumError[k] = header.getDouble();
+
+		int ncon = header.getInt();
+
+		for (int i = 0; i < ncon; i++) {
+			byte[] name = new byte[header.getInt()];
+
+			header.get(name);
+
+			constants.put(new String(name, StandardCharsets.UTF_8), header.getDouble());
+		}
+
+		numrecs = header.getInt();
+
+		if (numrecs < 1) {
+			channel.close();
+			throw new JPLEphemerisException("File " + file + " contains no data records");
+		}
+
+		recordOffsets = new long[numrecs + 1];
+
+		for (int i = 0; i <= numrecs; i++)
+			recordOffsets[i] = header.getLong();
+
+		covered = new boolean[ndata];
+
+		covered[0] = covered[1] = true;
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++) {
+			int length = offsets[k][1] * offsets[k][2] * EphemerisCompressor.getNumberOfCoordinates(k);
+
+			for (int i = 0; i < length; i++)
+				covered[offsets[k][0] - 1 + i] = true;
+		}
+	}
+
+	public CompressedEphemerisFile(String filename) throws IOException, JPLEphemerisException {
+		this(new File(filename));
+	}
+
+	/**
+	 * Returns a JPLEphemeris object which covers the specified time span. It
+	 * holds only the records for that span, and loads further records from
+	 * this file, in blocks, when it is asked for other dates.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered.
+	 * 
+	 * @param blockSize
+	 *            The number of records to load at a time, or zero to prevent
+	 *            further records from being loaded.
+	 */
+
+	public JPLEphemeris getEphemeris(double jdstart, double jdfinish, int blockSize) throws IOException,
+			JPLEphemerisException {
+		if (jdstart > jdfinish)
+			throw new JPLEphemerisException("Start date is greater than end date");
+
+		int first = getRecordIndex(jdstart);
+		int last = getRecordIndex(jdfinish);
+
+		double[][] data = new double[last - first + 1][];
+
+		readRecords(first, data, 0, data.length);
+
+		JPLEphemeris ephemeris = new JPLEphemeris(numde, AU, EMRAT, offsets, constants, limits[2], data);
+
+		if (blockSize > 0)
+			ephemeris.setRecordLoader(new RecordLoader(this, null, 0, data, blockSize));
+
+		return ephemeris;
+	}
+
+	public JPLEphemeris getEphemeris(double jdstart, double jdfinish) throws IOException, JPLEphemerisException {
+		return getEphemeris(jdstart, jdfinish, DEFAULT_BLOCK_SIZE);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getEphemerisNumber() {
+		return numde;
+	}
+
+	public double getEarliestDate() {
+		return limits[0];
+	}
+
+	public double getLatestDate() {
+		return limits[1];
+	}
+
+	public double getRecordSpan() {
+		return limits[2];
+	}
+
+	public int getNumberOfDataRecords() {
+		return numrecs;
+	}
+
+	public int getLengthOfDataRecord() {
+		return ndata;
+	}
+
+	/**
+	 * Returns the tolerance which was used to compress the positions of the
+	 * Sun, Moon and planets.
+	 * 
+	 * @return The tolerance, in kilometres.
+	 */
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Returns the tolerance which was used to compress the nutations and
+	 * librations.
+	 * 
+	 * @return The tolerance, in radians.
+	 */
+
+	public double getAngleTolerance() {
+		return angleTolerance;
+	}
+
+	/**
+	 * Returns the largest possible error in a component, over the whole file.
+	 * For the Sun, Moon and planets, this bounds the length of the error
+	 * vector of the position. It does not bound the error of the velocity.
+	 * 
+	 * @param k
+	 *            The component code, such as JPLEphemeris.MOON.
+	 * 
+	 * @return The error bound, in kilometres for the Sun, Moon and planets
+	 *         and in radians for nutations and librations.
+	 */
+
+	public double getMaximumError(int k) {
+		return maximumError[k];
+	}
+
+	public boolean covers(double jdstart, double jdfinish) {
+		return jdstart >= limits[0] && jdfinish <= limits[1];
+	}
+
+	public int getRecordIndex(double t) throws JPLEphemerisException {
+		if (t < limits[0] || t > limits[1])
+			throw new JPLEphemerisException("Date " + t + " is outside the range of " + file);
+
+		int irec = (int) ((t - limits[0]) / limits[2]);
+
+		return irec < numrecs ? irec : numrecs - 1;
+	}
+
+	public void readRecords(int first, double[][] records, int offset, int count) throws JPLEphemerisException {
+		if (first < 0 || first + count > numrecs)
+			throw new JPLEphemerisException("Records " + first + " to " + (first + count - 1)
+					+ " are outside the range of " + file);
+
+		for (int j = 0; j < count; j++)
+			records[offset + j] = readRecord(first + j);
+	}
+
+	private double[] readRecord(int irec) {
+		double[] record = new double[ndata];
+
+		int position = (int) recordOffsets[irec];
+
+		record[0] = buffer.getDouble(position);
+		record[1] = buffer.getDouble(position + 8);
+
+		position += 16;
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++) {
+			int nCoeffs = offsets[k][1];
+
+			if (nCoeffs <= 0)
+				continue;
+
+			int nSeries = offsets[k][2] * EphemerisCompressor.getNumberOfCoordinates(k);
+
+			int index = offsets[k][0] - 1;
+
+			for (int s = 0; s < nSeries; s++, index += nCoeffs) {
+				int n = buffer.get(position);
+				double quantum = Math.scalb(1.0, buffer.get(position + 1));
+
+				position += 2;
+
+				for (int j = 0; j < n; j++) {
+					long v = 0;
+					int shift = 0;
+					byte b;
+
+					do {
+						b = buffer.get(position++);
+						v |= (long) (b & 0x7f) << shift;
+						shift += 7;
+					} while (b < 0);
+
+					record[index + j] = ((v >>> 1) ^ -(v & 1)) * quantum;
+				}
+			}
+		}
+
+		for (int i = 2; i < ndata; i++) {
+			if (!covered[i]) {
+				record[i] = buffer.getDouble(position);
+				position += 8;
+			}
+		}
+
+		return record;
+	}
+
+	/**
+	 * Returns the size of the compressed file.
+	 * 
+	 * @return The size of the file, in bytes.
+	 */
+
+	public long getSize() {
+		return recordOffsets[numrecs];
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public String toString() {
+		return "DE" + numde + " compressed [" + limits[0] + ", " + limits[1] + "] " + file;
+	}
+}
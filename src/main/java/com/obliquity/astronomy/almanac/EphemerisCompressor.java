@@ -0,0 +1,425 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * This class writes a compressed copy of part of a binary JPL ephemeris file,
+ * which may be read by CompressedEphemerisFile.
+ * <P>
+ * Each Chebyshev series in a record is compressed separately. Trailing
+ * coefficients are discarded while their absolute values sum to no more than
+ * half of the error budget of the series. The remaining coefficients are
+ * stored as integer multiples of a power of two, chosen for each series so
+ * that the rounding errors sum to no more than the other half. The integers are written as variable-length
+ * quantities, so small high-order coefficients occupy a single byte.
+ * <P>
+ * Since |T_k(x)| never exceeds one, the sum of the absolute values of the
+ * discarded coefficients and of the rounding errors bounds the error in each
+ * coordinate. The error budget of each coordinate is the tolerance divided by
+ * the square root of the number of coordinates, so the error in the position
+ * vector of each body never exceeds the tolerance. The tolerance is in
+ * kilometres for the Sun, Moon and planets, and in radians for nutations and
+ * librations. The largest error bound for each component is recorded in the
+ * compressed file.
+ */
+
+public class EphemerisCompressor {
+	public static final double DEFAULT_TOLERANCE = 1.0;
+	public static final double DEFAULT_ANGLE_TOLERANCE = 5.0e-9;
+
+	static final int MAGIC = 0x5a4c504a;
+	static final int VERSION = 1;
+
+	private static final int BLOCK_SIZE = 256;
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final double tolerance;
+	private final double angleTolerance;
+
+	private final double[] maximumError = new double[JPLEphemeris.LAST_COMPONENT + 1];
+	private final long[] coefficientsKept = new long[JPLEphemeris.LAST_COMPONENT + 1];
+	private final long[] coefficientsTotal = new long[JPLEphemeris.LAST_COMPONENT + 1];
+
+	private long originalSize = 0;
+	private long compressedSize = 0;
+
+	private final double[] seriesError = new double[3];
+
+	/**
+	 * Constructs a new compressor.
+	 * 
+	 * @param tolerance
+	 *            The largest permitted error in the position of the Sun, the
+	 *            Moon or a planet, in kilometres.
+	 * 
+	 * @param angleTolerance
+	 *            The largest permitted error in the nutations or librations,
+	 *            in radians.
+	 */
+
+	public EphemerisCompressor(double tolerance, double angleTolerance) {
+		if (!(tolerance > 0.0 && angleTolerance > 0.0))
+			throw new IllegalArgumentException("Tolerances must be positive");
+
+		this.tolerance = tolerance;
+		this.angleTolerance = angleTolerance;
+	}
+
+	public EphemerisCompressor() {
+		this(DEFAULT_TOLERANCE, DEFAULT_ANGLE_TOLERANCE);
+	}
+
+	/**
+	 * Writes a compressed copy of the records of a binary JPL ephemeris file
+	 * which cover the specified time span.
+	 * 
+	 * @param source
+	 *            The binary JPL ephemeris file.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered, or zero to start at
+	 *            the beginning of the file.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered, or zero to end at the
+	 *            end of the file.
+	 * 
+	 * @param output
+	 *            The compressed file which will be written.
+	 */
+
+	public void compress(File source, double jdstart, double jdfinish, File output) throws IOException,
+			JPLEphemerisException {
+		try (EphemerisFile file = new EphemerisFile(source)) {
+			if (jdstart == 0.0)
+				jdstart = file.getEarliestDate();
+
+			if (jdfinish == 0.0)
+				jdfinish = file.getLatestDate();
+
+			if (jdstart > jdfinish)
+				throw new JPLEphemerisException("Start date is greater than end date");
+
+			int first = file.getRecordIndex(jdstart);
+			int last = file.getRecordIndex(jdfinish);
+			int numrecs = last - first + 1;
+
+			// Read the header and the constants from the first record we need.
+			JPLEphemeris header = new JPLEphemeris(source, jdstart, jdstart);
+
+			int[][] offsets = header.getOffsets();
+			int ndata = file.getLengthOfDataRecord();
+
+			boolean[] covered = findCoveredCoefficients(header, offsets, ndata);
+
+			for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++) {
+				maximumError[k] = 0.0;
+				coefficientsKept[k] = 0;
+				coefficientsTotal[k] = 0;
+			}
+
+			originalSize = 8L * ndata * numrecs;
+
+			try (RandomAccessFile raf = new RandomAccessFile(output, "rw"); FileChannel fc = raf.getChannel()) {
+				fc.truncate(0);
+
+				ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+				double span = file.getRecordSpan();
+
+				buffer.putInt(MAGIC);
+				buffer.putInt(VERSION);
+				buffer.putInt(header.getEphemerisNumber());
+				buffer.putDouble(header.getAU());
+				buffer.putDouble(header.getEMRAT());
+				buffer.putDouble(file.getEarliestDate() + first * span);
+				buffer.putDouble(file.getEarliestDate() + (last + 1) * span);
+				buffer.putDouble(span);
+				buffer.putInt(ndata);
+
+				for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++)
+					for (int j = 0; j < 3; j++)
+						buffer.putInt(offsets[k][j]);
+
+				buffer.putDouble(tolerance);
+				buffer.putDouble(angleTolerance);
+
+				// The error bounds are filled in when all of the records have been written.
+				long errorPosition = buffer.position();
+
+				for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++)
+					buffer.putDouble(0.0);
+
+				buffer.putInt(header.getConstantsEntrySet().size());
+
+				for (Map.Entry<String, Double> entry : header.getConstantsEntrySet()) {
+					byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+
+					if (buffer.remaining() < 12 + name.length)
+						flush(buffer, fc);
+
+					buffer.putInt(name.length);
+					buffer.put(name);
+					buffer.putDouble(entry.getValue());
+				}
+
+				if (buffer.remaining() < 4)
+					flush(buffer, fc);
+
+				buffer.putInt(numrecs);
+
+				// The record index is also filled in at the end.
+				flush(buffer, fc);
+
+				long indexPosition = fc.position();
+				long[] recordOffsets = new long[numrecs + 1];
+
+				fc.position(indexPosition + 8L * (numrecs + 1));
+
+				double[][] records = new double[BLOCK_SIZE][];
+
+				// Unflushed data will be written at the current position of the channel.
+				for (int block = first; block <= last; block += BLOCK_SIZE) {
+					int count = Math.min(BLOCK_SIZE, last + 1 - block);
+
+					file.readRecords(block, records, 0, count);
+
+					for (int j = 0; j < count; j++) {
+						if (buffer.remaining() < 16 * ndata)
+							flush(buffer, fc);
+
+						recordOffsets[block - first + j] = fc.position() + buffer.position();
+
+						compressRecord(records[j], offsets, covered, buffer);
+					}
+				}
+
+				flush(buffer, fc);
+
+				long position = fc.position();
+
+				recordOffsets[numrecs] = position;
+
+				compressedSize = position;
+
+				ByteBuffer index = ByteBuffer.allocate(8 * (numrecs + 1)).order(ByteOrder.LITTLE_ENDIAN);
+
+				for (long offset : recordOffsets)
+					index.putLong(offset);
+
+				index.flip();
+
+				fc.position(indexPosition);
+
+				while (index.hasRemaining())
+					fc.write(index);
+
+				ByteBuffer errors = ByteBuffer.allocate(8 * maximumError.length).order(ByteOrder.LITTLE_ENDIAN);
+
+				for (double error : maximumError)
+					errors.putDouble(error);
+
+				errors.flip();
+
+				fc.position(errorPosition);
+
+				while (errors.hasRemaining())
+					fc.write(errors);
+			}
+		}
+	}
+
+	/*
+	 * Mark the elements of a record which belong to a Chebyshev series.  The
+	 * remaining elements, apart from the start and end dates, are stored
+	 * without compression.
+	 */
+
+	private static boolean[] findCoveredCoefficients(JPLEphemeris header, int[][] offsets, int ndata) {
+		boolean[] covered = new boolean[ndata];
+
+		covered[0] = covered[1] = true;
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++) {
+			if (!header.hasComponent(k))
+				continue;
+
+			int length = offsets[k][1] * offsets[k][2] * getNumberOfCoordinates(k);
+
+			for (int i = 0; i < length; i++)
+				covered[offsets[k][0] - 1 + i] = true;
+		}
+
+		return covered;
+	}
+
+	static int getNumberOfCoordinates(int k) {
+		return k == JPLEphemeris.NUTATIONS ? 2 : 3;
+	}
+
+	private void compressRecord(double[] record, int[][] offsets, boolean[] covered, ByteBuffer buffer) {
+		buffer.putDouble(record[0]);
+		buffer.putDouble(record[1]);
+
+		for (int k = 0; k <= JPLEphemeris.LAST_COMPONENT; k++) {
+			int nCoeffs = offsets[k][1];
+
+			if (nCoeffs <= 0)
+				continue;
+
+			int nCoords = getNumberOfCoordinates(k);
+			int nSubintervals = offsets[k][2];
+
+			double budget = (k <= JPLEphemeris.SUN ? tolerance : angleTolerance) / Math.sqrt(nCoords);
+
+			int offset = offsets[k][0] - 1;
+
+			for (int g = 0; g < nSubintervals; g++) {
+				for (int i = 0; i < nCoords; i++, offset += nCoeffs)
+					seriesError[i] = compressSeries(record, offset, nCoeffs, budget, k, buffer);
+
+				double error = 0.0;
+
+				for (int i = 0; i < nCoords; i++)
+					error += seriesError[i] * seriesError[i];
+
+				maximumError[k] = Math.max(maximumError[k], Math.sqrt(error));
+			}
+		}
+
+		for (int i = 2; i < record.length; i++)
+			if (!covered[i])
+				buffer.putDouble(record[i]);
+	}
+
+	/*
+	 * Write one series and return the bound on its error.
+	 */
+
+	private double compressSeries(double[] record, int offset, int nCoeffs, double budget, int k,
+			ByteBuffer buffer) {
+		double tail = 0.0;
+
+		int n = nCoeffs;
+
+		while (n > 1 && tail + Math.abs(record[offset + n - 1]) <= 0.5 * budget) {
+			tail += Math.abs(record[offset + n - 1]);
+			n--;
+		}
+
+		coefficientsKept[k] += n;
+		coefficientsTotal[k] += nCoeffs;
+
+		int exponent = Math.getExponent(0.5 * budget / (double) n);
+		double quantum = Math.scalb(1.0, exponent);
+
+		buffer.put((byte) n);
+		buffer.put((byte) exponent);
+
+		double error = tail;
+
+		for (int j = 0; j < n; j++) {
+			long q = Math.round(record[offset + j] / quantum);
+
+			error += Math.abs(record[offset + j] - q * quantum);
+
+			putVarLong(buffer, (q << 1) ^ (q >> 63));
+		}
+
+		return error;
+	}
+
+	private static void putVarLong(ByteBuffer buffer, long v) {
+		while ((v & ~0x7fL) != 0) {
+			buffer.put((byte) ((v & 0x7f) | 0x80));
+			v >>>= 7;
+		}
+
+		buffer.put((byte) v);
+	}
+
+	private static void flush(ByteBuffer buffer, FileChannel fc) throws IOException {
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+			fc.write(buffer);
+
+		buffer.clear();
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	public double getAngleTolerance() {
+		return angleTolerance;
+	}
+
+	/**
+	 * Returns the bound on the error of a component in the most recently
+	 * written file.
+	 * 
+	 * @param k
+	 *            The component code, such as JPLEphemeris.MOON.
+	 * 
+	 * @return The error bound, in kilometres or radians.
+	 */
+
+	public double getMaximumError(int k) {
+		return maximumError[k];
+	}
+
+	/**
+	 * Returns the fraction of the coefficients of a component which were kept
+	 * in the most recently written file.
+	 * 
+	 * @param k
+	 *            The component code.
+	 * 
+	 * @return The fraction of coefficients kept, or zero if the component is
+	 *         not present.
+	 */
+
+	public double getFractionOfCoefficientsKept(int k) {
+		return coefficientsTotal[k] > 0 ? (double) coefficientsKept[k] / (double) coefficientsTotal[k] : 0.0;
+	}
+
+	public long getOriginalSize() {
+		return originalSize;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+}
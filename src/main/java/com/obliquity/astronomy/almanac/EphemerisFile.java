@@ -0,0 +1,243 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class describes a binary JPL ephemeris file, and reads individual data
+ * records from it on demand.
+ * <P>
+ * Only the header is read when the object is created. The file is then held
+ * open, and data records are read using positional reads, so an object of this
+ * class may be used by several threads at once.
+ */
+
+public class EphemerisFile implements RecordSource, Closeable {
+	private static final int LIMITS_OFFSET = 6 * 14 * 3 + 2400;
+	private static final int NUMDE_OFFSET = 2840;
+	
+	private final File file;
+	private final FileChannel channel;
+	private final ByteOrder byteOrder;
+	private final int numde;
+	private final int ndata;
+	private final int numrecs;
+	private final double[] limits = new double[3];
+
+	/**
+	 * Opens a binary JPL ephemeris file and reads its header.
+	 * 
+	 * @param file
+	 *            The binary JPL ephemeris file.
+	 */
+
+	public EphemerisFile(File file) throws IOException, JPLEphemerisException {
+		this.file = file;
+		
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		
+		readFully(buffer, NUMDE_OFFSET);
+		
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		
+		int n = buffer.getInt(0);
+		
+		if (!JPLEphemeris.isValidEphemerisNumber(n)) {
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			
+			n = buffer.getInt(0);
+		}
+		
+		byteOrder = buffer.order();
+		
+		numde = n;
+		
+		ndata = JPLEphemeris.getNumberOfCoefficientsPerRecord(numde);
+		
+		if (ndata < 0) {
+			channel.close();
+			throw new JPLEphemerisException("Ephemeris number " + numde
+					+ " not recognised in " + file);
+		}
+		
+		buffer = ByteBuffer.allocate(24);
+		
+		buffer.order(byteOrder);
+		
+		readFully(buffer, LIMITS_OFFSET);
+		
+		for (int j = 0; j < 3; j++)
+			limits[j] = buffer.getDouble(8 * j);
+		
+		int nfile = (int) (channel.size() / (8L * ndata)) - 2;
+		
+		numrecs = Math.min(nfile, (int) Math.round((limits[1] - limits[0]) / limits[2]));
+		
+		if (numrecs < 1) {
+			channel.close();
+			throw new JPLEphemerisException("File " + file + " contains no data records");
+		}
+		
+		limits[1] = limits[0] + numrecs * limits[2];
+	}
+	
+	public EphemerisFile(String filename) throws IOException, JPLEphemerisException {
+		this(new File(filename));
+	}
+	
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position);
+			
+			if (n < 0)
+				throw new IOException("Unexpected end of file in " + file);
+			
+			position += n;
+		}
+		
+		buffer.flip();
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	public ByteOrder getByteOrder() {
+		return byteOrder;
+	}
+	
+	public int getEphemerisNumber() {
+		return numde;
+	}
+	
+	public double getEarliestDate() {
+		return limits[0];
+	}
+	
+	public double getLatestDate() {
+		return limits[1];
+	}
+	
+	/**
+	 * Returns the time span covered by each data record.
+	 * 
+	 * @return The time span of each record, in days.
+	 */
+	
+	public double getRecordSpan() {
+		return limits[2];
+	}
+	
+	public int getNumberOfDataRecords() {
+		return numrecs;
+	}
+	
+	public int getLengthOfDataRecord() {
+		return ndata;
+	}
+	
+	public boolean covers(double jdstart, double jdfinish) {
+		return jdstart >= limits[0] && jdfinish <= limits[1];
+	}
+	
+	/**
+	 * Returns the index of the data record which covers the specified date.
+	 * The latest date of the file is assigned to the last record.
+	 * 
+	 * @param t
+	 *            The date, which must lie within the file.
+	 * 
+	 * @return The zero-based index of the data record.
+	 */
+	
+	public int getRecordIndex(double t) throws JPLEphemerisException {
+		if (t < limits[0] || t > limits[1])
+			throw new JPLEphemerisException("Date " + t + " is outside the range of " + file);
+		
+		int irec = (int) ((t - limits[0]) / limits[2]);
+		
+		return irec < numrecs ? irec : numrecs - 1;
+	}
+	
+	/**
+	 * Reads consecutive data records from the file.
+	 * 
+	 * @param first
+	 *            The zero-based index of the first record to read.
+	 * 
+	 * @param records
+	 *            The output array, which will be filled with newly-allocated
+	 *            records.
+	 * 
+	 * @param offset
+	 *            The position in the output array of the first record.
+	 * 
+	 * @param count
+	 *            The number of records to read.
+	 */
+	
+	public void readRecords(int first, double[][] records, int offset, int count) throws IOException,
+			JPLEphemerisException {
+		if (first < 0 || first + count > numrecs)
+			throw new JPLEphemerisException("Records " + first + " to " + (first + count - 1)
+					+ " are outside the range of " + file);
+		
+		int reclen = 8 * ndata;
+		
+		ByteBuffer buffer = ByteBuffer.allocate(count * reclen);
+		
+		buffer.order(byteOrder);
+		
+		readFully(buffer, (long) (first + 2) * reclen);
+		
+		DoubleBuffer values = buffer.asDoubleBuffer();
+		
+		for (int j = 0; j < count; j++) {
+			double[] record = new double[ndata];
+			
+			values.get(record);
+			
+			records[offset + j] = record;
+		}
+	}
+	
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	public String toString() {
+		return "DE" + numde + " [" + limits[0] + ", " + limits[1] + "] " + file;
+	}
+}
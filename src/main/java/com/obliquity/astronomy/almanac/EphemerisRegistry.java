@@ -0,0 +1,396 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class maintains a collection of binary JPL ephemeris files, and supplies
+ * JPLEphemeris objects for any time span which one of the files covers.
+ * <P>
+ * Data records are loaded on demand into a shared, bounded record cache, so
+ * callers which request overlapping time spans do not read the same records
+ * from disk more than once, and a long-running process only holds the records
+ * which it has used recently.
+ * <P>
+ * Each call to getEphemeris returns a new JPLEphemeris object, which may be
+ * used by one thread. The data records themselves are shared. By default, the
+ * returned object also loads further records through the cache, in blocks,
+ * if it is asked for a date outside the requested span.
+ */
+
+public class EphemerisRegistry {
+	public static final int DEFAULT_CACHE_CAPACITY = 4096;
+	public static final int DEFAULT_BLOCK_SIZE = 32;
+	
+	private final List<EphemerisFile> files = new ArrayList<EphemerisFile>();
+	private final List<JPLEphemeris> templates = new ArrayList<JPLEphemeris>();
+	private final List<File> canonicalFiles = new ArrayList<File>();
+	private final List<Integer> fileIds = new ArrayList<Integer>();
+	private final RecordCache cache;
+	
+	// Identifiers of files in the record cache are never reused, even after
+	// the registry is closed, so a loader which outlives its file cannot be
+	// given another file's records.
+	private int nextFileId = 0;
+	
+	// Shared by the record loaders of every JPLEphemeris which has been
+	// returned since the registry was last closed.
+	private AtomicBoolean open = new AtomicBoolean(true);
+	
+	private int[] preferredEphemerides = null;
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+	
+	public EphemerisRegistry() {
+		this(DEFAULT_CACHE_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new registry.
+	 * 
+	 * @param cacheCapacity
+	 *            The maximum number of data records which will be held in the
+	 *            shared record cache.
+	 */
+	
+	public EphemerisRegistry(int cacheCapacity) {
+		cache = new RecordCache(cacheCapacity);
+	}
+	
+	/**
+	 * Adds a binary JPL ephemeris file to the registry.
+	 * 
+	 * @param file
+	 *            The binary JPL ephemeris file.
+	 * 
+	 * @return The EphemerisFile object which describes the file.
+	 */
+	
+	public synchronized EphemerisFile register(File file) throws IOException, JPLEphemerisException {
+		EphemerisFile ephemerisFile = new EphemerisFile(file);
+		
+		// The header data are taken from a JPLEphemeris which holds only the first record.
+		JPLEphemeris template = new JPLEphemeris(file, ephemerisFile.getEarliestDate(),
+				ephemerisFile.getEarliestDate());
+		
+		files.add(ephemerisFile);
+		templates.add(template);
+		canonicalFiles.add(file.getCanonicalFile());
+		fileIds.add(nextFileId++);
+		
+		return ephemerisFile;
+	}
+	
+	public EphemerisFile register(String filename) throws IOException, JPLEphemerisException {
+		return register(new File(filename));
+	}
+	
+	/**
+	 * Adds every binary JPL ephemeris file in a directory to the registry.
+	 * Files which are not recognised as JPL ephemeris files are ignored.
+	 * 
+	 * @param directory
+	 *            The directory to be searched.
+	 * 
+	 * @return The number of files which were added.
+	 */
+	
+	public int registerDirectory(File directory) throws IOException {
+		File[] candidates = directory.listFiles();
+		
+		if (candidates == null)
+			throw new IOException("Cannot list the contents of " + directory);
+		
+		Arrays.sort(candidates);
+		
+		int nFiles = 0;
+		
+		for (File candidate : candidates) {
+			if (!candidate.isFile())
+				continue;
+			
+			try {
+				register(candidate);
+				nFiles++;
+			} catch (JPLEphemerisException | IOException e) {
+				continue;
+			}
+		}
+		
+		return nFiles;
+	}
+	
+	/**
+	 * Sets the order of preference among ephemeris numbers, for use when more
+	 * than one file covers a requested time span. Ephemerides which are not
+	 * listed rank below those which are, and by default a higher ephemeris
+	 * number is preferred.
+	 * 
+	 * @param numbers
+	 *            The ephemeris numbers, most preferred first, or null to
+	 *            restore the default order.
+	 */
+	
+	public synchronized void setPreferredEphemerides(int... numbers) {
+		preferredEphemerides = numbers == null ? null : numbers.clone();
+	}
+	
+	/**
+	 * Sets the number of records which a JPLEphemeris returned by this registry
+	 * will load at a time when it is asked for a date outside the span which
+	 * it was created for.
+	 * 
+	 * @param blockSize
+	 *            The number of records in each block, or zero if the returned
+	 *            objects should be limited to the requested span.
+	 */
+	
+	public synchronized void setBlockSize(int blockSize) {
+		if (blockSize < 0)
+			throw new IllegalArgumentException("Block size cannot be negative");
+		
+		this.blockSize = blockSize;
+	}
+	
+	public synchronized int getBlockSize() {
+		return blockSize;
+	}
+	
+	private int getPreferenceRank(int numde) {
+		if (preferredEphemerides != null)
+			for (int i = 0; i < preferredEphemerides.length; i++)
+				if (preferredEphemerides[i] == numde)
+					return i;
+		
+		return Integer.MAX_VALUE;
+	}
+	
+	private int selectFileIndex(int numde, double jdstart, double jdfinish) throws JPLEphemerisException {
+		if (jdstart > jdfinish)
+			throw new JPLEphemerisException("Start date is greater than end date");
+		
+		int best = -1;
+		
+		for (int i = 0; i < files.size(); i++) {
+			EphemerisFile file = files.get(i);
+			
+			if (!file.covers(jdstart, jdfinish))
+				continue;
+			
+			if (numde > 0 && file.getEphemerisNumber() != numde)
+				continue;
+			
+			if (best < 0 || isPreferred(file, files.get(best)))
+				best = i;
+		}
+		
+		if (best < 0)
+			throw new JPLEphemerisException("No registered ephemeris" + (numde > 0 ? " DE" + numde : "")
+					+ " covers the span " + jdstart + " to " + jdfinish);
+		
+		return best;
+	}
+	
+	private boolean isPreferred(EphemerisFile a, EphemerisFile b) {
+		int rankA = getPreferenceRank(a.getEphemerisNumber());
+		int rankB = getPreferenceRank(b.getEphemerisNumber());
+		
+		if (rankA != rankB)
+			return rankA < rankB;
+		
+		return a.getEphemerisNumber() > b.getEphemerisNumber();
+	}
+	
+	/**
+	 * Returns the registered file which would be used for the specified time
+	 * span.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered.
+	 * 
+	 * @return The most preferred file which covers the span.
+	 */
+	
+	public synchronized EphemerisFile selectFile(double jdstart, double jdfinish) throws JPLEphemerisException {
+		return files.get(selectFileIndex(0, jdstart, jdfinish));
+	}
+	
+	/**
+	 * Returns a JPLEphemeris object which covers the specified time span, using
+	 * the most preferred file which covers the span.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered.
+	 */
+	
+	public JPLEphemeris getEphemeris(double jdstart, double jdfinish) throws IOException, JPLEphemerisException {
+		return getEphemeris(0, jdstart, jdfinish);
+	}
+	
+	/**
+	 * Returns a JPLEphemeris object which covers the specified time span, using
+	 * a file with the specified ephemeris number.
+	 * 
+	 * @param numde
+	 *            The ephemeris number, for example 430 for DE430, or zero to
+	 *            accept any ephemeris.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered.
+	 */
+	
+	public JPLEphemeris getEphemeris(int numde, double jdstart, double jdfinish) throws IOException,
+			JPLEphemerisException {
+		int index;
+		
+		synchronized (this) {
+			index = selectFileIndex(numde, jdstart, jdfinish);
+		}
+		
+		return createEphemeris(index, jdstart, jdfinish);
+	}
+	
+	/**
+	 * Returns a JPLEphemeris object which covers the specified time span, using
+	 * a specific file, if that file has been registered.
+	 * 
+	 * @param file
+	 *            The binary JPL ephemeris file.
+	 * 
+	 * @param jdstart
+	 *            The earliest date which must be covered, or zero for the start
+	 *            of the file.
+	 * 
+	 * @param jdfinish
+	 *            The latest date which must be covered, or zero for the end of
+	 *            the file.
+	 * 
+	 * @return The JPLEphemeris object, or null if the file has not been
+	 *         registered.
+	 */
+	
+	public JPLEphemeris getEphemeris(File file, double jdstart, double jdfinish) throws IOException,
+			JPLEphemerisException {
+		File target = file.getCanonicalFile();
+		
+		int index;
+		EphemerisFile ephemerisFile;
+		
+		synchronized (this) {
+			index = canonicalFiles.indexOf(target);
+			
+			if (index < 0)
+				return null;
+			
+			ephemerisFile = files.get(index);
+		}
+		
+		if (jdstart == 0.0)
+			jdstart = ephemerisFile.getEarliestDate();
+		
+		if (jdfinish == 0.0)
+			jdfinish = ephemerisFile.getLatestDate() - ephemerisFile.getRecordSpan();
+		
+		if (jdstart < ephemerisFile.getEarliestDate() || jdstart > ephemerisFile.getLatestDate())
+			throw new JPLEphemerisException("Start date is outside valid range");
+		
+		if (jdfinish < ephemerisFile.getEarliestDate() || jdfinish > ephemerisFile.getLatestDate())
+			throw new JPLEphemerisException("End date is outside valid range");
+		
+		return createEphemeris(index, jdstart, jdfinish);
+	}
+	
+	private JPLEphemeris createEphemeris(int index, double jdstart, double jdfinish) throws IOException,
+			JPLEphemerisException {
+		int nBlock, fileId;
+		EphemerisFile file;
+		JPLEphemeris template;
+		AtomicBoolean openFlag;
+		
+		synchronized (this) {
+			file = files.get(index);
+			template = templates.get(index);
+			fileId = fileIds.get(index);
+			nBlock = blockSize;
+			openFlag = open;
+		}
+		
+		int first = file.getRecordIndex(jdstart);
+		int last = file.getRecordIndex(jdfinish);
+		
+		double[][] data = cache.getRecords(fileId, file, first, last);
+		
+		JPLEphemeris ephemeris = new JPLEphemeris(template, data);
+		
+		if (nBlock > 0)
+			ephemeris.setRecordLoader(new RecordLoader(file, cache, fileId, data, nBlock, openFlag));
+		
+		return ephemeris;
+	}
+	
+	public synchronized List<EphemerisFile> getFiles() {
+		return new ArrayList<EphemerisFile>(files);
+	}
+	
+	public RecordCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * Closes all of the registered files and removes them from the registry.
+	 * JPLEphemeris objects which have already been returned remain usable for
+	 * dates within the records which they hold, but they can no longer load
+	 * further records: a date outside those records causes a
+	 * JPLEphemerisException. Files may be registered again afterwards.
+	 */
+	
+	public synchronized void close() throws IOException {
+		open.set(false);
+		open = new AtomicBoolean(true);
+		
+		for (EphemerisFile file : files)
+			file.close();
+		
+		files.clear();
+		templates.clear();
+		canonicalFiles.clear();
+		fileIds.clear();
+		cache.clear();
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+/*
+ * An EpochContext holds the quantities which depend only on the observer and
+ * the instant of observation, and not on the target: the barycentric state of
+ * the observer and of the Sun, and the precession and nutation matrices.  When
+ * several apparent places are calculated for the same instant, they can share
+ * one context so that these quantities are calculated once rather than once
+ * for each target.
+ * 
+ * The Sun's position at the retarded times needed in the light-time iteration
+ * is found by linear extrapolation from its state at the instant of
+ * observation.  The Sun's barycentric acceleration, due mostly to Jupiter, is
+ * about 1e-8 AU/day^2, so over the light time to Neptune (0.17 days) the
+ * extrapolated position is in error by about 2e-10 AU, and by about 5e-10 AU
+ * over the light time to Pluto.  The position is only used to form the
+ * heliocentric vector of the target, which is changed by less than one part
+ * in 1e10.
+ * 
+ * Like the ephemeris objects it uses, an EpochContext is not thread-safe.
+ */
+
+public class EpochContext {
+	protected MovingPoint observer;
+	protected MovingPoint sun;
+	protected EarthRotationModel erm;
+	
+	private double time = Double.NaN;
+	private double ut = Double.NaN;
+	
+	private final StateVector svObserver = new StateVector(new Vector(), new Vector());
+	private final StateVector svSun = new StateVector(new Vector(), new Vector());
+	
+	private double precessionFixedEpoch = Double.NaN;
+	private double precessionDate = Double.NaN;
+	private final Matrix precession = new Matrix();
+	
+	private double nutationDate = Double.NaN;
+	private final Matrix nutation = new Matrix();
+	
+	public EpochContext(MovingPoint observer, MovingPoint sun, EarthRotationModel erm) {
+		this.observer = observer;
+		this.sun = sun;
+		this.erm = erm;
+	}
+	
+	public MovingPoint getObserver() {
+		return observer;
+	}
+	
+	public MovingPoint getSun() {
+		return sun;
+	}
+	
+	public EarthRotationModel getEarthRotationModel() {
+		return erm;
+	}
+	
+	/*
+	 * Sets the instant of observation (TDB).  The observer and the Sun are
+	 * evaluated only if the instant has changed.
+	 */
+	
+	public void setTime(double t) throws JPLEphemerisException {
+		if (t == time)
+			return;
+		
+		time = Double.NaN;
+		
+		observer.getStateVector(t, svObserver);
+		sun.getStateVector(t, svSun);
+		
+		ut = erm != null ? t - erm.deltaT(t) : t;
+		
+		time = t;
+	}
+	
+	public double getTime() {
+		return time;
+	}
+	
+	public double getUniversalTime() {
+		checkTime();
+		return ut;
+	}
+	
+	/*
+	 * The state vectors are owned by the context and are overwritten when the
+	 * time changes, so callers must not modify them.
+	 */
+	
+	public StateVector getObserverStateVector() {
+		checkTime();
+		return svObserver;
+	}
+	
+	public StateVector getSunStateVector() {
+		checkTime();
+		return svSun;
+	}
+	
+	public void getSunPosition(double t, Vector v) {
+		checkTime();
+		
+		Vector p = svSun.getPosition();
+		Vector w = svSun.getVelocity();
+		
+		double dt = t - time;
+		
+		v.setComponents(p.getX() + dt * w.getX(), p.getY() + dt * w.getY(), p.getZ() + dt * w.getZ());
+	}
+	
+	/*
+	 * The matrices are calculated for whatever dates the caller uses, and the
+	 * most recent of each is kept, so that callers which differ in their
+	 * treatment of the time argument still share the calculation.
+	 */
+	
+	public Matrix getPrecessionMatrix(double fixedEpoch, double date) {
+		if (fixedEpoch != precessionFixedEpoch || date != precessionDate) {
+			erm.precessionMatrix(fixedEpoch, date, precession);
+			precessionFixedEpoch = fixedEpoch;
+			precessionDate = date;
+		}
+		
+		return precession;
+	}
+	
+	public Matrix getNutationMatrix(double date) {
+		if (date != nutationDate) {
+			erm.nutationMatrix(date, nutation);
+			nutationDate = date;
+		}
+		
+		return nutation;
+	}
+	
+	private void checkTime() throws IllegalStateException {
+		if (Double.isNaN(time))
+			throw new IllegalStateException("The time has not been set.");
+	}
+}
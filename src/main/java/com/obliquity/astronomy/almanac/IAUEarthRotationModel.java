@@ -24,7 +24,14 @@
 
 package com.obliquity.astronomy.almanac;
 
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+import com.obliquity.astronomy.almanac.timescale.DeltaT;
+
 public class IAUEarthRotationModel implements EarthRotationModel {
+	private static final Counter NUTATION_EVALUATIONS = Metrics.counter("earthRotation.nutationEvaluations");
+	private static final Counter PRECESSION_EVALUATIONS = Metrics.counter("earthRotation.precessionEvaluations");
+	
 	private PrecessionAngles pAngles = new PrecessionAngles();
 	private NutationAngles nAngles = new NutationAngles();
 
@@ -71,27 +78,7 @@ public class IAUEarthRotationModel implements EarthRotationModel {
 	}
 
 	public double deltaT(double JD) {
-		double T = (JD - J2000) / JCY;
-
-		double[][] data = { { -25.0, 184.4, 111.6, 31.0, 0.0 },
-				{ -17.0, -31527.7, -4773.29, -212.0889, -3.93731 },
-				{ -10.0, 6833.0, 1996.25, 186.1189, 3.87068 },
-				{ -3.5, -116.0, -88.45, -22.3509, -3.07831 },
-				{ -3.0, -4586.4, -4715.24, -1615.08, -184.71 },
-				{ -2.0, -427.3, -556.12, -228.71, -30.67 },
-				{ -1.5, 150.7, 310.8, 204.8, 41.6 },
-				{ -1.0, -150.5, -291.7, -196.9, -47.7 },
-				{ -0.7, 486.0, 1896.4, 2606.9, 1204.6 },
-				{ +0.2, 65.9, 96.0, 35.0, -20.2 },
-				{ +2.0, 63.4, 111.6, 31.0, 0.0 } };
-
-		for (int j = 0; j < data.length; j++) {
-			if (T < data[j][0])
-				return (data[j][1] + T
-						* (data[j][2] + T * (data[j][3] + T * data[j][4]))) / 86400.0;
-		}
-
-		return 0.0;
+		return DeltaT.deltaT(JD);
 	}
 
 	public double greenwichMeanSiderealTime(double JDUT) {
@@ -126,6 +113,9 @@ public class IAUEarthRotationModel implements EarthRotationModel {
 
 	public void precessionAngles(double jdFixed, double jdOfDate,
 			PrecessionAngles angles) {
+		if (Metrics.ENABLED)
+			PRECESSION_EVALUATIONS.increment();
+		
 		double data[][] = {
 				{ +2306.2181, +1.39656, -0.000139, +0.30188, -0.000344,
 						+0.017998 },
@@ -199,6 +189,9 @@ public class IAUEarthRotationModel implements EarthRotationModel {
 	}
 
 	public void nutationAngles(double JD, NutationAngles angles) {
+		if (Metrics.ENABLED)
+			NUTATION_EVALUATIONS.increment();
+		
 		double data[][] = {
 		/*
 		 * IAU 1980 nutation model Fundamental angles Longitude Obliquity L L' F
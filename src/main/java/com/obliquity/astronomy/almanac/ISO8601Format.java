@@ -0,0 +1,356 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/*
+ * This class formats dates as ISO 8601 strings such as 2024-03-20T03:06:21.45
+ * and parses them back, without going through String.format or the java.text
+ * date classes.
+ * 
+ * The number of decimal places in the seconds is fixed when the formatter is
+ * created.  A value of zero gives whole seconds, and NO_SECONDS omits the
+ * seconds altogether.  The time is rounded to that precision, carrying into
+ * the minute, hour, day, month and year as necessary.
+ * 
+ * A formatter holds a scratch buffer and a re-usable AstronomicalDate, so it
+ * allocates nothing when writing to a StringBuilder or ByteBuffer, but it
+ * must not be shared between threads.
+ */
+
+public class ISO8601Format {
+	public static final int NO_SECONDS = -1;
+	
+	private static final int MAXIMUM_FRACTION_DIGITS = 9;
+	
+	private static final long[] POWERS_OF_TEN = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+			100000000L, 1000000000L };
+	
+	private final int fractionDigits;
+	private final char separator;
+	
+	private final byte[] buffer = new byte[48];
+	private int length = 0;
+	
+	private final AstronomicalDate date = new AstronomicalDate();
+	
+	public ISO8601Format(int fractionDigits) {
+		this(fractionDigits, 'T');
+	}
+	
+	public ISO8601Format(int fractionDigits, char separator) {
+		if (fractionDigits < NO_SECONDS || fractionDigits > MAXIMUM_FRACTION_DIGITS)
+			throw new IllegalArgumentException("Number of decimal places must be between " + NO_SECONDS + " and "
+					+ MAXIMUM_FRACTION_DIGITS);
+		
+		this.fractionDigits = fractionDigits;
+		this.separator = separator;
+	}
+	
+	public String format(double jd) {
+		date.setJulianDate(jd);
+		
+		return format(date);
+	}
+	
+	public String format(AstronomicalDate ad) {
+		encode(ad);
+		
+		return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+	}
+	
+	public StringBuilder format(double jd, StringBuilder sb) {
+		date.setJulianDate(jd);
+		
+		return format(date, sb);
+	}
+	
+	public StringBuilder format(AstronomicalDate ad, StringBuilder sb) {
+		encode(ad);
+		
+		for (int i = 0; i < length; i++)
+			sb.append((char) buffer[i]);
+		
+		return sb;
+	}
+	
+	public ByteBuffer format(double jd, ByteBuffer bb) {
+		date.setJulianDate(jd);
+		
+		return format(date, bb);
+	}
+	
+	public ByteBuffer format(AstronomicalDate ad, ByteBuffer bb) {
+		encode(ad);
+		
+		return bb.put(buffer, 0, length);
+	}
+	
+	private void encode(AstronomicalDate ad) {
+		int year = ad.getYear();
+		int month = ad.getMonth();
+		int day = ad.getDay();
+		int hour = ad.getHour();
+		int minute = ad.getMinute();
+		
+		long ticks = 0L;
+		boolean carry;
+		
+		if (fractionDigits == NO_SECONDS) {
+			carry = ad.getSecond() >= 30.0;
+		} else {
+			long ticksPerMinute = 60L * POWERS_OF_TEN[fractionDigits];
+			
+			ticks = Math.round(ad.getSecond() * POWERS_OF_TEN[fractionDigits]);
+			
+			carry = ticks >= ticksPerMinute;
+			
+			if (carry)
+				ticks -= ticksPerMinute;
+		}
+		
+		if (carry && ++minute > 59) {
+			minute = 0;
+			
+			if (++hour > 23) {
+				hour = 0;
+				
+				if (++day > AstronomicalDate.getLengthOfMonth(year, month)) {
+					day = 1;
+					
+					if (++month > 12) {
+						month = 1;
+						year++;
+					}
+				}
+			}
+		}
+		
+		length = 0;
+		
+		if (year < 0) {
+			put('-');
+			year = -year;
+		}
+		
+		putDigits(year, 4);
+		put('-');
+		putDigits(month, 2);
+		put('-');
+		putDigits(day, 2);
+		put(separator);
+		putDigits(hour, 2);
+		put(':');
+		putDigits(minute, 2);
+		
+		if (fractionDigits != NO_SECONDS) {
+			long scale = POWERS_OF_TEN[fractionDigits];
+			
+			put(':');
+			putDigits(ticks / scale, 2);
+			
+			if (fractionDigits > 0) {
+				put('.');
+				putDigits(ticks % scale, fractionDigits);
+			}
+		}
+	}
+	
+	private void put(char c) {
+		buffer[length++] = (byte) c;
+	}
+	
+	/*
+	 * Write a non-negative value with at least the given number of digits,
+	 * padding with leading zeroes.
+	 */
+	private void putDigits(long value, int width) {
+		int digits = 1;
+		
+		for (long v = value / 10; v > 0; v /= 10)
+			digits++;
+		
+		for (int i = digits; i < width; i++)
+			put('0');
+		
+		int end = length + digits;
+		
+		for (int i = end - 1; i >= length; i--) {
+			buffer[i] = (byte) ('0' + (int) (value % 10));
+			value /= 10;
+		}
+		
+		length = end;
+	}
+	
+	/*
+	 * Parse a date of the form [-]YYYY-MM-DD, optionally followed by a time of
+	 * day HH:MM, HH:MM:SS or HH:MM:SS.sss separated from the date by T, a
+	 * space or a slash, and optionally a final Z.  Single-digit months, days,
+	 * hours and minutes are accepted.  The date is stored in the given
+	 * AstronomicalDate.
+	 */
+	public static void parse(CharSequence text, AstronomicalDate ad) throws ParseException {
+		Parser parser = new Parser(text);
+		
+		boolean negative = parser.accept('-');
+		
+		if (!negative)
+			parser.accept('+');
+		
+		int year = parser.integer(1, 9, "year");
+		
+		if (negative)
+			year = -year;
+		
+		parser.expect('-');
+		
+		int month = parser.integer(1, 2, "month");
+		
+		parser.expect('-');
+		
+		int day = parser.integer(1, 2, "day");
+		
+		int hour = 0, minute = 0;
+		double second = 0.0;
+		
+		if (parser.accept('T') || parser.accept(' ') || parser.accept('/')) {
+			hour = parser.integer(1, 2, "hour");
+			
+			parser.expect(':');
+			
+			minute = parser.integer(1, 2, "minute");
+			
+			if (parser.accept(':'))
+				second = parser.seconds();
+		}
+		
+		parser.accept('Z');
+		
+		parser.expectEnd();
+		
+		if (month < 1 || month > 12)
+			throw new ParseException("Month out of range in \"" + text + "\"", 0);
+		
+		if (day < 1 || day > AstronomicalDate.getLengthOfMonth(year, month))
+			throw new ParseException("Day out of range in \"" + text + "\"", 0);
+		
+		if (hour > 23 || minute > 59 || second >= 60.0)
+			throw new ParseException("Time out of range in \"" + text + "\"", 0);
+		
+		ad.setDate(year, month, day, hour, minute, second);
+	}
+	
+	/*
+	 * Parse a date as above and return it as a Julian Date.
+	 */
+	public static double parse(CharSequence text) throws ParseException {
+		AstronomicalDate ad = new AstronomicalDate();
+		
+		parse(text, ad);
+		
+		return ad.getJulianDate();
+	}
+	
+	private static class Parser {
+		private final CharSequence text;
+		private int position = 0;
+		
+		Parser(CharSequence text) {
+			this.text = text;
+		}
+		
+		boolean accept(char c) {
+			if (position < text.length() && text.charAt(position) == c) {
+				position++;
+				return true;
+			} else
+				return false;
+		}
+		
+		void expect(char c) throws ParseException {
+			if (!accept(c))
+				throw new ParseException("Expected '" + c + "' at position " + position + " in \"" + text + "\"",
+						position);
+		}
+		
+		void expectEnd() throws ParseException {
+			if (position < text.length())
+				throw new ParseException("Unexpected text at position " + position + " in \"" + text + "\"",
+						position);
+		}
+		
+		int integer(int minimumDigits, int maximumDigits, String field) throws ParseException {
+			int start = position;
+			int value = 0;
+			
+			while (position < text.length() && position - start < maximumDigits) {
+				char c = text.charAt(position);
+				
+				if (c < '0' || c > '9')
+					break;
+				
+				value = 10 * value + (c - '0');
+				position++;
+			}
+			
+			if (position - start < minimumDigits)
+				throw new ParseException("Expected " + field + " at position " + start + " in \"" + text + "\"",
+						start);
+			
+			return value;
+		}
+		
+		double seconds() throws ParseException {
+			double value = integer(1, 2, "seconds");
+			
+			if (accept('.')) {
+				long fraction = 0L;
+				int digits = 0;
+				
+				while (position < text.length()) {
+					char c = text.charAt(position);
+					
+					if (c < '0' || c > '9')
+						break;
+					
+					if (digits < MAXIMUM_FRACTION_DIGITS) {
+						fraction = 10L * fraction + (c - '0');
+						digits++;
+					}
+					
+					position++;
+				}
+				
+				value += (double) fraction / (double) POWERS_OF_TEN[digits];
+			}
+			
+			return value;
+		}
+	}
+}
@@ -30,6 +30,9 @@ import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.util.*;
 
+import com.obliquity.astronomy.almanac.metrics.CounterArray;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
 /**
  * This class encapsulates a JPL planetary ephemeris such as DE200 or DE405. It
  * provides methods for evaluating the position and velocity of any object in
@@ -65,8 +68,10 @@ public class JPLEphemeris implements Serializable {
 	private double AU;
 	private double EMRAT;
 	private int numde = -1;
-	private double[][] data = null;
+	private volatile double[][] data = null;
 	private int nCheby = 0;
+	private transient File sourceFile = null;
+	private transient RecordLoader loader = null;
 	transient double[] ChebyP = null;
 	transient double[] ChebyV = null;
 	private double[] pos = new double[3];
@@ -102,6 +107,13 @@ public class JPLEphemeris implements Serializable {
 	public static final int LAST_COMPONENT = 12;
 
 	private static final double EPOCH = 2451545.0;
+	
+	private static final CounterArray EVALUATIONS = Metrics.counterArray("ephemeris.evaluations", "mercury", "venus",
+			"emb", "mars", "jupiter", "saturn", "uranus", "neptune", "pluto", "moon", "sun", "nutations", "librations");
+	
+	private static final ChebyshevKernel KERNEL = ChebyshevKernel.getInstance();
+	
+	private static volatile EphemerisRegistry sharedRegistry = null;
 
 	/**
 	 * Constructs a new JPLEphemeris object for a specified time span from a
@@ -129,6 +141,17 @@ public class JPLEphemeris implements Serializable {
 		if (jdstart > jdfinis)
 			throw new JPLEphemerisException(
 					"Start date is greater than end date");
+		
+		EphemerisRegistry registry = sharedRegistry;
+		
+		if (registry != null) {
+			JPLEphemeris shared = registry.getEphemeris(file, jdstart, jdfinis);
+			
+			if (shared != null) {
+				share(shared);
+				return;
+			}
+		}
 
 		RandomAccessFile raf = new RandomAccessFile(file, "r");
 
@@ -301,9 +324,11 @@ public class JPLEphemeris implements Serializable {
 		for (int i = 0; i < offsets.length; i++)
 			if (offsets[i][1] > nCheby)
 				nCheby = offsets[i][1];
+		
+		sourceFile = file;
 	}
 	
-	private boolean isValidEphemerisNumber(int numde) {
+	static boolean isValidEphemerisNumber(int numde) {
 		return numde > 0 && numde < 2000;
 	}
 	
@@ -322,7 +347,7 @@ public class JPLEphemeris implements Serializable {
 	 * 
 	 * @return The number of double-precision coefficients per record, or -1 if the ephemeris number is unknown.
 	 */
-	private int getNumberOfCoefficientsPerRecord(int ephemerisNumber) {
+	static int getNumberOfCoefficientsPerRecord(int ephemerisNumber) {
 		switch (ephemerisNumber) {
 		case 102:
 			return 773;
@@ -406,6 +431,120 @@ public class JPLEphemeris implements Serializable {
 		this(filename, 0.0, 0.0);
 	}
 
+	/**
+	 * Constructs a new JPLEphemeris object which shares the coefficient data
+	 * of an existing object, but has its own working storage.  A JPLEphemeris
+	 * object is not safe for use by several threads at once, so each thread
+	 * should use its own copy.
+	 * 
+	 * @param that
+	 *            The JPLEphemeris object whose data will be shared.
+	 */
+
+	public JPLEphemeris(JPLEphemeris that) {
+		share(that);
+	}
+	
+	private void share(JPLEphemeris that) {
+		this.limits = that.limits;
+		this.offsets = that.offsets;
+		this.AU = that.AU;
+		this.EMRAT = that.EMRAT;
+		this.numde = that.numde;
+		this.data = that.data;
+		this.nCheby = that.nCheby;
+		this.mapConstants = that.mapConstants;
+		this.sourceFile = that.sourceFile;
+		this.loader = that.loader;
+	}
+
+	/**
+	 * Constructs a new JPLEphemeris object which shares the header data of an
+	 * existing object, but uses a different set of data records taken from the
+	 * same ephemeris file.
+	 * 
+	 * @param that
+	 *            The JPLEphemeris object whose header data will be shared.
+	 * 
+	 * @param data
+	 *            The data records, which must be consecutive records from the
+	 *            ephemeris file.
+	 */
+
+	JPLEphemeris(JPLEphemeris that, double[][] data) {
+		this(that);
+		
+		this.data = data;
+		this.loader = null;
+		
+		this.limits = new double[] { data[0][0], data[data.length - 1][1], that.limits[2] };
+	}
+
+	/**
+	 * Constructs a new JPLEphemeris object from header data and records which
+	 * have been obtained from a source other than a binary JPL ephemeris file,
+	 * such as a compressed ephemeris file.
+	 * 
+	 * @param numde
+	 *            The DE ephemeris number.
+	 * 
+	 * @param AU
+	 *            The length of the astronomical unit, in kilometres.
+	 * 
+	 * @param EMRAT
+	 *            The Earth/Moon mass ratio.
+	 * 
+	 * @param offsets
+	 *            The location of each component in a data record, in the
+	 *            layout of the header of a binary JPL ephemeris file.
+	 * 
+	 * @param constants
+	 *            The named constants of the ephemeris.
+	 * 
+	 * @param recordSpan
+	 *            The time span covered by each data record.
+	 * 
+	 * @param data
+	 *            Consecutive data records.
+	 */
+
+	JPLEphemeris(int numde, double AU, double EMRAT, int[][] offsets,
+			Map<String, Double> constants, double recordSpan, double[][] data) {
+		this.numde = numde;
+		this.AU = AU;
+		this.EMRAT = EMRAT;
+		this.offsets = offsets;
+		this.mapConstants = constants;
+		this.data = data;
+
+		this.limits = new double[] { data[0][0], data[data.length - 1][1], recordSpan };
+
+		for (int i = 0; i < offsets.length; i++)
+			if (offsets[i][1] > nCheby)
+				nCheby = offsets[i][1];
+	}
+
+	/**
+	 * Sets a registry which the constructors that take a file or a file name
+	 * will consult first. If the file is registered, the new object takes its
+	 * data records from the registry's shared cache instead of reading them
+	 * from disk, and can load further records from the cache on demand.
+	 * <P>
+	 * This allows a long-running process to run programs which create their
+	 * own JPLEphemeris objects without each of them reading the file again.
+	 * 
+	 * @param registry
+	 *            The registry, or null to read every file directly.
+	 */
+
+	public static void setSharedRegistry(EphemerisRegistry registry) {
+		sharedRegistry = registry;
+	}
+	
+	public static EphemerisRegistry getSharedRegistry() {
+		return sharedRegistry;
+	}
+
 	/**
 	 * Return the value of the AU parameter contained within the JPL ephemeris.
 	 * This is the length of the astronomical unit expressed in kilometres.
@@ -465,7 +604,7 @@ public class JPLEphemeris implements Serializable {
 	 * @return The earliest date for which this ephemeris is valid.
 	 */
 	public double getEarliestDate() {
-		return limits[0];
+		return loader != null ? loader.getFile().getEarliestDate() : data[0][0];
 	}
 
 	/**
@@ -477,7 +616,9 @@ public class JPLEphemeris implements Serializable {
 	 * @return The latest date for which this ephemeris is valid.
 	 */
 	public double getLatestDate() {
-		return limits[1];
+		double[][] records = data;
+		
+		return loader != null ? loader.getFile().getLatestDate() : records[records.length - 1][1];
 	}
 
 	/**
@@ -493,11 +634,65 @@ public class JPLEphemeris implements Serializable {
 	 *         specified date.
 	 */
 	public boolean isValidDate(double t) {
-		if (t < limits[0] || t > limits[1])
+		if (t < getEarliestDate() || t > getLatestDate())
 			return false;
 		else
 			return true;
 	}
+	
+	static boolean covers(double[][] records, double t) {
+		return t >= records[0][0] && t <= records[records.length - 1][1];
+	}
+
+	/**
+	 * Allows this object to load further data records from its ephemeris file
+	 * whenever it is asked to evaluate a date which is not covered by the
+	 * records which it already holds. Records are loaded in blocks, and are
+	 * shared with any copies of this object which are made afterwards.
+	 * <P>
+	 * Once this method has been called, getEarliestDate and getLatestDate
+	 * return the limits of the ephemeris file.
+	 * 
+	 * @param blockSize
+	 *            The number of records in each block.
+	 * 
+	 * @throws JPLEphemerisException
+	 *             if this object was not loaded directly from a file, for
+	 *             example if it was deserialized.
+	 */
+	public void enableIncrementalLoading(int blockSize) throws IOException, JPLEphemerisException {
+		if (loader != null)
+			return;
+		
+		if (sourceFile == null)
+			throw new JPLEphemerisException("The source file of this ephemeris is not known");
+		
+		loader = new RecordLoader(new EphemerisFile(sourceFile), null, 0, data, blockSize);
+	}
+	
+	void setRecordLoader(RecordLoader loader) {
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns the location of each component in a data record. Row k holds the
+	 * one-based offset of the first coefficient of component k, the number of
+	 * coefficients per coordinate and the number of sub-intervals per record.
+	 * 
+	 * @return The offsets array, which must not be modified.
+	 */
+	int[][] getOffsets() {
+		return offsets;
+	}
+	
+	/**
+	 * Indicates whether this object loads further data records on demand.
+	 * 
+	 * @return True if incremental loading has been enabled.
+	 */
+	public boolean isIncremental() {
+		return loader != null;
+	}
 
 	/**
 	 * Return the epoch of the reference system of this ephemeris.
@@ -536,12 +731,14 @@ public class JPLEphemeris implements Serializable {
 	}
 
 	/**
-	 * Returns the number of data records which this object contains.
+	 * Returns the number of data records which this object contains. If
+	 * incremental loading is enabled, this includes records which have been
+	 * loaded by copies of this object.
 	 * 
 	 * @return The number of data records.
 	 */
 	public int getNumberOfDataRecords() {
-		return data.length;
+		return loader != null ? loader.getData().length : data.length;
 	}
 
 	/**
@@ -558,20 +755,24 @@ public class JPLEphemeris implements Serializable {
 		ChebyV = new double[nCheby];
 	}
 
-	private void calculateChebyshevCoefficients(double x, int nOrder) {
+	private void calculateChebyshevCoefficients(double x, int nOrder,
+			boolean needVelocity) {
 		if (ChebyP == null || ChebyV == null)
 			initialiseChebyshevArrays();
 
 		ChebyP[0] = 1.0;
 		ChebyP[1] = x;
 
-		ChebyV[0] = 0.0;
-		ChebyV[1] = 1.0;
-
-		for (int i = 2; i < nOrder; i++) {
+		for (int i = 2; i < nOrder; i++)
 			ChebyP[i] = 2.0 * x * ChebyP[i - 1] - ChebyP[i - 2];
-			ChebyV[i] = 2.0 * x * ChebyV[i - 1] - ChebyV[i - 2] + 2.0
-					* ChebyP[i - 1];
+
+		if (needVelocity) {
+			ChebyV[0] = 0.0;
+			ChebyV[1] = 1.0;
+
+			for (int i = 2; i < nOrder; i++)
+				ChebyV[i] = 2.0 * x * ChebyV[i - 1] - ChebyV[i - 2] + 2.0
+						* ChebyP[i - 1];
 		}
 	}
 
@@ -610,12 +811,26 @@ public class JPLEphemeris implements Serializable {
 			throw new JPLEphemerisException(
 					"Ephemeris does not have component " + nBody);
 
-		if (!isValidDate(jd))
-			throw new JPLEphemerisException("Date " + jd + " is out of range");
+		if (Metrics.ENABLED)
+			EVALUATIONS.increment(nBody);
+
+		double[][] data = this.data;
+
+		if (!covers(data, jd)) {
+			if (loader == null)
+				throw new JPLEphemerisException("Date " + jd + " is out of range");
+			
+			data = loader.extend(jd);
+			
+			this.data = data;
+		}
 
 		int nCoords = (nBody <= SUN) ? 3 : 2;
 
-		int irec = (int) ((jd - limits[0]) / limits[2]);
+		int irec = (int) ((jd - data[0][0]) / limits[2]);
+		
+		if (irec == data.length)
+			irec--;
 
 		int ioff = offsets[nBody][0] - 1;
 		int icoeff = offsets[nBody][1];
@@ -635,19 +850,12 @@ public class JPLEphemeris implements Serializable {
 
 		dx = 2.0 * dx - 1.0;
 
-		calculateChebyshevCoefficients(dx, icoeff);
-
-		for (int i = 0; i < nCoords; i++, ioff += icoeff) {
-			pos[i] = data[irec][ioff];
-			for (int j = 1; j < icoeff; j++)
-				pos[i] += ChebyP[j] * data[irec][ioff + j];
+		calculateChebyshevCoefficients(dx, icoeff, velocity != null);
 
-			if (velocity != null) {
-				vel[i] = 0.0;
-				for (int j = 1; j < icoeff; j++)
-					vel[i] += ChebyV[j] * data[irec][ioff + j];
-			}
-		}
+		if (velocity != null)
+			KERNEL.evaluate(data[irec], ioff, icoeff, nCoords, ChebyP, ChebyV, pos, vel);
+		else
+			KERNEL.evaluate(data[irec], ioff, icoeff, nCoords, ChebyP, null, pos, null);
 
 		position.setComponents(pos);
 
@@ -27,6 +27,10 @@ package com.obliquity.astronomy.almanac;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Histogram;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
 public class LocalVisibility {
 	class AltitudeEvent {
 		double date;
@@ -39,6 +43,10 @@ public class LocalVisibility {
 	}
 	
 	public static final double TWOPI = 2.0 * Math.PI;
+	
+	private static final Counter RISE_SET_SEARCHES = Metrics.counter("localVisibility.riseSetSearches");
+	private static final Histogram RISE_SET_ITERATIONS = Metrics.histogram("localVisibility.riseSetIterations");
+	private static final Histogram TRANSIT_ITERATIONS = Metrics.histogram("localVisibility.transitIterations");
 		
 	private static final double EPSILON_ALTITUDE = (0.1/60.0) * Math.PI/180.0;
 	
@@ -59,6 +67,9 @@ public class LocalVisibility {
 	public RiseSetEvent[] findRiseSetEvents(ApparentPlace ap, Place place, double jd, RiseSetType rsType) throws JPLEphemerisException {
 		this.AU = ap.getTarget().getEphemeris().getAU();
 		
+		if (Metrics.ENABLED)
+			RISE_SET_SEARCHES.increment();
+		
 		TransitEvent[] transitEvents = findTransitEvents(ap, place, jd);
 
 		AltitudeEvent[] altitudeEvents = calculateAltitudeEvents(ap, place, jd, transitEvents, rsType);
@@ -134,8 +145,12 @@ public class LocalVisibility {
 			if (verbose)
 				System.out.printf("\t\tNew:  t = %.5f, altitude = %.5f [replaces %s]\n", jdNew, toDegrees(altNew), replaceHigh ? "HIGH" : "LOW");
 		
-			if (Math.abs(altNew) < EPSILON_ALTITUDE)
+			if (Math.abs(altNew) < EPSILON_ALTITUDE) {
+				if (Metrics.ENABLED)
+					RISE_SET_ITERATIONS.record(nIters + 1);
+				
 				return jdNew;
+			}
 			
 			if (replaceHigh)
 				jdHigh = jdNew;
@@ -143,6 +158,9 @@ public class LocalVisibility {
 				jdLow = jdNew;
 		}
 		
+		if (Metrics.ENABLED)
+			RISE_SET_ITERATIONS.record(MAX_ITERS);
+		
 		return Double.NaN;
 	}
 	
@@ -176,8 +194,12 @@ public class LocalVisibility {
 			if (verbose)
 				System.out.printf("\t\tNew:  t = %.5f, altitude = %.5f [replaces %s]\n", jdNew, toDegrees(altNew), replaceHigh ? "HIGH" : "LOW");
 		
-			if (Math.abs(altNew) < EPSILON_ALTITUDE)
+			if (Math.abs(altNew) < EPSILON_ALTITUDE) {
+				if (Metrics.ENABLED)
+					RISE_SET_ITERATIONS.record(nIters + 1);
+				
 				return jdNew;
+			}
 			
 			if (replaceHigh)
 				jdHigh = jdNew;
@@ -185,6 +207,9 @@ public class LocalVisibility {
 				jdLow = jdNew;
 		}
 		
+		if (Metrics.ENABLED)
+			RISE_SET_ITERATIONS.record(MAX_ITERS);
+		
 		return Double.NaN;
 	}
 
@@ -254,7 +279,11 @@ public class LocalVisibility {
 			if (verbose)	
 			System.out.println("\n\tLooking for transit " + i + " with target HA = " + toDegrees(targetHA));
 			
+			int nIters = 0;
+			
 			do {
+				nIters++;
+				
 				ap.calculateApparentPlace(jd + deltaT);
 				
 				ra = ap.getRightAscensionOfDate();
@@ -273,6 +302,9 @@ public class LocalVisibility {
 					System.out.println("\t\tdha = " + dha + ", dt = " + dt);
 			} while (Math.abs(dt) > 0.00001);
 			
+			if (Metrics.ENABLED)
+				TRANSIT_ITERATIONS.record(nIters);
+			
 			if (jd < jdstart + 1.0) {
 				transits[i] = new TransitEvent(targetType, jd);
 			
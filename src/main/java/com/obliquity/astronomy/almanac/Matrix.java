@@ -46,6 +46,12 @@ public class Matrix {
 				this.m[i][j] = that.m[i][j];
 	}
 
+	public void copy(Matrix that) {
+		for (int i = 0; i < 3; i++)
+			for (int j = 0; j < 3; j++)
+				this.m[i][j] = that.m[i][j];
+	}
+
 	public static Matrix getIdentityMatrix() {
 		Matrix id = new Matrix();
 		id.m[0][0] = id.m[1][1] = id.m[2][2] = 1.0;
@@ -0,0 +1,257 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+/**
+ * This class is a bounded cache of data records from one or more binary JPL
+ * ephemeris files. When the cache is full, the least recently used record is
+ * discarded.
+ * <P>
+ * Records are never modified once they have been read, so a record which is
+ * returned by the cache may be shared by any number of JPLEphemeris objects,
+ * and remains valid after it has been evicted from the cache.
+ * <P>
+ * A thread which needs a record that another thread is already reading waits
+ * for that read to finish, so each record is read from the file once however
+ * many threads ask for it at the same time.
+ */
+
+public class RecordCache {
+	private static final Counter HITS = Metrics.counter("ephemeris.recordCache.hits");
+	private static final Counter MISSES = Metrics.counter("ephemeris.recordCache.misses");
+	private static final Counter COALESCED = Metrics.counter("ephemeris.recordCache.coalesced");
+	
+	private final int capacity;
+	private final LinkedHashMap<Long, double[]> records;
+	private final Set<Long> pending = new HashSet<Long>();
+	
+	private long hits = 0;
+	private long misses = 0;
+	private long coalesced = 0;
+	
+	/**
+	 * Constructs a new record cache.
+	 * 
+	 * @param capacity
+	 *            The maximum number of records which the cache will hold.
+	 */
+	
+	public RecordCache(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive");
+		
+		this.capacity = capacity;
+		
+		records = new LinkedHashMap<Long, double[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Long, double[]> eldest) {
+				return size() > RecordCache.this.capacity;
+			}
+		};
+	}
+	
+	private static Long key(int fileId, int irec) {
+		return Long.valueOf(((long) fileId << 32) | (irec & 0xffffffffL));
+	}
+	
+	/**
+	 * Returns consecutive data records from an ephemeris file, reading from
+	 * the file only those records which are not already in the cache.
+	 * 
+	 * @param fileId
+	 *            An identifier which is unique to the ephemeris file.
+	 * 
+	 * @param file
+	 *            The ephemeris file.
+	 * 
+	 * @param first
+	 *            The zero-based index of the first record.
+	 * 
+	 * @param last
+	 *            The zero-based index of the last record.
+	 * 
+	 * @return The records, in order.
+	 */
+	
+	public double[][] getRecords(int fileId, RecordSource file, int first, int last) throws IOException,
+			JPLEphemerisException {
+		int count = last - first + 1;
+		
+		double[][] data = new double[count][];
+		boolean[] claimed = new boolean[count];
+		
+		int nFound = 0, nClaimed = 0;
+		
+		// A missing record which no other thread is reading is claimed by this
+		// thread; the others are waited for below.
+		synchronized (this) {
+			for (int j = 0; j < count; j++) {
+				Long key = key(fileId, first + j);
+				
+				data[j] = records.get(key);
+				
+				if (data[j] != null)
+					nFound++;
+				else if (pending.add(key)) {
+					claimed[j] = true;
+					nClaimed++;
+				}
+			}
+			
+			hits += nFound;
+			misses += nClaimed;
+			coalesced += count - nFound - nClaimed;
+		}
+		
+		if (Metrics.ENABLED) {
+			HITS.add(nFound);
+			MISSES.add(nClaimed);
+			COALESCED.add(count - nFound - nClaimed);
+		}
+		
+		if (nFound == count)
+			return data;
+		
+		if (nClaimed > 0)
+			readClaimedRecords(fileId, file, first, data, claimed);
+		
+		if (nFound + nClaimed == count)
+			return data;
+		
+		synchronized (this) {
+			for (int j = 0; j < count; j++) {
+				if (data[j] != null)
+					continue;
+				
+				Long key = key(fileId, first + j);
+				
+				try {
+					while ((data[j] = records.get(key)) == null && pending.contains(key))
+						wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while waiting for an ephemeris record");
+				}
+			}
+		}
+		
+		// A record which another thread failed to read, or which was evicted
+		// before this thread could take it, is read without being cached.
+		for (int j = 0; j < count; j++) {
+			if (data[j] == null) {
+				file.readRecords(first + j, data, j, 1);
+				
+				synchronized (this) {
+					misses++;
+				}
+			}
+		}
+		
+		return data;
+	}
+	
+	private void readClaimedRecords(int fileId, RecordSource file, int first, double[][] data, boolean[] claimed)
+			throws IOException, JPLEphemerisException {
+		int count = data.length;
+		boolean complete = false;
+		
+		try {
+			// Read each run of claimed records without holding the lock.
+			for (int j = 0; j < count;) {
+				if (!claimed[j]) {
+					j++;
+					continue;
+				}
+				
+				int k = j;
+				
+				while (k < count && claimed[k])
+					k++;
+				
+				file.readRecords(first + j, data, j, k - j);
+				
+				j = k;
+			}
+			
+			complete = true;
+		} finally {
+			synchronized (this) {
+				for (int j = 0; j < count; j++) {
+					if (!claimed[j])
+						continue;
+					
+					Long key = key(fileId, first + j);
+					
+					if (complete)
+						records.putIfAbsent(key, data[j]);
+					
+					pending.remove(key);
+				}
+				
+				notifyAll();
+			}
+		}
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	public synchronized int size() {
+		return records.size();
+	}
+	
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	
+	/**
+	 * Returns the number of records which were requested while another thread
+	 * was reading them, and which were taken from that read.
+	 */
+	
+	public synchronized long getCoalescedCount() {
+		return coalesced;
+	}
+	
+	public synchronized void clear() {
+		records.clear();
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+/*
+ * This class extends the data records held by a JPLEphemeris on demand, by
+ * reading further records from the ephemeris file in blocks.  It is shared by
+ * a JPLEphemeris and all of its copies, so records which are loaded on behalf
+ * of one copy become visible to the others the next time they need them.
+ * 
+ * The records are always a consecutive run from the file.  Each extension
+ * builds a new array, which is published through a volatile field only after
+ * it is complete, so readers never see a partly-built array.
+ * 
+ * A loader which belongs to an EphemerisRegistry is given the registry's open
+ * flag.  Once the registry has been closed, the records already loaded remain
+ * usable, but any attempt to load more fails.
+ */
+
+class RecordLoader {
+	private static final Counter EXTENSIONS = Metrics.counter("ephemeris.recordLoader.extensions");
+	private static final Counter RECORDS_LOADED = Metrics.counter("ephemeris.recordLoader.recordsLoaded");
+	
+	private final RecordSource file;
+	private final RecordCache cache;
+	private final int fileId;
+	private final int blockSize;
+	private final AtomicBoolean open;
+	
+	private volatile double[][] data;
+	private int firstRecord;
+	
+	RecordLoader(RecordSource file, RecordCache cache, int fileId, double[][] data, int blockSize)
+			throws JPLEphemerisException {
+		this(file, cache, fileId, data, blockSize, null);
+	}
+	
+	RecordLoader(RecordSource file, RecordCache cache, int fileId, double[][] data, int blockSize,
+			AtomicBoolean open) throws JPLEphemerisException {
+		if (blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive");
+		
+		this.file = file;
+		this.cache = cache;
+		this.fileId = fileId;
+		this.data = data;
+		this.blockSize = blockSize;
+		this.open = open;
+		
+		firstRecord = file.getRecordIndex(0.5 * (data[0][0] + data[0][1]));
+	}
+	
+	RecordSource getFile() {
+		return file;
+	}
+	
+	double[][] getData() {
+		return data;
+	}
+	
+	int getBlockSize() {
+		return blockSize;
+	}
+	
+	/*
+	 * Returns the most recently published records if they already cover the
+	 * date, otherwise loads the block of records which contains the date,
+	 * together with any records between that block and those already loaded.
+	 */
+	
+	double[][] extend(double jd) throws JPLEphemerisException {
+		double[][] records = data;
+		
+		if (JPLEphemeris.covers(records, jd))
+			return records;
+		
+		synchronized (this) {
+			records = data;
+			
+			if (JPLEphemeris.covers(records, jd))
+				return records;
+			
+			if (open != null && !open.get())
+				throw new JPLEphemerisException("Cannot load records for " + jd + " from " + file
+						+ ": the ephemeris registry has been closed");
+			
+			if (!file.covers(jd, jd))
+				throw new JPLEphemerisException("Date " + jd + " is out of range");
+			
+			int irec = file.getRecordIndex(jd);
+			
+			int blockFirst = (irec / blockSize) * blockSize;
+			int blockLast = Math.min(blockFirst + blockSize, file.getNumberOfDataRecords()) - 1;
+			
+			int lastRecord = firstRecord + records.length - 1;
+			
+			int newFirst = Math.min(firstRecord, blockFirst);
+			int newLast = Math.max(lastRecord, blockLast);
+			
+			double[][] newRecords = new double[newLast - newFirst + 1][];
+			
+			System.arraycopy(records, 0, newRecords, firstRecord - newFirst, records.length);
+			
+			try {
+				if (newFirst < firstRecord)
+					readRecords(newFirst, firstRecord - 1, newRecords, 0);
+				
+				if (newLast > lastRecord)
+					readRecords(lastRecord + 1, newLast, newRecords, lastRecord + 1 - newFirst);
+			} catch (IOException e) {
+				throw new JPLEphemerisException("Failed to read records from " + file + ": " + e.getMessage());
+			}
+			
+			if (Metrics.ENABLED) {
+				EXTENSIONS.increment();
+				RECORDS_LOADED.add(newRecords.length - records.length);
+			}
+			
+			firstRecord = newFirst;
+			data = newRecords;
+			
+			return newRecords;
+		}
+	}
+	
+	private void readRecords(int first, int last, double[][] records, int offset) throws IOException,
+			JPLEphemerisException {
+		if (cache != null)
+			System.arraycopy(cache.getRecords(fileId, file, first, last), 0, records, offset, last - first + 1);
+		else
+			file.readRecords(first, records, offset, last - first + 1);
+	}
+}
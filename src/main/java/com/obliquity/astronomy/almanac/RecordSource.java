@@ -0,0 +1,85 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import java.io.IOException;
+
+/**
+ * This interface describes a source of data records in the layout of a binary
+ * JPL ephemeris file. A binary JPL ephemeris file is one such source; a
+ * compressed ephemeris file, which reconstructs its records on demand, is
+ * another.
+ * <P>
+ * Implementations must allow records to be read by several threads at once.
+ */
+
+public interface RecordSource {
+	public double getEarliestDate();
+
+	public double getLatestDate();
+
+	/**
+	 * Returns the time span covered by each data record.
+	 * 
+	 * @return The time span of each record, in days.
+	 */
+	public double getRecordSpan();
+
+	public int getNumberOfDataRecords();
+
+	public int getLengthOfDataRecord();
+
+	public boolean covers(double jdstart, double jdfinish);
+
+	/**
+	 * Returns the index of the data record which covers the specified date.
+	 * The latest date of the source is assigned to the last record.
+	 * 
+	 * @param t
+	 *            The date, which must lie within the source.
+	 * 
+	 * @return The zero-based index of the data record.
+	 */
+	public int getRecordIndex(double t) throws JPLEphemerisException;
+
+	/**
+	 * Reads consecutive data records.
+	 * 
+	 * @param first
+	 *            The zero-based index of the first record to read.
+	 * 
+	 * @param records
+	 *            The output array, which will be filled with newly-allocated
+	 *            records.
+	 * 
+	 * @param offset
+	 *            The position in the output array of the first record.
+	 * 
+	 * @param count
+	 *            The number of records to read.
+	 */
+	public void readRecords(int first, double[][] records, int offset, int count) throws IOException,
+			JPLEphemerisException;
+}
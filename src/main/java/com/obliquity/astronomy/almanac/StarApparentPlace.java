@@ -28,6 +28,7 @@ public class StarApparentPlace {
 	protected MovingPoint observer;
 	protected MovingPoint sun;
 	protected EarthRotationModel erm;
+	protected EpochContext context = null;
 	
 	private boolean verbose = Boolean.getBoolean("starapparentplace.verbose");
 
@@ -37,6 +38,16 @@ public class StarApparentPlace {
 		this.erm = erm;
 	}
 	
+	/*
+	 * When many stars are reduced to the same instant, the observer and Sun
+	 * and the precession-nutation matrix are taken from the shared context.
+	 */
+	
+	public StarApparentPlace(EpochContext context) {
+		this(context.getObserver(), context.getSun(), context.getEarthRotationModel());
+		this.context = context;
+	}
+	
 	public Vector calculateApparentPlace(double ra, double dec, double parallax, double pmRA, double pmDec, double rv,
 			double positionEpoch, double fixedEpoch, double jd) throws JPLEphemerisException {
 		Vector q = new Vector(Math.cos(dec) * Math.cos(ra), Math.cos(dec) * Math.sin(ra), Math.sin(dec));
@@ -66,13 +77,22 @@ public class StarApparentPlace {
 		if (verbose)
 			displayVector("SPACE MOTION", m);
 		
-		StateVector sve = observer.getStateVector(jd);
+		StateVector sve = null;
+		Vector pSun = null;
+		
+		if (context != null) {
+			context.setTime(jd);
+			
+			sve = context.getObserverStateVector();
+			pSun = context.getSunStateVector().getPosition();
+		} else {
+			sve = observer.getStateVector(jd);
+			pSun = sun.getPosition(jd);
+		}
 		
 		Vector pEarth = sve.getPosition();
 		Vector vEarth = sve.getVelocity();
 		
-		Vector pSun = sun.getPosition(jd);
-		
 		if (verbose) {
 			displayVector("EARTH BARYCENTRIC POSITION", pEarth);
 			displayVector("EARTH BARYCENTRIC VELOCITY", vEarth);
@@ -154,9 +174,10 @@ public class StarApparentPlace {
 			displayVector("p2", p2);
 		
 		if (erm != null) {
-			Matrix precession = erm.precessionMatrix(fixedEpoch, jd);
+			Matrix precession = context != null ? new Matrix(context.getPrecessionMatrix(fixedEpoch, jd))
+					: erm.precessionMatrix(fixedEpoch, jd);
 		
-			Matrix nutation = erm.nutationMatrix(jd);
+			Matrix nutation = context != null ? context.getNutationMatrix(jd) : erm.nutationMatrix(jd);
 
 			precession.rightMultiplyBy(nutation);
 		
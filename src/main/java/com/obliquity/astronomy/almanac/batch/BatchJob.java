@@ -0,0 +1,121 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.batch;
+
+import java.io.File;
+import java.lang.reflect.Method;
+
+/*
+ * One line of a job manifest: a tool, its arguments and the file which
+ * receives its standard output.  The results are filled in by BatchRunner.
+ */
+
+public class BatchJob {
+	private final int number;
+	private final String toolName;
+	private final Method tool;
+	private final String[] args;
+	private final File output;
+	
+	private volatile boolean finished = false;
+	private volatile int status = -1;
+	private volatile long wallTime = 0;
+	private volatile long cpuTime = -1;
+	
+	BatchJob(int number, String toolName, Method tool, String[] args, File output) {
+		this.number = number;
+		this.toolName = toolName;
+		this.tool = tool;
+		this.args = args;
+		this.output = output;
+	}
+	
+	public int getNumber() {
+		return number;
+	}
+	
+	public String getToolName() {
+		return toolName;
+	}
+	
+	public String getClassName() {
+		return tool.getDeclaringClass().getName();
+	}
+	
+	Method getTool() {
+		return tool;
+	}
+	
+	public String[] getArguments() {
+		return args.clone();
+	}
+	
+	public File getOutput() {
+		return output;
+	}
+	
+	/*
+	 * Standard error is written to a file next to the output file, which is
+	 * only created if the tool writes to it.
+	 */
+	public File getErrorOutput() {
+		return new File(output.getPath() + ".err");
+	}
+	
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	public int getStatus() {
+		return status;
+	}
+	
+	/*
+	 * The elapsed time of the job in nanoseconds.
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+	
+	/*
+	 * The CPU time in nanoseconds used by the thread which ran the tool's run
+	 * method, or -1 if the JVM cannot measure it.  Threads which the tool
+	 * starts for itself are not included.
+	 */
+	public long getCpuTime() {
+		return cpuTime;
+	}
+	
+	void setResult(int status, long wallTime, long cpuTime) {
+		this.status = status;
+		this.wallTime = wallTime;
+		this.cpuTime = cpuTime;
+		this.finished = true;
+	}
+	
+	public String toString() {
+		return "#" + number + " " + toolName + " > " + output;
+	}
+}
@@ -0,0 +1,359 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.batch;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import com.obliquity.astronomy.almanac.EphemerisFile;
+import com.obliquity.astronomy.almanac.EphemerisRegistry;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.RecordCache;
+import com.obliquity.astronomy.almanac.daemon.ToolRunner;
+
+/*
+ * This class runs the jobs of a manifest in one JVM on a work-stealing pool.
+ * 
+ * Every ephemeris file which the jobs name with -ephemeris is registered in an
+ * EphemerisRegistry before the first job starts, and the registry is
+ * installed in JPLEphemeris while the jobs run.  The tools therefore share a
+ * single record cache, and each span of the ephemeris is read from disk once
+ * however many jobs need it.  A default ephemeris may be set, which is given
+ * to every job that does not name its own.
+ * 
+ * Each job's standard output goes to its output file and its standard error
+ * to a file of the same name with .err appended.  The tools run
+ * concurrently, so a tool which keeps mutable static state must guard it.
+ */
+
+public class BatchRunner {
+	private static final int BUFFER_SIZE = 65536;
+	
+	private final EphemerisRegistry registry;
+	private final int threads;
+	
+	private File defaultEphemeris = null;
+	private PrintStream progress = null;
+	
+	private final Set<File> registeredFiles = new HashSet<File>();
+	
+	private long elapsedTime = 0;
+	
+	/*
+	 * If threads is zero, the pool has one thread for each available
+	 * processor.
+	 */
+	public BatchRunner(EphemerisRegistry registry, int threads) {
+		if (threads < 0)
+			throw new IllegalArgumentException("Number of threads cannot be negative");
+		
+		this.registry = registry;
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+	
+	public int getThreadCount() {
+		return threads;
+	}
+	
+	public void setDefaultEphemeris(File file) {
+		this.defaultEphemeris = file;
+	}
+	
+	/*
+	 * If a progress stream is set, a line is written to it as each job
+	 * finishes.
+	 */
+	public void setProgressStream(PrintStream progress) {
+		this.progress = progress;
+	}
+	
+	/*
+	 * The elapsed time of the last call to run, in nanoseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+	
+	/*
+	 * Run the jobs and wait for all of them to finish.  The result of each job
+	 * is recorded in its BatchJob.  The return value is the number of jobs
+	 * which failed.
+	 */
+	public int run(List<BatchJob> jobs) throws IOException, JPLEphemerisException {
+		List<String[]> arguments = new ArrayList<String[]>(jobs.size());
+		
+		for (BatchJob job : jobs) {
+			String[] args = addDefaultEphemeris(job.getArguments());
+			
+			registerEphemerides(args);
+			
+			arguments.add(args);
+		}
+		
+		JPLEphemeris.setSharedRegistry(registry);
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		
+		long ticks = System.nanoTime();
+		
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(jobs.size());
+			
+			for (int i = 0; i < jobs.size(); i++) {
+				BatchJob job = jobs.get(i);
+				String[] args = arguments.get(i);
+				
+				tasks.add(pool.submit(() -> runJob(job, args)));
+			}
+			
+			for (ForkJoinTask<?> task : tasks)
+				task.join();
+		} finally {
+			elapsedTime = System.nanoTime() - ticks;
+			
+			pool.shutdown();
+			
+			try {
+				pool.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			JPLEphemeris.setSharedRegistry(null);
+		}
+		
+		int failures = 0;
+		
+		for (BatchJob job : jobs)
+			if (job.getStatus() != 0)
+				failures++;
+		
+		return failures;
+	}
+	
+	private String[] addDefaultEphemeris(String[] args) {
+		if (defaultEphemeris == null)
+			return args;
+		
+		for (String arg : args)
+			if (arg.equalsIgnoreCase("-ephemeris"))
+				return args;
+		
+		String[] extended = new String[args.length + 2];
+		
+		extended[0] = "-ephemeris";
+		extended[1] = defaultEphemeris.getPath();
+		
+		System.arraycopy(args, 0, extended, 2, args.length);
+		
+		return extended;
+	}
+	
+	/*
+	 * An ephemeris file which cannot be registered is reported here, and the
+	 * jobs which name it report the error again when they try to open it.
+	 */
+	private void registerEphemerides(String[] args) {
+		for (int i = 0; i < args.length - 1; i++) {
+			if (!args[i].equalsIgnoreCase("-ephemeris"))
+				continue;
+			
+			File file = new File(args[i + 1]);
+			
+			try {
+				File canonicalFile = file.getCanonicalFile();
+				
+				if (registeredFiles.add(canonicalFile)) {
+					EphemerisFile ephemerisFile = registry.register(canonicalFile);
+					
+					if (progress != null)
+						progress.println("# Registered " + ephemerisFile);
+				}
+			} catch (IOException | JPLEphemerisException e) {
+				if (progress != null)
+					progress.println("# Cannot register " + file + ": " + e.getMessage());
+			}
+		}
+	}
+	
+	private void runJob(BatchJob job, String[] args) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		boolean measureCpu = bean.isCurrentThreadCpuTimeSupported();
+		
+		long cpuTicks = measureCpu ? bean.getCurrentThreadCpuTime() : 0;
+		long ticks = System.nanoTime();
+		
+		int status;
+		
+		job.getErrorOutput().delete();
+		
+		try (PrintStream out = new PrintStream(openOutput(job.getOutput()));
+				PrintStream err = new PrintStream(new DeferredFileOutputStream(job.getErrorOutput()))) {
+			status = ToolRunner.run(job.getTool(), args, out, err);
+			
+			if (out.checkError())
+				throw new IOException("Cannot write " + job.getOutput());
+		} catch (IOException e) {
+			System.err.println("# Job " + job.getNumber() + ": " + e.getMessage());
+			status = 1;
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		cpuTicks = measureCpu ? bean.getCurrentThreadCpuTime() - cpuTicks : -1;
+		
+		job.setResult(status, ticks, cpuTicks);
+		
+		if (progress != null)
+			progress.printf("# Job %d: %s exited with status %d after %.3f s\n", job.getNumber(), job.getToolName(),
+					status, 1.0e-9 * ticks);
+	}
+	
+	private static OutputStream openOutput(File file) throws IOException {
+		createParentDirectory(file);
+		
+		return new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+	}
+	
+	private static void createParentDirectory(File file) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		
+		if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+			throw new IOException("Cannot create directory " + parent);
+	}
+	
+	/*
+	 * Write a table of the jobs, with their status, wall time and CPU time,
+	 * followed by a summary of the whole batch.  The concurrency is the total
+	 * wall time of the jobs divided by the elapsed time, which is the mean
+	 * number of jobs in progress; the number of processors used is the total
+	 * CPU time divided by the elapsed time.  On a machine with enough cores,
+	 * both approach the number of threads.
+	 */
+	public void writeReport(PrintStream ps, List<BatchJob> jobs) {
+		long totalWallTime = 0, totalCpuTime = 0;
+		int failures = 0;
+		boolean cpuMeasured = true;
+		
+		ps.println("   Job  Status    Wall (s)     CPU (s)  Tool / Output");
+		
+		for (BatchJob job : jobs) {
+			long cpuTime = job.getCpuTime();
+			
+			ps.printf("%6d  %6d  %10.3f  %10s  %s > %s\n", job.getNumber(), job.getStatus(),
+					1.0e-9 * job.getWallTime(), cpuTime < 0 ? "-" : String.format("%.3f", 1.0e-9 * cpuTime),
+					job.getToolName(), job.getOutput());
+			
+			totalWallTime += job.getWallTime();
+			
+			if (cpuTime < 0)
+				cpuMeasured = false;
+			else
+				totalCpuTime += cpuTime;
+			
+			if (job.getStatus() != 0)
+				failures++;
+		}
+		
+		ps.println();
+		ps.printf("Jobs:            %d (%d failed)\n", jobs.size(), failures);
+		ps.printf("Threads:         %d\n", threads);
+		ps.printf("Elapsed time:    %.3f s\n", 1.0e-9 * elapsedTime);
+		ps.printf("Total wall time: %.3f s\n", 1.0e-9 * totalWallTime);
+		
+		if (cpuMeasured)
+			ps.printf("Total CPU time:  %.3f s\n", 1.0e-9 * totalCpuTime);
+		
+		if (elapsedTime > 0) {
+			ps.printf("Concurrency:     %.2f jobs\n", (double) totalWallTime / (double) elapsedTime);
+			
+			if (cpuMeasured)
+				ps.printf("Processors used: %.2f\n", (double) totalCpuTime / (double) elapsedTime);
+		}
+		
+		RecordCache cache = registry.getCache();
+		
+		ps.printf("Cached records:  %d of %d, %d hits, %d misses, %d coalesced\n", cache.size(), cache.getCapacity(),
+				cache.getHitCount(), cache.getMissCount(), cache.getCoalescedCount());
+		
+		ps.flush();
+	}
+	
+	/*
+	 * A file output stream which is not opened until the first byte is
+	 * written, so that a job which writes nothing to standard error leaves no
+	 * empty file behind.
+	 */
+	private static class DeferredFileOutputStream extends OutputStream {
+		private final File file;
+		private OutputStream stream = null;
+		
+		DeferredFileOutputStream(File file) {
+			this.file = file;
+		}
+		
+		private OutputStream stream() throws IOException {
+			if (stream == null) {
+				createParentDirectory(file);
+				stream = new BufferedOutputStream(new FileOutputStream(file));
+			}
+			
+			return stream;
+		}
+		
+		public synchronized void write(int b) throws IOException {
+			stream().write(b);
+		}
+		
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			if (len > 0)
+				stream().write(b, off, len);
+		}
+		
+		public synchronized void flush() throws IOException {
+			if (stream != null)
+				stream.flush();
+		}
+		
+		public synchronized void close() throws IOException {
+			if (stream != null)
+				stream.close();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.daemon.ToolRunner;
+
+/*
+ * This class reads a job manifest.  Each line names a tool, the file which
+ * receives its output, and the tool's arguments:
+ * 
+ *     PhenomenaFinder   out/mars-2026.txt   -body mars -opposition -startdate 2026-01-01 -enddate 2028-01-01
+ *     SimpleAlmanac     out/moon.txt        -body moon -startdate 2026-10-01 -enddate 2026-11-01 -step 1
+ * 
+ * Arguments are separated by white space, and an argument which contains
+ * white space can be enclosed in single or double quotes.  Blank lines and
+ * lines which begin with # are ignored.
+ * 
+ * A tool is named by its class.  A simple class name is looked up in the
+ * test and phenomena packages and then in the core package; a name which
+ * contains a dot is taken relative to com.obliquity.astronomy.almanac unless
+ * it is already fully qualified.  The class must have the run method described
+ * in ToolRunner.
+ */
+
+public class JobManifest {
+	private static final String[] SEARCH_PACKAGES = { "test.", "phenomena.", "" };
+	
+	private JobManifest() {
+	}
+	
+	public static List<BatchJob> read(File file) throws IOException {
+		try (Reader reader = new FileReader(file)) {
+			return read(reader, file.getPath());
+		}
+	}
+	
+	public static List<BatchJob> read(Reader reader, String source) throws IOException {
+		BufferedReader br = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+		
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		
+		int lineNumber = 0;
+		
+		for (String line = br.readLine(); line != null; line = br.readLine()) {
+			lineNumber++;
+			
+			String trimmed = line.trim();
+			
+			if (trimmed.isEmpty() || trimmed.startsWith("#"))
+				continue;
+			
+			List<String> words = split(trimmed, source, lineNumber);
+			
+			if (words.size() < 2)
+				throw new IOException(source + ", line " + lineNumber + ": expected a tool name and an output file");
+			
+			String toolName = words.get(0);
+			
+			Method tool = findTool(toolName);
+			
+			if (tool == null)
+				throw new IOException(source + ", line " + lineNumber + ": unknown tool \"" + toolName + "\"");
+			
+			String[] args = words.subList(2, words.size()).toArray(new String[0]);
+			
+			jobs.add(new BatchJob(jobs.size() + 1, toolName, tool, args, new File(words.get(1))));
+		}
+		
+		return jobs;
+	}
+	
+	static Method findTool(String toolName) {
+		if (toolName.startsWith(ToolRunner.PACKAGE_PREFIX))
+			return ToolRunner.findTool(toolName);
+		
+		if (toolName.indexOf('.') >= 0)
+			return ToolRunner.findTool(ToolRunner.PACKAGE_PREFIX + toolName);
+		
+		for (String packageName : SEARCH_PACKAGES) {
+			Method tool = ToolRunner.findTool(ToolRunner.PACKAGE_PREFIX + packageName + toolName);
+			
+			if (tool != null)
+				return tool;
+		}
+		
+		return null;
+	}
+	
+	private static List<String> split(String line, String source, int lineNumber) throws IOException {
+		List<String> words = new ArrayList<String>();
+		
+		StringBuilder word = new StringBuilder();
+		boolean inWord = false;
+		char quote = 0;
+		
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			
+			if (quote != 0) {
+				if (c == quote)
+					quote = 0;
+				else
+					word.append(c);
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+				inWord = true;
+			} else if (Character.isWhitespace(c)) {
+				if (inWord) {
+					words.add(word.toString());
+					word.setLength(0);
+					inWord = false;
+				}
+			} else {
+				word.append(c);
+				inWord = true;
+			}
+		}
+		
+		if (quote != 0)
+			throw new IOException(source + ", line " + lineNumber + ": unterminated quoted argument");
+		
+		if (inWord)
+			words.add(word.toString());
+		
+		return words;
+	}
+}
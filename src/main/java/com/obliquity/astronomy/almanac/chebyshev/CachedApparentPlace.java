@@ -0,0 +1,434 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+/*
+ * A CachedApparentPlace answers the same queries as the ApparentPlace which
+ * it wraps, but from Chebyshev series fitted to the exact apparent place over
+ * segments of fixed length, one day by default.  Segments are fitted when a
+ * query first falls in them, and the least recently used segments are
+ * discarded when the cache is full.
+ * 
+ * The right ascension and declination of date and the geometric distance,
+ * which are what most callers need, are fitted directly, so that a query
+ * costs three series evaluations.  The right ascension is unwrapped within
+ * each segment and reduced to the range of atan2 after evaluation.  The
+ * remaining quantities (the light-path and heliocentric distances, the radial
+ * velocity, and the direction cosines of date, referred to the mean equator
+ * and equinox of date and to J2000) are only evaluated when requested.
+ * 
+ * As each segment is fitted, twice the sum of the magnitudes of the upper
+ * half of the coefficients of the right ascension and declination is taken
+ * as a bound on the angular error.  This covers both the truncation error and
+ * the small irregularities in the exact place which arise from the tolerance
+ * of its light-time iteration.  The largest bound so far is available from
+ * getEstimatedError, and can be checked against the exact apparent place.
+ * 
+ * Queries from an observer other than that of the wrapped apparent place are
+ * passed to the exact calculation.
+ */
+
+public class CachedApparentPlace extends ApparentPlace {
+	private static final Counter HITS = Metrics.counter("apparentPlaceCache.hits");
+	private static final Counter MISSES = Metrics.counter("apparentPlaceCache.misses");
+	private static final Counter EVICTIONS = Metrics.counter("apparentPlaceCache.evictions");
+	
+	public static final int DEFAULT_NUMBER_OF_COEFFICIENTS = 12;
+	public static final double DEFAULT_SEGMENT_LENGTH = 1.0;
+	public static final int DEFAULT_CAPACITY = 1024;
+	
+	private static final int RA_OF_DATE = 0;
+	private static final int DEC_OF_DATE = 1;
+	private static final int GEOMETRIC_DISTANCE = 2;
+	private static final int LIGHT_PATH_DISTANCE = 3;
+	private static final int HELIOCENTRIC_DISTANCE = 4;
+	private static final int RADIAL_VELOCITY = 5;
+	private static final int DC_OF_DATE = 6;
+	private static final int DC_MEAN = 9;
+	private static final int DC_J2000 = 12;
+	private static final int NUMBER_OF_COMPONENTS = 15;
+	
+	private static final double TWO_PI = 2.0 * Math.PI;
+	
+	private final ApparentPlace exact;
+	private final int nCoefficients;
+	private final double segmentLength;
+	private final int capacity;
+	
+	private final double[] zeroes;
+	private final ChebyshevTransform transform;
+	private final double[][] values;
+	
+	private final LinkedHashMap<Long, Segment> segments;
+	
+	private Segment lastSegment = null;
+	
+	private double lastTime = Double.NaN;
+	private double lastX;
+	private boolean fromCache = false;
+	private boolean isValidSecondary = false;
+	
+	private double estimatedError = 0.0;
+	private long hits = 0, misses = 0;
+	
+	private static class Segment {
+		final double jdStart;
+		final double[] coeffs;
+		
+		Segment(double jdStart, double[] coeffs) {
+			this.jdStart = jdStart;
+			this.coeffs = coeffs;
+		}
+	}
+	
+	public CachedApparentPlace(ApparentPlace exact) {
+		this(exact, DEFAULT_NUMBER_OF_COEFFICIENTS, DEFAULT_SEGMENT_LENGTH, DEFAULT_CAPACITY);
+	}
+	
+	public CachedApparentPlace(ApparentPlace exact, int nCoefficients, double segmentLength, int capacity) {
+		super(exact.getObserver(), exact.getTarget(), exact.getSun(), exact.getEarthRotationModel());
+		
+		if (exact.getEarthRotationModel() == null)
+			throw new IllegalArgumentException("An Earth rotation model is required");
+		
+		if (nCoefficients < 2)
+			throw new IllegalArgumentException("At least two coefficients are required");
+		
+		if (!(segmentLength > 0.0))
+			throw new IllegalArgumentException("Segment length must be positive");
+		
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive");
+		
+		this.exact = exact;
+		this.nCoefficients = nCoefficients;
+		this.segmentLength = segmentLength;
+		this.capacity = capacity;
+		
+		zeroes = new double[nCoefficients];
+		
+		Chebyshev.calculateChebyshevZeroes(zeroes);
+		
+		transform = new ChebyshevTransform(nCoefficients);
+		
+		values = new double[NUMBER_OF_COMPONENTS][nCoefficients];
+		
+		segments = new LinkedHashMap<Long, Segment>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Long, Segment> eldest) {
+				boolean full = size() > CachedApparentPlace.this.capacity;
+				
+				if (full && Metrics.ENABLED)
+					EVICTIONS.increment();
+				
+				return full;
+			}
+		};
+	}
+	
+	public ApparentPlace getExactApparentPlace() {
+		return exact;
+	}
+	
+	public int getNumberOfCoefficients() {
+		return nCoefficients;
+	}
+	
+	public double getSegmentLength() {
+		return segmentLength;
+	}
+	
+	public int getNumberOfSegments() {
+		return segments.size();
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getMisses() {
+		return misses;
+	}
+	
+	/*
+	 * The largest bound on the angular error of the place of date, in
+	 * radians, over all segments fitted so far.
+	 */
+	
+	public double getEstimatedError() {
+		return estimatedError;
+	}
+	
+	public void clear() {
+		segments.clear();
+		lastSegment = null;
+		lastTime = Double.NaN;
+	}
+	
+	public void calculateApparentPlace(double t, MovingPoint observer) throws JPLEphemerisException {
+		if (observer != defaultObserver) {
+			fromCache = false;
+			lastTime = Double.NaN;
+			super.calculateApparentPlace(t, observer);
+			return;
+		}
+		
+		if (fromCache && t == lastTime)
+			return;
+		
+		Segment segment = lastSegment;
+		
+		if (segment == null || !(t >= segment.jdStart && t <= segment.jdStart + segmentLength)) {
+			segment = findSegment(t);
+			lastSegment = segment;
+		} else {
+			hits++;
+			
+			if (Metrics.ENABLED)
+				HITS.increment();
+		}
+		
+		double x = 2.0 * (t - segment.jdStart) / segmentLength - 1.0;
+		
+		double[] c = segment.coeffs;
+		
+		double ra = evaluate(c, RA_OF_DATE, x);
+		
+		if (ra > Math.PI)
+			ra -= TWO_PI;
+		else if (ra <= -Math.PI)
+			ra += TWO_PI;
+		
+		raOfDate = ra;
+		decOfDate = evaluate(c, DEC_OF_DATE, x);
+		gd = evaluate(c, GEOMETRIC_DISTANCE, x);
+		
+		lastTime = t;
+		lastX = x;
+		
+		fromCache = true;
+		isValidSecondary = false;
+		isValid = true;
+		isValidOfDate = true;
+	}
+	
+	private Segment findSegment(double t) throws JPLEphemerisException {
+		long key = (long) Math.floor((t - 0.5) / segmentLength);
+		
+		double jdStart = 0.5 + (double) key * segmentLength;
+		
+		// Times on the boundary between segments may be assigned to either.
+		if (t > jdStart + segmentLength)
+			key++;
+		
+		Segment segment = segments.get(key);
+		
+		if (segment != null) {
+			hits++;
+			
+			if (Metrics.ENABLED)
+				HITS.increment();
+			
+			return segment;
+		}
+		
+		misses++;
+		
+		if (Metrics.ENABLED)
+			MISSES.increment();
+		
+		segment = fitSegment(0.5 + (double) key * segmentLength);
+		
+		segments.put(key, segment);
+		
+		return segment;
+	}
+	
+	private Segment fitSegment(double jdStart) throws JPLEphemerisException {
+		int N = nCoefficients;
+		
+		double half = 0.5 * segmentLength;
+		double mid = jdStart + half;
+		
+		for (int i = 0; i < N; i++) {
+			exact.calculateApparentPlace(mid + half * zeroes[i]);
+			
+			double ra = exact.getRightAscensionOfDate();
+			
+			// Keep the right ascension continuous within the segment.
+			if (i > 0)
+				ra += TWO_PI * Math.rint((values[RA_OF_DATE][i - 1] - ra) / TWO_PI);
+			
+			values[RA_OF_DATE][i] = ra;
+			values[DEC_OF_DATE][i] = exact.getDeclinationOfDate();
+			
+			store(exact.getDirectionCosinesOfDate(), DC_OF_DATE, i);
+			
+			values[GEOMETRIC_DISTANCE][i] = exact.getGeometricDistance();
+			values[LIGHT_PATH_DISTANCE][i] = exact.getLightPathDistance();
+			values[HELIOCENTRIC_DISTANCE][i] = exact.getHeliocentricDistance();
+			values[RADIAL_VELOCITY][i] = exact.getRadialVelocity();
+			
+			double raMean = exact.getMeanRightAscension();
+			double decMean = exact.getMeanDeclination();
+			
+			values[DC_MEAN][i] = Math.cos(decMean) * Math.cos(raMean);
+			values[DC_MEAN + 1][i] = Math.cos(decMean) * Math.sin(raMean);
+			values[DC_MEAN + 2][i] = Math.sin(decMean);
+			
+			store(exact.getDirectionCosinesJ2000(), DC_J2000, i);
+		}
+		
+		double[] coeffs = new double[NUMBER_OF_COMPONENTS * N];
+		double[] c = new double[N];
+		
+		double cosDec = Math.cos(values[DEC_OF_DATE][N / 2]);
+		
+		for (int j = 0; j < NUMBER_OF_COMPONENTS; j++) {
+			transform.transform(values[j], c);
+			
+			System.arraycopy(c, 0, coeffs, j * N, N);
+		}
+		
+		double tailRA = 0.0, tailDec = 0.0;
+		
+		for (int k = N / 2; k < N; k++) {
+			tailRA += Math.abs(coeffs[RA_OF_DATE * N + k]);
+			tailDec += Math.abs(coeffs[DEC_OF_DATE * N + k]);
+		}
+		
+		estimatedError = Math.max(estimatedError, 2.0 * (tailRA * cosDec + tailDec));
+		
+		return new Segment(jdStart, coeffs);
+	}
+	
+	private void store(Vector v, int component, int i) {
+		values[component][i] = v.getX();
+		values[component + 1][i] = v.getY();
+		values[component + 2][i] = v.getZ();
+	}
+	
+	private double evaluate(double[] coeffs, int component, double x) {
+		return Chebyshev.evaluate(coeffs, component * nCoefficients, nCoefficients, x);
+	}
+	
+	private void calculateSecondary() {
+		if (!fromCache || isValidSecondary)
+			return;
+		
+		double[] c = lastSegment.coeffs;
+		
+		pl = evaluate(c, LIGHT_PATH_DISTANCE, lastX);
+		hd = evaluate(c, HELIOCENTRIC_DISTANCE, lastX);
+		radialVelocity = evaluate(c, RADIAL_VELOCITY, lastX);
+		
+		double x = evaluate(c, DC_OF_DATE, lastX);
+		double y = evaluate(c, DC_OF_DATE + 1, lastX);
+		double z = evaluate(c, DC_OF_DATE + 2, lastX);
+		
+		dcOfDate = new Vector(x, y, z);
+		dcOfDate.normalise();
+		
+		x = evaluate(c, DC_MEAN, lastX);
+		y = evaluate(c, DC_MEAN + 1, lastX);
+		z = evaluate(c, DC_MEAN + 2, lastX);
+		
+		raMean = Math.atan2(y, x);
+		decMean = Math.atan2(z, Math.sqrt(x * x + y * y));
+		
+		x = evaluate(c, DC_J2000, lastX);
+		y = evaluate(c, DC_J2000 + 1, lastX);
+		z = evaluate(c, DC_J2000 + 2, lastX);
+		
+		dcJ2000 = new Vector(x, y, z);
+		dcJ2000.normalise();
+		
+		raJ2000 = Math.atan2(y, x);
+		decJ2000 = Math.atan2(z, Math.sqrt(x * x + y * y));
+		
+		isValidSecondary = true;
+	}
+	
+	public Vector getDirectionCosinesOfDate() throws IllegalStateException {
+		calculateSecondary();
+		return super.getDirectionCosinesOfDate();
+	}
+	
+	public double getLightPathDistance() throws IllegalStateException {
+		calculateSecondary();
+		return super.getLightPathDistance();
+	}
+	
+	public double getLightTime() throws IllegalStateException {
+		calculateSecondary();
+		return super.getLightTime();
+	}
+	
+	public double getHeliocentricDistance() throws IllegalStateException {
+		calculateSecondary();
+		return super.getHeliocentricDistance();
+	}
+	
+	public double getRadialVelocity() throws IllegalStateException {
+		calculateSecondary();
+		return super.getRadialVelocity();
+	}
+
+	public Vector getDirectionCosinesJ2000() throws IllegalStateException {
+		calculateSecondary();
+		return super.getDirectionCosinesJ2000();
+	}
+	
+	public double getMeanRightAscension() throws IllegalStateException {
+		calculateSecondary();
+		return super.getMeanRightAscension();
+	}
+
+	public double getMeanDeclination() throws IllegalStateException {
+		calculateSecondary();
+		return super.getMeanDeclination();
+	}
+
+	public double getRightAscensionJ2000() throws IllegalStateException {
+		calculateSecondary();
+		return super.getRightAscensionJ2000();
+	}
+
+	public double getDeclinationJ2000() throws IllegalStateException {
+		calculateSecondary();
+		return super.getDeclinationJ2000();
+	}
+}
@@ -65,27 +65,179 @@ public class Chebyshev {
 		
 		calculateChebyshevZeroes(zeroes);
 		
-		double[][] T = new double[N][N];
-		
-		for (int i = 0; i < N; i++)
-			calculateChebyshevPolynomials(zeroes[i], T[i]);
-		
 		double[] values = new double[N];
 		
 		for (int i = 0; i < N; i++)
 			values[i] = e.evaluate(zeroes[i]);
 		
+		calculateChebyshevCoefficients(values, coeffs);
+	}
+	
+	/*
+	 * Calculate the Chebyshev coefficients of a function from its values at
+	 * the zeroes of T_N, in the order returned by calculateChebyshevZeroes.
+	 * The number of coefficients N is the length of the coeffs array.
+	 * 
+	 * Callers which fit many series of the same length should keep a
+	 * ChebyshevTransform, which avoids setting up the transform on each call.
+	 * Here, a transform is only set up for N where the FFT is used, and the
+	 * series is otherwise projected directly, using the recurrence for T_k.
+	 */
+	
+	public static void calculateChebyshevCoefficients(double[] values, double[] coeffs) {
+		if (values == null || coeffs == null)
+			throw new IllegalArgumentException("null passed where array expected");
+		
+		int N = coeffs.length;
+		
+		if (values.length < N)
+			throw new IllegalArgumentException("Expected " + N + " function values but got " + values.length);
+		
+		if (ChebyshevTransform.isFastTransformEfficient(N)) {
+			new ChebyshevTransform(N).transform(values, coeffs);
+			return;
+		}
+		
+		double[] zeroes = new double[N];
+		
+		calculateChebyshevZeroes(zeroes);
+		
+		for (int k = 0; k < N; k++)
+			coeffs[k] = 0.0;
+		
 		for (int i = 0; i < N; i++) {
-			coeffs[i] = 0.0;
+			double x = zeroes[i];
+			double v = values[i];
 			
-			for (int j = 0; j < N; j++)
-				coeffs[i] += T[j][i] * values[j];
+			double tLast = 1.0, t = x;
 			
-			coeffs[i] /= (double)N;
+			coeffs[0] += v;
 			
-			if (i > 0)
-				coeffs[i] *= 2.0; 
+			for (int k = 1; k < N; k++) {
+				coeffs[k] += v * t;
+				
+				double tNext = 2.0 * x * t - tLast;
+				
+				tLast = t;
+				t = tNext;
+			}
 		}
+		
+		for (int k = 0; k < N; k++)
+			coeffs[k] *= (k == 0 ? 1.0 : 2.0) / (double)N;
+	}
+	
+	/*
+	 * Evaluate the series c[0] + c[1] T_1(x) + ... by the Clenshaw recurrence.
+	 */
+	
+	public static double evaluate(double[] c, double x) {
+		return evaluate(c, 0, c.length, x);
+	}
+	
+	/*
+	 * Evaluate the series of n coefficients which starts at c[offset].
+	 */
+	
+	public static double evaluate(double[] c, int offset, int n, double x) {
+		double twox = 2.0 * x;
+		double b1 = 0.0, b2 = 0.0;
+		
+		for (int k = offset + n - 1; k > offset; k--) {
+			double b0 = twox * b1 - b2 + c[k];
+			b2 = b1;
+			b1 = b0;
+		}
+		
+		return c[offset] + x * b1 - b2;
+	}
+	
+	/*
+	 * Evaluate the series and its derivative with respect to x in a single
+	 * pass.  The value is stored in result[0] and the derivative in result[1].
+	 */
+	
+	public static void evaluateWithDerivative(double[] c, double x, double[] result) {
+		evaluateWithDerivative(c, 0, c.length, x, result);
+	}
+	
+	public static void evaluateWithDerivative(double[] c, int offset, int n, double x, double[] result) {
+		double twox = 2.0 * x;
+		double b1 = 0.0, b2 = 0.0;
+		double d1 = 0.0, d2 = 0.0;
+		
+		for (int k = offset + n - 1; k > offset; k--) {
+			double b0 = twox * b1 - b2 + c[k];
+			double d0 = twox * d1 - d2 + 2.0 * b1;
+			
+			b2 = b1;
+			b1 = b0;
+			
+			d2 = d1;
+			d1 = d0;
+		}
+		
+		result[0] = c[offset] + x * b1 - b2;
+		result[1] = b1 + x * d1 - d2;
+	}
+	
+	/*
+	 * Calculate the coefficients of the derivative with respect to x, using the
+	 * recurrence d[k-1] = d[k+1] + 2 k c[k].  The derivative has one fewer
+	 * significant coefficient, so d[N-1] is zero.
+	 */
+	
+	public static void calculateDerivativeCoefficients(double[] c, double[] d) {
+		if (c == null || d == null)
+			throw new IllegalArgumentException("null passed where array expected");
+		
+		int N = c.length;
+		
+		if (d.length != N)
+			throw new IllegalArgumentException("Expected " + N + " derivative coefficients but got " + d.length);
+		
+		d[N - 1] = 0.0;
+		
+		if (N > 1)
+			d[N - 2] = 2.0 * (N - 1) * c[N - 1];
+		
+		for (int k = N - 2; k >= 1; k--)
+			d[k - 1] = d[k + 1] + 2.0 * k * c[k];
+		
+		d[0] *= 0.5;
+	}
+	
+	/*
+	 * The number of leading coefficients needed to represent the series to
+	 * within the specified tolerance: the sum of the absolute values of the
+	 * discarded coefficients, which bounds the truncation error on [-1, +1],
+	 * does not exceed the tolerance.  At least one coefficient is retained.
+	 */
+	
+	public static int truncate(double[] c, double tolerance) {
+		double tail = 0.0;
+		
+		int n = c.length;
+		
+		while (n > 1 && tail + Math.abs(c[n - 1]) <= tolerance) {
+			tail += Math.abs(c[n - 1]);
+			n--;
+		}
+		
+		return n;
+	}
+	
+	/*
+	 * The number of coefficients needed by each component of a vector series.
+	 * The tolerance applies to each component separately.
+	 */
+	
+	public static int truncate(double[][] c, double tolerance) {
+		int n = 1;
+		
+		for (int j = 0; j < c.length; j++)
+			n = Math.max(n, truncate(c[j], tolerance));
+		
+		return n;
 	}
-
 }
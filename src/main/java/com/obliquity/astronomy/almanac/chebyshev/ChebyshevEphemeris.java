@@ -0,0 +1,326 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class presents a list of contiguous Chebyshev segments as a
+ * MovingPoint.  The segments may have different lengths and different
+ * numbers of coefficients, as produced by ChebyshevFitter.  A SegmentIndex
+ * is used to find the segment which contains a given time.
+ * 
+ * The segments can be written to and read from a binary file.  The layout
+ * of the file is:
+ * 
+ *   magic number "CHEB" (4 bytes)
+ *   format version (int)
+ *   body code (int)
+ *   epoch of the reference frame, as a Julian Date (double)
+ *   number of segments, n (int)
+ *   segment boundaries: n+1 doubles, in increasing order
+ *   number of coefficients per component for each segment: n ints
+ *   coefficients: for each segment, the X, Y and Z coefficients in turn
+ * 
+ * All numbers are little-endian.  Times are Julian Dates in TDB.  The
+ * coefficients give barycentric positions in AU when the file represents a
+ * MovingPoint, but the evaluate method may be used to serve coefficients in
+ * any units and relative to any origin, as NereidIntegration does.
+ * 
+ * The JPL ephemeris, which may be null, is not used to calculate positions.
+ * It is returned by getEphemeris, since classes such as ApparentPlace use it
+ * to find the value of the astronomical unit.
+ */
+
+public class ChebyshevEphemeris implements MovingPoint {
+	private static final int MAGIC = 0x42454843;
+	private static final int VERSION = 1;
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	private final ChebyshevSegment[] segments;
+	private final SegmentIndex index;
+	private final int bodyCode;
+	private final double epoch;
+	private final JPLEphemeris ephemeris;
+	
+	/*
+	 * Successive calls usually fall in the same segment, so we check the
+	 * most recently used segment before consulting the index.
+	 */
+	
+	private int lastSegment = 0;
+	
+	private final double[] pos = new double[3], vel = new double[3];
+	
+	private final StateVector statevector = new StateVector(new Vector(), new Vector());
+	
+	public ChebyshevEphemeris(List<ChebyshevSegment> segments, int bodyCode, double epoch, JPLEphemeris ephemeris) {
+		this(segments.toArray(new ChebyshevSegment[segments.size()]), bodyCode, epoch, ephemeris);
+	}
+	
+	private ChebyshevEphemeris(ChebyshevSegment[] segments, int bodyCode, double epoch, JPLEphemeris ephemeris) {
+		if (segments.length == 0)
+			throw new IllegalArgumentException("At least one segment is required");
+		
+		double[] boundaries = new double[segments.length + 1];
+		
+		boundaries[0] = segments[0].getStartDate();
+		
+		for (int k = 0; k < segments.length; k++) {
+			if (k > 0 && segments[k].getStartDate() != segments[k - 1].getEndDate())
+				throw new IllegalArgumentException("Segments " + (k - 1) + " and " + k + " are not contiguous");
+			
+			boundaries[k + 1] = segments[k].getEndDate();
+		}
+		
+		this.segments = segments;
+		this.index = new SegmentIndex(boundaries);
+		this.bodyCode = bodyCode;
+		this.epoch = epoch;
+		this.ephemeris = ephemeris;
+	}
+	
+	private ChebyshevSegment findSegment(double time) throws JPLEphemerisException {
+		ChebyshevSegment segment = segments[lastSegment];
+		
+		if (segment.contains(time))
+			return segment;
+		
+		int k = index.findSegment(time);
+		
+		if (k < 0)
+			throw new JPLEphemerisException("Date " + time + " is outside the range of the Chebyshev ephemeris");
+		
+		lastSegment = k;
+		
+		return segments[k];
+	}
+	
+	/*
+	 * Evaluate the coefficients directly, without any of the conversions to
+	 * Vector and StateVector objects.  The velocity is calculated only if vel
+	 * is not null.
+	 */
+	
+	public void evaluate(double time, double[] pos, double[] vel) throws JPLEphemerisException {
+		findSegment(time).evaluate(time, pos, vel);
+	}
+	
+	public int getNumberOfSegments() {
+		return segments.length;
+	}
+	
+	public ChebyshevSegment getSegment(int k) {
+		return segments[k];
+	}
+
+	public StateVector getStateVector(double time) throws JPLEphemerisException {
+		getStateVector(time, statevector);
+		return statevector;
+	}
+
+	public void getStateVector(double time, StateVector sv) throws JPLEphemerisException {
+		findSegment(time).evaluate(time, pos, vel);
+		
+		sv.setPositionComponents(pos);
+		sv.setVelocityComponents(vel);
+	}
+
+	public Vector getPosition(double time) throws JPLEphemerisException {
+		Vector position = statevector.getPosition();
+		getPosition(time, position);
+		return position;
+	}
+
+	public void getPosition(double time, Vector p) throws JPLEphemerisException {
+		findSegment(time).evaluate(time, pos, null);
+		
+		p.setComponents(pos);
+	}
+
+	public boolean isValidDate(double time) {
+		return index.contains(time);
+	}
+
+	public double getEarliestDate() {
+		return index.getStartDate();
+	}
+
+	public double getLatestDate() {
+		return index.getEndDate();
+	}
+
+	public double getEpoch() {
+		return epoch;
+	}
+
+	public int getBodyCode() {
+		return bodyCode;
+	}
+
+	public JPLEphemeris getEphemeris() {
+		return ephemeris;
+	}
+	
+	public void write(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel fc = raf.getChannel()) {
+			fc.truncate(0);
+			
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(bodyCode);
+			buffer.putDouble(epoch);
+			buffer.putInt(segments.length);
+			
+			for (int k = 0; k <= segments.length; k++) {
+				if (buffer.remaining() < 8)
+					flush(buffer, fc);
+				
+				buffer.putDouble(k < segments.length ? segments[k].getStartDate() : segments[k - 1].getEndDate());
+			}
+			
+			for (ChebyshevSegment segment : segments) {
+				if (buffer.remaining() < 4)
+					flush(buffer, fc);
+				
+				buffer.putInt(segment.getNumberOfCoefficients());
+			}
+			
+			for (ChebyshevSegment segment : segments) {
+				int nCoeffs = segment.getNumberOfCoefficients();
+				
+				for (int j = 0; j < 3; j++) {
+					for (int i = 0; i < nCoeffs; i++) {
+						if (buffer.remaining() < 8)
+							flush(buffer, fc);
+						
+						buffer.putDouble(segment.getCoefficient(j, i));
+					}
+				}
+			}
+			
+			flush(buffer, fc);
+		}
+	}
+	
+	private static void flush(ByteBuffer buffer, FileChannel fc) throws IOException {
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+			fc.write(buffer);
+		
+		buffer.clear();
+	}
+	
+	public static ChebyshevEphemeris read(File file, JPLEphemeris ephemeris) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel fc = raf.getChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.limit(0);
+			
+			fill(buffer, fc, 24);
+			
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("File " + file + " is not a Chebyshev ephemeris");
+			
+			int version = buffer.getInt();
+			
+			if (version != VERSION)
+				throw new IOException("Unsupported Chebyshev ephemeris version " + version);
+			
+			int bodyCode = buffer.getInt();
+			double epoch = buffer.getDouble();
+			int nSegments = buffer.getInt();
+			
+			if (nSegments < 1)
+				throw new IOException("File " + file + " contains no segments");
+			
+			double[] boundaries = new double[nSegments + 1];
+			
+			for (int k = 0; k <= nSegments; k++) {
+				fill(buffer, fc, 8);
+				boundaries[k] = buffer.getDouble();
+			}
+			
+			int[] nCoeffs = new int[nSegments];
+			
+			for (int k = 0; k < nSegments; k++) {
+				fill(buffer, fc, 4);
+				nCoeffs[k] = buffer.getInt();
+			}
+			
+			ChebyshevSegment[] segments = new ChebyshevSegment[nSegments];
+			
+			for (int k = 0; k < nSegments; k++) {
+				double[][] coeffs = new double[3][nCoeffs[k]];
+				
+				for (int j = 0; j < 3; j++) {
+					for (int i = 0; i < nCoeffs[k]; i++) {
+						fill(buffer, fc, 8);
+						coeffs[j][i] = buffer.getDouble();
+					}
+				}
+				
+				segments[k] = new ChebyshevSegment(boundaries[k], boundaries[k + 1], coeffs);
+			}
+			
+			return new ChebyshevEphemeris(segments, bodyCode, epoch, ephemeris);
+		}
+	}
+	
+	/*
+	 * Ensure that at least the specified number of bytes are available to
+	 * be read from the buffer.
+	 */
+	
+	private static void fill(ByteBuffer buffer, FileChannel fc, int needed) throws IOException {
+		if (buffer.remaining() >= needed)
+			return;
+		
+		buffer.compact();
+		
+		while (buffer.position() < needed) {
+			if (fc.read(buffer) < 0)
+				throw new IOException("Unexpected end of file");
+		}
+		
+		buffer.flip();
+	}
+}
@@ -0,0 +1,215 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class samples the position of any MovingPoint over a range of dates
+ * and fits Chebyshev polynomials to it, choosing the length of each segment
+ * so that the fitted position agrees with the original to within a given
+ * tolerance.
+ * 
+ * Each trial segment is fitted at the zeroes of T_N, and then checked at the
+ * extrema of T_N, which lie between the zeroes and at the ends of the
+ * segment.  If the largest error in any component exceeds the tolerance, the
+ * segment is halved and fitted again.  After a segment whose error is much
+ * smaller than the tolerance, the next trial segment is twice as long.
+ */
+
+public class ChebyshevFitter {
+	public static final int DEFAULT_NUMBER_OF_COEFFICIENTS = 12;
+	public static final double DEFAULT_TOLERANCE = 1.0e-10;
+	
+	private static final double GROWTH_THRESHOLD = 1.0 / 64.0;
+	
+	private int nCoefficients = DEFAULT_NUMBER_OF_COEFFICIENTS;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double initialSegmentLength = 1.0;
+	private double minimumSegmentLength = 1.0 / 1440.0;
+	private double maximumSegmentLength = 64.0;
+	
+	private long nEvaluations, nRejected;
+	private double maximumError;
+	
+	public void setNumberOfCoefficients(int nCoefficients) {
+		if (nCoefficients < 2)
+			throw new IllegalArgumentException("At least two coefficients are required");
+		
+		this.nCoefficients = nCoefficients;
+	}
+	
+	public int getNumberOfCoefficients() {
+		return nCoefficients;
+	}
+	
+	/*
+	 * The tolerance is the largest permitted error in any component of the
+	 * position, in AU.
+	 */
+	
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0.0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		this.tolerance = tolerance;
+	}
+	
+	public double getTolerance() {
+		return tolerance;
+	}
+	
+	public void setSegmentLengths(double initial, double minimum, double maximum) {
+		if (!(minimum > 0.0 && minimum <= initial && initial <= maximum))
+			throw new IllegalArgumentException("Segment lengths must satisfy 0 < minimum <= initial <= maximum");
+		
+		initialSegmentLength = initial;
+		minimumSegmentLength = minimum;
+		maximumSegmentLength = maximum;
+	}
+	
+	/*
+	 * Statistics for the most recent call to fit.  If a segment of the
+	 * minimum length cannot meet the tolerance, it is accepted anyway, and
+	 * the maximum error will then exceed the tolerance.
+	 */
+	
+	public long getNumberOfEvaluations() {
+		return nEvaluations;
+	}
+	
+	public long getNumberOfRejectedSegments() {
+		return nRejected;
+	}
+	
+	public double getMaximumError() {
+		return maximumError;
+	}
+	
+	public ChebyshevEphemeris createEphemeris(MovingPoint mp, double jdStart, double jdEnd)
+			throws JPLEphemerisException {
+		return new ChebyshevEphemeris(fit(mp, jdStart, jdEnd), mp.getBodyCode(), mp.getEpoch(),
+				mp.getEphemeris());
+	}
+	
+	public List<ChebyshevSegment> fit(MovingPoint mp, double jdStart, double jdEnd) throws JPLEphemerisException {
+		if (!(jdEnd > jdStart))
+			throw new IllegalArgumentException("End date must be later than start date");
+		
+		nEvaluations = 0;
+		nRejected = 0;
+		maximumError = 0.0;
+		
+		int N = nCoefficients;
+		
+		double[] zeroes = new double[N];
+		
+		Chebyshev.calculateChebyshevZeroes(zeroes);
+		
+		ChebyshevTransform transform = new ChebyshevTransform(N);
+		
+		double[][] values = new double[3][N];
+		
+		double[] actual = new double[3], fitted = new double[3];
+		
+		Vector position = new Vector();
+		
+		List<ChebyshevSegment> segments = new ArrayList<ChebyshevSegment>();
+		
+		double t0 = jdStart;
+		double length = Math.min(initialSegmentLength, jdEnd - jdStart);
+		
+		while (t0 < jdEnd) {
+			double t1 = t0 + length;
+			
+			/*
+			 * Avoid leaving a sliver at the end of the range.
+			 */
+			
+			if (t1 > jdEnd || jdEnd - t1 < 0.01 * length)
+				t1 = jdEnd;
+			
+			double mid = 0.5 * (t0 + t1);
+			double half = 0.5 * (t1 - t0);
+			
+			for (int i = 0; i < N; i++) {
+				mp.getPosition(mid + half * zeroes[i], position);
+				
+				values[0][i] = position.getX();
+				values[1][i] = position.getY();
+				values[2][i] = position.getZ();
+			}
+			
+			nEvaluations += N;
+			
+			double[][] coeffs = new double[3][N];
+			
+			transform.transform(values, coeffs);
+			
+			ChebyshevSegment segment = new ChebyshevSegment(t0, t1, coeffs);
+			
+			double error = 0.0;
+			
+			for (int i = 0; i <= N; i++) {
+				double t = mid + half * Math.cos(Math.PI * (double)i / (double)N);
+				
+				mp.getPosition(t, position);
+				
+				actual[0] = position.getX();
+				actual[1] = position.getY();
+				actual[2] = position.getZ();
+				
+				segment.evaluate(t, fitted, null);
+				
+				for (int j = 0; j < 3; j++)
+					error = Math.max(error, Math.abs(fitted[j] - actual[j]));
+			}
+			
+			nEvaluations += N + 1;
+			
+			if (error > tolerance && 0.5 * (t1 - t0) >= minimumSegmentLength) {
+				nRejected++;
+				length = 0.5 * (t1 - t0);
+				continue;
+			}
+			
+			segments.add(segment);
+			
+			maximumError = Math.max(maximumError, error);
+			
+			if (error < GROWTH_THRESHOLD * tolerance)
+				length = Math.min(2.0 * length, maximumSegmentLength);
+			
+			t0 = t1;
+		}
+		
+		return segments;
+	}
+}
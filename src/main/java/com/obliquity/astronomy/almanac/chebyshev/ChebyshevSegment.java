@@ -0,0 +1,112 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+/*
+ * A set of Chebyshev coefficients which represents the three components
+ * of a position vector over a single interval of time.
+ * 
+ * The coefficients follow the convention of the JPL ephemerides and of
+ * Chebyshev.calculateChebyshevCoefficients: the value is the sum of c[k] T_k(x)
+ * for k = 0 to N-1, where x is the time mapped onto the interval [-1, +1].
+ */
+
+public class ChebyshevSegment {
+	private final double jdStart, jdEnd;
+	private final double[][] coeffs;
+	
+	public ChebyshevSegment(double jdStart, double jdEnd, double[][] coeffs) {
+		if (!(jdEnd > jdStart))
+			throw new IllegalArgumentException("End of segment must be later than start");
+		
+		if (coeffs == null || coeffs.length != 3 || coeffs[0].length < 2 ||
+				coeffs[1].length != coeffs[0].length || coeffs[2].length != coeffs[0].length)
+			throw new IllegalArgumentException("Expected three sets of at least two coefficients");
+		
+		this.jdStart = jdStart;
+		this.jdEnd = jdEnd;
+		this.coeffs = coeffs;
+	}
+	
+	public double getStartDate() {
+		return jdStart;
+	}
+	
+	public double getEndDate() {
+		return jdEnd;
+	}
+	
+	public int getNumberOfCoefficients() {
+		return coeffs[0].length;
+	}
+	
+	public double getCoefficient(int component, int k) {
+		return coeffs[component][k];
+	}
+	
+	public boolean contains(double t) {
+		return jdStart <= t && t <= jdEnd;
+	}
+	
+	/*
+	 * Evaluate the position, and the velocity if vel is not null, at time t.
+	 * The velocity is the derivative with respect to time in days.
+	 */
+	
+	public void evaluate(double t, double[] pos, double[] vel) {
+		int N = coeffs[0].length;
+		
+		double span = jdEnd - jdStart;
+		
+		double x = 2.0 * (t - jdStart) / span - 1.0;
+		double twox = 2.0 * x;
+		
+		for (int i = 0; i < 3; i++) {
+			double[] c = coeffs[i];
+			
+			// Clenshaw recurrence for the value and its derivative.
+			double b1 = 0.0, b2 = 0.0;
+			double d1 = 0.0, d2 = 0.0;
+			
+			for (int k = N - 1; k >= 1; k--) {
+				double b0 = twox * b1 - b2 + c[k];
+				
+				if (vel != null) {
+					double d0 = twox * d1 - d2 + 2.0 * b1;
+					d2 = d1;
+					d1 = d0;
+				}
+				
+				b2 = b1;
+				b1 = b0;
+			}
+			
+			pos[i] = c[0] + x * b1 - b2;
+			
+			if (vel != null)
+				vel[i] = (b1 + x * d1 - d2) * 2.0 / span;
+		}
+	}
+}
@@ -0,0 +1,325 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+
+/*
+ * This class reads Chebyshev coefficients from a text file in the format
+ * used by the Nereid numerical integration.  Each segment begins with a line
+ * containing the start date, end date and number of coefficients N, and is
+ * followed by N lines each containing the X, Y and Z coefficients of one
+ * order.  The zeroth coefficients are twice the mean value, in the style of
+ * Numerical Recipes, and are halved when they are read, to follow the JPL
+ * convention used by ChebyshevSegment.
+ * 
+ * Reading stops at the end of the file, or at the first line which cannot
+ * be parsed.
+ * 
+ * The whole file is read into memory and parsed without creating a String
+ * for each line.  Numbers whose significant digits form an integer below
+ * 2^53, with a decimal exponent of no more than 22, are converted directly
+ * by a single multiplication or division, which is exact and so gives the
+ * same result as Double.parseDouble.  Any other number is passed to
+ * Double.parseDouble.
+ * 
+ * Parsing a long integration is still slow compared with reading a binary
+ * file, so the load method keeps a binary copy of the segments in a sidecar
+ * file alongside the text file, and uses it whenever it is newer than the
+ * text file.
+ */
+
+public class ChebyshevTextReader {
+	public static final String SIDECAR_SUFFIX = ".cheb";
+	
+	private static final double[] POWERS_OF_TEN = new double[23];
+	
+	static {
+		POWERS_OF_TEN[0] = 1.0;
+		
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = 10.0 * POWERS_OF_TEN[i - 1];
+	}
+	
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	private final byte[] buffer;
+	private final int length;
+	private int position = 0;
+	private int lineEnd = 0;
+	
+	private ChebyshevTextReader(byte[] buffer) {
+		this.buffer = buffer;
+		this.length = buffer.length;
+	}
+	
+	public static List<ChebyshevSegment> readSegments(InputStream is) throws IOException {
+		return new ChebyshevTextReader(is.readAllBytes()).readSegments();
+	}
+	
+	/*
+	 * Load the segments from a text file, or from its binary sidecar file if
+	 * that is up to date.  If the sidecar is missing or out of date, it is
+	 * created, unless the directory is not writable.
+	 */
+	
+	public static ChebyshevEphemeris load(File file, int bodyCode, double epoch, JPLEphemeris ephemeris)
+			throws IOException {
+		File sidecar = new File(file.getPath() + SIDECAR_SUFFIX);
+		
+		if (sidecar.isFile() && sidecar.lastModified() >= file.lastModified()) {
+			try {
+				return ChebyshevEphemeris.read(sidecar, ephemeris);
+			} catch (IOException e) {
+				// Fall through and rebuild the sidecar from the text file.
+			}
+		}
+		
+		List<ChebyshevSegment> segments;
+		
+		try (InputStream is = new FileInputStream(file)) {
+			segments = readSegments(is);
+		}
+		
+		if (segments.isEmpty())
+			throw new IOException("File " + file + " contains no Chebyshev segments");
+		
+		ChebyshevEphemeris chebyshev;
+		
+		try {
+			chebyshev = new ChebyshevEphemeris(segments, bodyCode, epoch, ephemeris);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("File " + file + " is not valid: " + e.getMessage());
+		}
+		
+		try {
+			chebyshev.write(sidecar);
+		} catch (IOException e) {
+			sidecar.delete();
+		}
+		
+		return chebyshev;
+	}
+	
+	private List<ChebyshevSegment> readSegments() {
+		List<ChebyshevSegment> segments = new ArrayList<ChebyshevSegment>();
+		
+		try {
+			while (nextLine()) {
+				double jdStart = nextDouble();
+				double jdEnd = nextDouble();
+				int nCoeffs = nextInt();
+				
+				if (nCoeffs < 2 || !(jdEnd > jdStart))
+					break;
+				
+				double[][] coeffs = new double[3][nCoeffs];
+				
+				for (int i = 0; i < nCoeffs; i++) {
+					if (!nextLine())
+						return segments;
+					
+					for (int j = 0; j < 3; j++)
+						coeffs[j][i] = nextDouble();
+				}
+				
+				for (int j = 0; j < 3; j++)
+					coeffs[j][0] *= 0.5;
+				
+				segments.add(new ChebyshevSegment(jdStart, jdEnd, coeffs));
+			}
+		}
+		catch (NumberFormatException nfe) {
+			// Stop at the first malformed record.
+		}
+		
+		return segments;
+	}
+	
+	/*
+	 * Advance to the next line which is not blank.  Tokens are then read from
+	 * that line until its end.
+	 */
+	
+	private boolean nextLine() {
+		position = lineEnd;
+		
+		while (position < length) {
+			while (position < length && (buffer[position] == '\n' || buffer[position] == '\r'))
+				position++;
+			
+			lineEnd = position;
+			
+			while (lineEnd < length && buffer[lineEnd] != '\n' && buffer[lineEnd] != '\r')
+				lineEnd++;
+			
+			skipSpaces();
+			
+			if (position < lineEnd)
+				return true;
+			
+			position = lineEnd;
+		}
+		
+		return false;
+	}
+	
+	private void skipSpaces() {
+		while (position < lineEnd && (buffer[position] == ' ' || buffer[position] == '\t'))
+			position++;
+	}
+	
+	private int nextTokenEnd() {
+		skipSpaces();
+		
+		if (position >= lineEnd)
+			throw new NumberFormatException("Missing number at offset " + position);
+		
+		int end = position;
+		
+		while (end < lineEnd && buffer[end] != ' ' && buffer[end] != '\t')
+			end++;
+		
+		return end;
+	}
+	
+	private int nextInt() {
+		int end = nextTokenEnd();
+		
+		int value = Integer.parseInt(new String(buffer, position, end - position, StandardCharsets.US_ASCII));
+		
+		position = end;
+		
+		return value;
+	}
+	
+	private double nextDouble() {
+		int end = nextTokenEnd();
+		
+		double value = parseDouble(buffer, position, end);
+		
+		position = end;
+		
+		return value;
+	}
+	
+	static double parseDouble(byte[] b, int start, int end) {
+		int i = start;
+		
+		boolean negative = false;
+		
+		if (i < end && (b[i] == '-' || b[i] == '+')) {
+			negative = b[i] == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean seenDigit = false, seenPoint = false;
+		
+		for (; i < end; i++) {
+			byte c = b[i];
+			
+			if (c >= '0' && c <= '9') {
+				seenDigit = true;
+				
+				if (mantissa == 0 && c == '0') {
+					if (seenPoint)
+						exponent--;
+					
+					continue;
+				}
+				
+				if (++digits > 18)
+					return fallback(b, start, end);
+				
+				mantissa = 10 * mantissa + (c - '0');
+				
+				if (seenPoint)
+					exponent--;
+			} else if (c == '.' && !seenPoint) {
+				seenPoint = true;
+			} else
+				break;
+		}
+		
+		if (!seenDigit)
+			return fallback(b, start, end);
+		
+		if (i < end) {
+			if (b[i] != 'e' && b[i] != 'E')
+				return fallback(b, start, end);
+			
+			i++;
+			
+			boolean negativeExponent = false;
+			
+			if (i < end && (b[i] == '-' || b[i] == '+')) {
+				negativeExponent = b[i] == '-';
+				i++;
+			}
+			
+			if (i == end || end - i > 3)
+				return fallback(b, start, end);
+			
+			int e = 0;
+			
+			for (; i < end; i++) {
+				byte c = b[i];
+				
+				if (c < '0' || c > '9')
+					return fallback(b, start, end);
+				
+				e = 10 * e + (c - '0');
+			}
+			
+			exponent += negativeExponent ? -e : e;
+		}
+		
+		double value;
+		
+		if (mantissa == 0)
+			value = 0.0;
+		else if (mantissa < MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22)
+			value = exponent < 0 ? (double)mantissa / POWERS_OF_TEN[-exponent] : (double)mantissa * POWERS_OF_TEN[exponent];
+		else
+			return fallback(b, start, end);
+		
+		return negative ? -value : value;
+	}
+	
+	private static double fallback(byte[] b, int start, int end) {
+		return Double.parseDouble(new String(b, start, end - start, StandardCharsets.US_ASCII));
+	}
+}
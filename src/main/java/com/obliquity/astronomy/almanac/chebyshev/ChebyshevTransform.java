@@ -0,0 +1,383 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+/*
+ * A reusable workspace for fitting Chebyshev series to the values of a
+ * function at the N zeroes of T_N, in the order returned by
+ * Chebyshev.calculateChebyshevZeroes.
+ * 
+ * The coefficients are a type-II discrete cosine transform of the values.
+ * For N whose prime factors are small compared with N, such as 32, 64 or 100,
+ * this is computed in O(N log N) operations by Makhoul's reordering of the
+ * values followed by a mixed-radix FFT of length N.  A radix-p step of the
+ * FFT is itself a direct DFT of length p, so for small N, and for N with a
+ * large prime factor, the transform is instead summed directly in O(N^2)
+ * operations from a table of cosines, which is faster.
+ * 
+ * The work arrays are shared between calls, so an instance must not be used
+ * by more than one thread at a time.
+ */
+
+public class ChebyshevTransform {
+	private final int N;
+	private final double[] nodes;
+	
+	private final int[] factors;
+	private final double[] twiddleRe, twiddleIm;
+	private final double[] shiftCos, shiftSin;
+	
+	private final double[] cosines;
+	
+	private final double[] input, outRe, outIm;
+	private final double[] scratchRe, scratchIm;
+	
+	public ChebyshevTransform(int N) {
+		if (N < 1)
+			throw new IllegalArgumentException("Number of points must be positive");
+		
+		this.N = N;
+		
+		nodes = new double[N];
+		
+		Chebyshev.calculateChebyshevZeroes(nodes);
+		
+		factors = factorise(N);
+		
+		if (!isFastTransformEfficient(factors)) {
+			cosines = new double[4 * N];
+			
+			for (int m = 0; m < 4 * N; m++)
+				cosines[m] = Math.cos(Math.PI * (double)m / (double)(2 * N));
+			
+			twiddleRe = twiddleIm = shiftCos = shiftSin = null;
+			input = outRe = outIm = scratchRe = scratchIm = null;
+			
+			return;
+		}
+		
+		cosines = null;
+		
+		twiddleRe = new double[N];
+		twiddleIm = new double[N];
+		
+		for (int j = 0; j < N; j++) {
+			double theta = -2.0 * Math.PI * (double)j / (double)N;
+			twiddleRe[j] = Math.cos(theta);
+			twiddleIm[j] = Math.sin(theta);
+		}
+		
+		shiftCos = new double[N];
+		shiftSin = new double[N];
+		
+		for (int k = 0; k < N; k++) {
+			double theta = Math.PI * (double)k / (double)(2 * N);
+			shiftCos[k] = Math.cos(theta);
+			shiftSin[k] = Math.sin(theta);
+		}
+		
+		input = new double[N];
+		outRe = new double[N];
+		outIm = new double[N];
+		
+		int maxFactor = 1;
+		
+		for (int p : factors)
+			maxFactor = Math.max(maxFactor, p);
+		
+		scratchRe = new double[maxFactor];
+		scratchIm = new double[maxFactor];
+	}
+	
+	public int getNumberOfPoints() {
+		return N;
+	}
+	
+	/*
+	 * The i-th node on [-1, +1].  The nodes are in decreasing order.
+	 */
+	
+	public double getNode(int i) {
+		return nodes[i];
+	}
+	
+	/*
+	 * Fit a series to a function of x on [-1, +1].
+	 */
+	
+	public void fit(Evaluatable e, double[] coeffs) {
+		if (e == null)
+			throw new IllegalArgumentException("null passed where Evaluatable expected");
+		
+		double[] values = new double[N];
+		
+		for (int i = 0; i < N; i++)
+			values[i] = e.evaluate(nodes[i]);
+		
+		transform(values, coeffs);
+	}
+	
+	/*
+	 * Calculate the Chebyshev coefficients from the function values at the N
+	 * nodes.  If the coeffs array is shorter than N, only the leading
+	 * coefficients are stored.
+	 */
+	
+	public void transform(double[] values, double[] coeffs) {
+		if (values == null || coeffs == null)
+			throw new IllegalArgumentException("null passed where array expected");
+		
+		if (values.length < N)
+			throw new IllegalArgumentException("Expected " + N + " function values but got " + values.length);
+		
+		if (coeffs.length > N)
+			throw new IllegalArgumentException("At most " + N + " coefficients can be calculated from " + N + " values");
+		
+		if (cosines != null) {
+			directTransform(values, coeffs);
+			return;
+		}
+		
+		/*
+		 * Makhoul's reordering: even-indexed values in the first half, odd-indexed
+		 * values reversed in the second half.  The DCT is then the real part of
+		 * the FFT after a phase shift of pi k / 2N.
+		 */
+		
+		for (int i = 0; i < N; i++) {
+			if ((i & 1) == 0)
+				input[i >> 1] = values[i];
+			else
+				input[N - 1 - (i >> 1)] = values[i];
+		}
+		
+		fft(0, 0, 1, 0);
+		
+		double scale = 2.0 / (double)N;
+		
+		for (int k = 0; k < coeffs.length; k++)
+			coeffs[k] = scale * (shiftCos[k] * outRe[k] + shiftSin[k] * outIm[k]);
+		
+		coeffs[0] *= 0.5;
+	}
+	
+	/*
+	 * Fit each component of a vector-valued function.  values[j] holds the N
+	 * values of component j, and coeffs[j] receives its coefficients.
+	 */
+	
+	public void transform(double[][] values, double[][] coeffs) {
+		if (values == null || coeffs == null)
+			throw new IllegalArgumentException("null passed where array expected");
+		
+		if (coeffs.length != values.length)
+			throw new IllegalArgumentException("Expected " + values.length + " sets of coefficients but got " + coeffs.length);
+		
+		for (int j = 0; j < values.length; j++)
+			transform(values[j], coeffs[j]);
+	}
+	
+	/*
+	 * Fit a position vector over [jdStart, jdEnd] from its three components at
+	 * the nodes, keeping only as many coefficients as are needed to represent
+	 * it to within the specified tolerance.
+	 */
+	
+	public ChebyshevSegment createSegment(double jdStart, double jdEnd, double[][] values, double tolerance) {
+		if (values == null || values.length != 3)
+			throw new IllegalArgumentException("Expected three sets of function values");
+		
+		double[][] coeffs = new double[3][N];
+		
+		transform(values, coeffs);
+		
+		int n = Math.max(2, Chebyshev.truncate(coeffs, tolerance));
+		
+		if (n < N) {
+			for (int j = 0; j < 3; j++) {
+				double[] c = new double[n];
+				System.arraycopy(coeffs[j], 0, c, 0, n);
+				coeffs[j] = c;
+			}
+		}
+		
+		return new ChebyshevSegment(jdStart, jdEnd, coeffs);
+	}
+	
+	/*
+	 * The DCT summed directly: T_k at the i-th node is cos(pi k (2i + 1) / 2N),
+	 * which is looked up in the table of cosines by reducing k (2i + 1) modulo
+	 * 4N.
+	 */
+	
+	private void directTransform(double[] values, double[] coeffs) {
+		int period = 4 * N;
+		
+		double scale = 2.0 / (double)N;
+		
+		for (int k = 0; k < coeffs.length; k++) {
+			double sum = 0.0;
+			
+			int m = k;
+			
+			for (int i = 0; i < N; i++) {
+				sum += values[i] * cosines[m];
+				
+				m += 2 * k;
+				
+				if (m >= period)
+					m -= period;
+			}
+			
+			coeffs[k] = scale * sum;
+		}
+		
+		coeffs[0] *= 0.5;
+	}
+	
+	/*
+	 * Recursive decimation-in-time FFT of the reordered input.  At each level,
+	 * p sub-transforms of length m are computed from the input elements spaced
+	 * p times further apart, then combined by a radix-p butterfly.
+	 */
+	
+	private void fft(int outOffset, int inOffset, int stride, int level) {
+		int p = factors[level];
+		int m = N / (stride * p);
+		
+		if (m == 1) {
+			for (int k = 0; k < p; k++) {
+				outRe[outOffset + k] = input[inOffset + k * stride];
+				outIm[outOffset + k] = 0.0;
+			}
+		} else {
+			for (int k = 0; k < p; k++)
+				fft(outOffset + k * m, inOffset + k * stride, stride * p, level + 1);
+		}
+		
+		if (p == 2)
+			butterfly2(outOffset, stride, m);
+		else
+			butterfly(outOffset, stride, m, p);
+	}
+	
+	private void butterfly2(int offset, int stride, int m) {
+		for (int u = 0; u < m; u++) {
+			int k0 = offset + u;
+			int k1 = k0 + m;
+			
+			int j = u * stride;
+			
+			double tRe = outRe[k1] * twiddleRe[j] - outIm[k1] * twiddleIm[j];
+			double tIm = outRe[k1] * twiddleIm[j] + outIm[k1] * twiddleRe[j];
+			
+			outRe[k1] = outRe[k0] - tRe;
+			outIm[k1] = outIm[k0] - tIm;
+			
+			outRe[k0] += tRe;
+			outIm[k0] += tIm;
+		}
+	}
+	
+	private void butterfly(int offset, int stride, int m, int p) {
+		for (int u = 0; u < m; u++) {
+			for (int q = 0; q < p; q++) {
+				scratchRe[q] = outRe[offset + u + q * m];
+				scratchIm[q] = outIm[offset + u + q * m];
+			}
+			
+			for (int q1 = 0; q1 < p; q1++) {
+				int k = u + q1 * m;
+				int step = stride * k;
+				int j = 0;
+				
+				double sumRe = scratchRe[0];
+				double sumIm = scratchIm[0];
+				
+				for (int q = 1; q < p; q++) {
+					j += step;
+					
+					if (j >= N)
+						j -= N;
+					
+					sumRe += scratchRe[q] * twiddleRe[j] - scratchIm[q] * twiddleIm[j];
+					sumIm += scratchRe[q] * twiddleIm[j] + scratchIm[q] * twiddleRe[j];
+				}
+				
+				outRe[offset + k] = sumRe;
+				outIm[offset + k] = sumIm;
+			}
+		}
+	}
+	
+	/*
+	 * The FFT takes about N times the sum of the prime factors of N
+	 * operations, and the direct sum N^2, but the FFT has more overhead per
+	 * operation.  Timings show the FFT is faster once the sum of the factors
+	 * is at most N/3, which is never the case for N below 27 or for N with a
+	 * large prime factor.
+	 */
+	
+	static boolean isFastTransformEfficient(int N) {
+		return isFastTransformEfficient(factorise(N));
+	}
+	
+	private static boolean isFastTransformEfficient(int[] factors) {
+		int N = 1, sum = 0;
+		
+		for (int p : factors) {
+			N *= p;
+			sum += p;
+		}
+		
+		return 3 * sum <= N;
+	}
+	
+	private static int[] factorise(int N) {
+		int[] work = new int[32];
+		int count = 0;
+		
+		int n = N;
+		
+		for (int p = 2; n > 1; p++) {
+			if (p * p > n)
+				p = n;
+			
+			while (n % p == 0) {
+				work[count++] = p;
+				n /= p;
+			}
+		}
+		
+		if (count == 0)
+			work[count++] = 1;
+		
+		int[] factors = new int[count];
+		
+		System.arraycopy(work, 0, factors, 0, count);
+		
+		return factors;
+	}
+}
@@ -0,0 +1,158 @@
+package com.obliquity.astronomy.almanac.chebyshev;
+
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+/*
+ * An index over a set of contiguous time intervals, such as the segments of
+ * a Chebyshev ephemeris, which finds the interval containing a given time.
+ * 
+ * The boundaries of the intervals are held in a single sorted array.  A grid
+ * of equal-width buckets records which interval contains the start of each
+ * bucket, so that a lookup examines only the few intervals which overlap one
+ * bucket.  When the intervals all have the same length, a lookup takes
+ * constant time; otherwise it falls back to a binary search over a short
+ * range of the array.
+ */
+
+public class SegmentIndex {
+	private final double[] boundaries;
+	private final int nSegments;
+	
+	private final int[] buckets;
+	private final int nBuckets;
+	private final double start, scale;
+	
+	/*
+	 * The array of boundaries has one more element than the number of
+	 * intervals, and must be strictly increasing.  Interval k runs from
+	 * boundaries[k] to boundaries[k+1].
+	 */
+	
+	public SegmentIndex(double[] boundaries) {
+		if (boundaries == null || boundaries.length < 2)
+			throw new IllegalArgumentException("At least two boundaries are required");
+		
+		for (int k = 1; k < boundaries.length; k++)
+			if (!(boundaries[k] > boundaries[k - 1]))
+				throw new IllegalArgumentException("Boundaries must be strictly increasing, but boundary " + k +
+						" is " + boundaries[k] + " and boundary " + (k - 1) + " is " + boundaries[k - 1]);
+		
+		this.boundaries = boundaries.clone();
+		
+		nSegments = boundaries.length - 1;
+		
+		start = boundaries[0];
+		
+		nBuckets = 2 * nSegments;
+		
+		scale = (double)nBuckets / (boundaries[nSegments] - start);
+		
+		buckets = new int[nBuckets + 1];
+		
+		int k = 0;
+		
+		for (int b = 0; b <= nBuckets; b++) {
+			double t = start + (double)b / scale;
+			
+			while (k < nSegments - 1 && boundaries[k + 1] <= t)
+				k++;
+			
+			buckets[b] = k;
+		}
+	}
+	
+	public int getNumberOfSegments() {
+		return nSegments;
+	}
+	
+	public double getStartDate() {
+		return boundaries[0];
+	}
+	
+	public double getEndDate() {
+		return boundaries[nSegments];
+	}
+	
+	public double getSegmentStart(int k) {
+		return boundaries[k];
+	}
+	
+	public double getSegmentEnd(int k) {
+		return boundaries[k + 1];
+	}
+	
+	public boolean contains(double t) {
+		return t >= boundaries[0] && t <= boundaries[nSegments];
+	}
+	
+	/*
+	 * Return the index of the interval which contains time t, or -1 if t is
+	 * outside the range of the index.  A time which falls on the boundary
+	 * between two intervals is assigned to the later one, except at the end
+	 * of the last interval.
+	 */
+	
+	public int findSegment(double t) {
+		if (!contains(t))
+			return -1;
+		
+		int b = (int)((t - start) * scale);
+		
+		if (b >= nBuckets)
+			b = nBuckets - 1;
+		
+		if (b < 0)
+			b = 0;
+		
+		int lo = buckets[b];
+		int hi = buckets[b + 1];
+		
+		/*
+		 * Rounding in the calculation of the bucket number may put t just
+		 * outside the bucket, in which case we widen the search.
+		 */
+		
+		if (t < boundaries[lo])
+			lo = 0;
+		
+		if (hi < nSegments - 1 && t >= boundaries[hi + 1])
+			hi = nSegments - 1;
+		
+		/*
+		 * Find the largest k in [lo, hi] such that boundaries[k] <= t.
+		 */
+		
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			
+			if (boundaries[mid] <= t)
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		
+		return lo;
+	}
+}
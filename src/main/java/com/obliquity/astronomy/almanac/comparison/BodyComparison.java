@@ -0,0 +1,83 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.comparison;
+
+/*
+ * This class holds the statistics of the differences between two
+ * ephemerides for a single body.
+ * 
+ * Position differences are in kilometres and velocity differences in
+ * millimetres per second, both taken from the raw ephemeris components.
+ * Right ascension and declination differences are in milliarcseconds, taken
+ * from the geocentric apparent places referred to the ICRF, with the right
+ * ascension difference multiplied by the cosine of the declination.  The
+ * angular statistics are absent for the Earth-Moon barycentre.
+ */
+
+public class BodyComparison {
+	private final int bodyCode;
+	
+	final DifferenceStatistics position = new DifferenceStatistics();
+	final DifferenceStatistics velocity = new DifferenceStatistics();
+	final DifferenceStatistics rightAscension;
+	final DifferenceStatistics declination;
+	
+	BodyComparison(int bodyCode, boolean hasAngles) {
+		this.bodyCode = bodyCode;
+		
+		rightAscension = hasAngles ? new DifferenceStatistics() : null;
+		declination = hasAngles ? new DifferenceStatistics() : null;
+	}
+	
+	void merge(BodyComparison that) {
+		position.merge(that.position);
+		velocity.merge(that.velocity);
+		
+		if (rightAscension != null) {
+			rightAscension.merge(that.rightAscension);
+			declination.merge(that.declination);
+		}
+	}
+	
+	public int getBodyCode() {
+		return bodyCode;
+	}
+	
+	public DifferenceStatistics getPositionStatistics() {
+		return position;
+	}
+	
+	public DifferenceStatistics getVelocityStatistics() {
+		return velocity;
+	}
+	
+	public DifferenceStatistics getRightAscensionStatistics() {
+		return rightAscension;
+	}
+	
+	public DifferenceStatistics getDeclinationStatistics() {
+		return declination;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.comparison;
+
+/*
+ * This class accumulates summary statistics for a stream of non-negative
+ * differences in constant memory: the count, the maximum and the time at
+ * which it occurred, the root-mean-square value, and a histogram with
+ * logarithmically-spaced bins from which percentiles can be estimated.
+ * 
+ * The histogram has BINS_PER_OCTAVE bins for each factor of two, so a
+ * percentile is estimated to within about 2 percent.  Values smaller than
+ * MINIMUM_VALUE are counted in the lowest bin, and values larger than
+ * MAXIMUM_VALUE in the highest bin.
+ * 
+ * Instances are not thread-safe.  Each thread should accumulate its own
+ * statistics, which are then combined using merge.
+ */
+
+public class DifferenceStatistics {
+	public static final int BINS_PER_OCTAVE = 16;
+	public static final double MINIMUM_VALUE = 1.0e-15;
+	public static final double MAXIMUM_VALUE = 1.0e15;
+	
+	private static final double LOG2_MINIMUM_VALUE = Math.log(MINIMUM_VALUE) / Math.log(2.0);
+	
+	private static final int NUMBER_OF_BINS = 2 + (int)Math.ceil(BINS_PER_OCTAVE * Math.log(MAXIMUM_VALUE / MINIMUM_VALUE)
+			/ Math.log(2.0));
+	
+	private final long[] histogram = new long[NUMBER_OF_BINS];
+	
+	private long count = 0;
+	private double sumOfSquares = 0.0;
+	private double maximum = 0.0;
+	private double timeOfMaximum = Double.NaN;
+	
+	public void add(double value, double time) {
+		if (value < 0.0)
+			value = -value;
+		
+		count++;
+		sumOfSquares += value * value;
+		
+		if (value > maximum || count == 1) {
+			maximum = value;
+			timeOfMaximum = time;
+		}
+		
+		histogram[findBin(value)]++;
+	}
+	
+	public void merge(DifferenceStatistics that) {
+		if (that.count == 0)
+			return;
+		
+		if (count == 0 || that.maximum > maximum
+				|| (that.maximum == maximum && that.timeOfMaximum < timeOfMaximum)) {
+			maximum = that.maximum;
+			timeOfMaximum = that.timeOfMaximum;
+		}
+		
+		count += that.count;
+		sumOfSquares += that.sumOfSquares;
+		
+		for (int i = 0; i < NUMBER_OF_BINS; i++)
+			histogram[i] += that.histogram[i];
+	}
+	
+	private static int findBin(double value) {
+		if (value < MINIMUM_VALUE)
+			return 0;
+		
+		if (value >= MAXIMUM_VALUE)
+			return NUMBER_OF_BINS - 1;
+		
+		int bin = 1 + (int)(BINS_PER_OCTAVE * (Math.log(value) / Math.log(2.0) - LOG2_MINIMUM_VALUE));
+		
+		return Math.min(bin, NUMBER_OF_BINS - 2);
+	}
+	
+	/*
+	 * The geometric centre of a bin.
+	 */
+	
+	private static double getBinCentre(int bin) {
+		if (bin == 0)
+			return 0.0;
+		
+		return Math.pow(2.0, LOG2_MINIMUM_VALUE + (bin - 0.5) / BINS_PER_OCTAVE);
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	public double getMaximum() {
+		return maximum;
+	}
+	
+	public double getTimeOfMaximum() {
+		return timeOfMaximum;
+	}
+	
+	public double getRMS() {
+		return count > 0 ? Math.sqrt(sumOfSquares / count) : Double.NaN;
+	}
+	
+	/*
+	 * Estimate the value below which the specified percentage of the
+	 * differences lie.  The estimate never exceeds the maximum.
+	 */
+	
+	public double getPercentile(double percentage) {
+		if (count == 0)
+			return Double.NaN;
+		
+		if (percentage < 0.0 || percentage > 100.0)
+			throw new IllegalArgumentException("Percentage must be between 0 and 100");
+		
+		long rank = (long)Math.ceil(percentage * count / 100.0);
+		
+		if (rank < 1)
+			rank = 1;
+		
+		long cumulative = 0;
+		
+		for (int bin = 0; bin < NUMBER_OF_BINS; bin++) {
+			cumulative += histogram[bin];
+			
+			if (cumulative >= rank)
+				return Math.min(getBinCentre(bin), maximum);
+		}
+		
+		return maximum;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.comparison;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class compares two JPL ephemerides over a range of dates, sampling
+ * them at a fixed step.  The samples are divided into chunks which are
+ * processed in parallel, each with its own copies of the ephemeris objects
+ * and its own statistics, which are merged when all of the chunks are
+ * complete.  Memory use is therefore independent of the number of samples.
+ */
+
+public class EphemerisComparator {
+	private static final int DEFAULT_CHUNK_SIZE = 4096;
+	
+	private static final int[] DEFAULT_BODIES = { JPLEphemeris.MERCURY, JPLEphemeris.VENUS, JPLEphemeris.MARS,
+			JPLEphemeris.JUPITER, JPLEphemeris.SATURN, JPLEphemeris.URANUS, JPLEphemeris.NEPTUNE, JPLEphemeris.PLUTO,
+			JPLEphemeris.MOON, JPLEphemeris.SUN };
+	
+	private static final double MAS_PER_RADIAN = 180.0 * 3600.0 * 1000.0 / Math.PI;
+	
+	private final JPLEphemeris reference;
+	private final JPLEphemeris candidate;
+	
+	private final ForkJoinPool pool;
+	
+	private int[] bodies = DEFAULT_BODIES;
+	
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	
+	/*
+	 * If nThreads is zero or negative, the number of available processors is
+	 * used.
+	 */
+	
+	public EphemerisComparator(JPLEphemeris reference, JPLEphemeris candidate, int nThreads) {
+		this.reference = reference;
+		this.candidate = candidate;
+		
+		if (nThreads <= 0)
+			nThreads = Runtime.getRuntime().availableProcessors();
+		
+		pool = new ForkJoinPool(nThreads);
+	}
+	
+	public void setBodies(int[] bodies) {
+		for (int kBody : bodies)
+			if (kBody < JPLEphemeris.MERCURY || kBody > JPLEphemeris.SUN)
+				throw new IllegalArgumentException("Invalid body code: " + kBody);
+		
+		this.bodies = bodies.clone();
+	}
+	
+	/*
+	 * The number of epochs in each parallel task.
+	 */
+	
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	public EphemerisComparison compare(double jdStart, double jdFinish, double step) throws JPLEphemerisException {
+		if (!(step > 0.0))
+			throw new IllegalArgumentException("Step size must be positive");
+		
+		if (jdFinish < jdStart)
+			throw new IllegalArgumentException("End date is before start date");
+		
+		long startTime = System.nanoTime();
+		
+		long samples = 1 + (long)Math.floor((jdFinish - jdStart) / step);
+		
+		List<Callable<BodyComparison[]>> tasks = new ArrayList<Callable<BodyComparison[]>>();
+		
+		for (long first = 0; first < samples; first += chunkSize) {
+			final long from = first;
+			final long to = Math.min(samples, first + chunkSize);
+			
+			tasks.add(() -> compareChunk(jdStart, step, from, to));
+		}
+		
+		BodyComparison[] totals = createBodyComparisons();
+		
+		List<Future<BodyComparison[]>> futures = pool.invokeAll(tasks);
+		
+		for (Future<BodyComparison[]> future : futures) {
+			try {
+				BodyComparison[] partials = future.get();
+				
+				for (int i = 0; i < totals.length; i++)
+					totals[i].merge(partials[i]);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JPLEphemerisException("Interrupted whilst comparing ephemerides");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof JPLEphemerisException)
+					throw (JPLEphemerisException)e.getCause();
+				else
+					throw new RuntimeException(e.getCause());
+			}
+		}
+		
+		double elapsedTime = 1.0e-9 * (System.nanoTime() - startTime);
+		
+		return new EphemerisComparison(jdStart, jdStart + (samples - 1) * step, step, samples, elapsedTime, totals);
+	}
+	
+	private BodyComparison[] createBodyComparisons() {
+		BodyComparison[] comparisons = new BodyComparison[bodies.length];
+		
+		for (int i = 0; i < bodies.length; i++)
+			comparisons[i] = new BodyComparison(bodies[i], bodies[i] != JPLEphemeris.EMB);
+		
+		return comparisons;
+	}
+	
+	/*
+	 * The objects which are needed to evaluate one ephemeris on one thread.
+	 */
+	
+	private class Evaluator {
+		final JPLEphemeris ephemeris;
+		final ApparentPlace[] places = new ApparentPlace[bodies.length];
+		
+		Evaluator(JPLEphemeris shared) {
+			ephemeris = new JPLEphemeris(shared);
+			
+			MovingPoint earth = new EarthCentre(ephemeris);
+			MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+			
+			for (int i = 0; i < bodies.length; i++) {
+				int kBody = bodies[i];
+				
+				if (kBody == JPLEphemeris.EMB)
+					continue;
+				
+				MovingPoint target = kBody == JPLEphemeris.SUN ? sun
+						: (kBody == JPLEphemeris.MOON ? new MoonCentre(ephemeris) : new PlanetCentre(ephemeris, kBody));
+				
+				places[i] = new ApparentPlace(earth, target, sun, null);
+			}
+		}
+	}
+	
+	private BodyComparison[] compareChunk(double jdStart, double step, long from, long to) throws JPLEphemerisException {
+		BodyComparison[] comparisons = createBodyComparisons();
+		
+		Evaluator evaluator1 = new Evaluator(reference);
+		Evaluator evaluator2 = new Evaluator(candidate);
+		
+		/*
+		 * The raw ephemeris components are in kilometres and kilometres per day.
+		 */
+		
+		final double velocityScale = 1.0e6 / 86400.0;
+		
+		Vector p1 = new Vector(), v1 = new Vector(), p2 = new Vector(), v2 = new Vector();
+		
+		for (long n = from; n < to; n++) {
+			double t = jdStart + n * step;
+			
+			for (int i = 0; i < bodies.length; i++) {
+				int kBody = bodies[i];
+				
+				BodyComparison comparison = comparisons[i];
+				
+				evaluator1.ephemeris.calculatePositionAndVelocity(t, kBody, p1, v1);
+				evaluator2.ephemeris.calculatePositionAndVelocity(t, kBody, p2, v2);
+				
+				p2.subtract(p1);
+				v2.subtract(v1);
+				
+				comparison.position.add(p2.magnitude(), t);
+				comparison.velocity.add(v2.magnitude() * velocityScale, t);
+				
+				ApparentPlace ap1 = evaluator1.places[i];
+				ApparentPlace ap2 = evaluator2.places[i];
+				
+				if (ap1 != null) {
+					ap1.calculateApparentPlace(t);
+					ap2.calculateApparentPlace(t);
+					
+					double dec1 = ap1.getDeclinationJ2000();
+					
+					double dRA = ap2.getRightAscensionJ2000() - ap1.getRightAscensionJ2000();
+					
+					if (dRA > Math.PI)
+						dRA -= 2.0 * Math.PI;
+					else if (dRA < -Math.PI)
+						dRA += 2.0 * Math.PI;
+					
+					double dDec = ap2.getDeclinationJ2000() - dec1;
+					
+					comparison.rightAscension.add(dRA * Math.cos(dec1) * MAS_PER_RADIAN, t);
+					comparison.declination.add(dDec * MAS_PER_RADIAN, t);
+				}
+			}
+		}
+		
+		return comparisons;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.comparison;
+
+import java.io.PrintStream;
+
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+
+/*
+ * This class holds the result of comparing two ephemerides, and writes it as
+ * a compact report with one line per body and quantity.
+ */
+
+public class EphemerisComparison {
+	private static final String[] BODY_NAMES = { "Mercury", "Venus", "EMB", "Mars", "Jupiter", "Saturn", "Uranus",
+			"Neptune", "Pluto", "Moon", "Sun" };
+	
+	private final double jdStart, jdFinish, step;
+	private final long samples;
+	private final double elapsedTime;
+	private final BodyComparison[] bodies;
+	
+	EphemerisComparison(double jdStart, double jdFinish, double step, long samples, double elapsedTime,
+			BodyComparison[] bodies) {
+		this.jdStart = jdStart;
+		this.jdFinish = jdFinish;
+		this.step = step;
+		this.samples = samples;
+		this.elapsedTime = elapsedTime;
+		this.bodies = bodies;
+	}
+	
+	public int getNumberOfBodies() {
+		return bodies.length;
+	}
+	
+	public BodyComparison getBodyComparison(int i) {
+		return bodies[i];
+	}
+	
+	public long getNumberOfSamples() {
+		return samples;
+	}
+	
+	/*
+	 * The elapsed time of the comparison, in seconds.
+	 */
+	
+	public double getElapsedTime() {
+		return elapsedTime;
+	}
+	
+	public void print(PrintStream ps) {
+		ps.printf("# Compared %d epochs from JD %.1f to %.1f at %.4f day intervals in %.1f s\n", samples, jdStart,
+				jdFinish, step, elapsedTime);
+		ps.printf("# %-8s %-9s %12s %12s %12s %12s %12s  %s\n", "Body", "Quantity", "RMS", "50%", "99%", "99.9%",
+				"Maximum", "Date of maximum");
+		
+		for (BodyComparison body : bodies) {
+			String name = getBodyName(body.getBodyCode());
+			
+			printLine(ps, name, "pos(km)", body.getPositionStatistics());
+			printLine(ps, name, "vel(mm/s)", body.getVelocityStatistics());
+			
+			if (body.getRightAscensionStatistics() != null) {
+				printLine(ps, name, "RA(mas)", body.getRightAscensionStatistics());
+				printLine(ps, name, "Dec(mas)", body.getDeclinationStatistics());
+			}
+		}
+	}
+	
+	private void printLine(PrintStream ps, String name, String quantity, DifferenceStatistics stats) {
+		AstronomicalDate ad = new AstronomicalDate(stats.getTimeOfMaximum());
+		
+		ps.printf("  %-8s %-9s %12.5g %12.5g %12.5g %12.5g %12.5g  %d-%02d-%02d\n", name, quantity, stats.getRMS(),
+				stats.getPercentile(50.0), stats.getPercentile(99.0), stats.getPercentile(99.9), stats.getMaximum(),
+				ad.getYear(), ad.getMonth(), ad.getDay());
+	}
+	
+	private static String getBodyName(int bodyCode) {
+		return bodyCode >= JPLEphemeris.MERCURY && bodyCode <= JPLEphemeris.SUN ? BODY_NAMES[bodyCode] : null;
+	}
+}
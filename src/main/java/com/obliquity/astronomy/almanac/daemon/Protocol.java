@@ -0,0 +1,174 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/*
+ * The protocol spoken between ToolClient and ToolDaemon over a Unix domain
+ * socket.
+ * 
+ * The client sends a header: the magic number, its working directory, the
+ * name of the tool class which is to be run, and the arguments.
+ * 
+ * The daemon replies with STDOUT and STDERR frames, and finally an EXIT frame
+ * which carries the exit status.  Each data frame is a type byte, a length
+ * and that many bytes.
+ * 
+ * If the class does not have the run method described in ToolRunner, the
+ * daemon instead replies with a single NOT_A_TOOL frame, and the client runs
+ * the class itself.
+ */
+
+final class Protocol {
+	static final int MAGIC = 0x414a4431;
+	
+	static final byte STDOUT = 1;
+	static final byte STDERR = 2;
+	static final byte EXIT = 3;
+	static final byte NOT_A_TOOL = 4;
+	
+	static final int MAXIMUM_FRAME_LENGTH = 1 << 20;
+	
+	/*
+	 * Commands which the daemon handles itself instead of running a tool.
+	 */
+	static final String STATUS = "status";
+	static final String SHUTDOWN = "shutdown";
+	
+	private Protocol() {
+	}
+	
+	static void writeHeader(DataOutputStream dos, String directory, String className, String[] args)
+			throws IOException {
+		dos.writeInt(MAGIC);
+		dos.writeUTF(directory);
+		dos.writeUTF(className);
+		dos.writeInt(args.length);
+		
+		for (String arg : args)
+			dos.writeUTF(arg);
+		
+		dos.flush();
+	}
+	
+	static void writeFrame(DataOutputStream dos, byte type, byte[] data, int offset, int length) throws IOException {
+		synchronized (dos) {
+			dos.writeByte(type);
+			dos.writeInt(length);
+			dos.write(data, offset, length);
+			dos.flush();
+		}
+	}
+	
+	static void writeStatus(DataOutputStream dos, byte type, int status) throws IOException {
+		synchronized (dos) {
+			dos.writeByte(type);
+			dos.writeInt(status);
+			dos.flush();
+		}
+	}
+	
+	static int readLength(DataInputStream dis) throws IOException {
+		int length = dis.readInt();
+		
+		if (length < 0 || length > MAXIMUM_FRAME_LENGTH)
+			throw new IOException("Invalid frame length " + length);
+		
+		return length;
+	}
+	
+	/*
+	 * Streams which read and write a socket channel directly.  The adapters in
+	 * java.nio.channels.Channels hold the channel's blocking lock while they
+	 * wait, so one thread cannot read from the socket while another writes.
+	 */
+	
+	static InputStream newInputStream(SocketChannel channel) {
+		return new InputStream() {
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+			}
+			
+			public int read(byte[] b, int off, int len) throws IOException {
+				if (len == 0)
+					return 0;
+				
+				return channel.read(ByteBuffer.wrap(b, off, len));
+			}
+		};
+	}
+	
+	static OutputStream newOutputStream(SocketChannel channel) {
+		return new OutputStream() {
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+			
+			public void write(byte[] b, int off, int len) throws IOException {
+				ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+				
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+			}
+		};
+	}
+	
+	/*
+	 * A stream which sends what is written to it as frames of one type.
+	 */
+	static class FrameOutputStream extends OutputStream {
+		private final DataOutputStream dos;
+		private final byte type;
+		
+		FrameOutputStream(DataOutputStream dos, byte type) {
+			this.dos = dos;
+			this.type = type;
+		}
+		
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+		
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				int n = Math.min(len, MAXIMUM_FRAME_LENGTH);
+				
+				writeFrame(dos, type, b, off, n);
+				
+				off += n;
+				len -= n;
+			}
+		}
+	}
+}
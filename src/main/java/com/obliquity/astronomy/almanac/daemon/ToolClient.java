@@ -0,0 +1,143 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/*
+ * This class asks a ToolDaemon to run a tool, copying the tool's output to
+ * standard output and standard error and exiting with the tool's status.
+ * runapp.sh uses it instead of running the tool directly when the
+ * environment variable ASTROJAVA_DAEMON names the daemon's socket.
+ * 
+ * A class which the daemon cannot run, because it has no run method as
+ * described in ToolRunner, is run in this JVM instead.
+ * 
+ * The class name may also be "status", to show what the daemon is doing, or
+ * "shutdown", to stop it.
+ */
+
+public class ToolClient {
+	public static final int CONNECTION_FAILED = 255;
+	
+	public static void main(String args[]) {
+		if (args.length < 2) {
+			System.err.println("Usage: ToolClient socket class-name [arguments ...]");
+			System.err.println("       ToolClient socket status|shutdown");
+			System.exit(1);
+		}
+		
+		Path socketPath = Paths.get(args[0]);
+		
+		int status;
+		
+		try {
+			status = run(socketPath, args[1], Arrays.copyOfRange(args, 2, args.length));
+		} catch (IOException e) {
+			System.err.println("Cannot run " + args[1] + " in the daemon at " + socketPath + ": " + e.getMessage());
+			status = CONNECTION_FAILED;
+		}
+		
+		System.exit(status);
+	}
+	
+	public static int run(Path socketPath, String className, String[] args) throws IOException {
+		Integer status = runInDaemon(socketPath, className, args);
+		
+		return status != null ? status : runHere(className, args);
+	}
+	
+	/*
+	 * Return the tool's exit status, or null if the daemon cannot run it.
+	 */
+	private static Integer runInDaemon(Path socketPath, String className, String[] args) throws IOException {
+		try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+			DataInputStream dis = new DataInputStream(new BufferedInputStream(Protocol.newInputStream(channel)));
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Protocol.newOutputStream(channel)));
+			
+			Protocol.writeHeader(dos, System.getProperty("user.dir"), className, args);
+			
+			OutputStream out = new FileOutputStream(FileDescriptor.out);
+			OutputStream err = new FileOutputStream(FileDescriptor.err);
+			
+			byte[] buffer = new byte[8192];
+			
+			while (true) {
+				byte type = dis.readByte();
+				
+				if (type == Protocol.EXIT)
+					return dis.readInt();
+				
+				if (type == Protocol.NOT_A_TOOL)
+					return null;
+				
+				int length = Protocol.readLength(dis);
+				
+				if (length > buffer.length)
+					buffer = new byte[length];
+				
+				dis.readFully(buffer, 0, length);
+				
+				if (type == Protocol.STDOUT)
+					out.write(buffer, 0, length);
+				else if (type == Protocol.STDERR)
+					err.write(buffer, 0, length);
+				else
+					throw new IOException("Unexpected frame type " + type);
+			}
+		}
+	}
+	
+	/*
+	 * Call the class's main method, as runapp.sh would have done without the
+	 * daemon.
+	 */
+	private static int runHere(String className, String[] args) {
+		try {
+			Class.forName(className).getMethod("main", String[].class).invoke(null, (Object) args);
+		} catch (InvocationTargetException e) {
+			e.getCause().printStackTrace();
+			return 1;
+		} catch (ReflectiveOperationException e) {
+			System.err.println("Cannot run " + className + ": " + e);
+			return 1;
+		}
+		
+		return 0;
+	}
+}
@@ -0,0 +1,395 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.obliquity.astronomy.almanac.EphemerisFile;
+import com.obliquity.astronomy.almanac.EphemerisRegistry;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.RecordCache;
+
+/*
+ * This class is a resident process which runs the command-line tools on
+ * behalf of ToolClient, so that each run does not pay for starting a JVM and
+ * reading the ephemeris.
+ * 
+ * Each request names a class and gives its arguments, exactly as runapp.sh
+ * would pass them to java.  The daemon calls the class's run method, as
+ * described in ToolRunner, in a thread of its own (a virtual thread when the
+ * JVM supports them) with output streams connected to the client, and
+ * returns its exit status to the client.  A class which has no run method is
+ * sent back to the client to run for itself.
+ * 
+ * Every ephemeris file named by an -ephemeris argument is added to a shared
+ * EphemerisRegistry, which is installed in JPLEphemeris, so the tools take
+ * their data records from a cache which stays warm between requests.
+ * 
+ * Tools run concurrently unless a maximum number of jobs is set.  They share
+ * the JVM, so a tool which keeps mutable static state should be run with a
+ * maximum of one job.
+ * 
+ * Relative file names in the arguments are resolved against the client's
+ * working directory if such a file exists there.  Only classes in the
+ * com.obliquity.astronomy.almanac packages are run in the daemon.
+ */
+
+public class ToolDaemon {
+	private static final int MAXIMUM_ARGUMENTS = 65536;
+	private static final int BUFFER_SIZE = 8192;
+	
+	private final PrintStream daemonErr;
+	
+	private final Path socketPath;
+	private final EphemerisRegistry registry;
+	private final int maximumJobs;
+	private final Semaphore slots;
+	private final ExecutorService executor;
+	
+	private final Set<File> registeredFiles = new HashSet<File>();
+	
+	private final AtomicLong jobsStarted = new AtomicLong();
+	private final AtomicLong jobsFailed = new AtomicLong();
+	private final AtomicInteger jobsRunning = new AtomicInteger();
+	private final long startTime = System.currentTimeMillis();
+	
+	private volatile ServerSocketChannel server = null;
+	private volatile boolean stopping = false;
+	
+	/*
+	 * If maximumJobs is zero, there is no limit on the number of tools which
+	 * run at once.
+	 */
+	public ToolDaemon(Path socketPath, EphemerisRegistry registry, int maximumJobs) {
+		if (maximumJobs < 0)
+			throw new IllegalArgumentException("Maximum number of jobs cannot be negative");
+		
+		this.socketPath = socketPath;
+		this.registry = registry;
+		this.maximumJobs = maximumJobs;
+		this.slots = maximumJobs > 0 ? new Semaphore(maximumJobs, true) : null;
+		this.executor = createExecutor();
+		this.daemonErr = System.err;
+	}
+	
+	/*
+	 * Use a virtual thread for each connection when the JVM provides them
+	 * (Java 21 onwards), and otherwise a cached pool of daemon threads.
+	 */
+	private static ExecutorService createExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	public Path getSocketPath() {
+		return socketPath;
+	}
+	
+	/*
+	 * Listen for clients until stop is called or a client sends the shutdown
+	 * command.
+	 */
+	public void run() throws IOException {
+		removeStaleSocket();
+		
+		ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+		
+		channel.bind(UnixDomainSocketAddress.of(socketPath));
+		
+		try {
+			Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+		} catch (UnsupportedOperationException e) {
+			// Not a POSIX file system, so rely on the permissions of the directory.
+		}
+		
+		server = channel;
+		
+		JPLEphemeris.setSharedRegistry(registry);
+		
+		try {
+			while (!stopping) {
+				SocketChannel client;
+				
+				try {
+					client = channel.accept();
+				} catch (AsynchronousCloseException e) {
+					break;
+				}
+				
+				executor.execute(() -> handle(client));
+			}
+		} finally {
+			channel.close();
+			executor.shutdown();
+			JPLEphemeris.setSharedRegistry(null);
+			Files.deleteIfExists(socketPath);
+		}
+	}
+	
+	public void stop() {
+		stopping = true;
+		
+		ServerSocketChannel channel = server;
+		
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				daemonErr.println("# Failed to close the socket: " + e.getMessage());
+			}
+		}
+		
+		try {
+			Files.deleteIfExists(socketPath);
+		} catch (IOException e) {
+			daemonErr.println("# Failed to remove the socket: " + e.getMessage());
+		}
+	}
+	
+	/*
+	 * A socket file which is left over from a daemon which did not shut down
+	 * cleanly is removed, but not one on which another daemon is listening.
+	 */
+	private void removeStaleSocket() throws IOException {
+		if (!Files.exists(socketPath))
+			return;
+		
+		boolean listening;
+		
+		try {
+			SocketChannel probe = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+			
+			probe.close();
+			
+			listening = true;
+		} catch (IOException e) {
+			listening = false;
+		}
+		
+		if (listening)
+			throw new IOException("Another daemon is listening on " + socketPath);
+		
+		Files.delete(socketPath);
+	}
+	
+	private void handle(SocketChannel client) {
+		try (SocketChannel channel = client) {
+			DataInputStream dis = new DataInputStream(new BufferedInputStream(Protocol.newInputStream(channel)));
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(Protocol.newOutputStream(channel)));
+			
+			if (dis.readInt() != Protocol.MAGIC)
+				return;
+			
+			String directory = dis.readUTF();
+			String className = dis.readUTF();
+			
+			int nArgs = dis.readInt();
+			
+			if (nArgs < 0 || nArgs > MAXIMUM_ARGUMENTS)
+				return;
+			
+			String[] args = new String[nArgs];
+			
+			for (int i = 0; i < nArgs; i++)
+				args[i] = dis.readUTF();
+			
+			PrintStream out = new PrintStream(
+					new BufferedOutputStream(new Protocol.FrameOutputStream(dos, Protocol.STDOUT), BUFFER_SIZE), false,
+					Charset.defaultCharset());
+			PrintStream err = new PrintStream(new Protocol.FrameOutputStream(dos, Protocol.STDERR), true,
+					Charset.defaultCharset());
+			
+			int status;
+			
+			if (className.equals(Protocol.STATUS)) {
+				writeStatus(out);
+				status = 0;
+			} else if (className.equals(Protocol.SHUTDOWN)) {
+				stop();
+				status = 0;
+			} else {
+				Method tool = ToolRunner.findTool(className);
+				
+				if (tool == null) {
+					Protocol.writeStatus(dos, Protocol.NOT_A_TOOL, 0);
+					return;
+				}
+				
+				status = runJob(tool, out, err, directory, className, args);
+			}
+			
+			if (out.checkError() || err.checkError())
+				throw new IOException("Cannot send the output of " + className);
+			
+			Protocol.writeStatus(dos, Protocol.EXIT, status);
+		} catch (IOException e) {
+			daemonErr.println("# Lost connection to client: " + e.getMessage());
+		}
+	}
+	
+	private int runJob(Method tool, PrintStream out, PrintStream err, String directory, String className,
+			String[] args) {
+		args = resolveArguments(directory, args);
+		
+		registerEphemerides(args);
+		
+		if (slots != null) {
+			try {
+				slots.acquire();
+			} catch (InterruptedException e) {
+				return 1;
+			}
+		}
+		
+		long jobNumber = jobsStarted.incrementAndGet();
+		
+		jobsRunning.incrementAndGet();
+		
+		long ticks = System.nanoTime();
+		
+		int status;
+		
+		try {
+			status = ToolRunner.run(tool, args, out, err);
+		} finally {
+			jobsRunning.decrementAndGet();
+			
+			if (slots != null)
+				slots.release();
+		}
+		
+		if (status != 0)
+			jobsFailed.incrementAndGet();
+		
+		ticks = System.nanoTime() - ticks;
+		
+		daemonErr.printf("# Job %d: %s %s exited with status %d after %.1f ms\n", jobNumber, className,
+				String.join(" ", args), status, 1.0e-6 * ticks);
+		
+		return status;
+	}
+	
+	private static String[] resolveArguments(String directory, String[] args) {
+		File base = new File(directory);
+		
+		if (!base.isAbsolute() || base.equals(new File(System.getProperty("user.dir"))))
+			return args;
+		
+		String[] resolved = Arrays.copyOf(args, args.length);
+		
+		for (int i = 0; i < resolved.length; i++) {
+			String arg = resolved[i];
+			
+			if (arg.isEmpty() || arg.startsWith("-") || new File(arg).isAbsolute())
+				continue;
+			
+			File file = new File(base, arg);
+			
+			if (file.exists())
+				resolved[i] = file.getPath();
+		}
+		
+		return resolved;
+	}
+	
+	private void registerEphemerides(String[] args) {
+		for (int i = 0; i < args.length - 1; i++)
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				register(new File(args[i + 1]));
+	}
+	
+	/*
+	 * Register an ephemeris file unless it has already been registered.  A
+	 * file which cannot be registered is left for the tool to report.
+	 */
+	public synchronized void register(File file) {
+		try {
+			File canonicalFile = file.getCanonicalFile();
+			
+			if (registeredFiles.contains(canonicalFile))
+				return;
+			
+			EphemerisFile ephemerisFile = registry.register(canonicalFile);
+			
+			registeredFiles.add(canonicalFile);
+			
+			daemonErr.println("# Registered " + ephemerisFile);
+		} catch (IOException | JPLEphemerisException e) {
+			daemonErr.println("# Cannot register " + file + ": " + e.getMessage());
+		}
+	}
+	
+	private void writeStatus(PrintStream ps) {
+		RecordCache cache = registry.getCache();
+		
+		ps.printf("Socket:          %s\n", socketPath);
+		ps.printf("Uptime:          %.1f s\n", 1.0e-3 * (System.currentTimeMillis() - startTime));
+		ps.printf("Maximum jobs:    %s\n", maximumJobs == 0 ? "unlimited" : "" + maximumJobs);
+		ps.printf("Jobs started:    %d\n", jobsStarted.get());
+		ps.printf("Jobs failed:     %d\n", jobsFailed.get());
+		ps.printf("Jobs running:    %d\n", jobsRunning.get());
+		ps.printf("Cached records:  %d of %d, %d hits, %d misses, %d coalesced\n", cache.size(), cache.getCapacity(),
+				cache.getHitCount(), cache.getMissCount(), cache.getCoalescedCount());
+		
+		for (EphemerisFile file : registry.getFiles())
+			ps.println("Ephemeris:       " + file);
+		
+		ps.flush();
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.daemon;
+
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/*
+ * This class runs the command-line tools inside the current JVM, each with its
+ * own output streams.  It is shared by ToolDaemon and the batch runner.
+ * 
+ * A tool which can be run this way has a method
+ * 
+ *     public static int run(String[] args, PrintStream out, PrintStream err)
+ * 
+ * which writes only to the streams it is given and returns an exit status
+ * instead of calling System.exit.  Its main method is simply
+ * 
+ *     System.exit(run(args, System.out, System.err));
+ * 
+ * ToolDaemon sends any other class back to ToolClient, which calls its main
+ * method in the client's own JVM.
+ */
+
+public final class ToolRunner {
+	public static final String PACKAGE_PREFIX = "com.obliquity.astronomy.almanac.";
+	
+	private ToolRunner() {
+	}
+	
+	/*
+	 * Return the run method of the named class, as described above, or null
+	 * if the class does not exist, has no such method or is outside the
+	 * com.obliquity.astronomy.almanac packages.
+	 */
+	public static Method findTool(String className) {
+		if (!className.startsWith(PACKAGE_PREFIX))
+			return null;
+		
+		try {
+			Method run = Class.forName(className).getMethod("run", String[].class, PrintStream.class, PrintStream.class);
+			
+			return Modifier.isStatic(run.getModifiers()) && run.getReturnType() == int.class ? run : null;
+		} catch (ClassNotFoundException | NoSuchMethodException | LinkageError e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Call a tool's run method in the current thread, and return its exit
+	 * status.  The status is one if the tool throws an exception, whose stack
+	 * trace is written to err.  The streams are flushed but not closed.
+	 */
+	public static int run(Method tool, String[] args, PrintStream out, PrintStream err) {
+		int status;
+		
+		try {
+			status = (Integer) tool.invoke(null, args, out, err);
+		} catch (InvocationTargetException e) {
+			e.getCause().printStackTrace(err);
+			status = 1;
+		} catch (IllegalAccessException e) {
+			e.printStackTrace(err);
+			status = 1;
+		}
+		
+		out.flush();
+		err.flush();
+		
+		return status;
+	}
+}
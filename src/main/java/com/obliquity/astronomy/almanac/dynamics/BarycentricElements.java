@@ -0,0 +1,134 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.dynamics;
+
+/*
+ * This class calculates the osculating barycentric orbital elements of a
+ * body from its position and velocity, referred to the ecliptic and mean
+ * equinox of J2000.
+ * 
+ * The elements are returned in an array in the order given by the index
+ * constants.  The semi-major axis is in AU and the angles in radians.
+ */
+
+public class BarycentricElements {
+	public static final int SEMI_MAJOR_AXIS = 0;
+	public static final int ECCENTRICITY = 1;
+	public static final int INCLINATION = 2;
+	public static final int LONGITUDE_OF_NODE = 3;
+	public static final int LONGITUDE_OF_PERIHELION = 4;
+	public static final int MEAN_LONGITUDE = 5;
+	
+	public static final int NUMBER_OF_ELEMENTS = 6;
+	
+	private static final double OBLIQUITY = Math.PI/180.0 * (23.0 + 26.0/60.0 + 21.448/3600.0);
+	
+	private static final double COS_OBLIQUITY = Math.cos(OBLIQUITY);
+	private static final double SIN_OBLIQUITY = Math.sin(OBLIQUITY);
+	
+	private static final double TWO_PI = 2.0 * Math.PI;
+	
+	/*
+	 * Calculate the elements of body i from the packed position (AU) and
+	 * velocity (AU/day) arrays of a SolarSystemState, using the gravitational
+	 * parameter mu (AU^3/day^2) of the central mass.  For a hyperbolic orbit,
+	 * the mean longitude is NaN.
+	 */
+	
+	public static void calculateElements(double[] position, double[] velocity, int i, double mu, double[] elements) {
+		double px = position[3 * i];
+		double py = COS_OBLIQUITY * position[3 * i + 1] + SIN_OBLIQUITY * position[3 * i + 2];
+		double pz = -SIN_OBLIQUITY * position[3 * i + 1] + COS_OBLIQUITY * position[3 * i + 2];
+		
+		double vx = velocity[3 * i];
+		double vy = COS_OBLIQUITY * velocity[3 * i + 1] + SIN_OBLIQUITY * velocity[3 * i + 2];
+		double vz = -SIN_OBLIQUITY * velocity[3 * i + 1] + COS_OBLIQUITY * velocity[3 * i + 2];
+		
+		double r = Math.sqrt(px * px + py * py + pz * pz);
+		double v2 = vx * vx + vy * vy + vz * vz;
+		double rv = px * vx + py * vy + pz * vz;
+		
+		// Specific angular momentum.
+		
+		double hx = py * vz - pz * vy;
+		double hy = pz * vx - px * vz;
+		double hz = px * vy - py * vx;
+		
+		// Eccentricity vector.
+		
+		double f = v2 / mu - 1.0 / r;
+		double g = rv / mu;
+		
+		double ex = f * px - g * vx;
+		double ey = f * py - g * vy;
+		double ez = f * pz - g * vz;
+		
+		double ecc = Math.sqrt(ex * ex + ey * ey + ez * ez);
+		
+		double a = 1.0 / (2.0 / r - v2 / mu);
+		
+		double incl = Math.atan2(Math.sqrt(hx * hx + hy * hy), hz);
+		
+		double node = Math.atan2(hx, -hy);
+		
+		/*
+		 * The argument of perihelion is measured in the orbital plane from the
+		 * ascending node, whose direction is n = (cos node, sin node, 0),
+		 * towards h x n.
+		 */
+		
+		double h = Math.sqrt(hx * hx + hy * hy + hz * hz);
+		
+		double cn = Math.cos(node), sn = Math.sin(node);
+		
+		double ecos = ex * cn + ey * sn;
+		double esin = (-hz * sn * ex + hz * cn * ey + (hx * sn - hy * cn) * ez) / h;
+		
+		double apse = node + Math.atan2(esin, ecos);
+		
+		double lambda = Double.NaN;
+		
+		if (a > 0.0) {
+			double eAnomaly = Math.atan2(rv / Math.sqrt(mu * a), 1.0 - r / a);
+			
+			double mAnomaly = eAnomaly - ecc * Math.sin(eAnomaly);
+			
+			lambda = normalise(apse + mAnomaly);
+		}
+		
+		elements[SEMI_MAJOR_AXIS] = a;
+		elements[ECCENTRICITY] = ecc;
+		elements[INCLINATION] = incl;
+		elements[LONGITUDE_OF_NODE] = normalise(node);
+		elements[LONGITUDE_OF_PERIHELION] = normalise(apse);
+		elements[MEAN_LONGITUDE] = lambda;
+	}
+	
+	private static double normalise(double angle) {
+		angle %= TWO_PI;
+		
+		return angle < 0.0 ? angle + TWO_PI : angle;
+	}
+}
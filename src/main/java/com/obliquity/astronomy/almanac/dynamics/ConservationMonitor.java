@@ -0,0 +1,174 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.dynamics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+
+/*
+ * This class monitors how well an ephemeris conserves the total angular
+ * momentum and energy of the Sun, planets, Pluto and Moon over a range of
+ * dates, and how far the centre of mass of those bodies drifts from the
+ * ephemeris barycentre.
+ * 
+ * The invariants are calculated at a fixed step and compared with their
+ * values at the start of the range.  The samples are divided into chunks
+ * which are processed in parallel, each with its own copy of the ephemeris,
+ * and the statistics are accumulated in constant memory.
+ */
+
+public class ConservationMonitor {
+	private static final int DEFAULT_CHUNK_SIZE = 4096;
+	
+	private static final double MAS_PER_RADIAN = 180.0 * 3600.0 * 1000.0 / Math.PI;
+	
+	private final JPLEphemeris ephemeris;
+	
+	private final ForkJoinPool pool;
+	
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	
+	/*
+	 * If nThreads is zero or negative, the number of available processors is
+	 * used.
+	 */
+	
+	public ConservationMonitor(JPLEphemeris ephemeris, int nThreads) {
+		this.ephemeris = ephemeris;
+		
+		if (nThreads <= 0)
+			nThreads = Runtime.getRuntime().availableProcessors();
+		
+		pool = new ForkJoinPool(nThreads);
+	}
+	
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	public ConservationReport monitor(double jdStart, double jdFinish, double step) throws JPLEphemerisException {
+		if (!(step > 0.0))
+			throw new IllegalArgumentException("Step size must be positive");
+		
+		if (jdFinish < jdStart)
+			throw new IllegalArgumentException("End date is before start date");
+		
+		long startTime = System.nanoTime();
+		
+		SolarSystemState state = new SolarSystemState(new JPLEphemeris(ephemeris));
+		
+		state.evaluate(jdStart);
+		
+		SystemInvariants reference = new SystemInvariants();
+		
+		reference.calculate(state);
+		
+		long samples = 1 + (long)Math.floor((jdFinish - jdStart) / step);
+		
+		List<Callable<ConservationReport>> tasks = new ArrayList<Callable<ConservationReport>>();
+		
+		for (long first = 0; first < samples; first += chunkSize) {
+			final long from = first;
+			final long to = Math.min(samples, first + chunkSize);
+			
+			tasks.add(() -> monitorChunk(reference, jdStart, step, from, to));
+		}
+		
+		ConservationReport total = new ConservationReport(reference);
+		
+		List<Future<ConservationReport>> futures = pool.invokeAll(tasks);
+		
+		for (Future<ConservationReport> future : futures) {
+			try {
+				total.merge(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JPLEphemerisException("Interrupted whilst monitoring ephemeris");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof JPLEphemerisException)
+					throw (JPLEphemerisException)e.getCause();
+				else
+					throw new RuntimeException(e.getCause());
+			}
+		}
+		
+		total.setRange(jdStart, jdStart + (samples - 1) * step, step, 1.0e-9 * (System.nanoTime() - startTime));
+		
+		return total;
+	}
+	
+	private ConservationReport monitorChunk(SystemInvariants reference, double jdStart, double step, long from, long to)
+			throws JPLEphemerisException {
+		ConservationReport report = new ConservationReport(reference);
+		
+		SolarSystemState state = new SolarSystemState(new JPLEphemeris(ephemeris));
+		SystemInvariants invariants = new SystemInvariants();
+		
+		double L0 = reference.getAngularMomentumMagnitude();
+		double E0 = Math.abs(reference.getEnergy());
+		
+		double AU = ephemeris.getAU();
+		double velocityScale = AU * 1.0e6 / 86400.0;
+		
+		double[] c = new double[3];
+		
+		for (long n = from; n < to; n++) {
+			double t = jdStart + n * step;
+			
+			state.evaluate(t);
+			invariants.calculate(state);
+			
+			report.angularMomentum.add((invariants.getAngularMomentumMagnitude() - L0) / L0, t);
+			report.invariablePlane.add(invariants.angleBetweenAngularMomenta(reference) * MAS_PER_RADIAN, t);
+			report.energy.add((invariants.getEnergy() - reference.getEnergy()) / E0, t);
+			
+			invariants.getCentreOfMass(c);
+			report.centreOfMass.add(AU * Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2]), t);
+			
+			invariants.getCentreOfMassVelocity(c);
+			report.centreOfMassVelocity.add(velocityScale * Math.sqrt(c[0] * c[0] + c[1] * c[1] + c[2] * c[2]), t);
+		}
+		
+		return report;
+	}
+}
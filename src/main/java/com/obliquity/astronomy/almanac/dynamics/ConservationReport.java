@@ -0,0 +1,120 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.dynamics;
+
+import java.io.PrintStream;
+
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+import com.obliquity.astronomy.almanac.comparison.DifferenceStatistics;
+
+/*
+ * This class holds the statistics gathered by a ConservationMonitor, and
+ * writes them as a compact report.
+ * 
+ * The angular momentum and energy are given as absolute changes relative to
+ * their values at the start of the range.  The drift of the invariable plane
+ * is the angle between the angular momentum vectors, in milliarcseconds.
+ * The centre of mass offset is in kilometres and its velocity in millimetres
+ * per second.
+ */
+
+public class ConservationReport {
+	private final SystemInvariants reference;
+	
+	final DifferenceStatistics angularMomentum = new DifferenceStatistics();
+	final DifferenceStatistics invariablePlane = new DifferenceStatistics();
+	final DifferenceStatistics energy = new DifferenceStatistics();
+	final DifferenceStatistics centreOfMass = new DifferenceStatistics();
+	final DifferenceStatistics centreOfMassVelocity = new DifferenceStatistics();
+	
+	private double jdStart, jdFinish, step, elapsedTime;
+	
+	ConservationReport(SystemInvariants reference) {
+		this.reference = reference;
+	}
+	
+	void merge(ConservationReport that) {
+		angularMomentum.merge(that.angularMomentum);
+		invariablePlane.merge(that.invariablePlane);
+		energy.merge(that.energy);
+		centreOfMass.merge(that.centreOfMass);
+		centreOfMassVelocity.merge(that.centreOfMassVelocity);
+	}
+	
+	void setRange(double jdStart, double jdFinish, double step, double elapsedTime) {
+		this.jdStart = jdStart;
+		this.jdFinish = jdFinish;
+		this.step = step;
+		this.elapsedTime = elapsedTime;
+	}
+	
+	public SystemInvariants getReferenceInvariants() {
+		return reference;
+	}
+	
+	public DifferenceStatistics getAngularMomentumStatistics() {
+		return angularMomentum;
+	}
+	
+	public DifferenceStatistics getInvariablePlaneStatistics() {
+		return invariablePlane;
+	}
+	
+	public DifferenceStatistics getEnergyStatistics() {
+		return energy;
+	}
+	
+	public DifferenceStatistics getCentreOfMassStatistics() {
+		return centreOfMass;
+	}
+	
+	public DifferenceStatistics getCentreOfMassVelocityStatistics() {
+		return centreOfMassVelocity;
+	}
+	
+	public void print(PrintStream ps) {
+		ps.printf("# Monitored %d epochs from JD %.1f to %.1f at %.4f day intervals in %.1f s\n",
+				angularMomentum.getCount(), jdStart, jdFinish, step, elapsedTime);
+		ps.printf("# Invariable plane at JD %.1f: node %.8f deg, inclination %.8f deg to the ICRF equator\n",
+				reference.getTime(), Math.toDegrees(reference.getInvariablePlaneNode()),
+				Math.toDegrees(reference.getInvariablePlaneInclination()));
+		ps.printf("# %-18s %12s %12s %12s %12s %12s  %s\n", "Quantity", "RMS", "50%", "99%", "99.9%", "Maximum",
+				"Date of maximum");
+		
+		printLine(ps, "dL/L", angularMomentum);
+		printLine(ps, "plane(mas)", invariablePlane);
+		printLine(ps, "dE/E", energy);
+		printLine(ps, "CoM offset(km)", centreOfMass);
+		printLine(ps, "CoM vel(mm/s)", centreOfMassVelocity);
+	}
+	
+	private void printLine(PrintStream ps, String quantity, DifferenceStatistics stats) {
+		AstronomicalDate ad = new AstronomicalDate(stats.getTimeOfMaximum());
+		
+		ps.printf("  %-18s %12.5g %12.5g %12.5g %12.5g %12.5g  %d-%02d-%02d\n", quantity, stats.getRMS(),
+				stats.getPercentile(50.0), stats.getPercentile(99.0), stats.getPercentile(99.9), stats.getMaximum(),
+				ad.getYear(), ad.getMonth(), ad.getDay());
+	}
+}
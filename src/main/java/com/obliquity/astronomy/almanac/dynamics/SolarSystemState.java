@@ -0,0 +1,190 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.dynamics;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class evaluates the barycentric positions and velocities of the Sun,
+ * the planets, Pluto and the Earth and Moon as separate bodies, at a single
+ * instant, into flat arrays packed as x, y, z for each body in turn.
+ * 
+ * Positions are in AU and velocities in AU/day, referred to the ICRF.  The
+ * gravitational parameters are taken from the ephemeris header, in AU^3/day^2.
+ * 
+ * Instances are not thread-safe.  Each thread should construct its own
+ * instance, passing a copy of the ephemeris made with the JPLEphemeris copy
+ * constructor.
+ */
+
+public class SolarSystemState {
+	public static final int SUN = 0;
+	public static final int MERCURY = 1;
+	public static final int VENUS = 2;
+	public static final int EARTH = 3;
+	public static final int MOON = 4;
+	public static final int MARS = 5;
+	public static final int JUPITER = 6;
+	public static final int SATURN = 7;
+	public static final int URANUS = 8;
+	public static final int NEPTUNE = 9;
+	public static final int PLUTO = 10;
+	
+	public static final int NUMBER_OF_BODIES = 11;
+	
+	private static final String[] BODY_NAMES = { "Sun", "Mercury", "Venus", "Earth", "Moon", "Mars", "Jupiter",
+			"Saturn", "Uranus", "Neptune", "Pluto" };
+	
+	private static final int[] COMPONENTS = { JPLEphemeris.SUN, JPLEphemeris.MERCURY, JPLEphemeris.VENUS, -1, -1,
+			JPLEphemeris.MARS, JPLEphemeris.JUPITER, JPLEphemeris.SATURN, JPLEphemeris.URANUS, JPLEphemeris.NEPTUNE,
+			JPLEphemeris.PLUTO };
+	
+	private final JPLEphemeris ephemeris;
+	
+	private final double[] gm = new double[NUMBER_OF_BODIES];
+	
+	private final double[] position = new double[3 * NUMBER_OF_BODIES];
+	private final double[] velocity = new double[3 * NUMBER_OF_BODIES];
+	
+	private final double reciprocalAU;
+	private final double earthFraction, moonFraction;
+	
+	private final Vector p = new Vector(), v = new Vector();
+	private final Vector pMoon = new Vector(), vMoon = new Vector();
+	private final double[] pm = new double[3], vm = new double[3];
+	
+	private double time = Double.NaN;
+	
+	public SolarSystemState(JPLEphemeris ephemeris) throws JPLEphemerisException {
+		this.ephemeris = ephemeris;
+		
+		double gmb = getRequiredConstant("GMB");
+		double emrat = ephemeris.getEMRAT();
+		
+		gm[SUN] = getRequiredConstant("GMS");
+		gm[MERCURY] = getRequiredConstant("GM1");
+		gm[VENUS] = getRequiredConstant("GM2");
+		gm[EARTH] = gmb * emrat / (1.0 + emrat);
+		gm[MOON] = gmb / (1.0 + emrat);
+		gm[MARS] = getRequiredConstant("GM4");
+		gm[JUPITER] = getRequiredConstant("GM5");
+		gm[SATURN] = getRequiredConstant("GM6");
+		gm[URANUS] = getRequiredConstant("GM7");
+		gm[NEPTUNE] = getRequiredConstant("GM8");
+		gm[PLUTO] = getRequiredConstant("GM9");
+		
+		reciprocalAU = 1.0 / ephemeris.getAU();
+		
+		earthFraction = 1.0 / (1.0 + emrat);
+		moonFraction = emrat / (1.0 + emrat);
+	}
+	
+	private double getRequiredConstant(String name) throws JPLEphemerisException {
+		Double value = ephemeris.getConstant(name);
+		
+		if (value == null)
+			throw new JPLEphemerisException("Ephemeris does not define the constant " + name);
+		
+		return value.doubleValue();
+	}
+	
+	public static String getBodyName(int i) {
+		return BODY_NAMES[i];
+	}
+	
+	public void evaluate(double t) throws JPLEphemerisException {
+		time = Double.NaN;
+		
+		for (int i = 0; i < NUMBER_OF_BODIES; i++) {
+			if (COMPONENTS[i] < 0)
+				continue;
+			
+			ephemeris.calculatePositionAndVelocity(t, COMPONENTS[i], p, v);
+			
+			store(i, p, v);
+		}
+		
+		/*
+		 * The ephemeris gives the Earth-Moon barycentre and the geocentric
+		 * position of the Moon.
+		 */
+		
+		ephemeris.calculatePositionAndVelocity(t, JPLEphemeris.EMB, p, v);
+		ephemeris.calculatePositionAndVelocity(t, JPLEphemeris.MOON, pMoon, vMoon);
+		
+		pMoon.toArray(pm);
+		vMoon.toArray(vm);
+		
+		store(EARTH, p, v);
+		store(MOON, p, v);
+		
+		for (int k = 0; k < 3; k++) {
+			position[3 * EARTH + k] -= earthFraction * pm[k] * reciprocalAU;
+			velocity[3 * EARTH + k] -= earthFraction * vm[k] * reciprocalAU;
+			
+			position[3 * MOON + k] += moonFraction * pm[k] * reciprocalAU;
+			velocity[3 * MOON + k] += moonFraction * vm[k] * reciprocalAU;
+		}
+		
+		time = t;
+	}
+	
+	private void store(int i, Vector p, Vector v) {
+		position[3 * i] = p.getX() * reciprocalAU;
+		position[3 * i + 1] = p.getY() * reciprocalAU;
+		position[3 * i + 2] = p.getZ() * reciprocalAU;
+		
+		velocity[3 * i] = v.getX() * reciprocalAU;
+		velocity[3 * i + 1] = v.getY() * reciprocalAU;
+		velocity[3 * i + 2] = v.getZ() * reciprocalAU;
+	}
+	
+	/*
+	 * The time of the most recent successful evaluation.
+	 */
+	
+	public double getTime() {
+		return time;
+	}
+	
+	/*
+	 * The following methods return the internal arrays, which are overwritten
+	 * by the next evaluation and must not be modified.
+	 */
+	
+	public double[] getGM() {
+		return gm;
+	}
+	
+	public double[] getPositions() {
+		return position;
+	}
+	
+	public double[] getVelocities() {
+		return velocity;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.dynamics;
+
+/*
+ * This class calculates the quantities which are conserved by an isolated
+ * system of point masses -- the total angular momentum and energy -- and the
+ * position and velocity of the centre of mass, from a SolarSystemState.
+ * 
+ * All quantities are scaled by the gravitational constant, so the angular
+ * momentum is in AU^5/day^3 and the energy in AU^5/day^4.  The invariable
+ * plane is the plane perpendicular to the total angular momentum; its node
+ * and inclination are referred to the ICRF equator.
+ */
+
+public class SystemInvariants {
+	private final double[] angularMomentum = new double[3];
+	private final double[] centreOfMass = new double[3];
+	private final double[] centreOfMassVelocity = new double[3];
+	
+	private double kineticEnergy, potentialEnergy;
+	
+	private double time = Double.NaN;
+	
+	public void calculate(SolarSystemState state) {
+		double[] gm = state.getGM();
+		double[] x = state.getPositions();
+		double[] v = state.getVelocities();
+		
+		int n = gm.length;
+		
+		double lx = 0.0, ly = 0.0, lz = 0.0;
+		double cx = 0.0, cy = 0.0, cz = 0.0;
+		double ux = 0.0, uy = 0.0, uz = 0.0;
+		double totalGM = 0.0, kinetic = 0.0, potential = 0.0;
+		
+		for (int i = 0; i < n; i++) {
+			double m = gm[i];
+			
+			double px = x[3 * i], py = x[3 * i + 1], pz = x[3 * i + 2];
+			double vx = v[3 * i], vy = v[3 * i + 1], vz = v[3 * i + 2];
+			
+			lx += m * (py * vz - pz * vy);
+			ly += m * (pz * vx - px * vz);
+			lz += m * (px * vy - py * vx);
+			
+			cx += m * px;
+			cy += m * py;
+			cz += m * pz;
+			
+			ux += m * vx;
+			uy += m * vy;
+			uz += m * vz;
+			
+			totalGM += m;
+			
+			kinetic += 0.5 * m * (vx * vx + vy * vy + vz * vz);
+			
+			for (int j = i + 1; j < n; j++) {
+				double dx = px - x[3 * j], dy = py - x[3 * j + 1], dz = pz - x[3 * j + 2];
+				
+				potential -= m * gm[j] / Math.sqrt(dx * dx + dy * dy + dz * dz);
+			}
+		}
+		
+		angularMomentum[0] = lx;
+		angularMomentum[1] = ly;
+		angularMomentum[2] = lz;
+		
+		centreOfMass[0] = cx / totalGM;
+		centreOfMass[1] = cy / totalGM;
+		centreOfMass[2] = cz / totalGM;
+		
+		centreOfMassVelocity[0] = ux / totalGM;
+		centreOfMassVelocity[1] = uy / totalGM;
+		centreOfMassVelocity[2] = uz / totalGM;
+		
+		kineticEnergy = kinetic;
+		potentialEnergy = potential;
+		
+		time = state.getTime();
+	}
+	
+	public double getTime() {
+		return time;
+	}
+	
+	public void getAngularMomentum(double[] l) {
+		System.arraycopy(angularMomentum, 0, l, 0, 3);
+	}
+	
+	public double getAngularMomentumMagnitude() {
+		double lx = angularMomentum[0], ly = angularMomentum[1], lz = angularMomentum[2];
+		
+		return Math.sqrt(lx * lx + ly * ly + lz * lz);
+	}
+	
+	public double getKineticEnergy() {
+		return kineticEnergy;
+	}
+	
+	public double getPotentialEnergy() {
+		return potentialEnergy;
+	}
+	
+	public double getEnergy() {
+		return kineticEnergy + potentialEnergy;
+	}
+	
+	/*
+	 * The position (AU) and velocity (AU/day) of the centre of mass of the
+	 * bodies, relative to the solar system barycentre of the ephemeris.  These
+	 * are not zero, because the ephemeris includes bodies such as the
+	 * asteroids which are not represented in the SolarSystemState.
+	 */
+	
+	public void getCentreOfMass(double[] c) {
+		System.arraycopy(centreOfMass, 0, c, 0, 3);
+	}
+	
+	public void getCentreOfMassVelocity(double[] u) {
+		System.arraycopy(centreOfMassVelocity, 0, u, 0, 3);
+	}
+	
+	/*
+	 * The longitude of the ascending node and the inclination of the
+	 * invariable plane, in radians.
+	 */
+	
+	public double getInvariablePlaneNode() {
+		double node = Math.atan2(angularMomentum[0], -angularMomentum[1]);
+		
+		return node < 0.0 ? node + 2.0 * Math.PI : node;
+	}
+	
+	public double getInvariablePlaneInclination() {
+		double lx = angularMomentum[0], ly = angularMomentum[1];
+		
+		return Math.atan2(Math.sqrt(lx * lx + ly * ly), angularMomentum[2]);
+	}
+	
+	/*
+	 * The angle, in radians, between the angular momentum vectors of this
+	 * object and another.
+	 */
+	
+	public double angleBetweenAngularMomenta(SystemInvariants that) {
+		double[] a = this.angularMomentum, b = that.angularMomentum;
+		
+		double cx = a[1] * b[2] - a[2] * b[1];
+		double cy = a[2] * b[0] - a[0] * b[2];
+		double cz = a[0] * b[1] - a[1] * b[0];
+		
+		double sine = Math.sqrt(cx * cx + cy * cy + cz * cz);
+		double cosine = a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+		
+		return Math.atan2(sine, cosine);
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.chebyshev.Chebyshev;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevSegment;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevTransform;
+
+/*
+ * This step handler fits Chebyshev polynomials to the positions of each
+ * particle over a sequence of segments of equal length, in the manner of
+ * the JPL ephemerides.
+ * 
+ * The first segment begins at the start of the integration.  The last
+ * segment ends at the end of the integration, and may be shorter than the
+ * others.  The positions are sampled at the zeroes of the Chebyshev
+ * polynomial of degree N, using the dense output of the integrator, so no
+ * extra evaluations of the accelerations are required.
+ */
+
+public class ChebyshevOutputCollector implements StepHandler {
+	private final int nParticles;
+	private final double t0, t1, segmentLength, direction;
+	private final int nCoefficients;
+	
+	private final List<List<ChebyshevSegment>> segments;
+	
+	private final double[] zeroes;
+	private final ChebyshevTransform transform;
+	
+	private double segmentStart, segmentEnd;
+	private int nextNode;
+	private final double[][][] values;
+	
+	private final double[] x;
+	private final double[] fitValues;
+	
+	public ChebyshevOutputCollector(int nParticles, double t0, double t1, double segmentLength, int nCoefficients) {
+		if (nParticles < 1)
+			throw new IllegalArgumentException("Number of particles must be positive");
+		
+		if (!(segmentLength > 0.0))
+			throw new IllegalArgumentException("Segment length must be positive");
+		
+		if (nCoefficients < 2)
+			throw new IllegalArgumentException("At least two coefficients are required");
+		
+		if (t1 == t0)
+			throw new IllegalArgumentException("Start and end of integration are the same");
+		
+		this.nParticles = nParticles;
+		this.t0 = t0;
+		this.t1 = t1;
+		this.segmentLength = segmentLength;
+		this.nCoefficients = nCoefficients;
+		
+		direction = t1 > t0 ? 1.0 : -1.0;
+		
+		segments = new ArrayList<List<ChebyshevSegment>>(nParticles);
+		
+		for (int i = 0; i < nParticles; i++)
+			segments.add(new ArrayList<ChebyshevSegment>());
+		
+		zeroes = new double[nCoefficients];
+		
+		Chebyshev.calculateChebyshevZeroes(zeroes);
+		
+		transform = new ChebyshevTransform(nCoefficients);
+		
+		values = new double[nParticles][3][nCoefficients];
+		
+		x = new double[3 * nParticles];
+		fitValues = new double[nCoefficients];
+		
+		startSegment(t0);
+	}
+	
+	private void startSegment(double tStart) {
+		segmentStart = tStart;
+		
+		segmentEnd = tStart + direction * segmentLength;
+		
+		if (direction * (segmentEnd - t1) > 0.0 || Math.abs(t1 - segmentEnd) < 1.0e-3 * segmentLength)
+			segmentEnd = t1;
+		
+		nextNode = 0;
+	}
+	
+	/*
+	 * The zeroes are in descending order, so the nodes are visited from the
+	 * last zero to the first.  When integrating backwards, segmentEnd is
+	 * earlier than segmentStart, and the mapping of the zeroes onto the
+	 * segment is reversed.
+	 */
+	
+	private int getZeroIndex(int node) {
+		return nCoefficients - 1 - node;
+	}
+	
+	private double getNodeTime(int node) {
+		double mid = 0.5 * (segmentStart + segmentEnd);
+		double half = 0.5 * (segmentEnd - segmentStart);
+		
+		return mid + half * zeroes[getZeroIndex(node)];
+	}
+	
+	public boolean isComplete() {
+		return segmentStart == t1;
+	}
+	
+	public void handleStep(GaussRadauIntegrator integrator, double tStart, double tEnd) throws JPLEphemerisException {
+		if (integrator.getNumberOfParticles() != nParticles)
+			throw new IllegalStateException("Integrator has " + integrator.getNumberOfParticles() +
+					" particles but this collector expects " + nParticles);
+		
+		while (!isComplete()) {
+			double t = getNodeTime(nextNode);
+			
+			if (direction * (t - tEnd) > 0.0)
+				break;
+			
+			integrator.interpolatePosition(t, x);
+			
+			int k = getZeroIndex(nextNode);
+			
+			for (int i = 0; i < nParticles; i++)
+				for (int j = 0; j < 3; j++)
+					values[i][j][k] = x[3 * i + j];
+			
+			nextNode++;
+			
+			if (nextNode == nCoefficients) {
+				fitSegment();
+				startSegment(segmentEnd);
+			}
+		}
+	}
+	
+	private void fitSegment() {
+		double jdStart = Math.min(segmentStart, segmentEnd);
+		double jdEnd = Math.max(segmentStart, segmentEnd);
+		
+		/*
+		 * The segment's time argument runs from jdStart to jdEnd.  When
+		 * integrating backwards, the nodes were mapped from the other end of
+		 * the segment, so the function values must be reversed.
+		 */
+		
+		for (int i = 0; i < nParticles; i++) {
+			double[][] coeffs = new double[3][nCoefficients];
+			
+			for (int j = 0; j < 3; j++) {
+				for (int k = 0; k < nCoefficients; k++)
+					fitValues[k] = direction > 0.0 ? values[i][j][k] : values[i][j][nCoefficients - 1 - k];
+				
+				transform.transform(fitValues, coeffs[j]);
+			}
+			
+			segments.get(i).add(new ChebyshevSegment(jdStart, jdEnd, coeffs));
+		}
+	}
+	
+	/*
+	 * Return the segments for particle i, in chronological order.
+	 */
+	
+	public List<ChebyshevSegment> getSegments(int i) {
+		List<ChebyshevSegment> list = new ArrayList<ChebyshevSegment>(segments.get(i));
+		
+		if (direction < 0.0)
+			Collections.reverse(list);
+		
+		return list;
+	}
+	
+	public double getSegmentLength() {
+		return segmentLength;
+	}
+	
+	public int getNumberOfCoefficients() {
+		return nCoefficients;
+	}
+}
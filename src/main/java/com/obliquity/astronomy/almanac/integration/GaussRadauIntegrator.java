@@ -0,0 +1,548 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.integration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+
+/*
+ * A 15th-order implicit Runge-Kutta integrator for second-order equations of
+ * the form x'' = F(t, x), using Gauss-Radau spacings within each step.
+ * 
+ * This is Everhart's RADAU method, with the adaptive step-size control
+ * described by Rein and Spiegel (2015), MNRAS 446, 1424 ("IAS15").
+ * 
+ * The acceleration is represented within each step as a polynomial in the
+ * fractional step tau:
+ * 
+ *   a(tau) = a0 + b[0] tau + b[1] tau^2 + ... + b[6] tau^7
+ * 
+ * and the coefficients b[k] are found by predictor-corrector iteration using
+ * the accelerations at the seven Gauss-Radau substeps.  The same polynomial
+ * provides dense output anywhere within an accepted step.
+ * 
+ * The state vector may contain any number of particles.  Each particle
+ * occupies three consecutive elements of the position and velocity arrays.
+ * All particles share the same sequence of steps, so an AccelerationModel
+ * can evaluate the positions of perturbing bodies once per substep.
+ */
+
+public class GaussRadauIntegrator {
+	/*
+	 * The Gauss-Radau spacings on the interval [0, 1].
+	 */
+	
+	private static final double[] H = {
+			0.0,
+			0.0562625605369221464656521910318,
+			0.180240691736892364987579942780,
+			0.352624717113169637373907769648,
+			0.547153626330555383001448554766,
+			0.734210177215410531523210605558,
+			0.885320946839095768090359771030,
+			0.977520613561287501891174488626
+	};
+	
+	private static final int NSUBSTEPS = 7;
+	
+	/*
+	 * C[j][k] is the coefficient of tau^(k+1) in the product
+	 * tau (tau - H[1]) ... (tau - H[j]).  It converts the divided-difference
+	 * coefficients g[j] into the power-series coefficients b[k].
+	 */
+	
+	private static final double[][] C = new double[NSUBSTEPS][NSUBSTEPS];
+	
+	static {
+		double[] p = new double[NSUBSTEPS];
+		
+		p[0] = 1.0;
+		
+		for (int j = 0; j < NSUBSTEPS; j++) {
+			if (j > 0) {
+				for (int k = j; k > 0; k--)
+					p[k] = p[k - 1] - H[j] * p[k];
+				
+				p[0] = -H[j] * p[0];
+			}
+			
+			for (int k = 0; k <= j; k++)
+				C[j][k] = p[k];
+		}
+	}
+	
+	private static final double[][] BINOMIAL = new double[NSUBSTEPS + 2][NSUBSTEPS + 2];
+	
+	static {
+		for (int n = 0; n < BINOMIAL.length; n++) {
+			BINOMIAL[n][0] = 1.0;
+			
+			for (int m = 1; m <= n; m++)
+				BINOMIAL[n][m] = BINOMIAL[n - 1][m - 1] + (m < n ? BINOMIAL[n - 1][m] : 0.0);
+		}
+	}
+	
+	public static final double DEFAULT_TOLERANCE = 1.0e-9;
+	
+	private static final double PREDICTOR_CORRECTOR_TOLERANCE = 1.0e-16;
+	private static final int MAX_ITERATIONS = 12;
+	
+	private static final double MAX_STEP_GROWTH = 4.0;
+	private static final double MIN_STEP_RATIO = 0.25;
+	
+	private final AccelerationModel model;
+	
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double initialStepSize = Double.NaN;
+	private double minimumStepSize = 1.0e-6;
+	private double maximumStepSize = Double.POSITIVE_INFINITY;
+	
+	private final List<StepHandler> handlers = new ArrayList<StepHandler>();
+	
+	private int n;
+	
+	private double[] x0, v0, a0, xs, as;
+	private double[][] b, g;
+	
+	private final double[] bp = new double[NSUBSTEPS];
+	
+	private double tStart, dt;
+	
+	private long nSteps, nRejected, nEvaluations;
+	
+	public GaussRadauIntegrator(AccelerationModel model) {
+		if (model == null)
+			throw new IllegalArgumentException("null passed where AccelerationModel expected");
+		
+		this.model = model;
+	}
+	
+	/*
+	 * The tolerance controls the step size.  It is the permitted size of the
+	 * highest-order term in the acceleration polynomial, relative to the
+	 * acceleration itself.
+	 */
+	
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0.0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		this.tolerance = tolerance;
+	}
+	
+	public double getTolerance() {
+		return tolerance;
+	}
+	
+	/*
+	 * The magnitude of the first trial step, in days.  If this is not set,
+	 * the first step is one per cent of the length of the integration, but
+	 * no longer than one day.
+	 */
+	
+	public void setInitialStepSize(double initialStepSize) {
+		this.initialStepSize = Math.abs(initialStepSize);
+	}
+	
+	/*
+	 * Steps are never made shorter than the minimum step size, even if the
+	 * tolerance cannot then be met, for example during a very close approach
+	 * to a perturbing body.
+	 */
+	
+	public void setMinimumStepSize(double minimumStepSize) {
+		this.minimumStepSize = Math.abs(minimumStepSize);
+	}
+	
+	public void setMaximumStepSize(double maximumStepSize) {
+		this.maximumStepSize = Math.abs(maximumStepSize);
+	}
+	
+	public void addStepHandler(StepHandler handler) {
+		handlers.add(handler);
+	}
+	
+	public void removeStepHandler(StepHandler handler) {
+		handlers.remove(handler);
+	}
+	
+	public long getNumberOfSteps() {
+		return nSteps;
+	}
+	
+	public long getNumberOfRejectedSteps() {
+		return nRejected;
+	}
+	
+	public long getNumberOfEvaluations() {
+		return nEvaluations;
+	}
+	
+	public int getNumberOfParticles() {
+		return n / 3;
+	}
+	
+	/*
+	 * Integrate the positions x and velocities v from time t0 to time t1.
+	 * The final state is returned in the same arrays.  The integration may
+	 * run backwards in time if t1 is earlier than t0.
+	 */
+	
+	public void integrate(double t0, double[] x, double[] v, double t1) throws JPLEphemerisException {
+		if (x == null || v == null)
+			throw new IllegalArgumentException("null passed where array expected");
+		
+		if (x.length != v.length || x.length == 0 || x.length % 3 != 0)
+			throw new IllegalArgumentException("Position and velocity arrays must have the same non-zero length, a multiple of 3");
+		
+		allocate(x.length);
+		
+		System.arraycopy(x, 0, x0, 0, n);
+		System.arraycopy(v, 0, v0, 0, n);
+		
+		for (int k = 0; k < NSUBSTEPS; k++) {
+			Arrays.fill(b[k], 0.0);
+			Arrays.fill(g[k], 0.0);
+		}
+		
+		double direction = t1 >= t0 ? 1.0 : -1.0;
+		
+		double step = initialStepSize;
+		
+		if (Double.isNaN(step))
+			step = Math.min(0.01 * Math.abs(t1 - t0), 1.0);
+		
+		step = Math.min(step, maximumStepSize);
+		
+		tStart = t0;
+		
+		boolean firstStep = true;
+		
+		while (direction * (t1 - tStart) > 0.0) {
+			boolean lastStep = false;
+			
+			if (step >= Math.abs(t1 - tStart)) {
+				step = Math.abs(t1 - tStart);
+				lastStep = true;
+			}
+			
+			double dtTrial = direction * step;
+			
+			if (dt != 0.0 && !firstStep)
+				predictCoefficients(dtTrial / dt);
+			
+			dt = dtTrial;
+			
+			model.calculateAccelerations(tStart, x0, a0);
+			nEvaluations++;
+			
+			double nextStep;
+			
+			while (true) {
+				iterate();
+				
+				double ratio = calculateStepRatio();
+				
+				nextStep = Math.min(step * Math.min(ratio, MAX_STEP_GROWTH), maximumStepSize);
+				
+				if (ratio >= MIN_STEP_RATIO || step <= minimumStepSize)
+					break;
+				
+				/*
+				 * Reject the step and try again with a smaller one, scaling the
+				 * acceleration polynomial to the new step as a first guess.
+				 */
+				
+				nRejected++;
+				
+				lastStep = false;
+				
+				double q = Math.max(nextStep, minimumStepSize) / step;
+				
+				rescaleCoefficients(q);
+				
+				step *= q;
+				dt = direction * step;
+			}
+			
+			double tEnd = lastStep ? t1 : tStart + dt;
+			
+			for (StepHandler handler : handlers)
+				handler.handleStep(this, tStart, tEnd);
+			
+			calculateState(1.0, x0, v0);
+			
+			nSteps++;
+			
+			tStart = tEnd;
+			
+			if (!lastStep)
+				step = Math.max(nextStep, minimumStepSize);
+			
+			firstStep = false;
+		}
+		
+		System.arraycopy(x0, 0, x, 0, n);
+		System.arraycopy(v0, 0, v, 0, n);
+	}
+	
+	private void allocate(int size) {
+		if (x0 != null && n == size)
+			return;
+		
+		n = size;
+		
+		x0 = new double[n];
+		v0 = new double[n];
+		a0 = new double[n];
+		xs = new double[n];
+		as = new double[n];
+		
+		b = new double[NSUBSTEPS][n];
+		g = new double[NSUBSTEPS][n];
+		
+		dt = 0.0;
+	}
+	
+	/*
+	 * Predictor-corrector iteration for the coefficients b and g over the
+	 * current step.
+	 */
+	
+	private void iterate() throws JPLEphemerisException {
+		double lastError = Double.POSITIVE_INFINITY;
+		
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			double maxDeltaB6 = 0.0;
+			double maxA = 0.0;
+			
+			for (int i = 1; i <= NSUBSTEPS; i++) {
+				double tau = H[i];
+				
+				calculatePosition(tau, xs);
+				
+				model.calculateAccelerations(tStart + tau * dt, xs, as);
+				nEvaluations++;
+				
+				int j = i - 1;
+				
+				for (int m = 0; m < n; m++) {
+					/*
+					 * Divided difference for g[j], from the accelerations at
+					 * substeps 0 to i.
+					 */
+					
+					double d = (as[m] - a0[m]) / tau;
+					
+					for (int l = 0; l < j; l++)
+						d = (d - g[l][m]) / (tau - H[l + 1]);
+					
+					double dg = d - g[j][m];
+					
+					g[j][m] = d;
+					
+					for (int k = 0; k <= j; k++)
+						b[k][m] += C[j][k] * dg;
+					
+					if (i == NSUBSTEPS) {
+						maxDeltaB6 = Math.max(maxDeltaB6, Math.abs(dg));
+						maxA = Math.max(maxA, Math.abs(as[m]));
+					}
+				}
+			}
+			
+			double error = maxA > 0.0 ? maxDeltaB6 / maxA : maxDeltaB6;
+			
+			if (error < PREDICTOR_CORRECTOR_TOLERANCE)
+				break;
+			
+			/*
+			 * Stop if rounding error prevents further improvement, but always
+			 * make at least two iterations.
+			 */
+			
+			if (iteration > 1 && error >= lastError)
+				break;
+			
+			lastError = error;
+		}
+	}
+	
+	/*
+	 * The ratio of the optimal step size to the current one, based on the
+	 * size of the highest-order term of the acceleration polynomial.
+	 */
+	
+	private double calculateStepRatio() {
+		double maxB6 = 0.0;
+		double maxA = 0.0;
+		
+		for (int m = 0; m < n; m++) {
+			maxB6 = Math.max(maxB6, Math.abs(b[NSUBSTEPS - 1][m]));
+			maxA = Math.max(maxA, Math.abs(as[m]));
+		}
+		
+		if (maxB6 == 0.0 || maxA == 0.0)
+			return MAX_STEP_GROWTH;
+		
+		double error = maxB6 / maxA;
+		
+		return Math.pow(tolerance / error, 1.0 / 7.0);
+	}
+	
+	/*
+	 * Shrink the current step by a factor q, keeping the same starting point.
+	 */
+	
+	private void rescaleCoefficients(double q) {
+		double qk = q;
+		
+		for (int k = 0; k < NSUBSTEPS; k++) {
+			for (int m = 0; m < n; m++)
+				b[k][m] *= qk;
+			
+			qk *= q;
+		}
+		
+		calculateDividedDifferences();
+	}
+	
+	/*
+	 * Predict the acceleration polynomial for the next step, of length q times
+	 * the step just completed, by re-expanding the current polynomial about
+	 * the end of the step.
+	 */
+	
+	private void predictCoefficients(double q) {
+		for (int m = 0; m < n; m++) {
+			double qm = q;
+			
+			for (int mm = 1; mm <= NSUBSTEPS; mm++) {
+				double sum = 0.0;
+				
+				for (int k = mm - 1; k < NSUBSTEPS; k++)
+					sum += b[k][m] * BINOMIAL[k + 1][mm];
+				
+				bp[mm - 1] = qm * sum;
+				
+				qm *= q;
+			}
+			
+			for (int k = 0; k < NSUBSTEPS; k++)
+				b[k][m] = bp[k];
+		}
+		
+		calculateDividedDifferences();
+	}
+	
+	/*
+	 * Recover g from b by back-substitution.
+	 */
+	
+	private void calculateDividedDifferences() {
+		for (int m = 0; m < n; m++) {
+			for (int k = NSUBSTEPS - 1; k >= 0; k--) {
+				double sum = b[k][m];
+				
+				for (int j = k + 1; j < NSUBSTEPS; j++)
+					sum -= C[j][k] * g[j][m];
+				
+				g[k][m] = sum;
+			}
+		}
+	}
+	
+	private void calculatePosition(double tau, double[] x) {
+		double h = dt * tau;
+		double h2 = h * h;
+		
+		for (int m = 0; m < n; m++) {
+			double s = b[6][m] / 72.0;
+			
+			s = tau * s + b[5][m] / 56.0;
+			s = tau * s + b[4][m] / 42.0;
+			s = tau * s + b[3][m] / 30.0;
+			s = tau * s + b[2][m] / 20.0;
+			s = tau * s + b[1][m] / 12.0;
+			s = tau * s + b[0][m] / 6.0;
+			s = tau * s + a0[m] / 2.0;
+			
+			x[m] = x0[m] + h * v0[m] + h2 * s;
+		}
+	}
+	
+	private void calculateVelocity(double tau, double[] v) {
+		double h = dt * tau;
+		
+		for (int m = 0; m < n; m++) {
+			double s = b[6][m] / 8.0;
+			
+			s = tau * s + b[5][m] / 7.0;
+			s = tau * s + b[4][m] / 6.0;
+			s = tau * s + b[3][m] / 5.0;
+			s = tau * s + b[2][m] / 4.0;
+			s = tau * s + b[1][m] / 3.0;
+			s = tau * s + b[0][m] / 2.0;
+			s = tau * s + a0[m];
+			
+			v[m] = v0[m] + h * s;
+		}
+	}
+	
+	private void calculateState(double tau, double[] x, double[] v) {
+		/*
+		 * The position must be calculated first, since x and v may be the
+		 * arrays holding the state at the start of the step, and the position
+		 * depends on the initial velocity.
+		 */
+		
+		calculatePosition(tau, x);
+		calculateVelocity(tau, v);
+	}
+	
+	/*
+	 * Dense output.  These methods may only be called from a StepHandler, and
+	 * are valid for any time within the step which is being handled.
+	 */
+	
+	public double getStepStart() {
+		return tStart;
+	}
+	
+	public double getStepSize() {
+		return dt;
+	}
+	
+	public void interpolatePosition(double t, double[] x) {
+		calculatePosition((t - tStart) / dt, x);
+	}
+	
+	public void interpolateVelocity(double t, double[] v) {
+		calculateVelocity((t - tStart) / dt, v);
+	}
+}
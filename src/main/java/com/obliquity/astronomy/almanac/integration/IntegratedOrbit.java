@@ -0,0 +1,47 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.integration;
+
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevEphemeris;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevSegment;
+
+/*
+ * This class presents the output of a numerical integration, in the form of
+ * a list of contiguous Chebyshev segments, as a MovingPoint.
+ * 
+ * The positions are barycentric and referred to the ICRF, like those of the
+ * JPL ephemeris which provided the perturbations, so the epoch is J2000.
+ * Because this is a ChebyshevEphemeris, an integrated orbit can be written
+ * to a file and read back later without repeating the integration.
+ */
+
+public class IntegratedOrbit extends ChebyshevEphemeris {
+	public IntegratedOrbit(List<ChebyshevSegment> segments, int bodyCode, JPLEphemeris ephemeris) {
+		super(segments, bodyCode, 2451545.0, ephemeris);
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.integration;
+
+import java.util.Arrays;
+
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class calculates the Newtonian point-mass accelerations of any number
+ * of massless test particles due to the Sun, Moon and planets, whose
+ * positions are taken from a JPL ephemeris.
+ * 
+ * Positions are barycentric, in AU, referred to the ICRF.  Times are Julian
+ * Dates in TDB.  The gravitational parameters are in AU^3/day^2, which are
+ * the units of the GMx constants in the JPL ephemeris files.
+ * 
+ * The positions of the perturbing bodies are evaluated once for each distinct
+ * time and shared by every test particle.  A small cache keyed on the time
+ * argument means that the repeated evaluations at the same substep times
+ * made by the predictor-corrector iterations of GaussRadauIntegrator do not
+ * touch the ephemeris again.
+ */
+
+public class PointMassPerturbations implements AccelerationModel {
+	private static final int CACHE_SIZE = 16;
+	
+	private final MovingPoint[] bodies;
+	private final double[] gm;
+	
+	private final double[] cacheTimes = new double[CACHE_SIZE];
+	private final double[][] cachePositions;
+	private int cacheNext = 0;
+	
+	private final Vector work = new Vector();
+	
+	private long bodyEvaluations = 0;
+	
+	public PointMassPerturbations(MovingPoint[] bodies, double[] gm) {
+		if (bodies.length != gm.length)
+			throw new IllegalArgumentException("Number of bodies and number of GM values differ");
+		
+		this.bodies = bodies.clone();
+		this.gm = gm.clone();
+		
+		cachePositions = new double[CACHE_SIZE][3 * bodies.length];
+		
+		Arrays.fill(cacheTimes, Double.NaN);
+	}
+	
+	/*
+	 * Create a model which includes the Sun, the eight planets, Pluto and
+	 * the Earth and Moon as separate bodies, using the gravitational
+	 * parameters from the ephemeris header.
+	 */
+	
+	public static PointMassPerturbations createDefaultModel(JPLEphemeris ephemeris) throws JPLEphemerisException {
+		double gmb = getRequiredConstant(ephemeris, "GMB");
+		double emrat = ephemeris.getEMRAT();
+		
+		MovingPoint[] bodies = {
+				new PlanetCentre(ephemeris, JPLEphemeris.SUN),
+				new PlanetCentre(ephemeris, JPLEphemeris.MERCURY),
+				new PlanetCentre(ephemeris, JPLEphemeris.VENUS),
+				new EarthCentre(ephemeris),
+				new MoonCentre(ephemeris),
+				new PlanetCentre(ephemeris, JPLEphemeris.MARS),
+				new PlanetCentre(ephemeris, JPLEphemeris.JUPITER),
+				new PlanetCentre(ephemeris, JPLEphemeris.SATURN),
+				new PlanetCentre(ephemeris, JPLEphemeris.URANUS),
+				new PlanetCentre(ephemeris, JPLEphemeris.NEPTUNE),
+				new PlanetCentre(ephemeris, JPLEphemeris.PLUTO)
+		};
+		
+		double[] gm = {
+				getRequiredConstant(ephemeris, "GMS"),
+				getRequiredConstant(ephemeris, "GM1"),
+				getRequiredConstant(ephemeris, "GM2"),
+				gmb * emrat / (1.0 + emrat),
+				gmb / (1.0 + emrat),
+				getRequiredConstant(ephemeris, "GM4"),
+				getRequiredConstant(ephemeris, "GM5"),
+				getRequiredConstant(ephemeris, "GM6"),
+				getRequiredConstant(ephemeris, "GM7"),
+				getRequiredConstant(ephemeris, "GM8"),
+				getRequiredConstant(ephemeris, "GM9")
+		};
+		
+		return new PointMassPerturbations(bodies, gm);
+	}
+	
+	private static double getRequiredConstant(JPLEphemeris ephemeris, String name) throws JPLEphemerisException {
+		Double value = ephemeris.getConstant(name);
+		
+		if (value == null)
+			throw new JPLEphemerisException("Ephemeris does not define the constant " + name);
+		
+		return value.doubleValue();
+	}
+	
+	public int getNumberOfBodies() {
+		return bodies.length;
+	}
+	
+	public double getGM(int k) {
+		return gm[k];
+	}
+	
+	/*
+	 * The number of times that the position of a perturbing body has been
+	 * calculated from the ephemeris.
+	 */
+	
+	public long getBodyEvaluationCount() {
+		return bodyEvaluations;
+	}
+	
+	/*
+	 * Return the barycentric positions of all of the perturbing bodies at time
+	 * t, packed as x, y, z for each body in turn.  The returned array is owned
+	 * by the cache and must not be modified.
+	 */
+	
+	public double[] getBodyPositions(double t) throws JPLEphemerisException {
+		for (int j = 0; j < CACHE_SIZE; j++)
+			if (cacheTimes[j] == t)
+				return cachePositions[j];
+		
+		int slot = cacheNext;
+		
+		cacheNext = (cacheNext + 1) % CACHE_SIZE;
+		
+		double[] xyz = cachePositions[slot];
+		
+		// Invalidate the slot in case the ephemeris throws an exception.
+		cacheTimes[slot] = Double.NaN;
+		
+		for (int k = 0; k < bodies.length; k++) {
+			bodies[k].getPosition(t, work);
+			
+			xyz[3 * k] = work.getX();
+			xyz[3 * k + 1] = work.getY();
+			xyz[3 * k + 2] = work.getZ();
+		}
+		
+		bodyEvaluations += bodies.length;
+		
+		cacheTimes[slot] = t;
+		
+		return xyz;
+	}
+
+	public void calculateAccelerations(double t, double[] x, double[] a) throws JPLEphemerisException {
+		double[] xyz = getBodyPositions(t);
+		
+		int nParticles = x.length / 3;
+		int nBodies = bodies.length;
+		
+		for (int i = 0; i < nParticles; i++) {
+			double px = x[3 * i], py = x[3 * i + 1], pz = x[3 * i + 2];
+			
+			double ax = 0.0, ay = 0.0, az = 0.0;
+			
+			for (int k = 0; k < nBodies; k++) {
+				double dx = px - xyz[3 * k];
+				double dy = py - xyz[3 * k + 1];
+				double dz = pz - xyz[3 * k + 2];
+				
+				double r2 = dx * dx + dy * dy + dz * dz;
+				
+				double f = -gm[k] / (r2 * Math.sqrt(r2));
+				
+				ax += f * dx;
+				ay += f * dy;
+				az += f * dz;
+			}
+			
+			a[3 * i] = ax;
+			a[3 * i + 1] = ay;
+			a[3 * i + 2] = az;
+		}
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevSegment;
+
+/*
+ * This class propagates the orbits of any number of small bodies, treated as
+ * massless test particles, under the point-mass attraction of the Sun, Moon
+ * and planets, and returns the results as MovingPoint objects which are
+ * evaluated from Chebyshev segments, like a JPL ephemeris.
+ * 
+ * All of the bodies are integrated together, so the positions of the
+ * perturbing bodies are calculated from the ephemeris only once per substep.
+ * 
+ * Initial state vectors are barycentric, in AU and AU/day, referred to the
+ * ICRF.  Times are Julian Dates in TDB.
+ */
+
+public class SmallBodyPropagator {
+	public static final double DEFAULT_SEGMENT_LENGTH = 16.0;
+	public static final int DEFAULT_NUMBER_OF_COEFFICIENTS = 14;
+	
+	private final JPLEphemeris ephemeris;
+	private final AccelerationModel model;
+	
+	private double tolerance = GaussRadauIntegrator.DEFAULT_TOLERANCE;
+	private double segmentLength = DEFAULT_SEGMENT_LENGTH;
+	private int nCoefficients = DEFAULT_NUMBER_OF_COEFFICIENTS;
+	
+	private long nSteps, nEvaluations;
+	
+	public SmallBodyPropagator(JPLEphemeris ephemeris) throws JPLEphemerisException {
+		this(ephemeris, PointMassPerturbations.createDefaultModel(ephemeris));
+	}
+	
+	public SmallBodyPropagator(JPLEphemeris ephemeris, AccelerationModel model) {
+		this.ephemeris = ephemeris;
+		this.model = model;
+	}
+	
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+	
+	public void setSegmentLength(double segmentLength) {
+		if (!(segmentLength > 0.0))
+			throw new IllegalArgumentException("Segment length must be positive");
+		
+		this.segmentLength = segmentLength;
+	}
+	
+	public void setNumberOfCoefficients(int nCoefficients) {
+		if (nCoefficients < 2)
+			throw new IllegalArgumentException("At least two coefficients are required");
+		
+		this.nCoefficients = nCoefficients;
+	}
+	
+	/*
+	 * Statistics for the most recent call to propagate.
+	 */
+	
+	public long getNumberOfSteps() {
+		return nSteps;
+	}
+	
+	public long getNumberOfEvaluations() {
+		return nEvaluations;
+	}
+	
+	/*
+	 * Propagate the state vectors, which are given at time epoch, to cover the
+	 * interval from jdStart to jdEnd, which must include the epoch.  The body
+	 * codes are assigned to the orbits in order, and may be null.
+	 */
+	
+	public IntegratedOrbit[] propagate(StateVector[] initial, int[] bodyCodes, double epoch,
+			double jdStart, double jdEnd) throws JPLEphemerisException {
+		if (initial == null || initial.length == 0)
+			throw new IllegalArgumentException("At least one initial state vector is required");
+		
+		if (bodyCodes != null && bodyCodes.length != initial.length)
+			throw new IllegalArgumentException("Number of body codes and number of state vectors differ");
+		
+		if (!(jdStart <= epoch && epoch <= jdEnd && jdStart < jdEnd))
+			throw new IllegalArgumentException("The interval must contain the epoch");
+		
+		if (!ephemeris.isValidDate(jdStart) || !ephemeris.isValidDate(jdEnd))
+			throw new JPLEphemerisException("The interval is outside the range of the ephemeris");
+		
+		int nParticles = initial.length;
+		
+		double[] x0 = new double[3 * nParticles];
+		double[] v0 = new double[3 * nParticles];
+		
+		for (int i = 0; i < nParticles; i++) {
+			System.arraycopy(initial[i].getPositionComponents(), 0, x0, 3 * i, 3);
+			System.arraycopy(initial[i].getVelocityComponents(), 0, v0, 3 * i, 3);
+		}
+		
+		nSteps = 0;
+		nEvaluations = 0;
+		
+		List<List<ChebyshevSegment>> segments = new ArrayList<List<ChebyshevSegment>>(nParticles);
+		
+		for (int i = 0; i < nParticles; i++)
+			segments.add(new ArrayList<ChebyshevSegment>());
+		
+		if (jdStart < epoch) {
+			ChebyshevOutputCollector backward = integrate(x0, v0, epoch, jdStart);
+			
+			for (int i = 0; i < nParticles; i++)
+				segments.get(i).addAll(backward.getSegments(i));
+		}
+		
+		if (jdEnd > epoch) {
+			ChebyshevOutputCollector forward = integrate(x0, v0, epoch, jdEnd);
+			
+			for (int i = 0; i < nParticles; i++)
+				segments.get(i).addAll(forward.getSegments(i));
+		}
+		
+		IntegratedOrbit[] orbits = new IntegratedOrbit[nParticles];
+		
+		for (int i = 0; i < nParticles; i++)
+			orbits[i] = new IntegratedOrbit(segments.get(i), bodyCodes == null ? 0 : bodyCodes[i], ephemeris);
+		
+		return orbits;
+	}
+	
+	private ChebyshevOutputCollector integrate(double[] x0, double[] v0, double t0, double t1)
+			throws JPLEphemerisException {
+		GaussRadauIntegrator integrator = new GaussRadauIntegrator(model);
+		
+		integrator.setTolerance(tolerance);
+		
+		ChebyshevOutputCollector collector = new ChebyshevOutputCollector(x0.length / 3, t0, t1,
+				segmentLength, nCoefficients);
+		
+		integrator.addStepHandler(collector);
+		
+		integrator.integrate(t0, x0.clone(), v0.clone(), t1);
+		
+		nSteps += integrator.getNumberOfSteps();
+		nEvaluations += integrator.getNumberOfEvaluations();
+		
+		return collector;
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A family of counters which are selected by a small integer index, such as
+ * the body code of a JPL ephemeris component.  Each counter has a label which
+ * is appended to the name of the family in snapshots.
+ */
+
+public class CounterArray {
+	private final String name;
+	private final String[] labels;
+	private final LongAdder[] adders;
+	
+	CounterArray(String name, String[] labels) {
+		this.name = name;
+		this.labels = labels.clone();
+		
+		adders = new LongAdder[labels.length];
+		
+		for (int i = 0; i < adders.length; i++)
+			adders[i] = new LongAdder();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int size() {
+		return adders.length;
+	}
+	
+	public String getLabel(int i) {
+		return labels[i];
+	}
+	
+	/*
+	 * Indices outside the array are silently ignored, because the callers
+	 * are on hot paths which validate their arguments separately.
+	 */
+	
+	public void increment(int i) {
+		if (i >= 0 && i < adders.length)
+			adders[i].increment();
+	}
+	
+	public long getCount(int i) {
+		return adders[i].sum();
+	}
+	
+	public void reset() {
+		for (LongAdder adder : adders)
+			adder.reset();
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * A histogram of non-negative long values, such as latencies in nanoseconds
+ * or iteration counts, in the style of HdrHistogram.  Values below 128 have
+ * their own buckets; above that, each power of two is divided into 64
+ * buckets, so any recorded value is known to within about 1.6 percent, and
+ * the whole range of a long fits into fewer than 4000 buckets.
+ * 
+ * Each bucket is a LongAdder, like the counters, so threads which record
+ * values at the same time do not contend for the same cache lines.  A bucket
+ * is created the first time a value falls into it; after that, recording a
+ * value never allocates.
+ */
+
+public class Histogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+	private static final int NUMBER_OF_BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final String name;
+	private final AtomicReferenceArray<LongAdder> counts = new AtomicReferenceArray<LongAdder>(NUMBER_OF_BUCKETS);
+	private final LongAdder total = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator maximum = new LongAccumulator(Math::max, 0L);
+	
+	Histogram(String name) {
+		this.name = name;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	static int bucketIndex(long value) {
+		if (value < LINEAR_LIMIT)
+			return (int) value;
+		
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+	
+	static long bucketMidpoint(int index) {
+		if (index < LINEAR_LIMIT)
+			return index;
+		
+		int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+		long lowest = (long) ((index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+		
+		return lowest + (1L << (shift - 1));
+	}
+	
+	/*
+	 * Negative values are recorded as zero.
+	 */
+	
+	public void record(long value) {
+		if (value < 0L)
+			value = 0L;
+		
+		bucket(bucketIndex(value)).increment();
+		total.increment();
+		sum.add(value);
+		maximum.accumulate(value);
+	}
+	
+	private LongAdder bucket(int index) {
+		LongAdder adder = counts.get(index);
+		
+		if (adder == null) {
+			adder = new LongAdder();
+			
+			if (!counts.compareAndSet(index, null, adder))
+				adder = counts.get(index);
+		}
+		
+		return adder;
+	}
+	
+	/*
+	 * Copies the bucket counts into the array and returns their total.
+	 */
+	
+	private long readCounts(long[] snapshot) {
+		long n = 0;
+		
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			LongAdder adder = counts.get(i);
+			
+			snapshot[i] = adder == null ? 0L : adder.sum();
+			n += snapshot[i];
+		}
+		
+		return n;
+	}
+	
+	public long getCount() {
+		return total.sum();
+	}
+	
+	public double getMean() {
+		long n = total.sum();
+		
+		return n > 0 ? (double) sum.sum() / (double) n : Double.NaN;
+	}
+	
+	public long getMaximum() {
+		return maximum.get();
+	}
+	
+	/*
+	 * Returns an estimate of the value below which the specified percentage
+	 * of the recorded values lie, or zero if nothing has been recorded.
+	 */
+	
+	public long getValueAtPercentile(double percentile) {
+		long[] snapshot = new long[NUMBER_OF_BUCKETS];
+		
+		long n = readCounts(snapshot);
+		
+		return valueAtPercentile(snapshot, n, percentile);
+	}
+	
+	private long valueAtPercentile(long[] snapshot, long n, double percentile) {
+		if (n == 0)
+			return 0L;
+		
+		long target = (long) Math.ceil(n * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+		
+		if (target < 1)
+			target = 1;
+		
+		long seen = 0;
+		
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			seen += snapshot[i];
+			
+			if (seen >= target)
+				return Math.min(bucketMidpoint(i), getMaximum());
+		}
+		
+		return getMaximum();
+	}
+	
+	public HistogramSnapshot snapshot() {
+		long[] snapshot = new long[NUMBER_OF_BUCKETS];
+		
+		long n = readCounts(snapshot);
+		
+		return new HistogramSnapshot(name, n, getMean(), getMaximum(), valueAtPercentile(snapshot, n, 50.0),
+				valueAtPercentile(snapshot, n, 90.0), valueAtPercentile(snapshot, n, 99.0),
+				valueAtPercentile(snapshot, n, 99.9));
+	}
+	
+	public void reset() {
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			LongAdder adder = counts.get(i);
+			
+			if (adder != null)
+				adder.reset();
+		}
+		
+		total.reset();
+		sum.reset();
+		maximum.reset();
+	}
+}
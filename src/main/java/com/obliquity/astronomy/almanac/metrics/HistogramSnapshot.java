@@ -0,0 +1,90 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.beans.ConstructorProperties;
+
+/*
+ * An immutable summary of a Histogram at one instant.  The getters allow it
+ * to be returned as open data by the MetricsMXBean.
+ */
+
+public class HistogramSnapshot {
+	private final String name;
+	private final long count;
+	private final double mean;
+	private final long maximum;
+	private final long p50, p90, p99, p999;
+	
+	@ConstructorProperties({ "name", "count", "mean", "maximum", "p50", "p90", "p99", "p999" })
+	public HistogramSnapshot(String name, long count, double mean, long maximum, long p50, long p90, long p99,
+			long p999) {
+		this.name = name;
+		this.count = count;
+		this.mean = mean;
+		this.maximum = maximum;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public long getCount() {
+		return count;
+	}
+	
+	public double getMean() {
+		return mean;
+	}
+	
+	public long getMaximum() {
+		return maximum;
+	}
+	
+	public long getP50() {
+		return p50;
+	}
+	
+	public long getP90() {
+		return p90;
+	}
+	
+	public long getP99() {
+		return p99;
+	}
+	
+	public long getP999() {
+		return p999;
+	}
+	
+	public String toString() {
+		return String.format("%-40s %12d %12.1f %10d %10d %10d %10d %10d", name, count, mean, p50, p90, p99, p999,
+				maximum);
+	}
+}
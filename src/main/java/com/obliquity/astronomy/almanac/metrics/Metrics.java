@@ -0,0 +1,134 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*
+ * This class is the registry of the counters and histograms which record
+ * what the ephemeris and almanac engines are doing.
+ * 
+ * Instrumentation is switched on by setting the system property
+ * astrojava.metrics to true when the JVM starts.  Instrumented code tests the
+ * constant ENABLED before touching any counter or reading the clock, so when
+ * it is false the JIT compiler removes the instrumentation altogether.
+ * 
+ * Instrumented classes obtain their counters once, in static initialisers,
+ * by name.  Names are dotted paths such as "ephemeris.evaluations".
+ */
+
+public class Metrics {
+	public static final boolean ENABLED = Boolean.getBoolean("astrojava.metrics");
+	
+	public static final String OBJECT_NAME = "com.obliquity.astronomy.almanac:type=Metrics";
+	
+	private static final Map<String, Object> metrics = new ConcurrentSkipListMap<String, Object>();
+	
+	private Metrics() {
+	}
+	
+	public static Counter counter(String name) {
+		return register(name, new Counter(name), Counter.class);
+	}
+	
+	public static CounterArray counterArray(String name, String... labels) {
+		return register(name, new CounterArray(name, labels), CounterArray.class);
+	}
+	
+	public static Histogram histogram(String name) {
+		return register(name, new Histogram(name), Histogram.class);
+	}
+	
+	private static <T> T register(String name, T metric, Class<T> type) {
+		Object existing = metrics.putIfAbsent(name, metric);
+		
+		if (existing == null)
+			return metric;
+		
+		if (!type.isInstance(existing))
+			throw new IllegalArgumentException("Metric " + name + " is already registered as a "
+					+ existing.getClass().getSimpleName());
+		
+		return type.cast(existing);
+	}
+	
+	/*
+	 * Returns the current values of all registered metrics.  The values are
+	 * read one at a time while other threads may be updating them, so the
+	 * snapshot is not an atomic view, but each value is self-consistent.
+	 */
+	
+	public static MetricsSnapshot snapshot() {
+		MetricsSnapshot snapshot = new MetricsSnapshot(ENABLED);
+		
+		for (Object metric : metrics.values()) {
+			if (metric instanceof Counter) {
+				Counter counter = (Counter) metric;
+				
+				snapshot.addCounter(counter.getName(), counter.getCount());
+			} else if (metric instanceof CounterArray) {
+				CounterArray array = (CounterArray) metric;
+				
+				for (int i = 0; i < array.size(); i++)
+					snapshot.addCounter(array.getName() + "." + array.getLabel(i), array.getCount(i));
+			} else if (metric instanceof Histogram)
+				snapshot.addHistogram(((Histogram) metric).snapshot());
+		}
+		
+		return snapshot;
+	}
+	
+	public static void reset() {
+		for (Object metric : metrics.values()) {
+			if (metric instanceof Counter)
+				((Counter) metric).reset();
+			else if (metric instanceof CounterArray)
+				((CounterArray) metric).reset();
+			else if (metric instanceof Histogram)
+				((Histogram) metric).reset();
+		}
+	}
+	
+	/*
+	 * Registers the metrics with the platform MBean server, so that they can be
+	 * inspected with jconsole or any other JMX client.  Calling this more than
+	 * once has no further effect.
+	 */
+	
+	public static synchronized void registerMBean() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		
+		ObjectName name = new ObjectName(OBJECT_NAME);
+		
+		if (!server.isRegistered(name))
+			server.registerMBean(new MetricsBean(), name);
+	}
+}
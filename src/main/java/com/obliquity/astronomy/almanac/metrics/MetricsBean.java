@@ -0,0 +1,46 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+class MetricsBean implements MetricsMXBean {
+	public boolean isEnabled() {
+		return Metrics.ENABLED;
+	}
+	
+	public Map<String, Long> getCounters() {
+		return Metrics.snapshot().getCounters();
+	}
+	
+	public List<HistogramSnapshot> getHistograms() {
+		return Metrics.snapshot().getHistograms();
+	}
+	
+	public void reset() {
+		Metrics.reset();
+	}
+}
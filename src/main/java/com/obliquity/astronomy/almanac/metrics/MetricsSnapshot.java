@@ -0,0 +1,101 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.metrics;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * The values of all registered metrics at one instant.
+ */
+
+public class MetricsSnapshot {
+	private final boolean enabled;
+	private final long timestamp = System.currentTimeMillis();
+	private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+	private final List<HistogramSnapshot> histograms = new ArrayList<HistogramSnapshot>();
+	
+	MetricsSnapshot(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	void addCounter(String name, long value) {
+		counters.put(name, value);
+	}
+	
+	void addHistogram(HistogramSnapshot histogram) {
+		histograms.add(histogram);
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public long getTimestamp() {
+		return timestamp;
+	}
+	
+	public Map<String, Long> getCounters() {
+		return Collections.unmodifiableMap(counters);
+	}
+	
+	public long getCounter(String name) {
+		Long value = counters.get(name);
+		
+		return value == null ? 0L : value;
+	}
+	
+	public List<HistogramSnapshot> getHistograms() {
+		return Collections.unmodifiableList(histograms);
+	}
+	
+	public HistogramSnapshot getHistogram(String name) {
+		for (HistogramSnapshot histogram : histograms)
+			if (histogram.getName().equals(name))
+				return histogram;
+		
+		return null;
+	}
+	
+	public void print(PrintStream ps) {
+		if (!enabled)
+			ps.println("# Metrics are disabled; run with -Dastrojava.metrics=true");
+		
+		for (Map.Entry<String, Long> entry : counters.entrySet())
+			if (entry.getValue() != 0L)
+				ps.printf("%-40s %12d\n", entry.getKey(), entry.getValue());
+		
+		ps.printf("%-40s %12s %12s %10s %10s %10s %10s %10s\n", "# Histogram", "Count", "Mean", "50%", "90%",
+				"99%", "99.9%", "Maximum");
+		
+		for (HistogramSnapshot histogram : histograms)
+			if (histogram.getCount() > 0)
+				ps.println(histogram);
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+ * This class holds the apparent places of every orbit in an OrbitCatalogue
+ * at a single epoch, as a set of primitive columns.  It can be written to
+ * and read from a simple column-oriented binary file.
+ * 
+ * The file layout is:
+ * 
+ *   magic number "MPAP" (4 bytes)
+ *   format version (int)
+ *   number of rows (int)
+ *   epoch, as a Julian Date in TT (double)
+ *   reference frame flag (int): 0 = J2000, 1 = true equator and equinox of date
+ *   width of the designation column in bytes (int)
+ *   designation column: rows * width bytes of space-padded ASCII
+ *   RA, Dec, geometric distance, heliocentric distance, phase angle and
+ *   magnitude columns, in that order, each of rows doubles
+ * 
+ * All numbers are little-endian.  Angles are in radians and distances in AU.
+ */
+
+public class ApparentPlaceTable {
+	private static final int MAGIC = 0x5041504d;
+	private static final int VERSION = 1;
+	
+	public static final int J2000 = 0;
+	public static final int TRUE_OF_DATE = 1;
+	
+	private static final int BUFFER_SIZE = 1 << 20;
+	
+	private final int rows;
+	
+	private double epoch = Double.NaN;
+	private int frame = J2000;
+	
+	private final String[] designation;
+	
+	final double[] ra, dec, geometricDistance, heliocentricDistance, phaseAngle, magnitude;
+	
+	public ApparentPlaceTable(int rows) {
+		this.rows = rows;
+		
+		designation = new String[rows];
+		
+		ra = new double[rows];
+		dec = new double[rows];
+		geometricDistance = new double[rows];
+		heliocentricDistance = new double[rows];
+		phaseAngle = new double[rows];
+		magnitude = new double[rows];
+	}
+	
+	public int getRowCount() {
+		return rows;
+	}
+	
+	public double getEpoch() {
+		return epoch;
+	}
+	
+	void setEpoch(double epoch) {
+		this.epoch = epoch;
+	}
+	
+	public int getFrame() {
+		return frame;
+	}
+	
+	void setFrame(int frame) {
+		this.frame = frame;
+	}
+	
+	public String getDesignation(int i) {
+		return designation[i];
+	}
+	
+	void setDesignation(int i, String designation) {
+		this.designation[i] = designation;
+	}
+	
+	public double getRightAscension(int i) {
+		return ra[i];
+	}
+	
+	public double getDeclination(int i) {
+		return dec[i];
+	}
+	
+	public double getGeometricDistance(int i) {
+		return geometricDistance[i];
+	}
+	
+	public double getHeliocentricDistance(int i) {
+		return heliocentricDistance[i];
+	}
+	
+	public double getPhaseAngle(int i) {
+		return phaseAngle[i];
+	}
+	
+	public double getMagnitude(int i) {
+		return magnitude[i];
+	}
+	
+	private double[][] getNumericColumns() {
+		return new double[][] { ra, dec, geometricDistance, heliocentricDistance, phaseAngle, magnitude };
+	}
+	
+	public void write(File file) throws IOException {
+		int width = 1;
+		
+		for (String name : designation)
+			if (name != null && name.length() > width)
+				width = name.length();
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel fc = raf.getChannel()) {
+			fc.truncate(0);
+			
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(rows);
+			buffer.putDouble(epoch);
+			buffer.putInt(frame);
+			buffer.putInt(width);
+			
+			byte[] padded = new byte[width];
+			
+			for (int i = 0; i < rows; i++) {
+				Arrays.fill(padded, (byte)' ');
+				
+				if (designation[i] != null) {
+					byte[] bytes = designation[i].getBytes(StandardCharsets.US_ASCII);
+					System.arraycopy(bytes, 0, padded, 0, Math.min(bytes.length, width));
+				}
+				
+				if (buffer.remaining() < width)
+					flush(buffer, fc);
+				
+				buffer.put(padded);
+			}
+			
+			for (double[] column : getNumericColumns()) {
+				for (int i = 0; i < rows; i++) {
+					if (buffer.remaining() < 8)
+						flush(buffer, fc);
+					
+					buffer.putDouble(column[i]);
+				}
+			}
+			
+			flush(buffer, fc);
+		}
+	}
+	
+	private static void flush(ByteBuffer buffer, FileChannel fc) throws IOException {
+		buffer.flip();
+		
+		while (buffer.hasRemaining())
+			fc.write(buffer);
+		
+		buffer.clear();
+	}
+	
+	public static ApparentPlaceTable read(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel fc = raf.getChannel()) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			
+			buffer.limit(0);
+			
+			fill(buffer, fc, 28);
+			
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("File " + file + " is not an apparent place table");
+			
+			int version = buffer.getInt();
+			
+			if (version != VERSION)
+				throw new IOException("Unsupported apparent place table version " + version);
+			
+			int rows = buffer.getInt();
+			
+			ApparentPlaceTable table = new ApparentPlaceTable(rows);
+			
+			table.epoch = buffer.getDouble();
+			table.frame = buffer.getInt();
+			
+			int width = buffer.getInt();
+			
+			byte[] padded = new byte[width];
+			
+			for (int i = 0; i < rows; i++) {
+				fill(buffer, fc, width);
+				buffer.get(padded);
+				table.designation[i] = new String(padded, StandardCharsets.US_ASCII).trim();
+			}
+			
+			for (double[] column : table.getNumericColumns()) {
+				for (int i = 0; i < rows; i++) {
+					fill(buffer, fc, 8);
+					column[i] = buffer.getDouble();
+				}
+			}
+			
+			return table;
+		}
+	}
+	
+	/*
+	 * Ensure that at least the specified number of bytes are available to
+	 * be read from the buffer.
+	 */
+	
+	private static void fill(ByteBuffer buffer, FileChannel fc, int needed) throws IOException {
+		if (buffer.remaining() >= needed)
+			return;
+		
+		buffer.compact();
+		
+		while (buffer.position() < needed) {
+			if (fc.read(buffer) < 0)
+				throw new IOException("Unexpected end of file");
+		}
+		
+		buffer.flip();
+	}
+}
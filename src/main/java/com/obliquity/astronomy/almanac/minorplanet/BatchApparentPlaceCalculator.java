@@ -0,0 +1,358 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Matrix;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class calculates the geocentric apparent places of every orbit in an
+ * OrbitCatalogue at a single epoch.
+ * 
+ * The quantities which depend only upon the epoch -- the barycentric state
+ * of the Earth, the barycentric position and velocity of the Sun and the
+ * combined precession-nutation matrix -- are calculated once, on the calling
+ * thread.  The orbits are then divided into chunks which are processed in
+ * parallel.  The per-orbit calculation uses only primitive arithmetic and
+ * does not touch the JPL ephemeris, so it is safe to run on many threads.
+ * 
+ * The reduction follows ApparentPlace: light-time iteration including the
+ * relativistic delay, gravitational light deflection by the Sun, relativistic
+ * aberration, then precession and nutation.  The barycentric position of the
+ * Sun at the retarded time is extrapolated linearly from its state at the
+ * epoch, which introduces an error of order 1e-10 AU for light-times of a
+ * day or less.
+ */
+
+public class BatchApparentPlaceCalculator {
+	private static final double SPEED_OF_LIGHT = ApparentPlace.SPEED_OF_LIGHT;
+	
+	private static final double DEFLECTION_FACTOR = 2.0 * 9.87e-9;
+	
+	private static final double EPSILON = 1.0e-9;
+	
+	private static final int MAX_LIGHT_TIME_ITERATIONS = 10;
+	
+	private static final int DEFAULT_CHUNK_SIZE = 8192;
+	
+	private final MovingPoint earth;
+	private final MovingPoint sun;
+	private final EarthRotationModel erm;
+	private final double epochOfEphemeris;
+	
+	private final ForkJoinPool pool;
+	
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	
+	private StateVector svEarth = new StateVector(new Vector(), new Vector());
+	private StateVector svSun = new StateVector(new Vector(), new Vector());
+	
+	private Matrix precess = new Matrix();
+	private Matrix nutate = new Matrix();
+
+	/*
+	 * Quantities which are common to every orbit at a given epoch.
+	 */
+	
+	private static class EpochState {
+		double t;
+		double[] EB = new double[3];
+		double[] V = new double[3];
+		double[] SB = new double[3];
+		double[] VS = new double[3];
+		double[] E = new double[3];
+		double EE;
+		double VV, beta;
+		double[][] pn = null;
+	}
+	
+	/*
+	 * If erm is null, the apparent places are referred to the ICRF (J2000)
+	 * rather than to the true equator and equinox of date.
+	 * 
+	 * If nThreads is zero or negative, the number of available processors is
+	 * used.
+	 */
+	
+	public BatchApparentPlaceCalculator(JPLEphemeris ephemeris, EarthRotationModel erm, int nThreads) {
+		this(new EarthCentre(ephemeris), new PlanetCentre(ephemeris, JPLEphemeris.SUN), erm, nThreads);
+	}
+	
+	public BatchApparentPlaceCalculator(MovingPoint observer, MovingPoint sun, EarthRotationModel erm, int nThreads) {
+		this.earth = observer;
+		this.sun = sun;
+		this.erm = erm;
+		this.epochOfEphemeris = sun.getEpoch();
+		
+		if (nThreads <= 0)
+			nThreads = Runtime.getRuntime().availableProcessors();
+		
+		pool = new ForkJoinPool(nThreads);
+	}
+	
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	public ApparentPlaceTable calculateApparentPlaces(OrbitCatalogue catalogue, double t) throws JPLEphemerisException {
+		ApparentPlaceTable table = new ApparentPlaceTable(catalogue.size());
+		calculateApparentPlaces(catalogue, t, table);
+		return table;
+	}
+	
+	public void calculateApparentPlaces(OrbitCatalogue catalogue, double t, ApparentPlaceTable table) throws JPLEphemerisException {
+		int rows = catalogue.size();
+		
+		if (table.getRowCount() != rows)
+			throw new IllegalArgumentException("Table has " + table.getRowCount() + " rows but catalogue has " + rows + " orbits");
+		
+		EpochState state = calculateEpochState(t);
+		
+		table.setEpoch(t);
+		table.setFrame(state.pn != null ? ApparentPlaceTable.TRUE_OF_DATE : ApparentPlaceTable.J2000);
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		
+		for (int first = 0; first < rows; first += chunkSize) {
+			final int from = first;
+			final int to = Math.min(rows, first + chunkSize);
+			
+			tasks.add(() -> {
+				calculateChunk(catalogue, state, table, from, to);
+				return null;
+			});
+		}
+		
+		List<Future<Void>> futures = pool.invokeAll(tasks);
+		
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JPLEphemerisException("Interrupted whilst calculating apparent places");
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+	
+	private EpochState calculateEpochState(double t) throws JPLEphemerisException {
+		EpochState state = new EpochState();
+		
+		state.t = t;
+		
+		earth.getStateVector(t, svEarth);
+		sun.getStateVector(t, svSun);
+		
+		svEarth.getPosition().toArray(state.EB);
+		svEarth.getVelocity().toArray(state.V);
+		svSun.getPosition().toArray(state.SB);
+		svSun.getVelocity().toArray(state.VS);
+		
+		double ee = 0.0, vv = 0.0;
+		
+		for (int k = 0; k < 3; k++) {
+			state.E[k] = state.EB[k] - state.SB[k];
+			ee += state.E[k] * state.E[k];
+			
+			state.V[k] /= SPEED_OF_LIGHT;
+			vv += state.V[k] * state.V[k];
+		}
+		
+		state.EE = Math.sqrt(ee);
+		
+		for (int k = 0; k < 3; k++)
+			state.E[k] /= state.EE;
+		
+		state.VV = Math.sqrt(vv);
+		state.beta = Math.sqrt(1.0 - vv);
+		
+		if (erm != null) {
+			double ut = t - erm.deltaT(t);
+			
+			erm.precessionMatrix(epochOfEphemeris, ut, precess);
+			erm.nutationMatrix(ut, nutate);
+			
+			Matrix pn = new Matrix(precess);
+			pn.leftMultiplyBy(nutate);
+			
+			state.pn = pn.getComponents();
+		}
+		
+		return state;
+	}
+	
+	private void calculateChunk(OrbitCatalogue catalogue, EpochState state, ApparentPlaceTable table, int from, int to) {
+		final double t = state.t;
+		final double[] EB = state.EB, SB = state.SB, VS = state.VS, E = state.E, V = state.V;
+		final double EE = state.EE;
+		
+		double[] h = new double[3];
+		double[] xy = new double[4];
+		
+		for (int i = from; i < to; i++) {
+			table.setDesignation(i, catalogue.getDesignation(i));
+			
+			double tau = 0.0, dtau;
+			double px = 0.0, py = 0.0, pz = 0.0, PP = 0.0, QQ = 0.0, gd = 0.0, hd = 0.0;
+			
+			boolean ok = true;
+			int iters = 0;
+			
+			do {
+				if (!TwoBody.calculatePosition(catalogue, i, t - tau, h, null, xy)) {
+					ok = false;
+					break;
+				}
+				
+				// Barycentric position of the target minus that of the Earth.
+				px = h[0] + SB[0] - tau * VS[0] - EB[0];
+				py = h[1] + SB[1] - tau * VS[1] - EB[1];
+				pz = h[2] + SB[2] - tau * VS[2] - EB[2];
+				
+				PP = Math.sqrt(px * px + py * py + pz * pz);
+				QQ = Math.sqrt(h[0] * h[0] + h[1] * h[1] + h[2] * h[2]);
+				
+				if (iters == 0)
+					gd = PP;
+				
+				hd = QQ;
+				
+				double pl = PP + DEFLECTION_FACTOR * Math.log((EE + PP + QQ) / (EE - PP + QQ));
+				
+				double newtau = pl / SPEED_OF_LIGHT;
+				
+				dtau = newtau - tau;
+				
+				tau = newtau;
+			} while (Math.abs(dtau) > EPSILON && ++iters < MAX_LIGHT_TIME_ITERATIONS);
+			
+			if (!ok) {
+				setMissing(table, i);
+				continue;
+			}
+			
+			px /= PP;
+			py /= PP;
+			pz /= PP;
+			
+			double qx = h[0] / QQ, qy = h[1] / QQ, qz = h[2] / QQ;
+			
+			// Gravitational deflection of light by the Sun.
+			
+			double pq = px * qx + py * qy + pz * qz;
+			double ep = E[0] * px + E[1] * py + E[2] * pz;
+			double qe = qx * E[0] + qy * E[1] + qz * E[2];
+			
+			double pfactor = (DEFLECTION_FACTOR / EE) / (1.0 + qe);
+			
+			px += pfactor * (E[0] * pq - qx * ep);
+			py += pfactor * (E[1] * pq - qy * ep);
+			pz += pfactor * (E[2] * pq - qz * ep);
+			
+			// Aberration.
+			
+			double pv = px * V[0] + py * V[1] + pz * V[2];
+			
+			double denominator = 1.0 + pv;
+			
+			double factora = state.beta / denominator;
+			double factorb = (1.0 + pv / (1.0 + state.beta)) / denominator;
+			
+			px = factora * px + factorb * V[0];
+			py = factora * py + factorb * V[1];
+			pz = factora * pz + factorb * V[2];
+			
+			double[][] pn = state.pn;
+			
+			if (pn != null) {
+				double x = pn[0][0] * px + pn[0][1] * py + pn[0][2] * pz;
+				double y = pn[1][0] * px + pn[1][1] * py + pn[1][2] * pz;
+				double z = pn[2][0] * px + pn[2][1] * py + pn[2][2] * pz;
+				
+				px = x;
+				py = y;
+				pz = z;
+			}
+			
+			double ra = Math.atan2(py, px);
+			
+			if (ra < 0.0)
+				ra += 2.0 * Math.PI;
+			
+			table.ra[i] = ra;
+			table.dec[i] = Math.atan2(pz, Math.sqrt(px * px + py * py));
+			table.geometricDistance[i] = gd;
+			table.heliocentricDistance[i] = hd;
+			
+			double cosPhase = (hd * hd + gd * gd - EE * EE) / (2.0 * hd * gd);
+			
+			double phase = Math.acos(Math.max(-1.0, Math.min(1.0, cosPhase)));
+			
+			table.phaseAngle[i] = phase;
+			table.magnitude[i] = catalogue.calculateMagnitude(i, hd, gd, phase);
+		}
+	}
+	
+	private void setMissing(ApparentPlaceTable table, int i) {
+		table.ra[i] = Double.NaN;
+		table.dec[i] = Double.NaN;
+		table.geometricDistance[i] = Double.NaN;
+		table.heliocentricDistance[i] = Double.NaN;
+		table.phaseAngle[i] = Double.NaN;
+		table.magnitude[i] = Double.NaN;
+	}
+}
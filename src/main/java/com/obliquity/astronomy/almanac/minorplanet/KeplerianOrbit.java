@@ -0,0 +1,136 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class presents a single orbit from an OrbitCatalogue as a MovingPoint,
+ * so that it can be used with ApparentPlace and the other classes in this
+ * library.  The heliocentric two-body position is added to the barycentric
+ * position of the Sun taken from the JPL ephemeris.
+ */
+
+public class KeplerianOrbit implements MovingPoint {
+	/*
+	 * NAIF convention: the code of numbered asteroid N is 2000000 + N.
+	 */
+	
+	public static final int BODY_CODE = 2000000;
+	
+	private final OrbitCatalogue catalogue;
+	private final int index;
+	
+	private JPLEphemeris ephemeris;
+	private PlanetCentre sun;
+	
+	private double[] pos = new double[3], vel = new double[3];
+	
+	private Vector sunPosition = new Vector(), sunVelocity = new Vector();
+	
+	private StateVector sunStateVector = new StateVector(sunPosition, sunVelocity);
+	
+	private StateVector statevector = new StateVector(new Vector(), new Vector());
+	
+	public KeplerianOrbit(OrbitCatalogue catalogue, int index, JPLEphemeris ephemeris) {
+		if (index < 0 || index >= catalogue.size())
+			throw new IndexOutOfBoundsException("Orbit index " + index + " is out of range");
+		
+		this.catalogue = catalogue;
+		this.index = index;
+		this.ephemeris = ephemeris;
+		this.sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+	}
+	
+	public String getDesignation() {
+		return catalogue.getDesignation(index);
+	}
+
+	public StateVector getStateVector(double time) throws JPLEphemerisException {
+		getStateVector(time, statevector);
+		return statevector;
+	}
+
+	public void getStateVector(double time, StateVector sv) throws JPLEphemerisException {
+		if (!TwoBody.calculatePosition(catalogue, index, time, pos, vel))
+			throw new JPLEphemerisException("Failed to solve equation of motion for " + getDesignation());
+		
+		sun.getStateVector(time, sunStateVector);
+		
+		sv.setPositionComponents(pos);
+		sv.setVelocityComponents(vel);
+		
+		sv.add(sunStateVector);
+	}
+
+	public Vector getPosition(double time) throws JPLEphemerisException {
+		Vector position = statevector.getPosition();
+		getPosition(time, position);
+		return position;
+	}
+
+	public void getPosition(double time, Vector p) throws JPLEphemerisException {
+		if (!TwoBody.calculatePosition(catalogue, index, time, pos, null))
+			throw new JPLEphemerisException("Failed to solve equation of motion for " + getDesignation());
+		
+		sun.getPosition(time, sunPosition);
+		
+		p.setComponents(pos);
+		p.add(sunPosition);
+	}
+
+	public boolean isValidDate(double time) {
+		return ephemeris.isValidDate(time);
+	}
+
+	public double getEarliestDate() {
+		return ephemeris.getEarliestDate();
+	}
+
+	public double getLatestDate() {
+		return ephemeris.getLatestDate();
+	}
+
+	/*
+	 * The orbits are referred to the ICRF, so we return J2000.
+	 */
+	
+	public double getEpoch() {
+		return 2451545.0;
+	}
+
+	public int getBodyCode() {
+		return BODY_CODE;
+	}
+
+	public JPLEphemeris getEphemeris() {
+		return ephemeris;
+	}
+}
@@ -0,0 +1,271 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+
+/*
+ * This class reads orbital elements in the fixed-width formats used by the
+ * Minor Planet Center for the MPCORB.DAT asteroid catalogue and the
+ * CometEls.txt comet catalogue.
+ * 
+ * References:
+ * 
+ * https://minorplanetcenter.net/iau/info/MPOrbitFormat.html
+ * https://minorplanetcenter.net/iau/info/CometOrbitFormat.html
+ * https://minorplanetcenter.net/iau/info/PackedDates.html
+ */
+
+public class MPCOrbitReader {
+	private static final int MIN_ASTEROID_LINE_LENGTH = 103;
+	private static final int MIN_COMET_LINE_LENGTH = 100;
+	
+	private int errorCount = 0;
+	
+	/*
+	 * Read asteroid orbits in MPCORB.DAT format and append them to the
+	 * catalogue.  The header of the MPCORB.DAT file, which is terminated by a
+	 * line of dashes, is skipped if present.  Lines which cannot be parsed are
+	 * counted and skipped.
+	 * 
+	 * Returns the number of orbits which were added.
+	 */
+	
+	public int readAsteroidOrbits(InputStream is, OrbitCatalogue catalogue) throws IOException {
+		BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.US_ASCII), 1 << 16);
+		
+		int count = 0;
+		int initialErrorCount = errorCount;
+		
+		while (true) {
+			String line = br.readLine();
+			
+			if (line == null)
+				break;
+			
+			// Anything before the line of dashes was part of the header.
+			if (line.startsWith("-----")) {
+				count = 0;
+				errorCount = initialErrorCount;
+				continue;
+			}
+			
+			if (line.length() < MIN_ASTEROID_LINE_LENGTH)
+				continue;
+			
+			try {
+				if (parseAsteroidOrbit(line, catalogue))
+					count++;
+				else
+					errorCount++;
+			}
+			catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+				errorCount++;
+			}
+		}
+		
+		return count;
+	}
+	
+	// Example input line (columns 1-103 only):
+	// 00001    3.33  0.15 K2555 188.70269   73.27343   80.25221   10.58780  0.0794013  0.21424651   2.7660512
+	// 123456789a123456789b123456789c123456789d123456789e123456789f123456789g123456789h123456789i123456789j123
+	
+	private boolean parseAsteroidOrbit(String line, OrbitCatalogue catalogue) {
+		String designation = line.substring(0, 7).trim();
+		
+		double H = parseOptionalDouble(line, 9, 13);
+		double G = parseOptionalDouble(line, 15, 19);
+		
+		if (Double.isNaN(G))
+			G = 0.15;
+		
+		double epoch = decodePackedDate(line.substring(20, 25));
+		
+		if (Double.isNaN(epoch))
+			return false;
+		
+		double M = extractDouble(line, 27, 35);
+		double peri = extractDouble(line, 38, 46);
+		double node = extractDouble(line, 49, 57);
+		double incl = extractDouble(line, 60, 68);
+		double e = extractDouble(line, 71, 79);
+		double a = extractDouble(line, 93, 103);
+		
+		if (line.length() >= 194) {
+			String name = line.substring(166, 194).trim();
+			
+			if (!name.isEmpty())
+				designation = name;
+		}
+		
+		catalogue.addOrbitFromMeanAnomaly(designation, epoch, M, a, e, incl, node, peri, H, G);
+		
+		return true;
+	}
+	
+	/*
+	 * Read comet orbits in CometEls.txt format and append them to the
+	 * catalogue.
+	 * 
+	 * Returns the number of orbits which were added.
+	 */
+	
+	public int readCometOrbits(InputStream is, OrbitCatalogue catalogue) throws IOException {
+		BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.US_ASCII), 1 << 16);
+		
+		int count = 0;
+		
+		while (true) {
+			String line = br.readLine();
+			
+			if (line == null)
+				break;
+			
+			if (line.length() < MIN_COMET_LINE_LENGTH)
+				continue;
+			
+			try {
+				if (parseCometOrbit(line, catalogue))
+					count++;
+				else
+					errorCount++;
+			}
+			catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+				errorCount++;
+			}
+		}
+		
+		return count;
+	}
+	
+	// Example input line (columns 1-100 only):
+	//     CK19Y040  2020 05 31.0286  0.253254  0.999228  177.4108  120.5639   45.3800  20200502  11.5  4.0
+	// 123456789a123456789b123456789c123456789d123456789e123456789f123456789g123456789h123456789i123456789j
+	
+	private boolean parseCometOrbit(String line, OrbitCatalogue catalogue) {
+		int year = extractInteger(line, 15, 18);
+		int month = extractInteger(line, 20, 21);
+		double day = extractDouble(line, 23, 29);
+		
+		int iday = (int)Math.floor(day);
+		
+		double tp = new AstronomicalDate(year, month, iday).getJulianDate() + (day - iday);
+		
+		double q = extractDouble(line, 31, 39);
+		double e = extractDouble(line, 42, 49);
+		double peri = extractDouble(line, 52, 59);
+		double node = extractDouble(line, 62, 69);
+		double incl = extractDouble(line, 72, 79);
+		
+		double H = parseOptionalDouble(line, 92, 95);
+		double G = parseOptionalDouble(line, 97, 100);
+		
+		String designation = line.length() > 102 ? line.substring(102, Math.min(line.length(), 158)).trim() : "";
+		
+		if (designation.isEmpty())
+			designation = line.substring(0, 12).trim();
+		
+		catalogue.addOrbit(designation, OrbitCatalogue.COMET, q, e, tp, incl, node, peri, H, G);
+		
+		return true;
+	}
+	
+	public int getErrorCount() {
+		return errorCount;
+	}
+	
+	/*
+	 * Decode a date in the MPC packed form, e.g. K2555 is 2025 May 5.0 TT.
+	 * 
+	 * Returns the Julian Date, or NaN if the string cannot be decoded.
+	 */
+	
+	public static double decodePackedDate(String packed) {
+		if (packed == null || packed.length() != 5)
+			return Double.NaN;
+		
+		int century;
+		
+		switch (packed.charAt(0)) {
+		case 'I':
+			century = 1800;
+			break;
+			
+		case 'J':
+			century = 1900;
+			break;
+			
+		case 'K':
+			century = 2000;
+			break;
+			
+		default:
+			return Double.NaN;
+		}
+		
+		int year = century + 10 * decodeDigit(packed.charAt(1)) + decodeDigit(packed.charAt(2));
+		int month = decodeDigit(packed.charAt(3));
+		int day = decodeDigit(packed.charAt(4));
+		
+		if (year < century || month < 1 || month > 12 || day < 1 || day > 31)
+			return Double.NaN;
+		
+		return new AstronomicalDate(year, month, day).getJulianDate();
+	}
+	
+	private static int decodeDigit(char c) {
+		if (c >= '0' && c <= '9')
+			return c - '0';
+		
+		if (c >= 'A' && c <= 'V')
+			return 10 + (c - 'A');
+		
+		return -1;
+	}
+	
+	private static int extractInteger(String line, int start, int end) {
+		return Integer.parseInt(line.substring(start - 1, end).trim());
+	}
+	
+	private static double extractDouble(String line, int start, int end) {
+		return Double.parseDouble(line.substring(start - 1, end).trim());
+	}
+	
+	private static double parseOptionalDouble(String line, int start, int end) {
+		if (line.length() < end)
+			return Double.NaN;
+		
+		String field = line.substring(start - 1, end).trim();
+		
+		return field.isEmpty() ? Double.NaN : Double.parseDouble(field);
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+import java.util.Arrays;
+
+/*
+ * This class holds the osculating orbital elements of a large number of
+ * asteroids and comets in column-oriented primitive arrays, so that a whole
+ * Minor Planet Center catalogue can be loaded without creating an object for
+ * each orbit.
+ * 
+ * All orbits are stored in perihelion form (q, e, T) together with the
+ * Gaussian vectors P and Q, which are calculated once when the orbit is added
+ * and are referred to the ICRF (mean equator and equinox of J2000).  The
+ * elements themselves are assumed to be heliocentric and referred to the
+ * ecliptic and equinox of J2000, which is the MPC convention.
+ */
+
+public class OrbitCatalogue {
+	public static final int ASTEROID = 0;
+	public static final int COMET = 1;
+	
+	/*
+	 * Gaussian gravitational constant, in units of AU^(3/2) per day.
+	 */
+	
+	public static final double GAUSSIAN_CONSTANT = 0.01720209895;
+	
+	private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+	
+	private static final double OBLIQUITY_J2000 = 84381.448 * Math.PI / (180.0 * 3600.0);
+	
+	private static final double COS_OBLIQUITY = Math.cos(OBLIQUITY_J2000);
+	private static final double SIN_OBLIQUITY = Math.sin(OBLIQUITY_J2000);
+	
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private int size = 0;
+	
+	private String[] designation;
+	private byte[] type;
+	
+	double[] q, e, tp, n;
+	double[] px, py, pz, qx, qy, qz;
+	double[] H, G;
+	
+	public OrbitCatalogue() {
+		this(INITIAL_CAPACITY);
+	}
+	
+	public OrbitCatalogue(int capacity) {
+		if (capacity < 1)
+			capacity = 1;
+		
+		designation = new String[capacity];
+		type = new byte[capacity];
+		
+		q = new double[capacity];
+		e = new double[capacity];
+		tp = new double[capacity];
+		n = new double[capacity];
+		
+		px = new double[capacity];
+		py = new double[capacity];
+		pz = new double[capacity];
+		
+		qx = new double[capacity];
+		qy = new double[capacity];
+		qz = new double[capacity];
+		
+		H = new double[capacity];
+		G = new double[capacity];
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity <= designation.length)
+			return;
+		
+		int newCapacity = Math.max(capacity, designation.length + (designation.length >> 1));
+		
+		designation = Arrays.copyOf(designation, newCapacity);
+		type = Arrays.copyOf(type, newCapacity);
+		
+		q = Arrays.copyOf(q, newCapacity);
+		e = Arrays.copyOf(e, newCapacity);
+		tp = Arrays.copyOf(tp, newCapacity);
+		n = Arrays.copyOf(n, newCapacity);
+		
+		px = Arrays.copyOf(px, newCapacity);
+		py = Arrays.copyOf(py, newCapacity);
+		pz = Arrays.copyOf(pz, newCapacity);
+		
+		qx = Arrays.copyOf(qx, newCapacity);
+		qy = Arrays.copyOf(qy, newCapacity);
+		qz = Arrays.copyOf(qz, newCapacity);
+		
+		H = Arrays.copyOf(H, newCapacity);
+		G = Arrays.copyOf(G, newCapacity);
+	}
+	
+	/*
+	 * Add an orbit defined by its perihelion distance, eccentricity and time of
+	 * perihelion passage.  The angles are in degrees and refer to the ecliptic
+	 * and equinox of J2000.  The time of perihelion is a Julian Date in TT.
+	 * 
+	 * For asteroids, H and G are the absolute magnitude and slope parameter.
+	 * For comets, they are the total absolute magnitude and the activity
+	 * index n, where the coefficient of log(r) in the magnitude formula is
+	 * 2.5n, as tabulated by the MPC.
+	 * 
+	 * Returns the index of the new orbit.
+	 */
+	
+	public int addOrbit(String designation, int type, double q, double e, double tp,
+			double inclination, double node, double perihelion, double H, double G) {
+		if (type != ASTEROID && type != COMET)
+			throw new IllegalArgumentException("Invalid orbit type " + type);
+		
+		if (!(q > 0.0) || !(e >= 0.0))
+			throw new IllegalArgumentException("Invalid perihelion distance or eccentricity for " + designation);
+		
+		ensureCapacity(size + 1);
+		
+		int i = size;
+		
+		this.designation[i] = designation;
+		this.type[i] = (byte)type;
+		this.q[i] = q;
+		this.e[i] = e;
+		this.tp[i] = tp;
+		this.H[i] = H;
+		this.G[i] = G;
+		
+		if (e == 1.0) {
+			this.n[i] = 3.0 * GAUSSIAN_CONSTANT / Math.sqrt(2.0 * q * q * q);
+		} else {
+			double a = q / Math.abs(1.0 - e);
+			this.n[i] = GAUSSIAN_CONSTANT / (a * Math.sqrt(a));
+		}
+		
+		double ci = Math.cos(inclination * DEGREES_TO_RADIANS), si = Math.sin(inclination * DEGREES_TO_RADIANS);
+		double cn = Math.cos(node * DEGREES_TO_RADIANS), sn = Math.sin(node * DEGREES_TO_RADIANS);
+		double cw = Math.cos(perihelion * DEGREES_TO_RADIANS), sw = Math.sin(perihelion * DEGREES_TO_RADIANS);
+		
+		// Gaussian vectors referred to the ecliptic of J2000.
+		
+		double pxe = cw * cn - sw * sn * ci;
+		double pye = cw * sn + sw * cn * ci;
+		double pze = sw * si;
+		
+		double qxe = -sw * cn - cw * sn * ci;
+		double qye = -sw * sn + cw * cn * ci;
+		double qze = cw * si;
+		
+		// Rotate to the equator of J2000.
+		
+		px[i] = pxe;
+		py[i] = pye * COS_OBLIQUITY - pze * SIN_OBLIQUITY;
+		pz[i] = pye * SIN_OBLIQUITY + pze * COS_OBLIQUITY;
+		
+		qx[i] = qxe;
+		qy[i] = qye * COS_OBLIQUITY - qze * SIN_OBLIQUITY;
+		qz[i] = qye * SIN_OBLIQUITY + qze * COS_OBLIQUITY;
+		
+		size++;
+		
+		return i;
+	}
+	
+	/*
+	 * Add an orbit defined by the conventional asteroid elements: semi-major
+	 * axis, eccentricity and mean anomaly at the epoch of osculation.
+	 */
+	
+	public int addOrbitFromMeanAnomaly(String designation, double epoch, double meanAnomaly,
+			double a, double e, double inclination, double node, double perihelion, double H, double G) {
+		if (!(e < 1.0) || !(a > 0.0))
+			throw new IllegalArgumentException("Mean anomaly form requires an elliptical orbit for " + designation);
+		
+		double n = GAUSSIAN_CONSTANT / (a * Math.sqrt(a));
+		
+		double M = meanAnomaly * DEGREES_TO_RADIANS;
+		
+		if (M > Math.PI)
+			M -= 2.0 * Math.PI;
+		
+		double tp = epoch - M / n;
+		
+		return addOrbit(designation, ASTEROID, a * (1.0 - e), e, tp, inclination, node, perihelion, H, G);
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public String getDesignation(int i) {
+		checkIndex(i);
+		return designation[i];
+	}
+	
+	public int getType(int i) {
+		checkIndex(i);
+		return type[i];
+	}
+	
+	public boolean isComet(int i) {
+		return getType(i) == COMET;
+	}
+	
+	public double getPerihelionDistance(int i) {
+		checkIndex(i);
+		return q[i];
+	}
+	
+	public double getEccentricity(int i) {
+		checkIndex(i);
+		return e[i];
+	}
+	
+	public double getTimeOfPerihelion(int i) {
+		checkIndex(i);
+		return tp[i];
+	}
+	
+	public double getAbsoluteMagnitude(int i) {
+		checkIndex(i);
+		return H[i];
+	}
+	
+	public double getSlopeParameter(int i) {
+		checkIndex(i);
+		return G[i];
+	}
+	
+	/*
+	 * Calculate the heliocentric position of orbit i at time t, in AU,
+	 * referred to the ICRF.  The result is stored in the first three
+	 * elements of the array.  If vel is not null, the velocity in AU/day
+	 * is also calculated.
+	 * 
+	 * Returns false if Kepler's equation could not be solved.
+	 */
+	
+	public boolean calculateHeliocentricPosition(int i, double t, double[] pos, double[] vel) {
+		checkIndex(i);
+		return TwoBody.calculatePosition(this, i, t, pos, vel);
+	}
+	
+	/*
+	 * Calculate the apparent magnitude of orbit i given its heliocentric
+	 * distance r, geocentric distance delta and phase angle, using the
+	 * H,G system for asteroids and the standard total magnitude formula for
+	 * comets.
+	 */
+	
+	public double calculateMagnitude(int i, double r, double delta, double phase) {
+		if (Double.isNaN(H[i]))
+			return Double.NaN;
+		
+		if (type[i] == COMET)
+			return H[i] + 5.0 * Math.log10(delta) + 2.5 * G[i] * Math.log10(r);
+		
+		double tanHalfPhase = Math.tan(0.5 * phase);
+		
+		double phi1 = Math.exp(-3.33 * Math.pow(tanHalfPhase, 0.63));
+		double phi2 = Math.exp(-1.87 * Math.pow(tanHalfPhase, 1.22));
+		
+		return H[i] + 5.0 * Math.log10(r * delta)
+			- 2.5 * Math.log10((1.0 - G[i]) * phi1 + G[i] * phi2);
+	}
+	
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Orbit index " + i + " is out of range [0," + size + ")");
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.minorplanet;
+
+/*
+ * Solutions of the two-body problem for elliptical, parabolic and
+ * hyperbolic orbits, expressed in terms of the perihelion distance q,
+ * the eccentricity e and the time of perihelion passage T.
+ * 
+ * Reference:
+ * 
+ * Danby, J.M.A. (1988) "Fundamentals of Celestial Mechanics", 2nd edition,
+ * Willmann-Bell, chapter 6.
+ */
+
+public class TwoBody {
+	private static final double TWO_PI = 2.0 * Math.PI;
+	
+	private static final double EPSILON = 1.0e-14;
+	
+	private static final int MAX_ITERATIONS = 50;
+	
+	/*
+	 * Solve Kepler's equation E - e sin E = M for the eccentric anomaly,
+	 * using Newton-Raphson iteration with Danby's starting value.
+	 * 
+	 * This method returns NaN if it fails to converge.
+	 */
+	
+	public static double solveEllipticKeplersEquation(double M, double e) {
+		M %= TWO_PI;
+		
+		if (M > Math.PI)
+			M -= TWO_PI;
+		else if (M < -Math.PI)
+			M += TWO_PI;
+		
+		double E = M + Math.signum(Math.sin(M)) * 0.85 * e;
+		
+		for (int iters = 0; iters < MAX_ITERATIONS; iters++) {
+			double sinE = Math.sin(E), cosE = Math.cos(E);
+			
+			double f = E - e * sinE - M;
+			double fp = 1.0 - e * cosE;
+			
+			double dE = -f / fp;
+			
+			E += dE;
+			
+			if (Math.abs(dE) < EPSILON)
+				return E;
+		}
+		
+		return Double.NaN;
+	}
+	
+	/*
+	 * Solve the hyperbolic form of Kepler's equation e sinh H - H = M for the
+	 * hyperbolic anomaly H.
+	 * 
+	 * This method returns NaN if it fails to converge.
+	 */
+	
+	public static double solveHyperbolicKeplersEquation(double M, double e) {
+		double H = Math.log(2.0 * Math.abs(M) / e + 1.8) * Math.signum(M);
+		
+		for (int iters = 0; iters < MAX_ITERATIONS; iters++) {
+			double f = e * Math.sinh(H) - H - M;
+			double fp = e * Math.cosh(H) - 1.0;
+			
+			double dH = -f / fp;
+			
+			H += dH;
+			
+			if (Math.abs(dH) < EPSILON * Math.max(1.0, Math.abs(H)))
+				return H;
+		}
+		
+		return Double.NaN;
+	}
+	
+	/*
+	 * Solve Barker's equation s^3 + 3s = W for s = tan(v/2) in closed form.
+	 */
+	
+	public static double solveBarkersEquation(double W) {
+		double Y = Math.cbrt(0.5 * W + Math.sqrt(0.25 * W * W + 1.0));
+		
+		return Y - 1.0 / Y;
+	}
+	
+	/*
+	 * Calculate the position, and optionally the velocity, in the plane of the
+	 * orbit.  The coordinates are referred to axes directed towards perihelion
+	 * and 90 degrees ahead of perihelion, and are stored in xy[0..1] and
+	 * xy[2..3] respectively.
+	 * 
+	 * The mean motion n is in radians per day, except for parabolic orbits,
+	 * where it is the factor 3k/sqrt(2q^3) which multiplies (t - T) in Barker's
+	 * equation.
+	 * 
+	 * Returns false if the equation of motion could not be solved.
+	 */
+	
+	public static boolean calculateOrbitalPlaneCoordinates(double q, double e, double n, double dt,
+			boolean wantVelocity, double[] xy) {
+		if (e < 1.0) {
+			double a = q / (1.0 - e);
+			double b = a * Math.sqrt((1.0 - e) * (1.0 + e));
+			
+			double E = solveEllipticKeplersEquation(n * dt, e);
+			
+			if (Double.isNaN(E))
+				return false;
+			
+			double cosE = Math.cos(E), sinE = Math.sin(E);
+			
+			xy[0] = a * (cosE - e);
+			xy[1] = b * sinE;
+			
+			if (wantVelocity) {
+				double Edot = n / (1.0 - e * cosE);
+				
+				xy[2] = -a * sinE * Edot;
+				xy[3] = b * cosE * Edot;
+			}
+		} else if (e > 1.0) {
+			double a = q / (e - 1.0);
+			double b = a * Math.sqrt((e - 1.0) * (e + 1.0));
+			
+			double H = solveHyperbolicKeplersEquation(n * dt, e);
+			
+			if (Double.isNaN(H))
+				return false;
+			
+			double coshH = Math.cosh(H), sinhH = Math.sinh(H);
+			
+			xy[0] = a * (e - coshH);
+			xy[1] = b * sinhH;
+			
+			if (wantVelocity) {
+				double Hdot = n / (e * coshH - 1.0);
+				
+				xy[2] = -a * sinhH * Hdot;
+				xy[3] = b * coshH * Hdot;
+			}
+		} else {
+			double s = solveBarkersEquation(n * dt);
+			
+			xy[0] = q * (1.0 - s * s);
+			xy[1] = 2.0 * q * s;
+			
+			if (wantVelocity) {
+				double sdot = n / (3.0 * (1.0 + s * s));
+				
+				xy[2] = -2.0 * q * s * sdot;
+				xy[3] = 2.0 * q * sdot;
+			}
+		}
+		
+		return true;
+	}
+	
+	/*
+	 * Calculate the heliocentric position, and optionally the velocity, of
+	 * orbit i in the catalogue at time t.
+	 */
+	
+	static boolean calculatePosition(OrbitCatalogue cat, int i, double t, double[] pos, double[] vel) {
+		double[] xy = new double[4];
+		
+		return calculatePosition(cat, i, t, pos, vel, xy);
+	}
+	
+	static boolean calculatePosition(OrbitCatalogue cat, int i, double t, double[] pos, double[] vel, double[] xy) {
+		boolean wantVelocity = vel != null;
+		
+		if (!calculateOrbitalPlaneCoordinates(cat.q[i], cat.e[i], cat.n[i], t - cat.tp[i], wantVelocity, xy))
+			return false;
+		
+		double x = xy[0], y = xy[1];
+		
+		pos[0] = x * cat.px[i] + y * cat.qx[i];
+		pos[1] = x * cat.py[i] + y * cat.qy[i];
+		pos[2] = x * cat.pz[i] + y * cat.qz[i];
+		
+		if (wantVelocity) {
+			double xdot = xy[2], ydot = xy[3];
+			
+			vel[0] = xdot * cat.px[i] + ydot * cat.qx[i];
+			vel[1] = xdot * cat.py[i] + ydot * cat.qy[i];
+			vel[2] = xdot * cat.pz[i] + ydot * cat.qz[i];
+		}
+		
+		return true;
+	}
+}
@@ -0,0 +1,627 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.phenomena;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.chebyshev.Chebyshev;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevTransform;
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+/*
+ * Finds all of the zeroes, maxima or minima of a target function in an
+ * interval by fitting Chebyshev series to it and solving the series, rather
+ * than by stepping through the interval.
+ * 
+ * The interval is divided into segments, and the target function is
+ * evaluated at the Chebyshev nodes of each segment.  If the last two
+ * coefficients of the fit exceed the fit tolerance, the segment is halved
+ * and fitted again, and if they are much smaller, the next segment is made
+ * longer, as in ChebyshevFitter.  A segment which cannot be fitted at the
+ * minimum length contains a discontinuity, such as the change of sign of
+ * the elongation when a planet passes north or south of the Sun, or a sharp
+ * feature, such as the light deflection at an inferior conjunction.  In such
+ * a segment, the values at the nodes and the ends are searched for changes
+ * of sign or local extrema, which are refined by bracketing as in
+ * ZeroFinder and ExtremumFinder.
+ * 
+ * The fit only has to be good enough to locate each root for polishing, so
+ * the default fit tolerance is much larger than the final tolerance.
+ * 
+ * The roots of the series, or of its derivative for extrema, are found by
+ * recursive subdivision.  A subinterval is discarded when the value of the
+ * series at its midpoint is larger than the bound on the derivative of the
+ * series (the sum of k^2 |c_k|) times its half-width, so no root can be
+ * missed, and the subdivision stops at a width of XTOL, where a change of
+ * sign marks a root.  Each root is then refined on the series, which costs
+ * no evaluations of the target function, and polished by a Newton step using
+ * the exact target function and the derivative of the series.  A zero takes
+ * one exact evaluation per Newton step; an extremum takes two, because the
+ * derivative of the target function is found by central differences.
+ * 
+ * Newton's method can fail where the slope is small, as at a near-grazing
+ * event.  If it has not converged after a few steps, or moves more than half
+ * way to a neighbouring root of the series, the root is bracketed on the
+ * exact target function, starting from the width of the subdivision and
+ * widening as far as that limit, and refined as in ZeroFinder or
+ * ExtremumFinder.  If no bracket is found, the exact function only grazes the
+ * value within the fit tolerance, and the root of the series is reported.  A
+ * root of the series is therefore never dropped.
+ * 
+ * The target functions in this package are angles which wrap round at +/-PI.
+ * If a period is set, the values at the nodes are unwrapped before fitting,
+ * and a zero is any point where the unwrapped function is a multiple of the
+ * period.
+ */
+
+public class ChebyshevRootFinder {
+	private static final Counter EVALUATIONS = Metrics.counter("phenomena.chebyshev.evaluations");
+	private static final Counter FITS = Metrics.counter("phenomena.chebyshev.fits");
+	
+	public static final int DEFAULT_NUMBER_OF_COEFFICIENTS = 24;
+	public static final double DEFAULT_SEGMENT_LENGTH = 128.0;
+	public static final double DEFAULT_MINIMUM_SEGMENT_LENGTH = 0.5;
+	public static final double DEFAULT_FIT_TOLERANCE = 1.0e-7;
+	public static final double DEFAULT_TOLERANCE = 1.0e-6;
+	
+	private static final double XTOL = 1.0e-5;
+	private static final int MAXIMUM_POLISHING_STEPS = 3;
+	private static final double DIFFERENCE_STEP = 0.01;
+	private static final double GROWTH_THRESHOLD = 1.0 / 64.0;
+	private static final double SEGMENT_MARGIN = 1.0e-3;
+	
+	private int nCoefficients = DEFAULT_NUMBER_OF_COEFFICIENTS;
+	private double segmentLength = DEFAULT_SEGMENT_LENGTH;
+	private double minimumSegmentLength = DEFAULT_MINIMUM_SEGMENT_LENGTH;
+	private double fitTolerance = DEFAULT_FIT_TOLERANCE;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double period = 0.0;
+	
+	private double[] zeroes;
+	private ChebyshevTransform transform;
+	
+	private long nEvaluations = 0;
+	
+	private enum Kind { ZERO, MAXIMUM, MINIMUM }
+	
+	public ChebyshevRootFinder() {
+		setNumberOfCoefficients(DEFAULT_NUMBER_OF_COEFFICIENTS);
+	}
+	
+	public void setNumberOfCoefficients(int nCoefficients) {
+		if (nCoefficients < 4)
+			throw new IllegalArgumentException("At least four coefficients are required");
+		
+		this.nCoefficients = nCoefficients;
+		
+		zeroes = new double[nCoefficients];
+		
+		Chebyshev.calculateChebyshevZeroes(zeroes);
+		
+		transform = new ChebyshevTransform(nCoefficients);
+	}
+	
+	public int getNumberOfCoefficients() {
+		return nCoefficients;
+	}
+	
+	/*
+	 * The segment length is the initial and maximum length of a segment.
+	 */
+	
+	public void setSegmentLengths(double segmentLength, double minimumSegmentLength) {
+		if (!(minimumSegmentLength > 0.0 && minimumSegmentLength <= segmentLength))
+			throw new IllegalArgumentException("Segment lengths must satisfy 0 < minimum <= maximum");
+		
+		this.segmentLength = segmentLength;
+		this.minimumSegmentLength = minimumSegmentLength;
+	}
+	
+	public double getSegmentLength() {
+		return segmentLength;
+	}
+	
+	public double getMinimumSegmentLength() {
+		return minimumSegmentLength;
+	}
+	
+	/*
+	 * The largest acceptable sum of the magnitudes of the last two
+	 * coefficients of a fit, in the units of the target function.
+	 */
+	
+	public void setFitTolerance(double fitTolerance) {
+		if (!(fitTolerance > 0.0))
+			throw new IllegalArgumentException("Fit tolerance must be positive");
+		
+		this.fitTolerance = fitTolerance;
+	}
+	
+	/*
+	 * Polishing stops when the Newton step is smaller than this, in days.
+	 */
+	
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0.0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		this.tolerance = tolerance;
+	}
+	
+	public void setPeriod(double period) {
+		if (period < 0.0)
+			throw new IllegalArgumentException("Period must not be negative");
+		
+		this.period = period;
+	}
+	
+	public double getPeriod() {
+		return period;
+	}
+	
+	/*
+	 * The number of evaluations of the target function since this object
+	 * was created.
+	 */
+	
+	public long getNumberOfEvaluations() {
+		return nEvaluations;
+	}
+	
+	public List<Double> findZeroes(TargetFunction fn, double jdstart, double jdfinish) throws JPLEphemerisException {
+		return find(fn, jdstart, jdfinish, Kind.ZERO);
+	}
+	
+	public List<Double> findMaxima(TargetFunction fn, double jdstart, double jdfinish) throws JPLEphemerisException {
+		return find(fn, jdstart, jdfinish, Kind.MAXIMUM);
+	}
+	
+	public List<Double> findMinima(TargetFunction fn, double jdstart, double jdfinish) throws JPLEphemerisException {
+		return find(fn, jdstart, jdfinish, Kind.MINIMUM);
+	}
+	
+	private List<Double> find(TargetFunction fn, double jdstart, double jdfinish, Kind kind)
+			throws JPLEphemerisException {
+		if (!(jdfinish > jdstart))
+			throw new IllegalArgumentException("End date must be later than start date");
+		
+		List<Double> results = new ArrayList<Double>();
+		
+		double[] values = new double[nCoefficients];
+		double[] coeffs = new double[nCoefficients];
+		
+		double ta = jdstart;
+		double length = segmentLength;
+		
+		while (ta < jdfinish) {
+			double tb = Math.min(ta + length, jdfinish);
+			
+			double tail;
+			
+			while (true) {
+				fit(fn, ta, tb, values, coeffs);
+				
+				tail = Math.abs(coeffs[nCoefficients - 1]) + Math.abs(coeffs[nCoefficients - 2]);
+				
+				if (tail <= fitTolerance || tb - ta <= minimumSegmentLength)
+					break;
+				
+				length = 0.5 * (tb - ta);
+				tb = ta + length;
+			}
+			
+			if (tail <= fitTolerance)
+				solveSegment(fn, ta, tb, coeffs, kind, results);
+			else
+				searchSegment(fn, ta, tb, values, kind, results);
+			
+			if (tail < GROWTH_THRESHOLD * fitTolerance)
+				length = Math.min(2.0 * length, segmentLength);
+			
+			ta = tb;
+		}
+		
+		List<Double> unique = removeDuplicates(results);
+		
+		unique.removeIf(t -> t < jdstart - SEGMENT_MARGIN || t > jdfinish + SEGMENT_MARGIN);
+		
+		return unique;
+	}
+	
+	private void fit(TargetFunction fn, double ta, double tb, double[] values, double[] coeffs)
+			throws JPLEphemerisException {
+		double mid = 0.5 * (ta + tb);
+		double half = 0.5 * (tb - ta);
+		
+		for (int i = 0; i < nCoefficients; i++) {
+			values[i] = evaluate(fn, mid + half * zeroes[i]);
+			
+			// The nodes are in order, so the function can be unwrapped as we go.
+			if (period > 0.0 && i > 0)
+				values[i] += period * Math.rint((values[i - 1] - values[i]) / period);
+		}
+		
+		transform.transform(values, coeffs);
+		
+		if (Metrics.ENABLED)
+			FITS.increment();
+	}
+	
+	private double evaluate(TargetFunction fn, double t) throws JPLEphemerisException {
+		nEvaluations++;
+		
+		if (Metrics.ENABLED)
+			EVALUATIONS.increment();
+		
+		return fn.valueAtTime(t);
+	}
+	
+	private void solveSegment(TargetFunction fn, double ta, double tb, double[] coeffs, Kind kind, List<Double> results)
+			throws JPLEphemerisException {
+		double[] series = coeffs;
+		
+		if (kind != Kind.ZERO)
+			series = derivative(coeffs);
+		
+		double[] slope = derivative(series);
+		
+		double bound = derivativeBound(series);
+		
+		List<Double> roots = new ArrayList<Double>();
+		
+		if (kind == Kind.ZERO && period > 0.0) {
+			double range = 0.0;
+			
+			for (int k = 1; k < series.length; k++)
+				range += Math.abs(series[k]);
+			
+			long kmin = (long) Math.ceil((series[0] - range) / period);
+			long kmax = (long) Math.floor((series[0] + range) / period);
+			
+			for (long k = kmin; k <= kmax; k++)
+				findRoots(series, k * period, -1.0, 1.0, bound, roots);
+		} else
+			findRoots(series, 0.0, -1.0, 1.0, bound, roots);
+		
+		Collections.sort(roots);
+		
+		double scale = 2.0 / (tb - ta);
+		double width = Math.max(XTOL * (tb - ta), tolerance);
+		
+		for (int i = 0; i < roots.size(); i++) {
+			double x = roots.get(i);
+			
+			double t = ta + 0.5 * (x + 1.0) * (tb - ta);
+			
+			// The polished root must stay closer to this root of the series than to its neighbours.
+			double limit = 0.5 * (tb - ta);
+			
+			if (i > 0)
+				limit = Math.min(limit, 0.25 * (x - roots.get(i - 1)) * (tb - ta));
+			
+			if (i < roots.size() - 1)
+				limit = Math.min(limit, 0.25 * (roots.get(i + 1) - x) * (tb - ta));
+			
+			limit = Math.max(limit, width);
+			
+			if (kind == Kind.ZERO) {
+				t = polishZero(fn, t, Chebyshev.evaluate(slope, x) * scale, width, limit);
+			} else {
+				double curvature = Chebyshev.evaluate(slope, x) * scale * scale;
+				
+				if ((kind == Kind.MAXIMUM && curvature < 0.0) || (kind == Kind.MINIMUM && curvature > 0.0))
+					t = polishExtremum(fn, t, curvature, kind, width, limit);
+				else
+					continue;
+			}
+			
+			results.add(t);
+		}
+	}
+	
+	/*
+	 * Searches a segment which could not be fitted, using the values at the
+	 * nodes, which are in order of decreasing time, and at the ends.
+	 */
+	
+	private void searchSegment(TargetFunction fn, double ta, double tb, double[] values, Kind kind,
+			List<Double> results) throws JPLEphemerisException {
+		int N = nCoefficients;
+		
+		double[] t = new double[N + 2];
+		double[] f = new double[N + 2];
+		
+		double mid = 0.5 * (ta + tb);
+		double half = 0.5 * (tb - ta);
+		
+		t[0] = ta;
+		f[0] = evaluate(fn, ta);
+		
+		for (int i = 0; i < N; i++) {
+			t[i + 1] = mid + half * zeroes[N - 1 - i];
+			f[i + 1] = values[N - 1 - i];
+		}
+		
+		t[N + 1] = tb;
+		f[N + 1] = evaluate(fn, tb);
+		
+		if (period > 0.0) {
+			f[0] += period * Math.rint((f[1] - f[0]) / period);
+			f[N + 1] += period * Math.rint((f[N] - f[N + 1]) / period);
+		}
+		
+		TargetFunction counted = (x) -> evaluate(fn, x);
+		
+		for (int i = 1; i < N + 2; i++) {
+			switch (kind) {
+			case ZERO:
+				double f0 = f[i - 1], f1 = f[i];
+				
+				if (period > 0.0) {
+					double k = Math.rint(0.5 * (f0 + f1) / period) * period;
+					f0 -= k;
+					f1 -= k;
+				}
+				
+				if ((f0 < 0.0) != (f1 < 0.0))
+					results.add(refineZero(fn, t[i - 1], f0, t[i], f1));
+				break;
+				
+			case MAXIMUM:
+				if (i < N + 1 && f[i] > f[i - 1] && f[i] > f[i + 1])
+					results.add(ExtremumFinder.findMaximum(counted, t[i - 1], t[i], t[i + 1], tolerance));
+				break;
+				
+			case MINIMUM:
+				if (i < N + 1 && f[i] < f[i - 1] && f[i] < f[i + 1])
+					results.add(ExtremumFinder.findMinimum(counted, t[i - 1], t[i], t[i + 1], tolerance));
+				break;
+			}
+		}
+	}
+	
+	/*
+	 * The Illinois variant of regula falsi, applied to the target function
+	 * reduced to the range -period/2 to +period/2.
+	 */
+	
+	private double refineZero(TargetFunction fn, double t0, double f0, double t1, double f1)
+			throws JPLEphemerisException {
+		int side = 0;
+		
+		while (Math.abs(t1 - t0) > tolerance) {
+			double t = (t0 * f1 - t1 * f0) / (f1 - f0);
+			
+			double f = evaluate(fn, t);
+			
+			if (period > 0.0)
+				f -= period * Math.rint(f / period);
+			
+			if ((f < 0.0) == (f1 < 0.0)) {
+				t1 = t;
+				f1 = f;
+				
+				if (side == -1)
+					f0 *= 0.5;
+				
+				side = -1;
+			} else if ((f < 0.0) == (f0 < 0.0)) {
+				t0 = t;
+				f0 = f;
+				
+				if (side == 1)
+					f1 *= 0.5;
+				
+				side = 1;
+			} else
+				return t;
+		}
+		
+		return 0.5 * (t0 + t1);
+	}
+	
+	/*
+	 * Finds the roots of (series - value) in [x0, x1], where bound is an upper
+	 * limit on the magnitude of the derivative of the series.
+	 */
+	
+	private void findRoots(double[] series, double value, double x0, double x1, double bound, List<Double> roots) {
+		double xm = 0.5 * (x0 + x1);
+		double h = 0.5 * (x1 - x0);
+		
+		if (Math.abs(Chebyshev.evaluate(series, xm) - value) > bound * h)
+			return;
+		
+		if (h > XTOL) {
+			findRoots(series, value, x0, xm, bound, roots);
+			findRoots(series, value, xm, x1, bound, roots);
+			return;
+		}
+		
+		double f0 = Chebyshev.evaluate(series, x0) - value;
+		double f1 = Chebyshev.evaluate(series, x1) - value;
+		
+		if ((f0 < 0.0) == (f1 < 0.0))
+			return;
+		
+		// Bisection on the series, which is cheap to evaluate.
+		while (x1 - x0 > 1.0e-14) {
+			xm = 0.5 * (x0 + x1);
+			
+			double fm = Chebyshev.evaluate(series, xm) - value;
+			
+			if ((fm < 0.0) == (f0 < 0.0)) {
+				x0 = xm;
+				f0 = fm;
+			} else
+				x1 = xm;
+		}
+		
+		roots.add(0.5 * (x0 + x1));
+	}
+	
+	/*
+	 * The polishing methods start from a root t0 of the series, and fall back
+	 * to bracketing if the Newton iteration does not converge within limit of
+	 * t0.  The first bracket has a half-width of width.
+	 */
+	
+	private double polishZero(TargetFunction fn, double t0, double slope, double width, double limit)
+			throws JPLEphemerisException {
+		double t = t0;
+		
+		for (int i = 0; i < MAXIMUM_POLISHING_STEPS && Math.abs(t - t0) <= limit; i++) {
+			double dt = reducedValue(fn, t) / slope;
+			
+			t -= dt;
+			
+			if (Math.abs(dt) < tolerance && Math.abs(t - t0) <= limit)
+				return t;
+		}
+		
+		for (double h = width; ; h = Math.min(2.0 * h, limit)) {
+			double f0 = reducedValue(fn, t0 - h);
+			double f1 = reducedValue(fn, t0 + h);
+			
+			if ((f0 < 0.0) != (f1 < 0.0) && (period == 0.0 || Math.abs(f1 - f0) < 0.5 * period))
+				return refineZero(fn, t0 - h, f0, t0 + h, f1);
+			
+			if (h >= limit)
+				return t0;
+		}
+	}
+	
+	private double polishExtremum(TargetFunction fn, double t0, double curvature, Kind kind, double width,
+			double limit) throws JPLEphemerisException {
+		double t = t0;
+		
+		for (int i = 0; i < MAXIMUM_POLISHING_STEPS && Math.abs(t - t0) <= limit; i++) {
+			double df = evaluate(fn, t + DIFFERENCE_STEP) - evaluate(fn, t - DIFFERENCE_STEP);
+			
+			if (period > 0.0)
+				df -= period * Math.rint(df / period);
+			
+			double dt = (df / (2.0 * DIFFERENCE_STEP)) / curvature;
+			
+			t -= dt;
+			
+			if (Math.abs(dt) < tolerance && Math.abs(t - t0) <= limit)
+				return t;
+		}
+		
+		// The function is unwrapped about its value at t0 and negated for a maximum, so we look for a minimum.
+		double sign = kind == Kind.MAXIMUM ? -1.0 : 1.0;
+		double reference = evaluate(fn, t0);
+		
+		TargetFunction g = (x) -> {
+			double f = evaluate(fn, x);
+			
+			if (period > 0.0)
+				f += period * Math.rint((reference - f) / period);
+			
+			return sign * f;
+		};
+		
+		// Walk downhill from t0, doubling the step, until the lowest value is between two higher ones.
+		double h = width;
+		
+		double tb = t0, gb = sign * reference;
+		double ta = tb - h, ga = g.valueAtTime(ta);
+		double tc = tb + h, gc = g.valueAtTime(tc);
+		
+		while (ga < gb || gc < gb) {
+			h = 2.0 * h;
+			
+			if (ga < gc) {
+				tc = tb;
+				gc = gb;
+				tb = ta;
+				gb = ga;
+				ta = tb - h;
+				ga = g.valueAtTime(ta);
+			} else {
+				ta = tb;
+				ga = gb;
+				tb = tc;
+				gb = gc;
+				tc = tb + h;
+				gc = g.valueAtTime(tc);
+			}
+			
+			if (Math.abs(tb - t0) > limit)
+				return t0;
+		}
+		
+		return ExtremumFinder.findMinimum(g, ta, tb, tc, tolerance);
+	}
+	
+	private double reducedValue(TargetFunction fn, double t) throws JPLEphemerisException {
+		double f = evaluate(fn, t);
+		
+		if (period > 0.0)
+			f -= period * Math.rint(f / period);
+		
+		return f;
+	}
+	
+	/*
+	 * Roots which lie on the boundary between two segments may be found in
+	 * both of them, and a root near the end of one segment may be polished
+	 * into the next.
+	 */
+	
+	private List<Double> removeDuplicates(List<Double> results) {
+		Collections.sort(results);
+		
+		List<Double> unique = new ArrayList<Double>();
+		
+		for (double t : results)
+			if (unique.isEmpty() || Math.abs(t - unique.get(unique.size() - 1)) > 10.0 * tolerance)
+				unique.add(t);
+		
+		return unique;
+	}
+	
+	private static double[] derivative(double[] c) {
+		double[] d = new double[c.length];
+		
+		Chebyshev.calculateDerivativeCoefficients(c, d);
+		
+		return d;
+	}
+	
+	private static double derivativeBound(double[] c) {
+		double bound = 0.0;
+		
+		for (int k = 1; k < c.length; k++)
+			bound += (double) k * (double) k * Math.abs(c[k]);
+		
+		return bound;
+	}
+}
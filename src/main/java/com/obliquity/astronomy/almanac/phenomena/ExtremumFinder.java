@@ -25,6 +25,8 @@
 package com.obliquity.astronomy.almanac.phenomena;
 
 import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.metrics.Histogram;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
 
 public class ExtremumFinder {
 	/*
@@ -39,6 +41,8 @@ public class ExtremumFinder {
 	
 	private static final double R = 0.61803399, C = 1.0 - R; 
 	
+	private static final Histogram ITERATIONS = Metrics.histogram("phenomena.extremumFinderIterations");
+	
 	public static double findMinimum(TargetFunction fn, double xa, double xb, double xc, double tol) throws JPLEphemerisException {
 		double x0 = xa;
 		double x3 = xc;
@@ -56,7 +60,11 @@ public class ExtremumFinder {
 		double f1 = fn.valueAtTime(x1);
 		double f2 = fn.valueAtTime(x2);
 		
+		int nIters = 0;
+		
 		while (Math.abs(x3-x0) > tol) {
+			nIters++;
+			
 			if (f2 < f1) {
 				x0 = x1;
 				x1 = x2;
@@ -72,6 +80,9 @@ public class ExtremumFinder {
 			}
 		}
 		
+		if (Metrics.ENABLED)
+			ITERATIONS.record(nIters);
+		
 		return f1 < f2 ? x1 : x2;
 	}
 	
@@ -25,42 +25,80 @@
 package com.obliquity.astronomy.almanac.phenomena;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
 
 import com.obliquity.astronomy.almanac.ApparentPlace;
 import com.obliquity.astronomy.almanac.AstronomicalDate;
 import com.obliquity.astronomy.almanac.EarthCentre;
 import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.EpochContext;
 import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.ISO8601Format;
 import com.obliquity.astronomy.almanac.JPLEphemeris;
 import com.obliquity.astronomy.almanac.JPLEphemerisException;
 import com.obliquity.astronomy.almanac.MoonCentre;
 import com.obliquity.astronomy.almanac.MovingPoint;
 import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
 import com.obliquity.astronomy.almanac.phenomena.Phenomenon.Type;
 import com.obliquity.astronomy.almanac.phenomena.target.Elongation;
 import com.obliquity.astronomy.almanac.phenomena.target.LongitudeDifference;
 import com.obliquity.astronomy.almanac.phenomena.target.RightAscension;
 
 public class PhenomenaFinder {
-	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
-	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	private PhenomenonHandler handler = null;
+	private int bodyCode = -1;
+	private ChebyshevRootFinder rootFinder = null;
+	private PrintStream output = System.out;
 	
-	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd");
+	private final AstronomicalDate reportDate = new AstronomicalDate();
+	private final StringBuilder reportLine = new StringBuilder(32);
 	
+	public PhenomenaFinder() {
+	}
+	
+	/*
+	 * Phenomena are printed on the given stream instead of standard output.
+	 */
+	public PhenomenaFinder(PrintStream output) {
+		this.output = output;
+	}
+	
+	/*
+	 * If a handler is given, each phenomenon is passed to it, labelled with
+	 * the body code, instead of being printed on standard output.
+	 */
+	public PhenomenaFinder(PhenomenonHandler handler, int bodyCode) {
+		this.handler = handler;
+		this.bodyCode = bodyCode;
+	}
+
+	/*
+	 * If a root finder is set, the phenomena are found by solving Chebyshev
+	 * fits to the target function instead of stepping through the interval,
+	 * and the step size is ignored.
+	 */
+	public void setRootFinder(ChebyshevRootFinder rootFinder) {
+		this.rootFinder = rootFinder;
+	}
+	
+	public ChebyshevRootFinder getRootFinder() {
+		return rootFinder;
+	}
+
 	public static void main(String args[]) {
-		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		System.exit(run(args, System.out, System.err));
+	}
 
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		String filename = null;
 		String bodyname = null;
 		String startdate = null;
 		String enddate = null;
 		String stepsize = null;
 		boolean inRA = false;
+		boolean useChebyshev = false;
 		
 		Phenomenon.Type mode = Type.CONJUNCTION;
 
@@ -90,6 +128,10 @@ public class PhenomenaFinder {
 				inRA = true;
 				break;
 				
+			case "-chebyshev":
+				useChebyshev = true;
+				break;
+				
 			case "-conjunction":
 				mode = Type.CONJUNCTION;
 				break;
@@ -123,51 +165,45 @@ public class PhenomenaFinder {
 				break;
 				
 			default:
-				System.err.println("Unrecognised keyword \"" + args[i] + "\"");
-				showUsage();
-				System.exit(1);
+				err.println("Unrecognised keyword \"" + args[i] + "\"");
+				showUsage(err);
+				return 1;
 			}
 		}
 
 		if (filename == null || bodyname == null || startdate == null
 				|| enddate == null) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 		int kBody = parseBody(bodyname);
 
 		if (kBody < 0) {
-			System.err.println("Unknown name for -body1: \"" + bodyname + "\"");
-			System.exit(1);
+			err.println("Unknown name for -body1: \"" + bodyname + "\"");
+			return 1;
 		}
 
-		Date date = null;
+		double jdstart = 0.0, jdfinish = 0.0;
 
 		try {
-			date = datefmtIn.parse(startdate);
+			jdstart = ISO8601Format.parse(startdate);
 		} catch (ParseException e) {
-			System.err.println(
+			err.println(
 					"Failed to parse \"" + startdate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
-		double jdstart = UNIX_EPOCH_AS_JD
-				+ ((double) date.getTime()) / MILLISECONDS_PER_DAY;
-
 		try {
-			date = datefmtIn.parse(enddate);
+			jdfinish = ISO8601Format.parse(enddate);
 		} catch (ParseException e) {
-			System.err.println(
+			err.println(
 					"Failed to parse \"" + enddate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
-		double jdfinish = UNIX_EPOCH_AS_JD
-				+ ((double) date.getTime()) / MILLISECONDS_PER_DAY;
-
 		double jdstep = (stepsize == null) ? 1.0 : Double.parseDouble(stepsize);
 
 		JPLEphemeris ephemeris = null;
@@ -176,13 +212,13 @@ public class PhenomenaFinder {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		MovingPoint planet = (kBody == JPLEphemeris.MOON) ?
@@ -194,9 +230,11 @@ public class PhenomenaFinder {
 
 		EarthRotationModel erm = new IAUEarthRotationModel();
 
-		ApparentPlace apTarget1 = new ApparentPlace(earth, sun, sun, erm);
+		EpochContext context = new EpochContext(earth, sun, erm);
 
-		ApparentPlace apTarget2 = new ApparentPlace(earth, planet, sun, erm);
+		ApparentPlace apTarget1 = new ApparentPlace(context, sun);
+
+		ApparentPlace apTarget2 = new ApparentPlace(context, planet);
 		
 		TargetFunction tf = null;
 		
@@ -213,8 +251,8 @@ public class PhenomenaFinder {
 				
 				tf = ldiff;
 			} catch (PhenomenaException e1) {
-				e1.printStackTrace();
-				System.exit(1);
+				e1.printStackTrace(err);
+				return 1;
 			}			
 			break;
 			
@@ -225,7 +263,7 @@ public class PhenomenaFinder {
 				
 				tf = el;
 			} catch (PhenomenaException e1) {
-				e1.printStackTrace();
+				e1.printStackTrace(err);
 			}			
 			break;
 			
@@ -239,13 +277,28 @@ public class PhenomenaFinder {
 		
 		}
 		
-		PhenomenaFinder finder = new PhenomenaFinder();
+		PhenomenaFinder finder = new PhenomenaFinder(out);
+		
+		if (useChebyshev) {
+			ChebyshevRootFinder rootFinder = new ChebyshevRootFinder();
+			
+			// Longitude differences and right ascensions wrap around; elongations do not.
+			if (tf instanceof LongitudeDifference || tf instanceof RightAscension)
+				rootFinder.setPeriod(2.0 * Math.PI);
+			
+			finder.setRootFinder(rootFinder);
+		}
 		
 		try {
 			finder.findPhenomena(tf, jdstart, jdfinish, jdstep, mode);
 		} catch (JPLEphemerisException | PhenomenaException e) {
-			e.printStackTrace();
+			e.printStackTrace(err);
 		}
+		
+		if (Metrics.ENABLED)
+			Metrics.snapshot().print(err);
+
+		return 0;
 	}
 	
 	private boolean changeOfSign(double x1, double x2) {
@@ -305,11 +358,49 @@ public class PhenomenaFinder {
 			break;
 		}
 		
-		findPhenomenaFromZeroOfTargetFunction(ldiff, jdstart, jdfinish, jdstep);
+		findZeroes(ldiff, jdstart, jdfinish, jdstep, mode);
 	}
 	
+	/*
+	 * The type of each phenomenon is taken from the target difference of the
+	 * longitude difference: pi is an opposition, pi/2 an eastern quadrature,
+	 * -pi/2 a western quadrature, and anything else a conjunction.
+	 */
 	public void findPhenomenaFromZeroOfTargetFunction(LongitudeDifference ldiff, double jdstart, double jdfinish,
 			double jdstep) throws JPLEphemerisException {
+		findZeroes(ldiff, jdstart, jdfinish, jdstep, typeOfTargetDifference(ldiff.getTargetDifference()));
+	}
+	
+	public void findPhenomenaFromZeroOfTargetFunction(LongitudeDifference ldiff, double jdstart, double jdfinish,
+			double jdstep, Type mode) throws JPLEphemerisException, PhenomenaException {
+		if (mode == null)
+			throw new PhenomenaException("A phenomenon type is required");
+		
+		findZeroes(ldiff, jdstart, jdfinish, jdstep, mode);
+	}
+	
+	private static Type typeOfTargetDifference(double targetDifference) {
+		if (targetDifference == Math.PI)
+			return Type.OPPOSITION;
+		
+		if (targetDifference == 0.5 * Math.PI)
+			return Type.QUADRATURE_EAST;
+		
+		if (targetDifference == -0.5 * Math.PI)
+			return Type.QUADRATURE_WEST;
+		
+		return Type.CONJUNCTION;
+	}
+	
+	private void findZeroes(LongitudeDifference ldiff, double jdstart, double jdfinish, double jdstep, Type mode)
+			throws JPLEphemerisException {
+		if (rootFinder != null) {
+			for (double tExact : rootFinder.findZeroes(ldiff, jdstart, jdfinish))
+				reportPhenomenon(tExact, mode);
+			
+			return;
+		}
+		
 		double lastDX = Double.NaN;
 		boolean first = true;
 		
@@ -322,9 +413,7 @@ public class PhenomenaFinder {
 					
 					double tExact = ZeroFinder.findZero(ldiff, tLast, t, 1.0e-5);
 					
-					AstronomicalDate ad = new AstronomicalDate(tExact);
-					
-					System.out.printf("%5d %02d %02d %02d:%02d\n", ad.getYear(), ad.getMonth(), ad.getDay(), ad.getHour(), ad.getMinute());
+					reportPhenomenon(tExact, mode);
 				}
 			}
 			
@@ -346,11 +435,11 @@ public class PhenomenaFinder {
 			throw new PhenomenaException("Invalid mode for elongation");
 			
 		case GREATEST_ELONGATION_EAST:
-			findPhenomenaFromMaximumOfTargetFunction(el, jdstart, jdfinish, jdstep);
+			findPhenomenaFromMaximumOfTargetFunction(el, jdstart, jdfinish, jdstep, mode);
 			break;
 			
 		case GREATEST_ELONGATION_WEST:
-			findPhenomenaFromMinimumOfTargetFunction(el, jdstart, jdfinish, jdstep);
+			findPhenomenaFromMinimumOfTargetFunction(el, jdstart, jdfinish, jdstep, mode);
 			break;
 			
 		default:
@@ -358,7 +447,15 @@ public class PhenomenaFinder {
 		}
 	}
 	
-	private void findPhenomenaFromMaximumOfTargetFunction(TargetFunction tf, double jdstart, double jdfinish, double jdstep) throws JPLEphemerisException {
+	private void findPhenomenaFromMaximumOfTargetFunction(TargetFunction tf, double jdstart, double jdfinish, double jdstep,
+			Type mode) throws JPLEphemerisException {
+		if (rootFinder != null) {
+			for (double tExact : rootFinder.findMaxima(tf, jdstart, jdfinish))
+				reportPhenomenon(tExact, mode);
+			
+			return;
+		}
+		
 		double values[] = new double[3];
 		
 		values[0] = tf.valueAtTime(jdstart);
@@ -374,9 +471,7 @@ public class PhenomenaFinder {
 				
 				double tExact = ExtremumFinder.findMaximum(tf, ta, tb, tc, 1.0e-5);
 				
-				AstronomicalDate ad = new AstronomicalDate(tExact);
-				
-				System.out.printf("%5d %02d %02d %02d:%02d\n", ad.getYear(), ad.getMonth(), ad.getDay(), ad.getHour(), ad.getMinute());
+				reportPhenomenon(tExact, mode);
 			}
 			
 			values[0] = values[1];
@@ -384,11 +479,55 @@ public class PhenomenaFinder {
 		}
 	}
 	
+	private void reportPhenomenon(double t, Type mode) {
+		if (handler != null) {
+			handler.handlePhenomenon(new Phenomenon(mode, new AstronomicalDate(t), bodyCode));
+			return;
+		}
+		
+		reportDate.setJulianDate(t);
+		
+		reportLine.setLength(0);
+		
+		appendPadded(reportLine, reportDate.getYear(), 5, ' ');
+		reportLine.append(' ');
+		appendPadded(reportLine, reportDate.getMonth(), 2, '0');
+		reportLine.append(' ');
+		appendPadded(reportLine, reportDate.getDay(), 2, '0');
+		reportLine.append(' ');
+		appendPadded(reportLine, reportDate.getHour(), 2, '0');
+		reportLine.append(':');
+		appendPadded(reportLine, reportDate.getMinute(), 2, '0');
+		reportLine.append('\n');
+		
+		output.append(reportLine);
+	}
+	
+	private static void appendPadded(StringBuilder sb, int value, int width, char pad) {
+		int digits = value < 0 ? 2 : 1;
+		
+		for (int v = value / 10; v != 0; v /= 10)
+			digits++;
+		
+		for (int i = digits; i < width; i++)
+			sb.append(pad);
+		
+		sb.append(value);
+	}
+	
 	private boolean isMidpointLargest(double[] values) {
 		return values[1] > values[0] && values[1] > values[2];
 	}
 	
-	private void findPhenomenaFromMinimumOfTargetFunction(TargetFunction tf, double jdstart, double jdfinish, double jdstep) throws JPLEphemerisException {
+	private void findPhenomenaFromMinimumOfTargetFunction(TargetFunction tf, double jdstart, double jdfinish, double jdstep,
+			Type mode) throws JPLEphemerisException {
+		if (rootFinder != null) {
+			for (double tExact : rootFinder.findMinima(tf, jdstart, jdfinish))
+				reportPhenomenon(tExact, mode);
+			
+			return;
+		}
+		
 		double values[] = new double[3];
 		
 		values[0] = tf.valueAtTime(jdstart);
@@ -404,9 +543,7 @@ public class PhenomenaFinder {
 				
 				double tExact = ExtremumFinder.findMinimum(tf, ta, tb, tc, 1.0e-5);
 				
-				AstronomicalDate ad = new AstronomicalDate(tExact);
-				
-				System.out.printf("%5d %02d %02d %02d:%02d\n", ad.getYear(), ad.getMonth(), ad.getDay(), ad.getHour(), ad.getMinute());
+				reportPhenomenon(tExact, mode);
 			}
 			
 			values[0] = values[1];
@@ -431,11 +568,11 @@ public class PhenomenaFinder {
 			throw new PhenomenaException("Invalid mode for elongation");
 			
 		case STATIONARY_EAST:
-			findPhenomenaFromMaximumOfTargetFunction(raf, jdstart, jdfinish, jdstep);
+			findPhenomenaFromMaximumOfTargetFunction(raf, jdstart, jdfinish, jdstep, mode);
 			break;
 			
 		case STATIONARY_WEST:
-			findPhenomenaFromMinimumOfTargetFunction(raf, jdstart, jdfinish, jdstep);
+			findPhenomenaFromMinimumOfTargetFunction(raf, jdstart, jdfinish, jdstep, mode);
 			break;
 			
 		default:
@@ -444,7 +581,7 @@ public class PhenomenaFinder {
 	}
 
 
-	public static void showUsage() {
+	public static void showUsage(PrintStream err) {
 		String[] lines = { "MANDATORY PARAMETERS",
 				"\t-ephemeris\tName of ephemeris file",
 				"\t-body\t\tName of body 1",
@@ -459,11 +596,12 @@ public class PhenomenaFinder {
 				"-greatest-elongation-east\tFind dates of greatest elongation east",
 				"-greatest-elongation-west\tFind dates of greatest elongation west",
 				"-stationary-west\tFind dates of west stationary points in RA",
-				"-stationary-east\tFind dates of east stationary points in RA"
+				"-stationary-east\tFind dates of east stationary points in RA",
+				"-chebyshev\tSolve Chebyshev fits instead of stepping through the interval"
 		};
 		
 		for (String line : lines)
-			System.err.println(line);
+			err.println(line);
 	}
 
 	private static int parseBody(String bodyname) {
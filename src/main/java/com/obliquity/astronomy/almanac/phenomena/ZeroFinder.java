@@ -25,10 +25,18 @@
 package com.obliquity.astronomy.almanac.phenomena;
 
 import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.metrics.Histogram;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
 
 public class ZeroFinder {
+	private static final Histogram ITERATIONS = Metrics.histogram("phenomena.zeroFinderIterations");
+	
 	public static double findZero(TargetFunction fn, double x1, double x2, double tol) throws JPLEphemerisException {
+		int nIters = 0;
+		
 		while (true) {
+			nIters++;
+			
 			double dX1 = fn.valueAtTime(x1);
 	
 			double dX2 = fn.valueAtTime(x2);
@@ -41,8 +49,12 @@ public class ZeroFinder {
 		
 			double dX3 = fn.valueAtTime(tNew);
 
-			if (Math.abs(dX3) < tol)
+			if (Math.abs(dX3) < tol) {
+				if (Metrics.ENABLED)
+					ITERATIONS.record(nIters);
+				
 				return tNew;
+			}
 			
 			if (changeOfSign(dX1, dX3))
 				x2 = tNew;
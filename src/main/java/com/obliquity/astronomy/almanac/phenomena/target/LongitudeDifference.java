@@ -77,15 +77,13 @@ public class LongitudeDifference implements TargetFunction {
 		return targetDifference;
 	}
 	
-	private double calculateEclipticLongitude(double ra, double dec, double t) {
+	private double calculateEclipticLongitude(double ra, double dec, double cosObliquity, double sinObliquity) {
 		double xa = Math.cos(ra) * Math.cos(dec);
 		double ya = Math.sin(ra) * Math.cos(dec);
 		double za = Math.sin(dec);
 		
-		double obliquity = erm.meanObliquity(t);
-		
 		double xe = xa;
-		double ye = ya * Math.cos(obliquity) + za * Math.sin(obliquity);
+		double ye = ya * cosObliquity + za * sinObliquity;
 		
 		return Math.atan2(ye, xe);
 	}
@@ -116,9 +114,13 @@ public class LongitudeDifference implements TargetFunction {
 		if (mode == IN_RIGHT_ASCENSION)
 			return reduceAngle(ra2 - ra1 - targetDifference);
 		
-		double lambda1 = calculateEclipticLongitude(ra1, dec1, t);
+		double obliquity = erm.meanObliquity(t);
+		
+		double cosObliquity = Math.cos(obliquity), sinObliquity = Math.sin(obliquity);
+		
+		double lambda1 = calculateEclipticLongitude(ra1, dec1, cosObliquity, sinObliquity);
 		
-		double lambda2 = calculateEclipticLongitude(ra2, dec2, t);
+		double lambda2 = calculateEclipticLongitude(ra2, dec2, cosObliquity, sinObliquity);
 		
 		return reduceAngle(lambda2 - lambda1 - targetDifference);	
 	}
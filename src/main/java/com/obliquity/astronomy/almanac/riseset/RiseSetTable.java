@@ -0,0 +1,221 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.riseset;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.obliquity.astronomy.almanac.Place;
+
+/*
+ * This class provides read-only access to a table of daily rise, set, transit
+ * and twilight times which has been written by RiseSetTableBuilder.  The file
+ * is memory-mapped, so opening it is cheap however large it is, and a query
+ * is a single read from the mapped buffer.  An instance may be shared by any
+ * number of threads.
+ * 
+ * The file begins with a header:
+ * 
+ *   magic "RSTABLE1", body code, number of sites, number of days,
+ *   number of columns, offset of the data, Julian Date of the first day,
+ * 
+ * followed by the latitude, longitude and height of each site, then the site
+ * names, and finally the data.  The data are single-precision offsets in days
+ * from the start of each day, ordered by site, then day, then column.  An
+ * event which does not occur on a given day is stored as NaN.  Only the first
+ * event of each kind on each day is stored.
+ * 
+ * All times are Julian Dates in Universal Time, as returned by
+ * LocalVisibility.
+ */
+
+public class RiseSetTable implements Closeable {
+	public static final int RISE = 0, SET = 1, TRANSIT = 2, CIVIL_DAWN = 3, CIVIL_DUSK = 4, NAUTICAL_DAWN = 5,
+			NAUTICAL_DUSK = 6, ASTRONOMICAL_DAWN = 7, ASTRONOMICAL_DUSK = 8;
+	
+	public static final int BASIC_COLUMNS = 3;
+	public static final int SOLAR_COLUMNS = 9;
+	
+	static final byte[] MAGIC = "RSTABLE1".getBytes(StandardCharsets.US_ASCII);
+	
+	static final int HEADER_LENGTH = 40;
+	
+	private static final String[] COLUMN_NAMES = { "rise", "set", "transit", "civil dawn", "civil dusk",
+			"nautical dawn", "nautical dusk", "astronomical dawn", "astronomical dusk" };
+	
+	private static final String[] BODY_NAMES = { "Mercury", "Venus", "EMB", "Mars", "Jupiter", "Saturn",
+			"Uranus", "Neptune", "Pluto", "Moon", "Sun" };
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	
+	private final int bodyCode, nSites, nDays, nColumns, dataOffset;
+	private final double jdStart;
+	private final Place[] places;
+	private final String[] names;
+	
+	public RiseSetTable(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		
+		byte[] magic = new byte[MAGIC.length];
+		
+		buffer.get(0, magic);
+		
+		if (!Arrays.equals(magic, MAGIC)) {
+			channel.close();
+			throw new IOException(file + " is not a rise/set table");
+		}
+		
+		bodyCode = buffer.getInt(8);
+		nSites = buffer.getInt(12);
+		nDays = buffer.getInt(16);
+		nColumns = buffer.getInt(20);
+		dataOffset = buffer.getInt(24);
+		jdStart = buffer.getDouble(32);
+		
+		long expectedSize = dataOffset + 4L * nSites * nDays * nColumns;
+		
+		if (channel.size() < expectedSize) {
+			channel.close();
+			throw new IOException(file + " is truncated");
+		}
+		
+		places = new Place[nSites];
+		names = new String[nSites];
+		
+		int offset = HEADER_LENGTH;
+		
+		for (int i = 0; i < nSites; i++, offset += 24)
+			places[i] = new Place(buffer.getDouble(offset), buffer.getDouble(offset + 8),
+					buffer.getDouble(offset + 16), 0.0);
+		
+		ByteBuffer names = buffer.duplicate();
+		
+		names.position(offset);
+		
+		for (int i = 0; i < nSites; i++) {
+			byte[] bytes = new byte[names.getShort() & 0xffff];
+			
+			names.get(bytes);
+			
+			this.names[i] = new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+	
+	public RiseSetTable(String filename) throws IOException {
+		this(new File(filename));
+	}
+	
+	public int getBodyCode() {
+		return bodyCode;
+	}
+	
+	public int getNumberOfSites() {
+		return nSites;
+	}
+	
+	public int getNumberOfDays() {
+		return nDays;
+	}
+	
+	public int getNumberOfColumns() {
+		return nColumns;
+	}
+	
+	public double getStartDate() {
+		return jdStart;
+	}
+	
+	public Place getPlace(int site) {
+		return places[site];
+	}
+	
+	public String getSiteName(int site) {
+		return names[site];
+	}
+	
+	public int findSite(String name) {
+		for (int i = 0; i < nSites; i++)
+			if (names[i].equalsIgnoreCase(name))
+				return i;
+		
+		return -1;
+	}
+	
+	public static String getColumnName(int column) {
+		return COLUMN_NAMES[column];
+	}
+	
+	/*
+	 * Returns the index of the day which contains the specified date, or -1
+	 * if the date is outside the table.
+	 */
+	
+	public int getDayIndex(double jd) {
+		double day = Math.floor(jd - jdStart);
+		
+		return (day < 0.0 || day >= nDays) ? -1 : (int) day;
+	}
+	
+	/*
+	 * Returns the time of an event, as a Julian Date in Universal Time, or
+	 * NaN if the event does not occur on that day.
+	 */
+	
+	public double getEventTime(int site, int day, int column) {
+		if (site < 0 || site >= nSites || day < 0 || day >= nDays || column < 0 || column >= nColumns)
+			throw new IllegalArgumentException("Site, day or column is out of range");
+		
+		float offset = buffer.getFloat(dataOffset + 4 * ((site * nDays + day) * nColumns + column));
+		
+		return Float.isNaN(offset) ? Double.NaN : jdStart + day + offset;
+	}
+	
+	/*
+	 * Fills an array with the times of all the events for one site and day.
+	 */
+	
+	public void getEventTimes(int site, int day, double[] times) {
+		for (int column = 0; column < nColumns; column++)
+			times[column] = getEventTime(site, day, column);
+	}
+	
+	public String getBodyName() {
+		return bodyCode >= 0 && bodyCode < BODY_NAMES.length ? BODY_NAMES[bodyCode] : "body " + bodyCode;
+	}
+	
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.riseset;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.LocalVisibility;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Place;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.RiseSetEvent;
+import com.obliquity.astronomy.almanac.RiseSetEventType;
+import com.obliquity.astronomy.almanac.RiseSetType;
+import com.obliquity.astronomy.almanac.TransitEvent;
+import com.obliquity.astronomy.almanac.TransitType;
+
+/*
+ * This class computes daily rise, set and upper transit times of a body, and
+ * for the Sun the times of civil, nautical and astronomical twilight, for a
+ * list of sites over a run of days, and writes them to a file which can be
+ * read by RiseSetTable.
+ * 
+ * The sites are divided among a pool of threads.  Each site is computed by
+ * one thread with its own copy of the ephemeris, using LocalVisibility in the
+ * same way as the programs which call it day by day, so the table holds the
+ * same times that they would compute.
+ */
+
+public class RiseSetTableBuilder {
+	private static final RiseSetType[] TWILIGHT_TYPES = { RiseSetType.CIVIL_TWILIGHT,
+			RiseSetType.NAUTICAL_TWILIGHT, RiseSetType.ASTRONOMICAL_TWILIGHT };
+	
+	private final JPLEphemeris ephemeris;
+	private final ForkJoinPool pool;
+	
+	private RiseSetType riseSetType = RiseSetType.UPPER_LIMB;
+	
+	/*
+	 * If nThreads is zero or negative, the number of available processors is
+	 * used.
+	 */
+	
+	public RiseSetTableBuilder(JPLEphemeris ephemeris, int nThreads) {
+		this.ephemeris = ephemeris;
+		
+		if (nThreads <= 0)
+			nThreads = Runtime.getRuntime().availableProcessors();
+		
+		pool = new ForkJoinPool(nThreads);
+	}
+	
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+	
+	/*
+	 * Sets the definition of rising and setting.  The default is the upper
+	 * limb, which is the usual convention for the Sun and Moon.
+	 */
+	
+	public void setRiseSetType(RiseSetType riseSetType) {
+		switch (riseSetType) {
+		case UPPER_LIMB:
+		case LOWER_LIMB:
+		case CENTRE_OF_DISK:
+			this.riseSetType = riseSetType;
+			break;
+			
+		default:
+			throw new IllegalArgumentException("Twilight cannot be used to define rising and setting");
+		}
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	/*
+	 * Computes the table and writes it to a file.
+	 * 
+	 * The start date is a Julian Date in Universal Time, normally 0h UT, and
+	 * the ephemeris must cover the whole span of days, with a margin of one
+	 * day at each end.
+	 */
+	
+	public void build(int bodyCode, Place[] places, String[] names, double jdStart, int nDays, File file)
+			throws JPLEphemerisException, IOException {
+		if (names != null && names.length != places.length)
+			throw new IllegalArgumentException("There must be one name for each place");
+		
+		if (nDays < 1)
+			throw new IllegalArgumentException("The number of days must be positive");
+		
+		int nColumns = bodyCode == JPLEphemeris.SUN ? RiseSetTable.SOLAR_COLUMNS : RiseSetTable.BASIC_COLUMNS;
+		
+		List<Callable<float[]>> tasks = new ArrayList<Callable<float[]>>();
+		
+		for (Place place : places)
+			tasks.add(() -> calculateSite(bodyCode, place, jdStart, nDays, nColumns));
+		
+		List<Future<float[]>> futures = pool.invokeAll(tasks);
+		
+		float[][] data = new float[places.length][];
+		
+		try {
+			for (int i = 0; i < places.length; i++)
+				data[i] = futures.get(i).get();
+		} catch (InterruptedException e) {
+			throw new JPLEphemerisException("Interrupted whilst building rise/set table");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			
+			if (cause instanceof JPLEphemerisException)
+				throw (JPLEphemerisException) cause;
+			
+			throw new JPLEphemerisException("Failed to build rise/set table: " + cause);
+		}
+		
+		write(file, bodyCode, places, names, jdStart, nDays, nColumns, data);
+	}
+	
+	private float[] calculateSite(int bodyCode, Place place, double jdStart, int nDays, int nColumns)
+			throws JPLEphemerisException {
+		JPLEphemeris myEphemeris = new JPLEphemeris(ephemeris);
+		
+		IAUEarthRotationModel erm = new IAUEarthRotationModel();
+		
+		EarthCentre earth = new EarthCentre(myEphemeris);
+		
+		MovingPoint sun = new PlanetCentre(myEphemeris, JPLEphemeris.SUN);
+		
+		MovingPoint target = bodyCode == JPLEphemeris.SUN ? sun
+				: (bodyCode == JPLEphemeris.MOON ? new MoonCentre(myEphemeris) : new PlanetCentre(myEphemeris, bodyCode));
+		
+		ApparentPlace ap = new ApparentPlace(earth, target, sun, erm);
+		
+		LocalVisibility lv = new LocalVisibility();
+		
+		float[] data = new float[nDays * nColumns];
+		
+		for (int day = 0; day < nDays; day++) {
+			double jd = jdStart + day;
+			
+			int offset = day * nColumns;
+			
+			for (int column = 0; column < nColumns; column++)
+				data[offset + column] = Float.NaN;
+			
+			storeRiseSet(lv.findRiseSetEvents(ap, place, jd, riseSetType), jd, data, offset + RiseSetTable.RISE,
+					offset + RiseSetTable.SET);
+			
+			for (TransitEvent transit : lv.findTransitEvents(ap, place, jd)) {
+				if (transit.type == TransitType.UPPER && transit.date >= jd && transit.date < jd + 1.0) {
+					data[offset + RiseSetTable.TRANSIT] = (float) (transit.date - jd);
+					break;
+				}
+			}
+			
+			if (nColumns > RiseSetTable.BASIC_COLUMNS) {
+				for (int k = 0; k < TWILIGHT_TYPES.length; k++) {
+					int dawn = offset + RiseSetTable.CIVIL_DAWN + 2 * k;
+					
+					storeRiseSet(lv.findRiseSetEvents(ap, place, jd, TWILIGHT_TYPES[k]), jd, data, dawn, dawn + 1);
+				}
+			}
+		}
+		
+		return data;
+	}
+	
+	private void storeRiseSet(RiseSetEvent[] events, double jd, float[] data, int riseIndex, int setIndex) {
+		for (RiseSetEvent event : events) {
+			if (event.date < jd || event.date >= jd + 1.0)
+				continue;
+			
+			int index = event.type == RiseSetEventType.RISE ? riseIndex : setIndex;
+			
+			if (Float.isNaN(data[index]))
+				data[index] = (float) (event.date - jd);
+		}
+	}
+	
+	private void write(File file, int bodyCode, Place[] places, String[] names, double jdStart, int nDays,
+			int nColumns, float[][] data) throws IOException {
+		byte[][] encodedNames = new byte[places.length][];
+		
+		int namesLength = 0;
+		
+		for (int i = 0; i < places.length; i++) {
+			String name = names != null ? names[i] : "site" + i;
+			
+			encodedNames[i] = name.getBytes(StandardCharsets.UTF_8);
+			
+			if (encodedNames[i].length > 0xffff)
+				throw new IllegalArgumentException("Site name is too long");
+			
+			namesLength += 2 + encodedNames[i].length;
+		}
+		
+		int dataOffset = RiseSetTable.HEADER_LENGTH + 24 * places.length + namesLength;
+		
+		// Align the data to a multiple of 8 bytes.
+		dataOffset = (dataOffset + 7) & ~7;
+		
+		ByteBuffer header = ByteBuffer.allocate(dataOffset);
+		
+		header.put(RiseSetTable.MAGIC);
+		header.putInt(bodyCode).putInt(places.length).putInt(nDays).putInt(nColumns).putInt(dataOffset).putInt(0);
+		header.putDouble(jdStart);
+		
+		for (Place place : places)
+			header.putDouble(place.getLatitude()).putDouble(place.getLongitude()).putDouble(place.getHeight());
+		
+		for (byte[] name : encodedNames)
+			header.putShort((short) name.length).put(name);
+		
+		header.rewind();
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header);
+			
+			ByteBuffer block = ByteBuffer.allocate(4 * nDays * nColumns);
+			
+			for (float[] site : data) {
+				block.clear();
+				block.asFloatBuffer().put(site);
+				writeFully(channel, block);
+			}
+		}
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.satellite;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevEphemeris;
+
+/*
+ * This class represents the orbit of a satellite as a table of Chebyshev
+ * coefficients which give its planetocentric position in km, such as the
+ * output of a numerical integration read by ChebyshevTextReader.
+ */
+
+public class ChebyshevTheory implements SatelliteTheory {
+	private final ChebyshevEphemeris chebyshev;
+	
+	private final double[] pos = new double[3], vel = new double[3];
+	
+	public ChebyshevTheory(ChebyshevEphemeris chebyshev) {
+		this.chebyshev = chebyshev;
+	}
+	
+	public void calculatePlanetocentricPositionAndVelocity(double time, Vector position, Vector velocity)
+			throws JPLEphemerisException {
+		if (position == null)
+			throw new JPLEphemerisException("Input position vector was null");
+		
+		if (!isValidDate(time))
+			throw new JPLEphemerisException("Date is outside valid range");
+		
+		chebyshev.evaluate(time, pos, (velocity != null) ? vel : null);
+		
+		position.setComponents(pos);
+		
+		if (velocity != null)
+			velocity.setComponents(vel);
+	}
+
+	public boolean isValidDate(double time) {
+		return chebyshev.isValidDate(time);
+	}
+
+	public double getEarliestDate() {
+		return chebyshev.getEarliestDate();
+	}
+
+	public double getLatestDate() {
+		return chebyshev.getLatestDate();
+	}
+}
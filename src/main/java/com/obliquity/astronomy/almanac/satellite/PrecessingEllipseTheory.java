@@ -0,0 +1,220 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.satellite;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class represents the orbit of a satellite as a precessing ellipse,
+ * defined by mean elements referred to a Laplacian plane, in the manner of
+ * Jacobson, R.A. (2009) Astron.J. 137, 4322 (doi:10.1088/0004-6256/137/5/4322).
+ * 
+ * The Laplacian plane is specified by the right ascension and declination of
+ * its pole in the ICRF.  Orbital longitudes are measured from the ascending
+ * node of the Laplacian plane on the ICRF reference plane.  The mean
+ * longitude, longitude of pericentre and longitude of node change linearly
+ * with time.
+ * 
+ * Angles are in degrees, rates in degrees per day, and the semi-major axis
+ * in km.
+ */
+
+public class PrecessingEllipseTheory implements SatelliteTheory {
+	private static final double TWO_PI = 2.0 * Math.PI;
+	
+	private static final int MAX_KEPLER_ITERATIONS = 50;
+	
+	private final double epoch, semiMajorAxis, eccentricity, semiMinorAxis;
+	private final double longitudeOfApse, meanLongitude, inclination, longitudeOfNode;
+	private final double lambdaDot, apseDot, nodeDot;
+	private final double epsilon;
+	
+	private double earliestDate = Double.NEGATIVE_INFINITY, latestDate = Double.POSITIVE_INFINITY;
+	
+	/*
+	 * Fixed basis vectors which define the Laplacian plane.  The vectors M2 and N2 are in
+	 * the Laplacian plane, such that M2 is also in the XY-plane of the ICRF system.
+	 * The vector P2 is normal to the Laplacian plane.
+	 */
+	
+	private Vector M2, N2, P2;
+	
+	public PrecessingEllipseTheory(double epoch, double semiMajorAxis, double eccentricity,
+			double longitudeOfApse, double meanLongitude, double inclination, double longitudeOfNode,
+			double lambdaDot, double apseDot, double nodeDot, double poleRA, double poleDec) {
+		if (!(semiMajorAxis > 0.0))
+			throw new IllegalArgumentException("Semi-major axis must be positive");
+		
+		if (!(eccentricity >= 0.0 && eccentricity < 1.0))
+			throw new IllegalArgumentException("Eccentricity must be in the range [0, 1)");
+		
+		this.epoch = epoch;
+		this.semiMajorAxis = semiMajorAxis;
+		this.eccentricity = eccentricity;
+		this.semiMinorAxis = semiMajorAxis * Math.sqrt(1.0 - eccentricity * eccentricity);
+		this.longitudeOfApse = longitudeOfApse;
+		this.meanLongitude = meanLongitude;
+		this.inclination = inclination;
+		this.longitudeOfNode = longitudeOfNode;
+		this.lambdaDot = lambdaDot;
+		this.apseDot = apseDot;
+		this.nodeDot = nodeDot;
+		this.epsilon = 1.0 / semiMajorAxis;
+		
+		constructBasisVectors(poleRA, poleDec);
+	}
+	
+	private void constructBasisVectors(double poleRA, double poleDec) {
+		Vector I = new Vector(1.0, 0.0, 0.0), J = new Vector(0.0, 1.0, 0.0), K = new Vector(0.0, 0.0, 1.0);
+		
+		double lpNode = Math.PI * (poleRA + 90.0)/180.0;
+		double lpInclination = Math.PI * (90.0 - poleDec)/180.0;
+		
+		double cosNode = Math.cos(lpNode), sinNode = Math.sin(lpNode), cosIncl = Math.cos(lpInclination), sinIncl = Math.sin(lpInclination);
+		
+		Vector N1 = Vector.linearCombination(I, cosNode, J, sinNode);
+		Vector M1 = Vector.linearCombination(I, -sinNode, J, cosNode);
+		Vector P1 = K.copyOf();
+		
+		N2 = N1.copyOf();
+		M2 = Vector.linearCombination(M1, cosIncl, P1, sinIncl);
+		P2 = Vector.linearCombination(M1, -sinIncl, P1, cosIncl);
+	}
+	
+	/*
+	 * Mean elements are usually fitted to an integrated orbit over a limited
+	 * span of time, which should be adopted as the range of validity.
+	 */
+	
+	public void setValidDateRange(double earliestDate, double latestDate) {
+		this.earliestDate = earliestDate;
+		this.latestDate = latestDate;
+	}
+	
+	/*
+	 * A high eccentricity causes the classic Newton-Raphson method to converge
+	 * extremely slowly, if at all.  Instead, we use Kurth's method, as described in Fitzpatrick, P.M.
+	 * (1962)  "Methods of Celestial Mechanics", page 74.
+	 * 
+	 * This method returns NaN if it fails to converge.
+	 */
+	
+	private static double solveKeplersEquation(double M, double e, double eps, int maxiters) {
+		double psi= 0.0, psiLast = 0.0, dpsi = 0.0;
+				
+		int iters = 0;
+		
+		do {
+			iters++;
+			
+			psiLast = psi;
+			
+			psi = e * Math.sin(M + psi);
+			
+			dpsi = psi - psiLast; 
+			
+			if (iters > maxiters)
+				return Double.NaN;
+		} while(Math.abs(dpsi) > eps);
+		
+		double E = M + psi;
+		
+		return E;
+	}
+	
+	public void calculatePlanetocentricPositionAndVelocity(double time, Vector position, Vector velocity) throws JPLEphemerisException {
+		if (position == null)
+			throw new JPLEphemerisException("Input position vector was null");
+		
+		if (!isValidDate(time))
+			throw new JPLEphemerisException("Date is outside valid range");
+		
+		double apse = Math.PI * (longitudeOfApse + (time - epoch) * apseDot)/180.0;
+		
+		double lambda = Math.PI * (meanLongitude + (time - epoch) * lambdaDot)/180.0;
+		
+		double meanAnomaly = (lambda - apse) % TWO_PI;
+		
+		double eccAnomaly = solveKeplersEquation(meanAnomaly, eccentricity, epsilon, MAX_KEPLER_ITERATIONS);
+		
+		if (Double.isNaN(eccAnomaly))
+			throw new JPLEphemerisException("Failed to solve Kepler's equation");
+				
+		double node = Math.PI * (longitudeOfNode + (time - epoch) * nodeDot)/180.0;
+		double incl = Math.PI * inclination/180.0;
+		
+		double cosNode = Math.cos(node), sinNode = Math.sin(node), cosIncl = Math.cos(incl), sinIncl = Math.sin(incl);
+		
+		// Rotate basis vectors 
+		Vector N3 = Vector.linearCombination(N2, cosNode, M2, sinNode);
+		Vector M3 = Vector.linearCombination(N2, -sinNode, M2, cosNode);
+		Vector P3 = P2.copyOf();
+				
+		Vector M4 = Vector.linearCombination(M3, cosIncl, P3, sinIncl);
+		Vector N4 = N3.copyOf();
+		
+		// Calculate argument of pericentre.
+		
+		apse -= node;
+		
+		double cosApse = Math.cos(apse), sinApse = Math.sin(apse);
+		
+		Vector P = Vector.linearCombination(N4, cosApse, M4, sinApse);
+		Vector Q = Vector.linearCombination(N4, -sinApse, M4, cosApse);
+		
+		double cosE = Math.cos(eccAnomaly), sinE = Math.sin(eccAnomaly);
+		
+		double xw = semiMajorAxis * (cosE - eccentricity);
+		double yw = semiMinorAxis * sinE;
+		
+		Vector pos = Vector.linearCombination(P, xw, Q, yw);
+		
+		position.copy(pos);
+		
+		if (velocity != null) {
+			double eDot = (Math.PI/180.0) * (lambdaDot - apseDot)/(1.0 - eccentricity * cosE);
+		
+			double xwdot = -semiMajorAxis * eDot * sinE;
+			double ywdot = semiMinorAxis * eDot * cosE;
+		
+			Vector vel = Vector.linearCombination(P, xwdot, Q, ywdot);
+			
+			velocity.copy(vel);
+		}
+	}
+
+	public boolean isValidDate(double time) {
+		return time >= earliestDate && time <= latestDate;
+	}
+
+	public double getEarliestDate() {
+		return earliestDate;
+	}
+
+	public double getLatestDate() {
+		return latestDate;
+	}
+}
@@ -0,0 +1,163 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.satellite;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class presents a satellite as a MovingPoint, by adding the
+ * planetocentric position calculated by a SatelliteTheory to the barycentric
+ * position of the parent planet.
+ * 
+ * The parent is usually a PlanetCentre.  Note that the JPL ephemerides give
+ * the position of the barycentre of each outer planet system, which is what
+ * the satellite theories in this package are referred to.
+ */
+
+public class Satellite implements MovingPoint {
+	private final String name;
+	private final int bodyCode;
+	private final SatelliteTheory theory;
+	private final MovingPoint parent;
+	
+	private final double kmToAU;
+	
+	private final Vector parentPosition = new Vector(), parentVelocity = new Vector();
+	
+	private final StateVector parentStateVector = new StateVector(parentPosition, parentVelocity);
+	
+	private final StateVector statevector = new StateVector(new Vector(), new Vector());
+	
+	public Satellite(String name, int bodyCode, SatelliteTheory theory, MovingPoint parent) {
+		if (theory == null || parent == null)
+			throw new IllegalArgumentException("Satellite requires a theory and a parent");
+		
+		this.name = name;
+		this.bodyCode = bodyCode;
+		this.theory = theory;
+		this.parent = parent;
+		
+		kmToAU = 1.0 / parent.getEphemeris().getAU();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public SatelliteTheory getTheory() {
+		return theory;
+	}
+	
+	public MovingPoint getParent() {
+		return parent;
+	}
+	
+	/*
+	 * Calculate the position (km) and velocity (km/day) relative to the
+	 * parent planet.  The velocity is not calculated if it is null.
+	 */
+	
+	public void calculatePlanetocentricPositionAndVelocity(double time, Vector position, Vector velocity)
+			throws JPLEphemerisException {
+		theory.calculatePlanetocentricPositionAndVelocity(time, position, velocity);
+	}
+	
+	/*
+	 * Calculate the barycentric state vector given the barycentric state
+	 * vector of the parent planet, which may be shared by several satellites.
+	 * The velocity is not calculated if the parent velocity is null.
+	 */
+	
+	void calculateStateVector(double time, Vector parentPosition, Vector parentVelocity,
+			Vector position, Vector velocity) throws JPLEphemerisException {
+		if (!isValidDate(time))
+			throw new JPLEphemerisException("Date is outside valid range for " + name);
+		
+		theory.calculatePlanetocentricPositionAndVelocity(time, position, parentVelocity != null ? velocity : null);
+		
+		position.multiplyBy(kmToAU);
+		position.add(parentPosition);
+		
+		if (parentVelocity != null) {
+			velocity.multiplyBy(kmToAU);
+			velocity.add(parentVelocity);
+		}
+	}
+
+	public StateVector getStateVector(double time) throws JPLEphemerisException {
+		getStateVector(time, statevector);
+		return statevector;
+	}
+
+	public void getStateVector(double time, StateVector sv) throws JPLEphemerisException {
+		parent.getStateVector(time, parentStateVector);
+		
+		calculateStateVector(time, parentPosition, parentVelocity, sv.getPosition(), sv.getVelocity());
+	}
+
+	public Vector getPosition(double time) throws JPLEphemerisException {
+		Vector position = statevector.getPosition();
+		getPosition(time, position);
+		return position;
+	}
+
+	public void getPosition(double time, Vector p) throws JPLEphemerisException {
+		parent.getPosition(time, parentPosition);
+		
+		calculateStateVector(time, parentPosition, null, p, null);
+	}
+
+	public boolean isValidDate(double time) {
+		return theory.isValidDate(time) && parent.isValidDate(time);
+	}
+
+	public double getEarliestDate() {
+		return Math.max(theory.getEarliestDate(), parent.getEarliestDate());
+	}
+
+	public double getLatestDate() {
+		return Math.min(theory.getLatestDate(), parent.getLatestDate());
+	}
+
+	/*
+	 * The reference frame is ICRF, so we return J2000.
+	 */
+	
+	public double getEpoch() {
+		return 2451545.0;
+	}
+
+	public int getBodyCode() {
+		return bodyCode;
+	}
+
+	public JPLEphemeris getEphemeris() {
+		return parent.getEphemeris();
+	}
+}
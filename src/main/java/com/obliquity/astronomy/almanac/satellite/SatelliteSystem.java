@@ -0,0 +1,131 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.satellite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class groups the satellites of a single planet, so that the positions
+ * of all of them can be calculated at one time with a single calculation of
+ * the position of the planet.
+ */
+
+public class SatelliteSystem {
+	private final MovingPoint planet;
+	
+	private final List<Satellite> satellites = new ArrayList<Satellite>();
+	
+	private final Vector planetPosition = new Vector(), planetVelocity = new Vector();
+	
+	private final StateVector planetStateVector = new StateVector(planetPosition, planetVelocity);
+	
+	public SatelliteSystem(MovingPoint planet) {
+		if (planet == null)
+			throw new IllegalArgumentException("null passed where MovingPoint expected");
+		
+		this.planet = planet;
+	}
+	
+	public MovingPoint getPlanet() {
+		return planet;
+	}
+	
+	public Satellite addSatellite(String name, int bodyCode, SatelliteTheory theory) {
+		Satellite satellite = new Satellite(name, bodyCode, theory, planet);
+		
+		satellites.add(satellite);
+		
+		return satellite;
+	}
+	
+	public int size() {
+		return satellites.size();
+	}
+	
+	public Satellite getSatellite(int i) {
+		return satellites.get(i);
+	}
+	
+	public Satellite findSatellite(String name) {
+		for (Satellite satellite : satellites)
+			if (satellite.getName().equalsIgnoreCase(name))
+				return satellite;
+		
+		return null;
+	}
+	
+	public Satellite findSatellite(int bodyCode) {
+		for (Satellite satellite : satellites)
+			if (satellite.getBodyCode() == bodyCode)
+				return satellite;
+		
+		return null;
+	}
+	
+	/*
+	 * Calculate the barycentric positions of all satellites at the given time,
+	 * in the order in which they were added.  The array must have one element
+	 * for each satellite.
+	 */
+	
+	public void getPositions(double time, Vector[] positions) throws JPLEphemerisException {
+		checkLength(positions.length);
+		
+		planet.getPosition(time, planetPosition);
+		
+		for (int i = 0; i < satellites.size(); i++)
+			satellites.get(i).calculateStateVector(time, planetPosition, null, positions[i], null);
+	}
+	
+	/*
+	 * Calculate the barycentric state vectors of all satellites at the given
+	 * time, in the order in which they were added.
+	 */
+	
+	public void getStateVectors(double time, StateVector[] statevectors) throws JPLEphemerisException {
+		checkLength(statevectors.length);
+		
+		planet.getStateVector(time, planetStateVector);
+		
+		for (int i = 0; i < satellites.size(); i++) {
+			StateVector sv = statevectors[i];
+			
+			satellites.get(i).calculateStateVector(time, planetPosition, planetVelocity, sv.getPosition(),
+					sv.getVelocity());
+		}
+	}
+	
+	private void checkLength(int length) {
+		if (length != satellites.size())
+			throw new IllegalArgumentException("Expected an array of length " + satellites.size() +
+					" but got " + length);
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.satellite;
+
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * A SatelliteTheory calculates the position and velocity of a satellite
+ * relative to the centre of its parent planet, referred to the ICRF.
+ * Positions are in km and velocities in km/day.
+ */
+
+public interface SatelliteTheory {
+	public void calculatePlanetocentricPositionAndVelocity(double time, Vector position, Vector velocity)
+			throws JPLEphemerisException;
+	
+	public boolean isValidDate(double time);
+	
+	public double getEarliestDate();
+	
+	public double getLatestDate();
+}
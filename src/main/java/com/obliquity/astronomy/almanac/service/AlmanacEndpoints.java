@@ -0,0 +1,392 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.AlmanacData;
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+import com.obliquity.astronomy.almanac.ConstellationLocator;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EpochContext;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.LocalVisibility;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Place;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.RiseSetEvent;
+import com.obliquity.astronomy.almanac.RiseSetType;
+import com.obliquity.astronomy.almanac.TerrestrialObserver;
+import com.obliquity.astronomy.almanac.TransitEvent;
+import com.obliquity.astronomy.almanac.phenomena.PhenomenaException;
+import com.obliquity.astronomy.almanac.phenomena.PhenomenaFinder;
+import com.obliquity.astronomy.almanac.phenomena.Phenomenon;
+import com.obliquity.astronomy.almanac.phenomena.TargetFunction;
+import com.obliquity.astronomy.almanac.phenomena.target.Elongation;
+import com.obliquity.astronomy.almanac.phenomena.target.LongitudeDifference;
+import com.obliquity.astronomy.almanac.phenomena.target.RightAscension;
+
+/*
+ * This class computes the responses of the almanac service.  The ephemeris
+ * is shared by all requests, and each request builds its own light-weight
+ * copy, together with its own moving points and apparent places, so requests
+ * may run concurrently.
+ * 
+ * Dates are Julian Dates, or ISO 8601 dates, in Terrestrial Time except for
+ * rise/set requests, where the date is in Universal Time.  Latitudes and
+ * longitudes are in degrees, with east longitudes positive.
+ */
+
+class AlmanacEndpoints {
+	private static final String[] BODY_NAMES = { "mercury", "venus", null, "mars", "jupiter", "saturn",
+			"uranus", "neptune", "pluto", "moon", "sun" };
+	
+	private static final double TO_DEGREES = 180.0 / Math.PI;
+	
+	private final JPLEphemeris ephemeris;
+	private final int maximumRows;
+	
+	AlmanacEndpoints(JPLEphemeris ephemeris, int maximumRows) {
+		this.ephemeris = ephemeris;
+		this.maximumRows = maximumRows;
+	}
+	
+	private static int parseBody(String name) {
+		for (int i = 0; i < BODY_NAMES.length; i++)
+			if (name.equalsIgnoreCase(BODY_NAMES[i]))
+				return i;
+		
+		throw new IllegalArgumentException("Unknown body \"" + name + "\"");
+	}
+	
+	private static String iso(double jd) {
+		return new AstronomicalDate(jd).toISO8601String();
+	}
+	
+	private int countRows(double jdstart, double jdfinish, double jdstep) {
+		if (!(jdstep > 0.0) || jdfinish < jdstart)
+			throw new IllegalArgumentException("Invalid date range or step");
+		
+		double n = Math.floor((jdfinish - jdstart) / jdstep) + 1.0;
+		
+		if (n > maximumRows)
+			throw new IllegalArgumentException("Request would return more than " + maximumRows + " rows");
+		
+		return (int) n;
+	}
+	
+	private class Context {
+		final JPLEphemeris ephemeris = new JPLEphemeris(AlmanacEndpoints.this.ephemeris);
+		final IAUEarthRotationModel erm = new IAUEarthRotationModel();
+		final MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+		final EarthCentre earth;
+		final EpochContext epochContext;
+		final MovingPoint target;
+		final int kBody;
+		
+		Context(QueryParameters query, boolean topocentric) {
+			kBody = parseBody(query.getString("body"));
+			
+			if (topocentric && (query.has("lat") || query.has("lon")))
+				earth = new TerrestrialObserver(ephemeris, erm, query.getDouble("lat") / TO_DEGREES,
+						query.getDouble("lon") / TO_DEGREES, query.getDouble("height", 0.0));
+			else
+				earth = new EarthCentre(ephemeris);
+			
+			epochContext = new EpochContext(earth, sun, erm);
+			
+			if (kBody == JPLEphemeris.SUN)
+				target = sun;
+			else if (kBody == JPLEphemeris.MOON)
+				target = new MoonCentre(ephemeris);
+			else
+				target = new PlanetCentre(ephemeris, kBody);
+		}
+		
+		ApparentPlace getApparentPlace(MovingPoint observer) {
+			return observer == earth ? new ApparentPlace(epochContext, target)
+					: new ApparentPlace(observer, target, sun, erm);
+		}
+		
+		ApparentPlace getApparentPlaceOfSun(MovingPoint observer) {
+			return observer == earth ? new ApparentPlace(epochContext, sun)
+					: new ApparentPlace(observer, sun, sun, erm);
+		}
+	}
+	
+	/*
+	 * /apparentplace?body=mars&date=2024-01-01[&lat=..&lon=..]
+	 */
+	
+	String apparentPlace(QueryParameters query) throws JPLEphemerisException {
+		Context context = new Context(query, true);
+		
+		double t = query.getJulianDate("date");
+		
+		ApparentPlace ap = context.getApparentPlace(context.earth);
+		
+		ap.calculateApparentPlace(t);
+		
+		JsonWriter json = new JsonWriter().beginObject();
+		
+		json.member("body", BODY_NAMES[context.kBody]).member("jd", t).member("date", iso(t));
+		json.member("raJ2000", reduce(ap.getRightAscensionJ2000()) * TO_DEGREES);
+		json.member("decJ2000", ap.getDeclinationJ2000() * TO_DEGREES);
+		json.member("raOfDate", reduce(ap.getRightAscensionOfDate()) * TO_DEGREES);
+		json.member("decOfDate", ap.getDeclinationOfDate() * TO_DEGREES);
+		json.member("geometricDistance", ap.getGeometricDistance());
+		json.member("lightPathDistance", ap.getLightPathDistance());
+		json.member("heliocentricDistance", ap.getHeliocentricDistance());
+		json.member("radialVelocity", ap.getRadialVelocity());
+		json.member("constellation", ConstellationLocator.getInstance().getConstellationJ2000(
+				ap.getRightAscensionJ2000(), ap.getDeclinationJ2000()));
+		
+		return json.endObject().toString();
+	}
+	
+	private static double reduce(double ra) {
+		return ra < 0.0 ? ra + 2.0 * Math.PI : ra;
+	}
+	
+	/*
+	 * /almanac?body=venus&start=2024-01-01&end=2024-02-01[&step=1][&epoch=true|mean|j2000|b1875]
+	 * 
+	 * Right ascensions are in hours, and other angles are in degrees, as in
+	 * AlmanacData.
+	 */
+	
+	String almanac(QueryParameters query) throws JPLEphemerisException {
+		Context context = new Context(query, true);
+		
+		double jdstart = query.getJulianDate("start");
+		double jdfinish = query.has("end") ? query.getJulianDate("end") : jdstart;
+		double jdstep = query.getDouble("step", 1.0);
+		
+		int nRows = countRows(jdstart, jdfinish, jdstep);
+		
+		int epoch = parseEpoch(query.getString("epoch", "true"));
+		
+		ApparentPlace apTarget = context.getApparentPlace(context.earth);
+		ApparentPlace apSun = context.kBody == JPLEphemeris.SUN ? apTarget : context.getApparentPlaceOfSun(context.earth);
+		
+		AlmanacData data = new AlmanacData();
+		
+		JsonWriter json = new JsonWriter().beginObject();
+		
+		json.member("body", BODY_NAMES[context.kBody]).member("epoch", query.getString("epoch", "true"));
+		
+		json.name("rows").beginArray();
+		
+		for (int i = 0; i < nRows; i++) {
+			double t = jdstart + i * jdstep;
+			
+			AlmanacData.calculateAlmanacData(apTarget, apSun, t, epoch, data);
+			
+			json.beginObject();
+			json.member("jd", t).member("date", iso(t));
+			json.member("rightAscension", data.rightAscension).member("declination", data.declination);
+			json.member("geometricDistance", data.geometricDistance);
+			json.member("lightPathDistance", data.lightPathDistance);
+			json.member("heliocentricDistance", data.heliocentricDistance);
+			json.member("elongation", data.elongation).member("phaseAngle", data.phaseAngle);
+			json.member("illuminatedFraction", data.illuminatedFraction);
+			json.member("magnitude", data.magnitude).member("semiDiameter", data.semiDiameter);
+			json.member("eclipticLongitude", data.eclipticLongitude);
+			json.member("eclipticLatitude", data.eclipticLatitude);
+			json.member("constellation", ConstellationLocator.getInstance().getConstellationJ2000(
+					apTarget.getRightAscensionJ2000(), apTarget.getDeclinationJ2000()));
+			json.endObject();
+		}
+		
+		return json.endArray().endObject().toString();
+	}
+	
+	private static int parseEpoch(String name) {
+		switch (name.toLowerCase()) {
+		case "true":
+			return AlmanacData.TRUE_OF_DATE;
+			
+		case "mean":
+			return AlmanacData.MEAN_OF_DATE;
+			
+		case "j2000":
+			return AlmanacData.J2000;
+			
+		case "b1875":
+			return AlmanacData.B1875;
+			
+		default:
+			throw new IllegalArgumentException("Unknown epoch \"" + name + "\"");
+		}
+	}
+	
+	/*
+	 * /riseset?body=sun&date=2024-06-21&lat=51.5&lon=-0.1[&type=upper_limb]
+	 * 
+	 * Returns the risings, settings and transits in the day which begins at
+	 * the given date.
+	 */
+	
+	String riseSet(QueryParameters query) throws JPLEphemerisException {
+		double lat = query.getDouble("lat") / TO_DEGREES;
+		double lon = query.getDouble("lon") / TO_DEGREES;
+		
+		Place place = new Place(lat, lon, query.getDouble("height", 0.0), 0.0);
+		
+		RiseSetType rsType = parseRiseSetType(query.getString("type", "upper_limb"));
+		
+		double jd = query.getJulianDate("date");
+		
+		// LocalVisibility expects a geocentric apparent place, and applies the parallax itself.
+		Context context = new Context(query, false);
+		
+		ApparentPlace ap = context.getApparentPlace(context.earth);
+		
+		LocalVisibility lv = new LocalVisibility();
+		
+		RiseSetEvent[] events = lv.findRiseSetEvents(ap, place, jd, rsType);
+		
+		TransitEvent[] transits = lv.findTransitEvents(ap, place, jd);
+		
+		JsonWriter json = new JsonWriter().beginObject();
+		
+		json.member("body", BODY_NAMES[context.kBody]).member("type", rsType.toString().toLowerCase());
+		
+		json.name("events").beginArray();
+		
+		for (RiseSetEvent event : events)
+			json.beginObject().member("event", event.type.toString().toLowerCase()).member("jd", event.date)
+					.member("date", iso(event.date)).endObject();
+		
+		json.endArray();
+		
+		json.name("transits").beginArray();
+		
+		for (TransitEvent transit : transits)
+			json.beginObject().member("transit", transit.type.toString().toLowerCase()).member("jd", transit.date)
+					.member("date", iso(transit.date)).endObject();
+		
+		return json.endArray().endObject().toString();
+	}
+	
+	private static RiseSetType parseRiseSetType(String name) {
+		switch (name.toLowerCase()) {
+		case "upper_limb":
+			return RiseSetType.UPPER_LIMB;
+			
+		case "lower_limb":
+			return RiseSetType.LOWER_LIMB;
+			
+		case "centre":
+		case "center":
+			return RiseSetType.CENTRE_OF_DISK;
+			
+		case "civil":
+			return RiseSetType.CIVIL_TWILIGHT;
+			
+		case "nautical":
+			return RiseSetType.NAUTICAL_TWILIGHT;
+			
+		case "astronomical":
+			return RiseSetType.ASTRONOMICAL_TWILIGHT;
+			
+		default:
+			throw new IllegalArgumentException("Unknown rise/set type \"" + name + "\"");
+		}
+	}
+	
+	/*
+	 * /phenomena?body=mars&start=2020-01-01&end=2030-01-01&type=opposition[&step=1]
+	 */
+	
+	String phenomena(QueryParameters query) throws JPLEphemerisException, PhenomenaException {
+		Context context = new Context(query, true);
+		
+		double jdstart = query.getJulianDate("start");
+		double jdfinish = query.getJulianDate("end");
+		double jdstep = query.getDouble("step", 1.0);
+		
+		countRows(jdstart, jdfinish, jdstep);
+		
+		Phenomenon.Type mode = parsePhenomenonType(query.getString("type"));
+		
+		ApparentPlace apSun = context.getApparentPlaceOfSun(context.earth);
+		ApparentPlace apTarget = context.getApparentPlace(context.earth);
+		
+		TargetFunction tf = null;
+		
+		switch (mode) {
+		case GREATEST_ELONGATION_EAST:
+		case GREATEST_ELONGATION_WEST:
+			tf = new Elongation(apSun, apTarget);
+			break;
+			
+		case STATIONARY_EAST:
+		case STATIONARY_WEST:
+			tf = new RightAscension(apTarget);
+			break;
+			
+		default:
+			tf = new LongitudeDifference(apSun, apTarget);
+			break;
+		}
+		
+		final List<Phenomenon> phenomena = new ArrayList<Phenomenon>();
+		
+		PhenomenaFinder finder = new PhenomenaFinder(phenomenon -> phenomena.add(phenomenon), context.kBody);
+		
+		finder.findPhenomena(tf, jdstart, jdfinish, jdstep, mode);
+		
+		Collections.sort(phenomena);
+		
+		JsonWriter json = new JsonWriter().beginObject();
+		
+		json.member("body", BODY_NAMES[context.kBody]).member("type", mode.toString().toLowerCase());
+		
+		json.name("phenomena").beginArray();
+		
+		for (Phenomenon phenomenon : phenomena) {
+			double jd = phenomenon.getDate().getJulianDate();
+			
+			json.beginObject().member("jd", jd).member("date", iso(jd)).endObject();
+		}
+		
+		return json.endArray().endObject().toString();
+	}
+	
+	private static Phenomenon.Type parsePhenomenonType(String name) {
+		try {
+			return Phenomenon.Type.valueOf(name.toUpperCase().replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown phenomenon type \"" + name + "\"");
+		}
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Histogram;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+import com.obliquity.astronomy.almanac.phenomena.PhenomenaException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * This class is an embedded HTTP service which answers almanac requests with
+ * JSON responses, using the HTTP server which is built into the JDK.
+ * 
+ * The endpoints are /apparentplace, /almanac, /riseset, /phenomena and
+ * /status.  See AlmanacEndpoints for their parameters.
+ * 
+ * All requests share one ephemeris.  Responses are cached by the canonical
+ * form of the request, and identical requests which arrive together are
+ * computed only once.
+ * 
+ * Requests are handled on virtual threads when the JVM provides them (Java 21
+ * and later), and otherwise on a pool of platform threads.
+ */
+
+public class AlmanacService {
+	public static final long DEFAULT_CACHE_CAPACITY = 16L * 1024L * 1024L;
+	public static final int DEFAULT_MAXIMUM_ROWS = 10000;
+	
+	private static final Counter REQUESTS = Metrics.counter("service.requests");
+	private static final Counter ERRORS = Metrics.counter("service.errors");
+	private static final Histogram LATENCY = Metrics.histogram("service.latencyNanos");
+	
+	private interface Endpoint {
+		String respond(QueryParameters query) throws JPLEphemerisException, PhenomenaException;
+	}
+	
+	private final JPLEphemeris ephemeris;
+	private final ResponseCache cache;
+	private final AlmanacEndpoints endpoints;
+	
+	private HttpServer server = null;
+	private ExecutorService executor = null;
+	
+	public AlmanacService(JPLEphemeris ephemeris) {
+		this(ephemeris, DEFAULT_CACHE_CAPACITY, DEFAULT_MAXIMUM_ROWS);
+	}
+	
+	/*
+	 * The cache capacity is the maximum total size of cached responses, in
+	 * bytes.  The maximum number of rows limits the size of almanac tables and
+	 * the number of search steps in phenomena requests.
+	 */
+	
+	public AlmanacService(JPLEphemeris ephemeris, long cacheCapacity, int maximumRows) {
+		this.ephemeris = ephemeris;
+		this.cache = new ResponseCache(cacheCapacity);
+		this.endpoints = new AlmanacEndpoints(ephemeris, maximumRows);
+	}
+	
+	/*
+	 * Starts the service on the specified port, or on any free port if the
+	 * port is zero.
+	 */
+	
+	public synchronized void start(InetSocketAddress address) throws IOException {
+		if (server != null)
+			throw new IllegalStateException("The service is already running");
+		
+		server = HttpServer.create(address, 0);
+		
+		server.createContext("/apparentplace", exchange -> handle(exchange, endpoints::apparentPlace, true));
+		server.createContext("/almanac", exchange -> handle(exchange, endpoints::almanac, true));
+		server.createContext("/riseset", exchange -> handle(exchange, endpoints::riseSet, true));
+		server.createContext("/phenomena", exchange -> handle(exchange, endpoints::phenomena, true));
+		server.createContext("/status", exchange -> handle(exchange, query -> getStatus(), false));
+		
+		executor = createExecutor();
+		
+		server.setExecutor(executor);
+		
+		server.start();
+	}
+	
+	public void start(int port) throws IOException {
+		start(new InetSocketAddress(port));
+	}
+	
+	public synchronized void stop(int delaySeconds) {
+		if (server == null)
+			return;
+		
+		server.stop(delaySeconds);
+		executor.shutdown();
+		
+		server = null;
+		executor = null;
+	}
+	
+	public synchronized int getPort() {
+		if (server == null)
+			throw new IllegalStateException("The service is not running");
+		
+		return server.getAddress().getPort();
+	}
+	
+	public ResponseCache getCache() {
+		return cache;
+	}
+	
+	/*
+	 * Virtual threads are found by reflection, so that this class can be
+	 * compiled and run on Java versions which do not have them.
+	 */
+	
+	static ExecutorService createExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "almanac-service");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+	
+	private String getStatus() {
+		JsonWriter json = new JsonWriter().beginObject();
+		
+		json.member("ephemeris", ephemeris.getEphemerisNumber());
+		json.member("earliestDate", ephemeris.getEarliestDate());
+		json.member("latestDate", ephemeris.getLatestDate());
+		json.name("incremental").value(ephemeris.isIncremental());
+		json.member("cacheEntries", cache.getEntryCount());
+		json.member("cacheBytes", cache.getSize());
+		json.member("cacheHits", cache.getHitCount());
+		json.member("cacheMisses", cache.getMissCount());
+		json.member("coalesced", cache.getCoalescedCount());
+		
+		return json.endObject().toString();
+	}
+	
+	private void handle(HttpExchange exchange, Endpoint endpoint, boolean cacheable) throws IOException {
+		long startTime = Metrics.ENABLED ? System.nanoTime() : 0L;
+		
+		int status = 200;
+		byte[] body;
+		
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				status = 405;
+				body = error("Only GET is supported");
+			} else {
+				QueryParameters query = new QueryParameters(exchange.getRequestURI().getPath(),
+						exchange.getRequestURI().getRawQuery());
+				
+				if (cacheable)
+					body = cache.get(query.getCanonicalForm(), () -> encode(endpoint.respond(query)));
+				else
+					body = encode(endpoint.respond(query));
+			}
+		} catch (IllegalArgumentException | JPLEphemerisException | PhenomenaException e) {
+			status = 400;
+			body = error(e.getMessage());
+		} catch (Exception e) {
+			status = 500;
+			body = error(e.toString());
+		}
+		
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		
+		exchange.sendResponseHeaders(status, body.length);
+		
+		try (OutputStream os = exchange.getResponseBody()) {
+			os.write(body);
+		}
+		
+		if (Metrics.ENABLED) {
+			REQUESTS.increment();
+			
+			if (status != 200)
+				ERRORS.increment();
+			
+			LATENCY.record(System.nanoTime() - startTime);
+		}
+	}
+	
+	private static byte[] encode(String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static byte[] error(String message) {
+		return encode(new JsonWriter().beginObject().member("error", message).endObject().toString());
+	}
+}
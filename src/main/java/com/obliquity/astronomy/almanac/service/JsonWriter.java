@@ -0,0 +1,158 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.service;
+
+/*
+ * A minimal writer for JSON responses.  Commas are inserted automatically
+ * between the members of objects and the elements of arrays.
+ */
+
+class JsonWriter {
+	private final StringBuilder sb = new StringBuilder();
+	private boolean needComma = false;
+	
+	JsonWriter beginObject() {
+		separate();
+		sb.append('{');
+		needComma = false;
+		return this;
+	}
+	
+	JsonWriter endObject() {
+		sb.append('}');
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter beginArray() {
+		separate();
+		sb.append('[');
+		needComma = false;
+		return this;
+	}
+	
+	JsonWriter endArray() {
+		sb.append(']');
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter name(String name) {
+		separate();
+		quote(name);
+		sb.append(':');
+		needComma = false;
+		return this;
+	}
+	
+	JsonWriter value(String value) {
+		separate();
+		
+		if (value == null)
+			sb.append("null");
+		else
+			quote(value);
+		
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter value(double value) {
+		separate();
+		
+		if (Double.isNaN(value) || Double.isInfinite(value))
+			sb.append("null");
+		else
+			sb.append(value);
+		
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter value(long value) {
+		separate();
+		sb.append(value);
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter value(boolean value) {
+		separate();
+		sb.append(value);
+		needComma = true;
+		return this;
+	}
+	
+	JsonWriter member(String name, String value) {
+		return name(name).value(value);
+	}
+	
+	JsonWriter member(String name, double value) {
+		return name(name).value(value);
+	}
+	
+	JsonWriter member(String name, long value) {
+		return name(name).value(value);
+	}
+	
+	private void separate() {
+		if (needComma)
+			sb.append(',');
+	}
+	
+	private void quote(String s) {
+		sb.append('"');
+		
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+				
+			case '\\':
+				sb.append("\\\\");
+				break;
+				
+			case '\n':
+				sb.append("\\n");
+				break;
+				
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int) c));
+				else
+					sb.append(c);
+			}
+		}
+		
+		sb.append('"');
+	}
+	
+	public String toString() {
+		return sb.toString();
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.service;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.obliquity.astronomy.almanac.ISO8601Format;
+
+/*
+ * The parameters of a request, held in name order so that requests which
+ * differ only in the order of their parameters have the same canonical form.
+ * Missing or malformed parameters cause an IllegalArgumentException, which
+ * the service reports as a bad request.
+ */
+
+class QueryParameters {
+	private final String path;
+	private final TreeMap<String, String> parameters = new TreeMap<String, String>();
+	
+	QueryParameters(String path, String query) {
+		this.path = path;
+		
+		if (query == null || query.isEmpty())
+			return;
+		
+		for (String pair : query.split("&")) {
+			if (pair.isEmpty())
+				continue;
+			
+			int eq = pair.indexOf('=');
+			
+			String name = eq < 0 ? pair : pair.substring(0, eq);
+			String value = eq < 0 ? "" : pair.substring(eq + 1);
+			
+			parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8).toLowerCase(),
+					URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+	}
+	
+	String getCanonicalForm() {
+		StringBuilder sb = new StringBuilder(path);
+		
+		char separator = '?';
+		
+		for (Map.Entry<String, String> entry : parameters.entrySet()) {
+			sb.append(separator).append(entry.getKey()).append('=').append(entry.getValue());
+			separator = '&';
+		}
+		
+		return sb.toString();
+	}
+	
+	boolean has(String name) {
+		return parameters.containsKey(name);
+	}
+	
+	String getString(String name) {
+		String value = parameters.get(name);
+		
+		if (value == null)
+			throw new IllegalArgumentException("Missing parameter \"" + name + "\"");
+		
+		return value;
+	}
+	
+	String getString(String name, String defaultValue) {
+		String value = parameters.get(name);
+		
+		return value == null ? defaultValue : value;
+	}
+	
+	double getDouble(String name) {
+		String value = getString(name);
+		
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter \"" + name + "\" is not a number: \"" + value + "\"");
+		}
+	}
+	
+	double getDouble(String name, double defaultValue) {
+		return has(name) ? getDouble(name) : defaultValue;
+	}
+	
+	/*
+	 * Dates may be given as a Julian Date, or as an ISO 8601 date with an
+	 * optional time of day, such as 2024-03-20 or 2024-03-20T03:06.
+	 */
+	
+	double getJulianDate(String name) {
+		String value = getString(name);
+		
+		try {
+			return ISO8601Format.parse(value);
+		} catch (ParseException e) {
+			// Not a calendar date, so try it as a Julian Date.
+		}
+		
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Parameter \"" + name + "\" is not a date: \"" + value + "\"");
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import com.obliquity.astronomy.almanac.metrics.Counter;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+/*
+ * This class caches recently-computed responses, keyed by the canonical form
+ * of the request, and bounded by their total size in bytes.  When the cache
+ * is full, the least recently used responses are discarded.
+ * 
+ * Identical requests which arrive while the first is still being computed do
+ * not compute the response again: they wait for the first request and share
+ * its result.  Failures are passed to every waiting request, but are not
+ * cached.
+ */
+
+public class ResponseCache {
+	private static final Counter HITS = Metrics.counter("service.cache.hits");
+	private static final Counter MISSES = Metrics.counter("service.cache.misses");
+	private static final Counter COALESCED = Metrics.counter("service.cache.coalesced");
+	
+	private final long capacity;
+	private long size = 0;
+	
+	private final LinkedHashMap<String, byte[]> responses = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+	
+	private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<String, CompletableFuture<byte[]>>();
+	
+	private long hits = 0, misses = 0, coalesced = 0;
+	
+	/*
+	 * The capacity is the maximum total size of the cached responses, in bytes.
+	 * A capacity of zero disables caching, but identical concurrent requests
+	 * are still coalesced.
+	 */
+	
+	public ResponseCache(long capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity cannot be negative");
+		
+		this.capacity = capacity;
+	}
+	
+	public byte[] get(String key, Callable<byte[]> loader) throws Exception {
+		synchronized (this) {
+			byte[] response = responses.get(key);
+			
+			if (response != null) {
+				hits++;
+				
+				if (Metrics.ENABLED)
+					HITS.increment();
+				
+				return response;
+			}
+		}
+		
+		CompletableFuture<byte[]> future = new CompletableFuture<byte[]>();
+		
+		CompletableFuture<byte[]> existing = pending.putIfAbsent(key, future);
+		
+		if (existing != null) {
+			synchronized (this) {
+				coalesced++;
+			}
+			
+			if (Metrics.ENABLED)
+				COALESCED.increment();
+			
+			try {
+				return existing.get();
+			} catch (ExecutionException e) {
+				throw unwrap(e);
+			}
+		}
+		
+		// Another request may have stored the response and released its claim
+		// between the first look in the cache and the claim made above.
+		byte[] cached;
+		
+		synchronized (this) {
+			cached = responses.get(key);
+			
+			if (cached != null)
+				hits++;
+			else
+				misses++;
+		}
+		
+		if (cached != null) {
+			if (Metrics.ENABLED)
+				HITS.increment();
+			
+			future.complete(cached);
+			pending.remove(key, future);
+			
+			return cached;
+		}
+		
+		if (Metrics.ENABLED)
+			MISSES.increment();
+		
+		try {
+			byte[] response = loader.call();
+			
+			put(key, response);
+			
+			future.complete(response);
+			
+			return response;
+		} catch (Exception | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			pending.remove(key, future);
+		}
+	}
+	
+	private static Exception unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		
+		if (cause instanceof Exception)
+			return (Exception) cause;
+		
+		if (cause instanceof Error)
+			throw (Error) cause;
+		
+		return e;
+	}
+	
+	private synchronized void put(String key, byte[] response) {
+		if (response.length > capacity)
+			return;
+		
+		byte[] old = responses.put(key, response);
+		
+		if (old != null)
+			size -= old.length;
+		
+		size += response.length;
+		
+		while (size > capacity) {
+			Map.Entry<String, byte[]> eldest = responses.entrySet().iterator().next();
+			
+			size -= eldest.getValue().length;
+			
+			responses.remove(eldest.getKey());
+		}
+	}
+	
+	public long getCapacity() {
+		return capacity;
+	}
+	
+	public synchronized long getSize() {
+		return size;
+	}
+	
+	public synchronized int getEntryCount() {
+		return responses.size();
+	}
+	
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	
+	public synchronized long getCoalescedCount() {
+		return coalesced;
+	}
+	
+	public synchronized void clear() {
+		responses.clear();
+		size = 0;
+	}
+}
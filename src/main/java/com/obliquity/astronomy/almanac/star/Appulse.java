@@ -0,0 +1,83 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+/*
+ * This class describes a close approach of a solar system body to a star,
+ * as found by AppulseSearch.
+ */
+
+public class Appulse implements Comparable<Appulse> {
+	private final int bodyCode;
+	private final int starIndex;
+	private final double time;
+	private final double separation;
+	private final double distance;
+	
+	public Appulse(int bodyCode, int starIndex, double time, double separation, double distance) {
+		this.bodyCode = bodyCode;
+		this.starIndex = starIndex;
+		this.time = time;
+		this.separation = separation;
+		this.distance = distance;
+	}
+	
+	public int getBodyCode() {
+		return bodyCode;
+	}
+	
+	public int getStarIndex() {
+		return starIndex;
+	}
+	
+	/*
+	 * The time of closest approach, in TT.
+	 */
+	
+	public double getTime() {
+		return time;
+	}
+	
+	/*
+	 * The minimum separation between the centre of the body and the star,
+	 * in radians.
+	 */
+	
+	public double getSeparation() {
+		return separation;
+	}
+	
+	/*
+	 * The geometric distance of the body from the observer, in AU.
+	 */
+	
+	public double getGeometricDistance() {
+		return distance;
+	}
+
+	public int compareTo(Appulse that) {
+		return Double.compare(this.time, that.time);
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class finds every close approach of a solar system body to the stars
+ * in a SkyIndex over a range of dates.
+ * 
+ * The apparent path of the body is tabulated at a fixed step.  At each
+ * tabulated point, the index is queried for the stars which lie within a
+ * cone that encloses the path over the adjacent steps, enlarged by the
+ * separation limit and a margin which allows for the curvature of the path,
+ * the proper motion of the star since the catalogue epoch, and aberration.
+ * Only those stars are reduced to apparent places.  A star whose separation
+ * from the body has a local minimum at the tabulated point, and which lies
+ * close enough to the great circle through the adjacent points of the path,
+ * is then refined by a golden section search.
+ * 
+ * Both the body and the stars are referred to the ICRF, since the
+ * separation is unaffected by precession and nutation.
+ */
+
+public class AppulseSearch {
+	private static final double ONE_ARCSECOND = Math.PI / (180.0 * 3600.0);
+	private static final double GOLDEN_RATIO = 0.5 * (Math.sqrt(5.0) - 1.0);
+	
+	private final SkyIndex index;
+	private final MovingPoint observer;
+	private final MovingPoint sun;
+	
+	private final StarApparentPlaceCalculator calculator;
+	
+	private double limit = 60.0 * ONE_ARCSECOND;
+	private double margin = 60.0 * ONE_ARCSECOND;
+	private double tolerance = 1.0 / 86400.0;
+	
+	private int candidateCount = 0;
+	
+	public AppulseSearch(SkyIndex index, MovingPoint observer, MovingPoint sun) {
+		this.index = index;
+		this.observer = observer;
+		this.sun = sun;
+		
+		calculator = new StarApparentPlaceCalculator(observer, sun, null, 1);
+	}
+	
+	/*
+	 * The largest separation, in radians, for which an appulse is reported.
+	 */
+	
+	public void setLimit(double limit) {
+		if (!(limit > 0.0))
+			throw new IllegalArgumentException("Limit must be positive");
+		
+		this.limit = limit;
+	}
+	
+	public double getLimit() {
+		return limit;
+	}
+	
+	/*
+	 * The margin, in radians, by which each index query is enlarged.
+	 */
+	
+	public void setMargin(double margin) {
+		if (margin < 0.0)
+			throw new IllegalArgumentException("Margin must not be negative");
+		
+		this.margin = margin;
+	}
+	
+	public double getMargin() {
+		return margin;
+	}
+	
+	/*
+	 * The precision, in days, to which the time of closest approach is found.
+	 */
+	
+	public void setTolerance(double tolerance) {
+		if (!(tolerance > 0.0))
+			throw new IllegalArgumentException("Tolerance must be positive");
+		
+		this.tolerance = tolerance;
+	}
+	
+	/*
+	 * The number of star positions examined during the last search.
+	 */
+	
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+	
+	public void shutdown() {
+		calculator.shutdown();
+	}
+	
+	public List<Appulse> search(MovingPoint body, double jdStart, double jdFinish, double step)
+			throws JPLEphemerisException {
+		if (!(step > 0.0))
+			throw new IllegalArgumentException("Step size must be positive");
+		
+		ApparentPlace ap = new ApparentPlace(observer, body, sun, null);
+		
+		StarCatalogue catalogue = index.getCatalogue();
+		
+		List<Appulse> appulses = new ArrayList<Appulse>();
+		
+		candidateCount = 0;
+		
+		int nSteps = (int)Math.ceil((jdFinish - jdStart) / step);
+		
+		double[][] path = new double[3][];
+		
+		path[1] = calculateDirection(ap, jdStart - step);
+		path[2] = calculateDirection(ap, jdStart);
+		
+		double[] u = new double[3];
+		
+		for (int k = 0; k <= nSteps; k++) {
+			double t = jdStart + k * step;
+			
+			path[0] = path[1];
+			path[1] = path[2];
+			path[2] = calculateDirection(ap, t + step);
+			
+			double radius = Math.max(angle(path[1], path[0]), angle(path[1], path[2])) + limit + margin;
+			
+			int[] candidates = index.findStarsInCone(path[1], radius);
+			
+			int nc = candidates.length;
+			
+			if (nc == 0)
+				continue;
+			
+			candidateCount += nc;
+			
+			double[][] separation = new double[3][nc];
+			double[][] star = new double[nc][3];
+			
+			for (int j = 0; j < 3; j++) {
+				double tj = t + (j - 1) * step;
+				
+				for (int c = 0; c < nc; c++) {
+					calculator.calculateApparentPlace(catalogue, candidates[c], tj, u);
+					separation[j][c] = angle(path[j], u);
+					
+					if (j == 1)
+						System.arraycopy(u, 0, star[c], 0, 3);
+				}
+			}
+			
+			/*
+			 * The great circle through the first and last points of the path,
+			 * and the distance of the middle point from it, which measures the
+			 * curvature of the path.
+			 */
+			
+			double[] pole = crossProduct(path[0], path[2]);
+			
+			double poleNorm = Math.sqrt(pole[0] * pole[0] + pole[1] * pole[1] + pole[2] * pole[2]);
+			
+			double crossTrackLimit = Double.POSITIVE_INFINITY;
+			
+			if (poleNorm > 1.0e-12) {
+				for (int m = 0; m < 3; m++)
+					pole[m] /= poleNorm;
+				
+				double curvature = Math.abs(Math.asin(dotProduct(path[1], pole)));
+				
+				crossTrackLimit = limit + margin + 2.0 * curvature;
+			}
+			
+			for (int c = 0; c < nc; c++) {
+				if (separation[1][c] <= separation[0][c] && separation[1][c] < separation[2][c]
+						&& Math.abs(Math.asin(dotProduct(star[c], pole))) < crossTrackLimit) {
+					Appulse appulse = refine(ap, catalogue, candidates[c], t - step, t + step);
+					
+					if (appulse.getSeparation() < limit && appulse.getTime() >= jdStart && appulse.getTime() <= jdFinish)
+						appulses.add(appulse);
+				}
+			}
+		}
+		
+		Collections.sort(appulses);
+		
+		return appulses;
+	}
+	
+	private Appulse refine(ApparentPlace ap, StarCatalogue catalogue, int i, double ta, double tb)
+			throws JPLEphemerisException {
+		double tc = tb - GOLDEN_RATIO * (tb - ta);
+		double td = ta + GOLDEN_RATIO * (tb - ta);
+		
+		double fc = separation(ap, catalogue, i, tc);
+		double fd = separation(ap, catalogue, i, td);
+		
+		while (tb - ta > tolerance) {
+			if (fc < fd) {
+				tb = td;
+				td = tc;
+				fd = fc;
+				tc = tb - GOLDEN_RATIO * (tb - ta);
+				fc = separation(ap, catalogue, i, tc);
+			} else {
+				ta = tc;
+				tc = td;
+				fc = fd;
+				td = ta + GOLDEN_RATIO * (tb - ta);
+				fd = separation(ap, catalogue, i, td);
+			}
+		}
+		
+		double t = 0.5 * (ta + tb);
+		
+		double s = separation(ap, catalogue, i, t);
+		
+		return new Appulse(ap.getTarget().getBodyCode(), i, t, s, ap.getGeometricDistance());
+	}
+	
+	private double separation(ApparentPlace ap, StarCatalogue catalogue, int i, double t) throws JPLEphemerisException {
+		double[] p = calculateDirection(ap, t);
+		double[] u = new double[3];
+		
+		calculator.calculateApparentPlace(catalogue, i, t, u);
+		
+		return angle(p, u);
+	}
+	
+	private double[] calculateDirection(ApparentPlace ap, double t) throws JPLEphemerisException {
+		ap.calculateApparentPlace(t);
+		
+		Vector dc = ap.getDirectionCosinesJ2000();
+		
+		return new double[] { dc.getX(), dc.getY(), dc.getZ() };
+	}
+	
+	private static double dotProduct(double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+	
+	private static double[] crossProduct(double[] a, double[] b) {
+		return new double[] { a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0] };
+	}
+	
+	/*
+	 * The angle between two unit vectors, calculated from the chord so that it
+	 * is accurate at small separations.
+	 */
+	
+	private static double angle(double[] a, double[] b) {
+		double dx = a[0] - b[0], dy = a[1] - b[1], dz = a[2] - b[2];
+		
+		double chord = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		
+		return 2.0 * Math.asin(Math.min(1.0, 0.5 * chord));
+	}
+}
@@ -0,0 +1,214 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+import java.util.Arrays;
+
+/*
+ * This class is a spatial index over the stars in a StarCatalogue.  The sky
+ * is divided into iso-latitude rings of equal height in declination, and
+ * each ring is divided into cells of equal width in right ascension, with
+ * the number of cells in each ring proportional to the cosine of its mean
+ * declination.  The cells are therefore roughly square and of roughly equal
+ * area, in the manner of an igloo or HEALPix pixelisation.
+ * 
+ * The stars are sorted by cell, so that the stars in each cell occupy a
+ * contiguous range of the index.  The index is built from the catalogue
+ * (J2000) direction cosines, and a cone search returns every star whose
+ * catalogue direction lies within the cone.
+ */
+
+public class SkyIndex {
+	private final StarCatalogue catalogue;
+	
+	private final int nRings;
+	private final double ringHeight;
+	
+	private final int[] cellsInRing;
+	private final int[] firstCellInRing;
+	
+	private final int[] cellStart;
+	private final int[] stars;
+	
+	/*
+	 * The cell size is specified in radians.  It should be comparable to the
+	 * radius of a typical query.
+	 */
+	
+	public SkyIndex(StarCatalogue catalogue, double cellSize) {
+		if (!(cellSize > 0.0 && cellSize <= Math.PI))
+			throw new IllegalArgumentException("Cell size must be in the range (0, pi]");
+		
+		this.catalogue = catalogue;
+		
+		nRings = (int)Math.ceil(Math.PI / cellSize);
+		ringHeight = Math.PI / nRings;
+		
+		cellsInRing = new int[nRings];
+		firstCellInRing = new int[nRings + 1];
+		
+		for (int k = 0; k < nRings; k++) {
+			double decMid = -0.5 * Math.PI + (k + 0.5) * ringHeight;
+			
+			cellsInRing[k] = Math.max(1, (int)Math.round(2.0 * Math.PI * Math.cos(decMid) / ringHeight));
+			firstCellInRing[k + 1] = firstCellInRing[k] + cellsInRing[k];
+		}
+		
+		int nCells = firstCellInRing[nRings];
+		
+		int nStars = catalogue.size();
+		
+		int[] cellOfStar = new int[nStars];
+		
+		cellStart = new int[nCells + 1];
+		
+		for (int i = 0; i < nStars; i++) {
+			int cell = findCell(catalogue.qx[i], catalogue.qy[i], catalogue.qz[i]);
+			cellOfStar[i] = cell;
+			cellStart[cell + 1]++;
+		}
+		
+		for (int cell = 0; cell < nCells; cell++)
+			cellStart[cell + 1] += cellStart[cell];
+		
+		int[] next = Arrays.copyOf(cellStart, nCells);
+		
+		stars = new int[nStars];
+		
+		for (int i = 0; i < nStars; i++)
+			stars[next[cellOfStar[i]]++] = i;
+	}
+	
+	public StarCatalogue getCatalogue() {
+		return catalogue;
+	}
+	
+	public int getCellCount() {
+		return cellStart.length - 1;
+	}
+	
+	private int findRing(double dec) {
+		int k = (int)((dec + 0.5 * Math.PI) / ringHeight);
+		
+		return k < 0 ? 0 : (k >= nRings ? nRings - 1 : k);
+	}
+	
+	private int findCellInRing(int k, double ra) {
+		int n = cellsInRing[k];
+		
+		int j = (int)(ra * n / (2.0 * Math.PI));
+		
+		return j < 0 ? 0 : (j >= n ? n - 1 : j);
+	}
+	
+	private int findCell(double x, double y, double z) {
+		double ra = Math.atan2(y, x);
+		
+		if (ra < 0.0)
+			ra += 2.0 * Math.PI;
+		
+		double dec = Math.atan2(z, Math.sqrt(x * x + y * y));
+		
+		int k = findRing(dec);
+		
+		return firstCellInRing[k] + findCellInRing(k, ra);
+	}
+	
+	/*
+	 * Find every star whose catalogue direction lies within the given angular
+	 * radius (in radians) of the unit vector u, and return their indices in
+	 * the catalogue.
+	 */
+	
+	public int[] findStarsInCone(double[] u, double radius) {
+		double x = u[0], y = u[1], z = u[2];
+		
+		double ra = Math.atan2(y, x);
+		
+		if (ra < 0.0)
+			ra += 2.0 * Math.PI;
+		
+		double dec = Math.atan2(z, Math.sqrt(x * x + y * y));
+		
+		double cosRadius = Math.cos(radius);
+		
+		double decMin = dec - radius;
+		double decMax = dec + radius;
+		
+		/*
+		 * The half-width of the cone in right ascension.  If the cone includes
+		 * a pole, every right ascension must be searched.
+		 */
+		
+		double halfWidth = 2.0 * Math.PI;
+		
+		if (decMax < 0.5 * Math.PI && decMin > -0.5 * Math.PI)
+			halfWidth = Math.asin(Math.min(1.0, Math.sin(radius) / Math.cos(dec)));
+		
+		int n = 0;
+		
+		int[] result = new int[64];
+		
+		int kMin = findRing(decMin);
+		int kMax = findRing(decMax);
+		
+		final double[] qx = catalogue.qx, qy = catalogue.qy, qz = catalogue.qz;
+		
+		for (int k = kMin; k <= kMax; k++) {
+			int nCells = cellsInRing[k];
+			
+			int jMin = 0, jMax = nCells - 1;
+			
+			if (halfWidth < Math.PI) {
+				double cellWidth = 2.0 * Math.PI / nCells;
+				
+				jMin = (int)Math.floor((ra - halfWidth) / cellWidth);
+				jMax = (int)Math.floor((ra + halfWidth) / cellWidth);
+				
+				if (jMax - jMin >= nCells) {
+					jMin = 0;
+					jMax = nCells - 1;
+				}
+			}
+			
+			for (int j = jMin; j <= jMax; j++) {
+				int cell = firstCellInRing[k] + Math.floorMod(j, nCells);
+				
+				for (int s = cellStart[cell]; s < cellStart[cell + 1]; s++) {
+					int i = stars[s];
+					
+					if (qx[i] * x + qy[i] * y + qz[i] * z >= cosRadius) {
+						if (n == result.length)
+							result = Arrays.copyOf(result, 2 * n);
+						
+						result[n++] = i;
+					}
+				}
+			}
+		}
+		
+		return Arrays.copyOf(result, n);
+	}
+}
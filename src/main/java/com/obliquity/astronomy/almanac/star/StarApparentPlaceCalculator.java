@@ -0,0 +1,330 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Matrix;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class calculates the apparent places of every star in a StarCatalogue
+ * at a single epoch.
+ * 
+ * The quantities which depend only upon the epoch -- the barycentric position
+ * and velocity of the observer, the barycentric position of the Sun and the
+ * combined precession-nutation matrix -- are calculated once, on the calling
+ * thread.  The stars are then divided into chunks which are processed in
+ * parallel.  The per-star calculation is a short sequence of primitive
+ * arithmetic on the catalogue columns, with no allocation.
+ * 
+ * The reduction follows StarApparentPlace: space motion and parallax,
+ * gravitational light deflection by the Sun and relativistic aberration.
+ * The deflection is scaled by the inverse of the Earth-Sun distance, and
+ * precession is applied before nutation, as in ApparentPlace.
+ */
+
+public class StarApparentPlaceCalculator {
+	private static final double SPEED_OF_LIGHT = ApparentPlace.SPEED_OF_LIGHT;
+	
+	private static final double DEFLECTION_FACTOR = 2.0 * 9.87e-9;
+	
+	private static final int DEFAULT_CHUNK_SIZE = 16384;
+	
+	private final MovingPoint observer;
+	private final MovingPoint sun;
+	private final EarthRotationModel erm;
+	private final double epochOfEphemeris;
+	
+	private final ForkJoinPool pool;
+	
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	
+	private StateVector svObserver = new StateVector(new Vector(), new Vector());
+	private Vector pSun = new Vector();
+	
+	private Matrix precess = new Matrix();
+	private Matrix nutate = new Matrix();
+	
+	private EpochState lastState = null;
+	
+	/*
+	 * Quantities which are common to every star at a given epoch.
+	 */
+	
+	private static class EpochState {
+		double t;
+		double[] EB = new double[3];
+		double[] V = new double[3];
+		double[] E = new double[3];
+		double EE;
+		double beta;
+		double[][] pn = null;
+	}
+	
+	/*
+	 * If erm is null, the apparent places are referred to the ICRF (J2000)
+	 * rather than to the true equator and equinox of date.
+	 * 
+	 * If nThreads is zero or negative, the number of available processors is
+	 * used.
+	 */
+	
+	public StarApparentPlaceCalculator(JPLEphemeris ephemeris, EarthRotationModel erm, int nThreads) {
+		this(new EarthCentre(ephemeris), new PlanetCentre(ephemeris, JPLEphemeris.SUN), erm, nThreads);
+	}
+	
+	public StarApparentPlaceCalculator(MovingPoint observer, MovingPoint sun, EarthRotationModel erm, int nThreads) {
+		this.observer = observer;
+		this.sun = sun;
+		this.erm = erm;
+		this.epochOfEphemeris = sun.getEpoch();
+		
+		if (nThreads <= 0)
+			nThreads = Runtime.getRuntime().availableProcessors();
+		
+		pool = new ForkJoinPool(nThreads);
+	}
+	
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("Chunk size must be positive");
+		
+		this.chunkSize = chunkSize;
+	}
+	
+	public int getChunkSize() {
+		return chunkSize;
+	}
+	
+	public int getThreadCount() {
+		return pool.getParallelism();
+	}
+	
+	public void shutdown() {
+		pool.shutdown();
+	}
+	
+	public StarPlaceTable calculateApparentPlaces(StarCatalogue catalogue, double t) throws JPLEphemerisException {
+		StarPlaceTable table = new StarPlaceTable(catalogue.size());
+		calculateApparentPlaces(catalogue, t, table);
+		return table;
+	}
+	
+	public void calculateApparentPlaces(StarCatalogue catalogue, double t, StarPlaceTable table) throws JPLEphemerisException {
+		int rows = catalogue.size();
+		
+		if (table.getRowCount() != rows)
+			throw new IllegalArgumentException("Table has " + table.getRowCount() + " rows but catalogue has " + rows + " stars");
+		
+		EpochState state = calculateEpochState(t);
+		
+		table.setEpoch(t);
+		table.setFrame(state.pn != null ? StarPlaceTable.TRUE_OF_DATE : StarPlaceTable.J2000);
+		
+		if (rows <= chunkSize) {
+			calculateChunk(catalogue, state, table, 0, rows);
+			return;
+		}
+		
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		
+		for (int first = 0; first < rows; first += chunkSize) {
+			final int from = first;
+			final int to = Math.min(rows, first + chunkSize);
+			
+			tasks.add(() -> {
+				calculateChunk(catalogue, state, table, from, to);
+				return null;
+			});
+		}
+		
+		List<Future<Void>> futures = pool.invokeAll(tasks);
+		
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JPLEphemerisException("Interrupted whilst calculating apparent places");
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+	
+	private EpochState calculateEpochState(double t) throws JPLEphemerisException {
+		EpochState state = new EpochState();
+		
+		state.t = t;
+		
+		observer.getStateVector(t, svObserver);
+		sun.getPosition(t, pSun);
+		
+		svObserver.getPosition().toArray(state.EB);
+		svObserver.getVelocity().toArray(state.V);
+		
+		double[] SB = pSun.getComponents();
+		
+		double ee = 0.0, vv = 0.0;
+		
+		for (int k = 0; k < 3; k++) {
+			state.E[k] = state.EB[k] - SB[k];
+			ee += state.E[k] * state.E[k];
+			
+			state.V[k] /= SPEED_OF_LIGHT;
+			vv += state.V[k] * state.V[k];
+		}
+		
+		state.EE = Math.sqrt(ee);
+		
+		for (int k = 0; k < 3; k++)
+			state.E[k] /= state.EE;
+		
+		state.beta = Math.sqrt(1.0 - vv);
+		
+		if (erm != null) {
+			double ut = t - erm.deltaT(t);
+			
+			erm.precessionMatrix(epochOfEphemeris, ut, precess);
+			erm.nutationMatrix(ut, nutate);
+			
+			Matrix pn = new Matrix(precess);
+			pn.leftMultiplyBy(nutate);
+			
+			state.pn = pn.getComponents();
+		}
+		
+		return state;
+	}
+	
+	private void calculateChunk(StarCatalogue catalogue, EpochState state, StarPlaceTable table, int from, int to) {
+		final double[] ra = table.ra, dec = table.dec, x = table.x, y = table.y, z = table.z;
+		
+		final double[] u = new double[3];
+		
+		for (int i = from; i < to; i++) {
+			calculateUnitVector(catalogue, i, state, u);
+			
+			x[i] = u[0];
+			y[i] = u[1];
+			z[i] = u[2];
+			
+			double alpha = Math.atan2(u[1], u[0]);
+			
+			if (alpha < 0.0)
+				alpha += 2.0 * Math.PI;
+			
+			ra[i] = alpha;
+			dec[i] = Math.asin(u[2]);
+		}
+	}
+	
+	/*
+	 * Calculate the apparent direction of a single star from the catalogue,
+	 * as a unit vector.  The epoch-dependent quantities are re-used if the
+	 * epoch is the same as on the previous call.
+	 */
+	
+	public void calculateApparentPlace(StarCatalogue catalogue, int i, double t, double[] u) throws JPLEphemerisException {
+		if (lastState == null || lastState.t != t)
+			lastState = calculateEpochState(t);
+		
+		calculateUnitVector(catalogue, i, lastState, u);
+	}
+	
+	private static void calculateUnitVector(StarCatalogue catalogue, int i, EpochState state, double[] u) {
+		final double[] EB = state.EB, E = state.E, V = state.V;
+		
+		double T = (state.t - catalogue.epoch[i]) / 36525.0;
+		double plx = catalogue.parallax[i] * StarCatalogue.MAS_TO_RADIANS;
+		
+		// Space motion and parallax.
+		
+		double px = catalogue.qx[i] + T * catalogue.mx[i] - plx * EB[0];
+		double py = catalogue.qy[i] + T * catalogue.my[i] - plx * EB[1];
+		double pz = catalogue.qz[i] + T * catalogue.mz[i] - plx * EB[2];
+		
+		double r = 1.0 / Math.sqrt(px * px + py * py + pz * pz);
+		
+		px *= r;
+		py *= r;
+		pz *= r;
+		
+		// Gravitational deflection of light by the Sun.
+		
+		double pe = px * E[0] + py * E[1] + pz * E[2];
+		
+		double factor = (DEFLECTION_FACTOR / state.EE) / (1.0 + pe);
+		
+		px += factor * (E[0] - pe * px);
+		py += factor * (E[1] - pe * py);
+		pz += factor * (E[2] - pe * pz);
+		
+		// Aberration.
+		
+		double pv = px * V[0] + py * V[1] + pz * V[2];
+		
+		double denominator = 1.0 + pv;
+		
+		double factora = state.beta / denominator;
+		double factorb = (1.0 + pv / (1.0 + state.beta)) / denominator;
+		
+		px = factora * px + factorb * V[0];
+		py = factora * py + factorb * V[1];
+		pz = factora * pz + factorb * V[2];
+		
+		final double[][] pn = state.pn;
+		
+		if (pn != null) {
+			double xx = pn[0][0] * px + pn[0][1] * py + pn[0][2] * pz;
+			double yy = pn[1][0] * px + pn[1][1] * py + pn[1][2] * pz;
+			double zz = pn[2][0] * px + pn[2][1] * py + pn[2][2] * pz;
+			
+			px = xx;
+			py = yy;
+			pz = zz;
+		}
+		
+		r = 1.0 / Math.sqrt(px * px + py * py + pz * pz);
+		
+		u[0] = px * r;
+		u[1] = py * r;
+		u[2] = pz * r;
+	}
+}
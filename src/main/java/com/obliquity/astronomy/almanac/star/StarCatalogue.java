@@ -0,0 +1,210 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+import java.util.Arrays;
+
+/*
+ * This class holds the astrometric data for a catalogue of stars, such as
+ * Hipparcos or Gaia, as a set of primitive columns.
+ * 
+ * Positions are referred to the ICRF.  The proper motion in right ascension
+ * is mu_alpha* = mu_alpha cos(delta), as given in the Hipparcos and Gaia
+ * catalogues.
+ * 
+ * When a star is added, its catalogue position is converted to a unit vector
+ * and its proper motion, parallax and radial velocity to a space motion
+ * vector, so that the position at any other date is a linear function of
+ * time.  This is the only per-star work which does not depend on the date.
+ */
+
+public class StarCatalogue {
+	public static final double J2000 = 2451545.0;
+	
+	/*
+	 * Conversion factors: milliarcseconds to radians, and km/s to AU per
+	 * Julian century.
+	 */
+	
+	public static final double MAS_TO_RADIANS = Math.PI / (180.0 * 3600.0 * 1000.0);
+	public static final double KM_PER_SECOND_TO_AU_PER_CENTURY = 21.095;
+	
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	private int size = 0;
+	
+	private String[] name;
+	
+	double[] ra, dec, parallax, epoch, magnitude;
+	
+	double[] qx, qy, qz, mx, my, mz;
+	
+	public StarCatalogue() {
+		this(INITIAL_CAPACITY);
+	}
+	
+	public StarCatalogue(int capacity) {
+		if (capacity < 1)
+			capacity = 1;
+		
+		name = new String[capacity];
+		
+		ra = new double[capacity];
+		dec = new double[capacity];
+		parallax = new double[capacity];
+		epoch = new double[capacity];
+		magnitude = new double[capacity];
+		
+		qx = new double[capacity];
+		qy = new double[capacity];
+		qz = new double[capacity];
+		
+		mx = new double[capacity];
+		my = new double[capacity];
+		mz = new double[capacity];
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity <= name.length)
+			return;
+		
+		int newCapacity = Math.max(capacity, name.length + (name.length >> 1));
+		
+		name = Arrays.copyOf(name, newCapacity);
+		
+		ra = Arrays.copyOf(ra, newCapacity);
+		dec = Arrays.copyOf(dec, newCapacity);
+		parallax = Arrays.copyOf(parallax, newCapacity);
+		epoch = Arrays.copyOf(epoch, newCapacity);
+		magnitude = Arrays.copyOf(magnitude, newCapacity);
+		
+		qx = Arrays.copyOf(qx, newCapacity);
+		qy = Arrays.copyOf(qy, newCapacity);
+		qz = Arrays.copyOf(qz, newCapacity);
+		
+		mx = Arrays.copyOf(mx, newCapacity);
+		my = Arrays.copyOf(my, newCapacity);
+		mz = Arrays.copyOf(mz, newCapacity);
+	}
+	
+	/*
+	 * Add a star to the catalogue and return its index.
+	 * 
+	 * ra, dec: position in radians at the catalogue epoch
+	 * parallax: milliarcseconds
+	 * pmRA, pmDec: proper motion in mas/year, where pmRA includes cos(dec)
+	 * rv: radial velocity in km/s
+	 * epoch: catalogue epoch of the position, as a Julian Date
+	 * magnitude: any convenient magnitude, or NaN
+	 */
+	
+	public int addStar(String starName, double ra, double dec, double parallax, double pmRA, double pmDec,
+			double rv, double epoch, double magnitude) {
+		ensureCapacity(size + 1);
+		
+		int i = size++;
+		
+		this.name[i] = starName;
+		this.ra[i] = ra;
+		this.dec[i] = dec;
+		this.parallax[i] = parallax;
+		this.epoch[i] = epoch;
+		this.magnitude[i] = magnitude;
+		
+		double cosRA = Math.cos(ra), sinRA = Math.sin(ra);
+		double cosDec = Math.cos(dec), sinDec = Math.sin(dec);
+		
+		qx[i] = cosDec * cosRA;
+		qy[i] = cosDec * sinRA;
+		qz[i] = sinDec;
+		
+		/*
+		 * Space motion in radians per Julian century.  The radial velocity
+		 * term is scaled by the parallax, so that it is in units of the
+		 * distance of the star.
+		 */
+		
+		double muA = pmRA * MAS_TO_RADIANS * 100.0;
+		double muD = pmDec * MAS_TO_RADIANS * 100.0;
+		double rdot = rv * KM_PER_SECOND_TO_AU_PER_CENTURY * parallax * MAS_TO_RADIANS;
+		
+		mx[i] = -muA * sinRA - muD * sinDec * cosRA + rdot * qx[i];
+		my[i] =  muA * cosRA - muD * sinDec * sinRA + rdot * qy[i];
+		mz[i] =  muD * cosDec + rdot * qz[i];
+		
+		return i;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	public String getName(int i) {
+		checkIndex(i);
+		return name[i];
+	}
+	
+	public double getRightAscension(int i) {
+		checkIndex(i);
+		return ra[i];
+	}
+	
+	public double getDeclination(int i) {
+		checkIndex(i);
+		return dec[i];
+	}
+	
+	public double getParallax(int i) {
+		checkIndex(i);
+		return parallax[i];
+	}
+	
+	public double getEpoch(int i) {
+		checkIndex(i);
+		return epoch[i];
+	}
+	
+	public double getMagnitude(int i) {
+		checkIndex(i);
+		return magnitude[i];
+	}
+	
+	/*
+	 * Return the index of the first star with the given name, or -1.
+	 */
+	
+	public int findStar(String starName) {
+		for (int i = 0; i < size; i++)
+			if (starName.equalsIgnoreCase(name[i]))
+				return i;
+		
+		return -1;
+	}
+	
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Star index " + i + " is out of range");
+	}
+}
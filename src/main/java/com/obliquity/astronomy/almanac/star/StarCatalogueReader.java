@@ -0,0 +1,297 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/*
+ * This class reads star catalogue data into a StarCatalogue.
+ * 
+ * Two formats are supported.
+ * 
+ * Delimited text files with a header line which names the columns, such as
+ * the CSV files produced by the Gaia archive or by VizieR.  The columns are
+ * recognised by name, and any other columns are ignored.  The delimiter is a
+ * comma, unless the header contains tabs but no commas.  Lines beginning with
+ * '#' are skipped.  The recognised columns are:
+ * 
+ *   name:      name, id, designation, source_id or hip
+ *   RA:        ra, ra_deg or raicrs (degrees)
+ *   Dec:       dec, de, dec_deg or deicrs (degrees)
+ *   parallax:  parallax or plx (mas)
+ *   pmRA:      pmra or pm_ra (mas/yr, including cos(dec))
+ *   pmDec:     pmdec, pmde or pm_dec (mas/yr)
+ *   RV:        radial_velocity or rv (km/s)
+ *   epoch:     ref_epoch or epoch (Julian year)
+ *   magnitude: phot_g_mean_mag, hpmag, vmag, mag or magnitude
+ * 
+ * Only RA and Dec are required.  Empty or missing values of parallax, proper
+ * motion and radial velocity are taken to be zero.  If there is no epoch
+ * column, the default epoch is used.
+ * 
+ * Java properties files, one star per file, in the format of the stars
+ * directory of this project, with keys name, rightAscension (hours, in the
+ * form hh:mm:ss.s), declination (degrees, in the form dd:mm:ss.s), pmRA,
+ * pmDec, parallax, radialVelocity and epoch (Julian year).
+ */
+
+public class StarCatalogueReader {
+	private static final int NAME = 0, RA = 1, DEC = 2, PARALLAX = 3, PMRA = 4, PMDEC = 5, RV = 6, EPOCH = 7,
+			MAGNITUDE = 8, NUMBER_OF_FIELDS = 9;
+	
+	private static final String[][] COLUMN_NAMES = {
+			{ "name", "id", "designation", "source_id", "hip" },
+			{ "ra", "ra_deg", "raicrs" },
+			{ "dec", "de", "dec_deg", "deicrs" },
+			{ "parallax", "plx" },
+			{ "pmra", "pm_ra" },
+			{ "pmdec", "pmde", "pm_dec" },
+			{ "radial_velocity", "rv" },
+			{ "ref_epoch", "epoch" },
+			{ "phot_g_mean_mag", "hpmag", "vmag", "mag", "magnitude" }
+	};
+	
+	private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+	
+	private double defaultEpoch = 2000.0;
+	
+	private int errorCount = 0;
+	
+	/*
+	 * Set the epoch, as a Julian year, which is used when a file has no epoch
+	 * column.  For Gaia DR3, this is 2016.0.
+	 */
+	
+	public void setDefaultEpoch(double defaultEpoch) {
+		this.defaultEpoch = defaultEpoch;
+	}
+	
+	public int getErrorCount() {
+		return errorCount;
+	}
+	
+	public static double julianYearToJulianDate(double year) {
+		return StarCatalogue.J2000 + (year - 2000.0) * 365.25;
+	}
+	
+	/*
+	 * Read a delimited text file and append the stars to the catalogue.  Lines
+	 * which cannot be parsed are counted and skipped.
+	 * 
+	 * Returns the number of stars which were added.
+	 */
+	
+	public int readDelimited(InputStream is, StarCatalogue catalogue) throws IOException {
+		BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8), 1 << 16);
+		
+		String header = null;
+		
+		while ((header = br.readLine()) != null)
+			if (!header.isEmpty() && !header.startsWith("#"))
+				break;
+		
+		if (header == null)
+			return 0;
+		
+		char delimiter = (header.indexOf('\t') >= 0 && header.indexOf(',') < 0) ? '\t' : ',';
+		
+		String[] names = split(header, delimiter, null);
+		
+		int[] columns = new int[NUMBER_OF_FIELDS];
+		
+		for (int k = 0; k < NUMBER_OF_FIELDS; k++)
+			columns[k] = findColumn(names, COLUMN_NAMES[k]);
+		
+		if (columns[RA] < 0 || columns[DEC] < 0)
+			throw new IOException("The header does not name both an RA and a Dec column");
+		
+		String[] fields = new String[names.length];
+		
+		int count = 0;
+		
+		while (true) {
+			String line = br.readLine();
+			
+			if (line == null)
+				break;
+			
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			
+			split(line, delimiter, fields);
+			
+			try {
+				double ra = Double.parseDouble(fields[columns[RA]]) * DEGREES_TO_RADIANS;
+				double dec = Double.parseDouble(fields[columns[DEC]]) * DEGREES_TO_RADIANS;
+				
+				double parallax = parseOptional(fields, columns[PARALLAX], 0.0);
+				double pmRA = parseOptional(fields, columns[PMRA], 0.0);
+				double pmDec = parseOptional(fields, columns[PMDEC], 0.0);
+				double rv = parseOptional(fields, columns[RV], 0.0);
+				double epoch = parseOptional(fields, columns[EPOCH], defaultEpoch);
+				double magnitude = parseOptional(fields, columns[MAGNITUDE], Double.NaN);
+				
+				String name = columns[NAME] >= 0 ? fields[columns[NAME]] : null;
+				
+				catalogue.addStar(name, ra, dec, parallax, pmRA, pmDec, rv, julianYearToJulianDate(epoch), magnitude);
+				
+				count++;
+			}
+			catch (NumberFormatException | NullPointerException e) {
+				errorCount++;
+			}
+		}
+		
+		return count;
+	}
+	
+	private static int findColumn(String[] names, String[] candidates) {
+		for (String candidate : candidates)
+			for (int i = 0; i < names.length; i++)
+				if (names[i].equalsIgnoreCase(candidate))
+					return i;
+		
+		return -1;
+	}
+	
+	/*
+	 * Split a line at each delimiter, trimming white space and any quotation
+	 * marks from each field.  If fields is not null, it is filled, and any
+	 * missing fields are set to null.
+	 */
+	
+	private static String[] split(String line, char delimiter, String[] fields) {
+		if (fields == null) {
+			int n = 1;
+			
+			for (int i = 0; i < line.length(); i++)
+				if (line.charAt(i) == delimiter)
+					n++;
+			
+			fields = new String[n];
+		}
+		
+		int start = 0;
+		int k = 0;
+		
+		while (k < fields.length && start <= line.length()) {
+			int end = line.indexOf(delimiter, start);
+			
+			if (end < 0)
+				end = line.length();
+			
+			String field = line.substring(start, end).trim();
+			
+			if (field.length() >= 2 && field.charAt(0) == '"' && field.charAt(field.length() - 1) == '"')
+				field = field.substring(1, field.length() - 1);
+			
+			fields[k++] = field;
+			
+			start = end + 1;
+		}
+		
+		while (k < fields.length)
+			fields[k++] = null;
+		
+		return fields;
+	}
+	
+	private static double parseOptional(String[] fields, int column, double defaultValue) {
+		if (column < 0)
+			return defaultValue;
+		
+		String field = fields[column];
+		
+		return (field == null || field.isEmpty()) ? defaultValue : Double.parseDouble(field);
+	}
+	
+	/*
+	 * Read a single star from a properties file and append it to the
+	 * catalogue.  Returns the index of the new star.
+	 */
+	
+	public int readProperties(File file, StarCatalogue catalogue) throws IOException {
+		Properties props = new Properties();
+		
+		try (InputStream is = new FileInputStream(file)) {
+			props.load(is);
+		}
+		
+		String name = props.getProperty("name", file.getName());
+		
+		String raString = props.getProperty("rightAscension");
+		String decString = props.getProperty("declination");
+		
+		if (raString == null || decString == null)
+			throw new IOException("File " + file + " does not define rightAscension and declination");
+		
+		try {
+			double ra = parseHexagesimal(raString) * Math.PI / 12.0;
+			double dec = parseHexagesimal(decString) * DEGREES_TO_RADIANS;
+			
+			double pmRA = parseProperty(props, "pmRA", 0.0);
+			double pmDec = parseProperty(props, "pmDec", 0.0);
+			double parallax = parseProperty(props, "parallax", 0.0);
+			double rv = parseProperty(props, "radialVelocity", 0.0);
+			double epoch = parseProperty(props, "epoch", defaultEpoch);
+			double magnitude = parseProperty(props, "magnitude", Double.NaN);
+			
+			return catalogue.addStar(name, ra, dec, parallax, pmRA, pmDec, rv, julianYearToJulianDate(epoch),
+					magnitude);
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("File " + file + " contains an invalid number: " + e.getMessage());
+		}
+	}
+	
+	private static double parseProperty(Properties props, String key, double defaultValue) {
+		String value = props.getProperty(key);
+		
+		return value == null ? defaultValue : Double.parseDouble(value.trim());
+	}
+	
+	private static double parseHexagesimal(String value) {
+		String[] words = value.trim().split(":");
+		
+		boolean isNegative = words[0].startsWith("-");
+		
+		double result = Math.abs(Double.parseDouble(words[0]));
+		
+		if (words.length > 1)
+			result += Double.parseDouble(words[1])/60.0;
+		
+		if (words.length > 2)
+			result += Double.parseDouble(words[2])/3600.0;
+		
+		return isNegative ? -result : result;
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.star;
+
+/*
+ * This class holds the apparent places of every star in a StarCatalogue at a
+ * single epoch, both as right ascension and declination and as unit vectors.
+ */
+
+public class StarPlaceTable {
+	public static final int J2000 = 0;
+	public static final int TRUE_OF_DATE = 1;
+	
+	private final int rows;
+	
+	private double epoch = Double.NaN;
+	private int frame = J2000;
+	
+	final double[] ra, dec, x, y, z;
+	
+	public StarPlaceTable(int rows) {
+		this.rows = rows;
+		
+		ra = new double[rows];
+		dec = new double[rows];
+		x = new double[rows];
+		y = new double[rows];
+		z = new double[rows];
+	}
+	
+	public int getRowCount() {
+		return rows;
+	}
+	
+	public double getEpoch() {
+		return epoch;
+	}
+	
+	void setEpoch(double epoch) {
+		this.epoch = epoch;
+	}
+	
+	public int getFrame() {
+		return frame;
+	}
+	
+	void setFrame(int frame) {
+		this.frame = frame;
+	}
+	
+	public double getRightAscension(int i) {
+		return ra[i];
+	}
+	
+	public double getDeclination(int i) {
+		return dec[i];
+	}
+	
+	/*
+	 * Copy the apparent direction of star i, as a unit vector, into the array.
+	 */
+	
+	public void getUnitVector(int i, double[] u) {
+		u[0] = x[i];
+		u[1] = y[i];
+		u[2] = z[i];
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.EphemerisRegistry;
+import com.obliquity.astronomy.almanac.daemon.ToolDaemon;
+
+/*
+ * This class runs the tool daemon, which keeps ephemerides loaded and runs
+ * the command-line tools on behalf of runapp.sh when ASTROJAVA_DAEMON is set.
+ * 
+ * Ephemeris files named with -ephemeris are registered at once; others are
+ * registered when a tool first names them.
+ */
+
+public class AlmanacDaemon {
+	public static void main(String args[]) {
+		String socketName = null;
+		List<String> filenames = new ArrayList<String>();
+		int cacheCapacity = EphemerisRegistry.DEFAULT_CACHE_CAPACITY;
+		int maximumJobs = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-socket"))
+				socketName = args[++i];
+
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filenames.add(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-cachesize"))
+				cacheCapacity = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-maxjobs"))
+				maximumJobs = Integer.parseInt(args[++i]);
+		}
+
+		if (socketName == null || cacheCapacity < 1 || maximumJobs < 0) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		Path socketPath = Paths.get(socketName).toAbsolutePath();
+
+		ToolDaemon daemon = new ToolDaemon(socketPath, new EphemerisRegistry(cacheCapacity), maximumJobs);
+		
+		for (String filename : filenames)
+			daemon.register(new File(filename));
+		
+		Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+		
+		System.err.println("# Tool daemon listening on " + socketPath);
+
+		try {
+			daemon.run();
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.err.println("# Tool daemon stopped");
+		
+		System.exit(0);
+	}
+
+	private static void showUsage() {
+		System.err.println("Usage: AlmanacDaemon -socket path [-ephemeris filename ...] [-cachesize records] [-maxjobs n]");
+	}
+}
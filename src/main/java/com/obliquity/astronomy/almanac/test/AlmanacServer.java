@@ -0,0 +1,223 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.obliquity.astronomy.almanac.EphemerisFile;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.service.AlmanacService;
+import com.obliquity.astronomy.almanac.service.ResponseCache;
+
+/*
+ * This class runs the embedded almanac HTTP service.
+ * 
+ * The ephemeris may be a binary JPL ephemeris file, which is loaded
+ * incrementally as requests require, or a small pre-cut ephemeris which has
+ * been serialised by JPLEphemerisSerialiser.
+ * 
+ * With -selftest, the service is started on a free port, a burst of
+ * concurrent requests is sent to it, and the service is then stopped.
+ */
+
+public class AlmanacServer {
+	public static void main(String args[]) {
+		String filename = null;
+		String serialisedFilename = null;
+		int port = 8080;
+		long cacheSize = AlmanacService.DEFAULT_CACHE_CAPACITY;
+		int maximumRows = AlmanacService.DEFAULT_MAXIMUM_ROWS;
+		boolean selfTest = false;
+		String testDate = "2024-01-01";
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-serialised"))
+				serialisedFilename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-port"))
+				port = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-cachesize"))
+				cacheSize = Long.parseLong(args[++i]) * 1024L * 1024L;
+
+			if (args[i].equalsIgnoreCase("-maxrows"))
+				maximumRows = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-selftest"))
+				selfTest = true;
+
+			if (args[i].equalsIgnoreCase("-testdate"))
+				testDate = args[++i];
+		}
+
+		if (filename == null && serialisedFilename == null) {
+			showUsage();
+			System.exit(1);
+		}
+
+		JPLEphemeris ephemeris = null;
+
+		try {
+			if (serialisedFilename != null) {
+				try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(serialisedFilename))) {
+					ephemeris = (JPLEphemeris) ois.readObject();
+				}
+			} else {
+				double jd;
+				
+				try (EphemerisFile file = new EphemerisFile(filename)) {
+					jd = file.getEarliestDate();
+				}
+				
+				ephemeris = new JPLEphemeris(filename, jd, jd);
+				
+				ephemeris.enableIncrementalLoading(32);
+			}
+		} catch (IOException | JPLEphemerisException | ClassNotFoundException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		AlmanacService service = new AlmanacService(ephemeris, cacheSize, maximumRows);
+
+		try {
+			service.start(selfTest ? 0 : port);
+
+			System.err.println("# Almanac service listening on port " + service.getPort());
+
+			if (selfTest) {
+				runSelfTest(service, testDate);
+				service.stop(0);
+				System.exit(0);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			service.stop(0);
+			System.exit(1);
+		}
+	}
+
+	private static void runSelfTest(AlmanacService service, String date) throws Exception {
+		String base = "http://localhost:" + service.getPort();
+
+		String[] paths = {
+				"/apparentplace?body=mars&date=" + date,
+				"/apparentplace?date=" + date + "&body=mars",
+				"/almanac?body=venus&start=" + date + "&step=0.5&end=" + date + "T12:00",
+				"/riseset?body=sun&date=" + date + "&lat=51.48&lon=0.0",
+				"/phenomena?body=moon&start=" + date + "&end=" + date + "T00:00&type=opposition",
+				"/apparentplace?body=vulcan&date=" + date,
+				"/status" };
+
+		for (String path : paths) {
+			Response response = fetch(base + path);
+
+			System.out.println(response.status + " " + path);
+			System.out.println("    " + response.body);
+		}
+
+		int nClients = 32;
+
+		ExecutorService clients = Executors.newFixedThreadPool(nClients);
+
+		List<Callable<Response>> tasks = new ArrayList<Callable<Response>>();
+
+		for (int i = 0; i < nClients; i++)
+			tasks.add(() -> fetch(base + "/almanac?body=moon&start=" + date + "&end=" + date + "T23:00&step=0.01"));
+
+		long startTime = System.nanoTime();
+
+		int nFailed = 0;
+
+		for (Future<Response> future : clients.invokeAll(tasks))
+			if (future.get().status != 200)
+				nFailed++;
+
+		double dt = (System.nanoTime() - startTime) * 1.0e-6;
+
+		clients.shutdown();
+
+		ResponseCache cache = service.getCache();
+
+		System.out.printf("# %d concurrent identical requests in %.1f ms, %d failed; cache: %d hits, %d misses, %d coalesced\n",
+				nClients, dt, nFailed, cache.getHitCount(), cache.getMissCount(), cache.getCoalescedCount());
+	}
+
+	private static class Response {
+		int status;
+		String body;
+	}
+
+	private static Response fetch(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+		Response response = new Response();
+
+		response.status = connection.getResponseCode();
+
+		InputStream is = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+
+		try (InputStream in = is) {
+			response.body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+
+		connection.disconnect();
+
+		if (response.body.length() > 300)
+			response.body = response.body.substring(0, 300) + "...";
+
+		return response;
+	}
+
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS (one of)");
+		System.err.println("\t-ephemeris\tName of binary JPL ephemeris file");
+		System.err.println("\t-serialised\tName of serialised pre-cut ephemeris file");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-port\t\tPort number [default: 8080]");
+		System.err.println("\t-cachesize\tResponse cache size in megabytes [default: 16]");
+		System.err.println("\t-maxrows\tMaximum number of rows in a response [default: "
+				+ AlmanacService.DEFAULT_MAXIMUM_ROWS + "]");
+		System.err.println("\t-selftest\tStart on a free port, send test requests, and stop");
+		System.err.println("\t-testdate\tDate used by the self-test [default: 2024-01-01]");
+	}
+}
@@ -43,6 +43,7 @@ import com.obliquity.astronomy.almanac.Matrix;
 import com.obliquity.astronomy.almanac.MovingPoint;
 import com.obliquity.astronomy.almanac.PlanetCentre;
 import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
 
 /*
  * This class reads asteroid ephemeris files generated by the Minor
@@ -231,7 +232,7 @@ public class AsteroidEphemerisReader {
 	private void analyseAsteroidEphemerisRecord(AsteroidEphemerisRecord record) throws JPLEphemerisException {
 		double UT = record.date.getJulianDate();
 		
-		double TT = UT + erm.deltaT(UT);
+		double TT = TimeScales.ttFromUT(UT);
 		
 		Vector asteroid = new Vector(cos(record.ra) * cos(record.dec), sin(record.ra) * cos(record.dec), sin(record.dec));
 		
@@ -0,0 +1,275 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.TerrestrialObserver;
+import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevEphemeris;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevFitter;
+
+/*
+ * This class fits Chebyshev segments to the position of a body or of a
+ * terrestrial observer, writes them to a file, then reads the file back and
+ * compares it with the original at random times.
+ */
+
+public class BuildChebyshevEphemeris {
+	public static void main(String[] args) {
+		String filename = null;
+		String bodyname = null;
+		String outputFilename = null;
+		double jdStart = Double.NaN, jdEnd = Double.NaN;
+		double tolerance = 1.0;
+		int nCoeffs = ChebyshevFitter.DEFAULT_NUMBER_OF_COEFFICIENTS;
+		double latitude = Double.NaN, longitude = Double.NaN;
+		
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i].toLowerCase()) {
+			case "-ephemeris":
+				filename = args[++i];
+				break;
+				
+			case "-body":
+				bodyname = args[++i];
+				break;
+				
+			case "-output":
+				outputFilename = args[++i];
+				break;
+				
+			case "-start":
+				jdStart = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-end":
+				jdEnd = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-tolerance":
+				tolerance = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-coefficients":
+				nCoeffs = Integer.parseInt(args[++i]);
+				break;
+				
+			case "-latitude":
+				latitude = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-longitude":
+				longitude = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-help":
+				showUsage(null);
+				System.exit(0);
+				return;
+				
+			default:
+				showUsage("Unknown option: " + args[i]);
+				System.exit(1);
+			}
+		}
+		
+		if (filename == null || bodyname == null || outputFilename == null || Double.isNaN(jdStart)
+				|| Double.isNaN(jdEnd)) {
+			showUsage("One or more mandatory options are missing.");
+			System.exit(1);
+		}
+		
+		try {
+			JPLEphemeris ephemeris = new JPLEphemeris(filename, jdStart - 1.0, jdEnd + 1.0);
+			
+			MovingPoint mp = null;
+			
+			if (bodyname.equalsIgnoreCase("observer")) {
+				if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+					showUsage("The observer requires -latitude and -longitude.");
+					System.exit(1);
+				}
+				
+				mp = new TerrestrialObserver(ephemeris, new IAUEarthRotationModel(), Math.toRadians(latitude),
+						Math.toRadians(longitude), 0.0);
+			} else
+				mp = createBody(ephemeris, bodyname);
+			
+			if (mp == null) {
+				showUsage("Unknown body name: " + bodyname);
+				System.exit(1);
+			}
+			
+			run(mp, jdStart, jdEnd, tolerance, nCoeffs, new File(outputFilename));
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static MovingPoint createBody(JPLEphemeris ephemeris, String bodyname) {
+		switch (bodyname.toLowerCase()) {
+		case "sun":
+			return new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+			
+		case "mercury":
+			return new PlanetCentre(ephemeris, JPLEphemeris.MERCURY);
+			
+		case "venus":
+			return new PlanetCentre(ephemeris, JPLEphemeris.VENUS);
+			
+		case "earth":
+			return new EarthCentre(ephemeris);
+			
+		case "moon":
+			return new MoonCentre(ephemeris);
+			
+		case "mars":
+			return new PlanetCentre(ephemeris, JPLEphemeris.MARS);
+			
+		case "jupiter":
+			return new PlanetCentre(ephemeris, JPLEphemeris.JUPITER);
+			
+		case "saturn":
+			return new PlanetCentre(ephemeris, JPLEphemeris.SATURN);
+			
+		case "uranus":
+			return new PlanetCentre(ephemeris, JPLEphemeris.URANUS);
+			
+		case "neptune":
+			return new PlanetCentre(ephemeris, JPLEphemeris.NEPTUNE);
+			
+		case "pluto":
+			return new PlanetCentre(ephemeris, JPLEphemeris.PLUTO);
+			
+		default:
+			return null;
+		}
+	}
+	
+	private static void run(MovingPoint mp, double jdStart, double jdEnd, double tolerance, int nCoeffs,
+			File outputFile) throws IOException, JPLEphemerisException {
+		double AU = mp.getEphemeris().getAU();
+		
+		ChebyshevFitter fitter = new ChebyshevFitter();
+		
+		fitter.setTolerance(tolerance / AU);
+		fitter.setNumberOfCoefficients(nCoeffs);
+		
+		long startTime = System.nanoTime();
+		
+		ChebyshevEphemeris fitted = fitter.createEphemeris(mp, jdStart, jdEnd);
+		
+		long fittedTime = System.nanoTime();
+		
+		fitted.write(outputFile);
+		
+		ChebyshevEphemeris reread = ChebyshevEphemeris.read(outputFile, mp.getEphemeris());
+		
+		System.out.printf("Fitted %d segments in %.3f s using %d evaluations, with %d rejected segments\n",
+				fitted.getNumberOfSegments(), 1.0e-9 * (fittedTime - startTime), fitter.getNumberOfEvaluations(),
+				fitter.getNumberOfRejectedSegments());
+		System.out.printf("Maximum error at check points: %.6f km\n", fitter.getMaximumError() * AU);
+		System.out.printf("Wrote %s (%d bytes)\n", outputFile, outputFile.length());
+		
+		Random random = new Random(1);
+		
+		int nTests = 100000;
+		
+		double[] times = new double[nTests];
+		
+		for (int i = 0; i < nTests; i++)
+			times[i] = jdStart + random.nextDouble() * (jdEnd - jdStart);
+		
+		Vector p = new Vector(), q = new Vector();
+		
+		double maxError = 0.0;
+		
+		for (int i = 0; i < nTests; i++) {
+			mp.getPosition(times[i], p);
+			reread.getPosition(times[i], q);
+			
+			p.subtract(q);
+			
+			maxError = Math.max(maxError, p.magnitude());
+		}
+		
+		System.out.printf("Maximum error at %d random times: %.6f km\n", nTests, maxError * AU);
+		
+		startTime = System.nanoTime();
+		
+		for (int i = 0; i < nTests; i++)
+			mp.getPosition(times[i], p);
+		
+		long originalTime = System.nanoTime();
+		
+		for (int i = 0; i < nTests; i++)
+			reread.getPosition(times[i], q);
+		
+		long chebyshevTime = System.nanoTime();
+		
+		System.out.printf("Time per position: original %.3f us, Chebyshev %.3f us\n",
+				1.0e-3 * (originalTime - startTime) / nTests, 1.0e-3 * (chebyshevTime - originalTime) / nTests);
+	}
+	
+	private static void showUsage(String message) {
+		if (message != null) {
+			System.err.print("ERROR: ");
+			System.err.println(message);
+			System.err.println();
+		}
+		
+		String[] lines = {
+				"MANDATORY OPTIONS:",
+				"\t-ephemeris\tName of JPL ephemeris file",
+				"\t-body\t\tName of body, or \"observer\" for a terrestrial observer",
+				"\t-start\t\tStart date as a Julian Date (TDB)",
+				"\t-end\t\tEnd date as a Julian Date (TDB)",
+				"\t-output\t\tName of output file",
+				"",
+				"OPTIONAL PARAMETERS:",
+				"\t-tolerance\tMaximum position error in km [default: 1.0]",
+				"\t-coefficients\tNumber of coefficients per segment [default: " +
+						ChebyshevFitter.DEFAULT_NUMBER_OF_COEFFICIENTS + "]",
+				"\t-latitude\tLatitude of observer in degrees",
+				"\t-longitude\tLongitude of observer in degrees"
+		};
+		
+		for (String line : lines)
+			System.err.println(line);
+	}
+}
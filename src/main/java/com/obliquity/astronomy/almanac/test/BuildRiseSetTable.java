@@ -0,0 +1,319 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.LocalVisibility;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.Place;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.RiseSetEvent;
+import com.obliquity.astronomy.almanac.RiseSetEventType;
+import com.obliquity.astronomy.almanac.RiseSetType;
+import com.obliquity.astronomy.almanac.riseset.RiseSetTable;
+import com.obliquity.astronomy.almanac.riseset.RiseSetTableBuilder;
+
+public class BuildRiseSetTable {
+	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
+	
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final String[] BODY_NAMES = { "mercury", "venus", "emb", "mars", "jupiter", "saturn",
+			"uranus", "neptune", "pluto", "moon", "sun" };
+
+	public static void main(String args[]) {
+		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String sitesfile = null;
+		String bodyname = "sun";
+		String startdate = null;
+		String outputfile = null;
+		String tablefile = null;
+		int nDays = 366;
+		int nThreads = 0;
+		int nQueries = 0;
+		int nVerify = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-sites"))
+				sitesfile = args[++i];
+
+			if (args[i].equalsIgnoreCase("-body"))
+				bodyname = args[++i];
+
+			if (args[i].equalsIgnoreCase("-startdate"))
+				startdate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-days"))
+				nDays = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-output"))
+				outputfile = args[++i];
+
+			if (args[i].equalsIgnoreCase("-table"))
+				tablefile = args[++i];
+
+			if (args[i].equalsIgnoreCase("-threads"))
+				nThreads = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-queries"))
+				nQueries = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-verify"))
+				nVerify = Integer.parseInt(args[++i]);
+		}
+		
+		boolean building = sitesfile != null && startdate != null && outputfile != null;
+
+		if ((filename == null || !building) && tablefile == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		if (nVerify > 0 && filename == null) {
+			System.err.println("An ephemeris is needed to verify the table");
+			System.exit(1);
+		}
+		
+		try {
+			JPLEphemeris ephemeris = null;
+			
+			if (building) {
+				int bodyCode = parseBodyName(bodyname);
+				
+				List<String> names = new ArrayList<String>();
+				List<Place> places = new ArrayList<Place>();
+				
+				readSites(sitesfile, names, places);
+				
+				Date date = datefmt.parse(startdate);
+				double jdstart = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+				
+				ephemeris = new JPLEphemeris(filename, jdstart - 1.0, jdstart + nDays + 1.0);
+				
+				RiseSetTableBuilder builder = new RiseSetTableBuilder(ephemeris, nThreads);
+				
+				long ticks = System.nanoTime();
+				
+				builder.build(bodyCode, places.toArray(new Place[0]), names.toArray(new String[0]), jdstart, nDays,
+						new File(outputfile));
+				
+				ticks = System.nanoTime() - ticks;
+				
+				builder.shutdown();
+				
+				System.out.printf("Built table of %d sites x %d days with %d threads in %.3f seconds\n", places.size(),
+						nDays, builder.getThreadCount(), 1.0e-9 * (double)ticks);
+				
+				tablefile = outputfile;
+			} else if (filename != null)
+				ephemeris = new JPLEphemeris(filename);
+			
+			RiseSetTable table = new RiseSetTable(tablefile);
+			
+			System.out.printf("Table for %s: %d sites, %d days from JD %.1f, %d columns\n", table.getBodyName(),
+					table.getNumberOfSites(), table.getNumberOfDays(), table.getStartDate(),
+					table.getNumberOfColumns());
+			
+			if (nQueries > 0)
+				timeQueries(table, nQueries);
+			
+			if (nVerify > 0)
+				verify(table, ephemeris, nVerify);
+			
+			table.close();
+		} catch (JPLEphemerisException | IOException | ParseException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static int parseBodyName(String bodyname) {
+		for (int i = 0; i < BODY_NAMES.length; i++)
+			if (bodyname.equalsIgnoreCase(BODY_NAMES[i]) && i != JPLEphemeris.EMB)
+				return i;
+		
+		throw new IllegalArgumentException("Unknown body name: \"" + bodyname + "\"");
+	}
+	
+	/*
+	 * Each line of the sites file contains a name (without spaces), the
+	 * latitude and longitude in degrees (east positive) and optionally the
+	 * height in metres.  Blank lines and lines beginning with # are ignored.
+	 */
+	
+	private static void readSites(String filename, List<String> names, List<Place> places) throws IOException {
+		try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+			String line;
+			
+			while ((line = br.readLine()) != null) {
+				line = line.trim();
+				
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				
+				String[] words = line.split("\\s+");
+				
+				if (words.length < 3)
+					throw new IOException("Invalid line in sites file: \"" + line + "\"");
+				
+				double latitude = Math.toRadians(Double.parseDouble(words[1]));
+				double longitude = Math.toRadians(Double.parseDouble(words[2]));
+				double height = words.length > 3 ? Double.parseDouble(words[3]) : 0.0;
+				
+				names.add(words[0]);
+				places.add(new Place(latitude, longitude, height, 0.0));
+			}
+		}
+	}
+	
+	private static void timeQueries(RiseSetTable table, int nQueries) {
+		Random random = new Random(1);
+		
+		double[] times = new double[table.getNumberOfColumns()];
+		
+		double sum = 0.0;
+		
+		long ticks = System.nanoTime();
+		
+		for (int i = 0; i < nQueries; i++) {
+			int site = random.nextInt(table.getNumberOfSites());
+			int day = random.nextInt(table.getNumberOfDays());
+			
+			table.getEventTimes(site, day, times);
+			
+			if (!Double.isNaN(times[RiseSetTable.TRANSIT]))
+				sum += times[RiseSetTable.TRANSIT];
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		System.out.printf("%d random lookups in %.3f ms (%.1f ns per lookup, checksum %.3f)\n", nQueries,
+				1.0e-6 * (double)ticks, (double)ticks/(double)nQueries, sum);
+	}
+	
+	/*
+	 * Compares random entries in the table with rising and setting times
+	 * calculated directly, and reports the largest difference in seconds.
+	 */
+	
+	private static void verify(RiseSetTable table, JPLEphemeris ephemeris, int nVerify)
+			throws JPLEphemerisException {
+		int bodyCode = table.getBodyCode();
+		
+		EarthCentre earth = new EarthCentre(ephemeris);
+		
+		MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+		
+		MovingPoint target = bodyCode == JPLEphemeris.SUN ? sun
+				: (bodyCode == JPLEphemeris.MOON ? new MoonCentre(ephemeris) : new PlanetCentre(ephemeris, bodyCode));
+		
+		ApparentPlace ap = new ApparentPlace(earth, target, sun, new IAUEarthRotationModel());
+		
+		LocalVisibility lv = new LocalVisibility();
+		
+		Random random = new Random(2);
+		
+		double maxError = 0.0;
+		int mismatches = 0;
+		
+		for (int i = 0; i < nVerify; i++) {
+			int site = random.nextInt(table.getNumberOfSites());
+			int day = random.nextInt(table.getNumberOfDays());
+			
+			double jd = table.getStartDate() + day;
+			
+			double rise = Double.NaN, set = Double.NaN;
+			
+			for (RiseSetEvent event : lv.findRiseSetEvents(ap, table.getPlace(site), jd, RiseSetType.UPPER_LIMB)) {
+				if (event.date < jd || event.date >= jd + 1.0)
+					continue;
+				
+				if (event.type == RiseSetEventType.RISE && Double.isNaN(rise))
+					rise = event.date;
+				else if (event.type == RiseSetEventType.SET && Double.isNaN(set))
+					set = event.date;
+			}
+			
+			double[] expected = { rise, set };
+			double[] actual = { table.getEventTime(site, day, RiseSetTable.RISE),
+					table.getEventTime(site, day, RiseSetTable.SET) };
+			
+			for (int j = 0; j < 2; j++) {
+				if (Double.isNaN(expected[j]) != Double.isNaN(actual[j]))
+					mismatches++;
+				else if (!Double.isNaN(expected[j]))
+					maxError = Math.max(maxError, Math.abs(expected[j] - actual[j]) * 86400.0);
+			}
+		}
+		
+		System.out.printf("Verified %d entries: %d mismatches, largest difference %.3f seconds\n", nVerify,
+				mismatches, maxError);
+	}
+	
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS TO BUILD A TABLE");
+		System.err.println("\t-ephemeris\tName of ephemeris file");
+		System.err.println("\t-sites\t\tName of file containing sites (name latitude longitude [height])");
+		System.err.println("\t-startdate\tStart date");
+		System.err.println("\t-output\t\tName of table file to create");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS TO BUILD A TABLE");
+		System.err.println("\t-body\t\tName of body [default: sun]");
+		System.err.println("\t-days\t\tNumber of days [default: 366]");
+		System.err.println("\t-threads\tNumber of threads to use [default: number of processors]");
+		System.err.println();
+		System.err.println("TO READ AN EXISTING TABLE");
+		System.err.println("\t-table\t\tName of table file");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-queries\tTime this many random lookups");
+		System.err.println("\t-verify\t\tCheck this many random entries against a direct calculation");
+	}
+}
@@ -0,0 +1,323 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.star.Appulse;
+import com.obliquity.astronomy.almanac.star.AppulseSearch;
+import com.obliquity.astronomy.almanac.star.SkyIndex;
+import com.obliquity.astronomy.almanac.star.StarCatalogue;
+import com.obliquity.astronomy.almanac.star.StarCatalogueReader;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
+
+/*
+ * This class finds every appulse of the Moon and planets to the stars in a
+ * catalogue over a range of dates, using a spatial index of the catalogue.
+ */
+
+public class CatalogueAppulse {
+	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd");
+
+	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd/HH:mm");
+
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	private static final double ONE_ARCSECOND = Math.PI / (180.0 * 3600.0);
+	
+	private static final String[] BODY_NAMES = { "Mercury", "Venus", "Earth", "Mars", "Jupiter", "Saturn",
+			"Uranus", "Neptune", "Pluto", "Moon", "Sun" };
+	
+	private static final String DEFAULT_BODIES = "moon,mercury,venus,mars,jupiter,saturn,uranus,neptune";
+
+	public static void main(String args[]) {
+		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+		String ephemerisFilename = null;
+		String bodies = DEFAULT_BODIES;
+		String startdate = null;
+		String enddate = null;
+		double limit = 60.0;
+		double margin = 60.0;
+		double cellSize = 1.0;
+		int nRandom = 0;
+		
+		StarCatalogue catalogue = new StarCatalogue();
+		StarCatalogueReader reader = new StarCatalogueReader();
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i].toLowerCase()) {
+				case "-ephemeris":
+					ephemerisFilename = args[++i];
+					break;
+					
+				case "-catalogue":
+					try (InputStream is = new FileInputStream(args[++i])) {
+						reader.readDelimited(is, catalogue);
+					}
+					break;
+					
+				case "-star":
+					reader.readProperties(new File(args[++i]), catalogue);
+					break;
+					
+				case "-random":
+					nRandom = Integer.parseInt(args[++i]);
+					break;
+					
+				case "-bodies":
+					bodies = args[++i];
+					break;
+					
+				case "-startdate":
+					startdate = args[++i];
+					break;
+					
+				case "-enddate":
+					enddate = args[++i];
+					break;
+					
+				case "-limit":
+					limit = Double.parseDouble(args[++i]);
+					break;
+					
+				case "-margin":
+					margin = Double.parseDouble(args[++i]);
+					break;
+					
+				case "-cellsize":
+					cellSize = Double.parseDouble(args[++i]);
+					break;
+					
+				default:
+					System.err.println("Unknown option: " + args[i]);
+					showUsage();
+					System.exit(1);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		if (ephemerisFilename == null || startdate == null || enddate == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		if (nRandom > 0)
+			addRandomStars(catalogue, nRandom);
+		
+		if (catalogue.size() == 0) {
+			System.err.println("The catalogue is empty");
+			showUsage();
+			System.exit(1);
+		}
+		
+		List<Integer> bodyCodes = new ArrayList<Integer>();
+		
+		for (String bodyName : bodies.split(",")) {
+			int kBody = parseBody(bodyName);
+			
+			if (kBody < 0) {
+				System.err.println("Unknown body name: \"" + bodyName + "\"");
+				System.exit(1);
+			}
+			
+			bodyCodes.add(kBody);
+		}
+		
+		double jdstart = 0.0, jdfinish = 0.0;
+		
+		try {
+			jdstart = UNIX_EPOCH_AS_JD + ((double) parseDate(startdate).getTime()) / MILLISECONDS_PER_DAY;
+			jdfinish = UNIX_EPOCH_AS_JD + ((double) parseDate(enddate).getTime()) / MILLISECONDS_PER_DAY;
+		} catch (ParseException e) {
+			System.err.println("Failed to parse date: " + e.getMessage());
+			System.exit(1);
+		}
+		
+		CatalogueAppulse runner = new CatalogueAppulse();
+		
+		try {
+			runner.run(ephemerisFilename, catalogue, bodyCodes, jdstart, jdfinish, limit * ONE_ARCSECOND,
+					margin * ONE_ARCSECOND, cellSize * Math.PI / 180.0);
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static void addRandomStars(StarCatalogue catalogue, int n) {
+		Random random = new Random(271828183L);
+		
+		for (int i = 0; i < n; i++) {
+			double ra = 2.0 * Math.PI * random.nextDouble();
+			double dec = Math.asin(2.0 * random.nextDouble() - 1.0);
+			
+			catalogue.addStar("R" + i, ra, dec, 0.0, 0.0, 0.0, 0.0, StarCatalogue.J2000, Double.NaN);
+		}
+	}
+	
+	private void run(String ephemerisFilename, StarCatalogue catalogue, List<Integer> bodyCodes, double jdstart,
+			double jdfinish, double limit, double margin, double cellSize) throws IOException, JPLEphemerisException {
+		double tstart = TimeScales.ttFromUT(jdstart);
+		double tfinish = TimeScales.ttFromUT(jdfinish);
+		
+		JPLEphemeris ephemeris = new JPLEphemeris(ephemerisFilename, tstart - 2.0, tfinish + 2.0);
+		
+		long startTime = System.nanoTime();
+		
+		SkyIndex index = new SkyIndex(catalogue, cellSize);
+		
+		long indexedTime = System.nanoTime();
+		
+		System.err.printf("Indexed %d stars into %d cells in %.3f s\n", catalogue.size(), index.getCellCount(),
+				1.0e-9 * (indexedTime - startTime));
+		
+		MovingPoint earth = new EarthCentre(ephemeris);
+		MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+		
+		AppulseSearch search = new AppulseSearch(index, earth, sun);
+		
+		search.setLimit(limit);
+		search.setMargin(margin);
+		
+		List<Appulse> appulses = new ArrayList<Appulse>();
+		
+		for (int kBody : bodyCodes) {
+			MovingPoint body = kBody == JPLEphemeris.MOON ? new MoonCentre(ephemeris) : new PlanetCentre(ephemeris, kBody);
+			
+			double step = kBody == JPLEphemeris.MOON ? 0.25 : 1.0;
+			
+			long bodyStartTime = System.nanoTime();
+			
+			appulses.addAll(search.search(body, tstart, tfinish, step));
+			
+			System.err.printf("Searched %s with %d candidate positions in %.3f s\n", BODY_NAMES[kBody],
+					search.getCandidateCount(), 1.0e-9 * (System.nanoTime() - bodyStartTime));
+		}
+		
+		search.shutdown();
+		
+		appulses.sort(null);
+		
+		final double AU = ephemeris.getAU();
+		
+		for (Appulse appulse : appulses) {
+			double jd = appulse.getTime();
+			
+			jd = TimeScales.utFromTT(jd);
+			
+			AstronomicalDate ad = new AstronomicalDate(jd);
+			
+			ad.roundToNearestMinute();
+			
+			double sd = calculateSemiDiameter(appulse.getBodyCode(), appulse.getGeometricDistance() * AU);
+			
+			double separation = appulse.getSeparation() / ONE_ARCSECOND;
+			
+			System.out.printf("%04d-%02d-%02d  %02d:%02d  %-8s  %-20s  %8.2f  %8.2f  %s\n", ad.getYear(), ad.getMonth(),
+					ad.getDay(), ad.getHour(), ad.getMinute(), BODY_NAMES[appulse.getBodyCode()],
+					catalogue.getName(appulse.getStarIndex()), separation, sd, separation < sd ? "OCCULTATION" : "");
+		}
+	}
+	
+	/*
+	 * Mean radii of the bodies in km.
+	 */
+	
+	private static final double[] BODY_RADII = { 2439.7, 6051.8, 6371.0, 3389.5, 69911.0, 58232.0, 25362.0, 24622.0,
+			1188.3, 1737.4, 696000.0 };
+	
+	private double calculateSemiDiameter(int targetCode, double d) {
+		return 3600.0 * (180.0/Math.PI) * Math.asin(BODY_RADII[targetCode] / d);
+	}
+	
+	private static void showUsage() {
+		String[] lines = { "MANDATORY PARAMETERS",
+				"\t-ephemeris\tName of ephemeris file",
+				"\t-startdate\tStart date",
+				"\t-enddate\tEnd date",
+				"",
+				"Valid date formats are YYYY-MM-DD or YYYY-MM-DD/hh:mm",
+				"",
+				"At least one of:",
+				"\t-catalogue\tName of delimited star catalogue file (Gaia or VizieR export)",
+				"\t-star\t\tName of star property file [may be repeated]",
+				"\t-random\t\tNumber of randomly generated stars to add",
+				"",
+				"OPTIONAL PARAMETERS",
+				"\t-bodies\t\tComma-separated list of bodies [default: " + DEFAULT_BODIES + "]",
+				"\t-limit\t\tLargest separation to report, in arcseconds [default: 60]",
+				"\t-margin\t\tMargin for aberration and proper motion, in arcseconds [default: 60]",
+				"\t-cellsize\tSize of index cells, in degrees [default: 1]",
+				"",
+				"Times are given in UT, for the geocentre."
+		};
+		
+		for (String line : lines)
+			System.err.println(line);		
+	}
+
+	private static Date parseDate(String str) throws ParseException {
+		try {
+			return datetimefmtIn.parse(str);
+		} catch (ParseException e) {
+			return datefmtIn.parse(str);
+		}
+	}
+
+	private static int parseBody(String bodyname) {
+		for (int i = 0; i < BODY_NAMES.length; i++)
+			if (bodyname.equalsIgnoreCase(BODY_NAMES[i]) && i != JPLEphemeris.EMB)
+				return i;
+
+		return -1;
+	}
+}
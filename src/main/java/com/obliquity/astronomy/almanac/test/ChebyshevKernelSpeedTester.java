@@ -0,0 +1,230 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.obliquity.astronomy.almanac.ChebyshevKernel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+
+public class ChebyshevKernelSpeedTester {
+	private static final int RECORD_LENGTH = 1018;
+	private static final int NUMBER_OF_TABLES = 64;
+	private static final int ROUNDS = 5;
+	
+	public static void main(String args[]) {
+		String filename = null;
+		int minCoefficients = 11;
+		int maxCoefficients = 15;
+		int nCalls = 10000000;
+		
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+			
+			if (args[i].equalsIgnoreCase("-mincoefficients"))
+				minCoefficients = Integer.parseInt(args[++i]);
+			
+			if (args[i].equalsIgnoreCase("-maxcoefficients"))
+				maxCoefficients = Integer.parseInt(args[++i]);
+			
+			if (args[i].equalsIgnoreCase("-calls"))
+				nCalls = Integer.parseInt(args[++i]);
+		}
+		
+		if (minCoefficients < 2 || maxCoefficients < minCoefficients || nCalls < 1) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		ChebyshevKernel scalar = ChebyshevKernel.getScalarKernel();
+		ChebyshevKernel vector = ChebyshevKernel.getVectorKernel();
+		
+		System.out.println("Selected kernel: " + ChebyshevKernel.getInstance().getName());
+		
+		if (vector == null)
+			System.out.println("The Vector API is not available: run with --add-modules jdk.incubator.vector");
+		
+		System.out.println();
+		System.out.println(" N  velocity     scalar ns     vector ns   speed-up   max difference");
+		
+		for (int n = minCoefficients; n <= maxCoefficients; n++) {
+			compareKernels(scalar, vector, n, false, nCalls);
+			compareKernels(scalar, vector, n, true, nCalls);
+		}
+		
+		if (filename != null) {
+			try {
+				timeEphemeris(filename, nCalls);
+			} catch (JPLEphemerisException | IOException e) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+		}
+		
+		System.exit(0);
+	}
+	
+	private static void compareKernels(ChebyshevKernel scalar, ChebyshevKernel vector, int nCoeffs,
+			boolean withVelocity, int nCalls) {
+		Random random = new Random(1);
+		
+		double[] data = new double[RECORD_LENGTH];
+		
+		for (int i = 0; i < data.length; i++)
+			data[i] = random.nextGaussian() / (double)(1 + (i % nCoeffs));
+		
+		/*
+		 * Pre-compute the polynomials for a set of arguments, so that only the
+		 * kernels are timed.
+		 */
+		
+		double[][] P = new double[NUMBER_OF_TABLES][nCoeffs];
+		double[][] V = new double[NUMBER_OF_TABLES][nCoeffs];
+		int[] offsets = new int[NUMBER_OF_TABLES];
+		
+		for (int k = 0; k < NUMBER_OF_TABLES; k++) {
+			double x = 2.0 * random.nextDouble() - 1.0;
+			
+			P[k][0] = 1.0;
+			P[k][1] = x;
+			V[k][1] = 1.0;
+			
+			for (int j = 2; j < nCoeffs; j++) {
+				P[k][j] = 2.0 * x * P[k][j - 1] - P[k][j - 2];
+				V[k][j] = 2.0 * x * V[k][j - 1] - V[k][j - 2] + 2.0 * P[k][j - 1];
+			}
+			
+			offsets[k] = 2 + random.nextInt(RECORD_LENGTH - 2 - 3 * nCoeffs);
+		}
+		
+		double scalarTime = Double.MAX_VALUE, vectorTime = Double.MAX_VALUE;
+		
+		for (int round = 0; round < ROUNDS; round++) {
+			scalarTime = Math.min(scalarTime, timeKernel(scalar, data, offsets, P, V, nCoeffs, withVelocity, nCalls));
+			
+			if (vector != null)
+				vectorTime = Math.min(vectorTime, timeKernel(vector, data, offsets, P, V, nCoeffs, withVelocity, nCalls));
+		}
+		
+		if (vector == null) {
+			System.out.printf("%2d  %-8s %12.2f\n", nCoeffs, withVelocity ? "yes" : "no", scalarTime);
+			return;
+		}
+		
+		double[] pos1 = new double[3], vel1 = new double[3];
+		double[] pos2 = new double[3], vel2 = new double[3];
+		
+		double maxDiff = 0.0;
+		
+		for (int k = 0; k < NUMBER_OF_TABLES; k++) {
+			scalar.evaluate(data, offsets[k], nCoeffs, 3, P[k], V[k], pos1, vel1);
+			vector.evaluate(data, offsets[k], nCoeffs, 3, P[k], V[k], pos2, vel2);
+			
+			for (int i = 0; i < 3; i++)
+				maxDiff = Math.max(maxDiff, Math.max(Math.abs(pos1[i] - pos2[i]), Math.abs(vel1[i] - vel2[i])));
+		}
+		
+		System.out.printf("%2d  %-8s %12.2f  %12.2f  %9.2f   %10.3e\n", nCoeffs, withVelocity ? "yes" : "no",
+				scalarTime, vectorTime, scalarTime / vectorTime, maxDiff);
+	}
+	
+	private static double timeKernel(ChebyshevKernel kernel, double[] data, int[] offsets, double[][] P, double[][] V,
+			int nCoeffs, boolean withVelocity, int nCalls) {
+		double[] pos = new double[3];
+		double[] vel = withVelocity ? new double[3] : null;
+		
+		double checksum = 0.0;
+		
+		long ticks = System.nanoTime();
+		
+		for (int j = 0; j < nCalls; j++) {
+			int k = j & (NUMBER_OF_TABLES - 1);
+			
+			kernel.evaluate(data, offsets[k], nCoeffs, 3, P[k], withVelocity ? V[k] : null, pos, vel);
+			
+			checksum += pos[0];
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		if (Double.isNaN(checksum))
+			System.out.println("Checksum is NaN");
+		
+		return (double)ticks / (double)nCalls;
+	}
+	
+	private static void timeEphemeris(String filename, int nCalls) throws JPLEphemerisException, IOException {
+		JPLEphemeris ephemeris = new JPLEphemeris(filename);
+		
+		double tEarliest = ephemeris.getEarliestDate();
+		double tSpan = ephemeris.getLatestDate() - tEarliest;
+		
+		Random random = new Random(1);
+		
+		double[] times = new double[4096];
+		
+		for (int i = 0; i < times.length; i++)
+			times[i] = tEarliest + tSpan * random.nextDouble();
+		
+		Vector position = new Vector();
+		Vector velocity = new Vector();
+		
+		System.out.println();
+		System.out.println("Full ephemeris evaluation with the " + ChebyshevKernel.getInstance().getName() + " kernel:");
+		
+		for (int round = 0; round < ROUNDS; round++) {
+			long ticks = System.nanoTime();
+			
+			for (int j = 0; j < nCalls; j++)
+				ephemeris.calculatePositionAndVelocity(times[j & (times.length - 1)], j % JPLEphemeris.SUN, position, null);
+			
+			double positionOnly = (double)(System.nanoTime() - ticks) / (double)nCalls;
+			
+			ticks = System.nanoTime();
+			
+			for (int j = 0; j < nCalls; j++)
+				ephemeris.calculatePositionAndVelocity(times[j & (times.length - 1)], j % JPLEphemeris.SUN, position, velocity);
+			
+			double withVelocity = (double)(System.nanoTime() - ticks) / (double)nCalls;
+			
+			System.out.printf("Round %d: position %8.2f ns, position and velocity %8.2f ns\n", round + 1, positionOnly, withVelocity);
+		}
+	}
+	
+	public static void showUsage() {
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-ephemeris\tName of ephemeris file, to time complete evaluations");
+		System.err.println("\t-mincoefficients\tSmallest number of coefficients [default: 11]");
+		System.err.println("\t-maxcoefficients\tLargest number of coefficients [default: 15]");
+		System.err.println("\t-calls\t\tNumber of calls per timing [default: 10000000]");
+		System.err.println();
+		System.err.println("The vector kernel is used when JAVA_OPTS contains --add-modules jdk.incubator.vector.");
+		System.err.println("Set -Dastrojava.chebyshev.kernel=scalar to force the scalar kernel for the ephemeris timing.");
+	}
+}
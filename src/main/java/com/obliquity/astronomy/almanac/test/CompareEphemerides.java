@@ -30,6 +30,8 @@ import java.util.Date;
 import java.util.TimeZone;
 
 import com.obliquity.astronomy.almanac.*;
+import com.obliquity.astronomy.almanac.comparison.EphemerisComparator;
+import com.obliquity.astronomy.almanac.comparison.EphemerisComparison;
 
 public class CompareEphemerides {
 	private static final DecimalFormat dfmta = new DecimalFormat("#0.000");
@@ -51,6 +53,8 @@ public class CompareEphemerides {
 		String startdate = null;
 		String enddate = null;
 		String stepsize = null;
+		boolean summary = false;
+		int nThreads = 0;
 
 		for (int i = 0; i < args.length; i++) {
 			if (args[i].equalsIgnoreCase("-ephemeris1"))
@@ -70,19 +74,40 @@ public class CompareEphemerides {
 
 			if (args[i].equalsIgnoreCase("-step"))
 				stepsize = args[++i];
+
+			if (args[i].equalsIgnoreCase("-summary"))
+				summary = true;
+
+			if (args[i].equalsIgnoreCase("-threads"))
+				nThreads = Integer.parseInt(args[++i]);
 		}
 
-		if (filename1 == null || filename2 == null || bodyname == null || startdate == null
+		if (filename1 == null || filename2 == null || (bodyname == null && !summary) || startdate == null
 				|| enddate == null) {
 			showUsage();
 			System.exit(1);
 		}
 
-		int kBody = parseBody(bodyname);
+		int[] bodies = null;
 
-		if (kBody < 0) {
-			System.err.println("Unknown body name: \"" + bodyname + "\"");
-			System.exit(1);
+		if (bodyname != null) {
+			String[] bodynames = bodyname.split(",");
+
+			bodies = new int[bodynames.length];
+
+			for (int i = 0; i < bodynames.length; i++) {
+				bodies[i] = parseBody(bodynames[i]);
+
+				if (bodies[i] < 0) {
+					System.err.println("Unknown body name: \"" + bodynames[i] + "\"");
+					System.exit(1);
+				}
+			}
+
+			if (bodies.length > 1 && !summary) {
+				System.err.println("Only one body may be specified unless -summary is used");
+				System.exit(1);
+			}
 		}
 
 		Date date = null;
@@ -130,6 +155,26 @@ public class CompareEphemerides {
 			System.exit(1);
 		}
 		
+		if (summary) {
+			EphemerisComparator comparator = new EphemerisComparator(ephemeris1, ephemeris2, nThreads);
+
+			if (bodies != null)
+				comparator.setBodies(bodies);
+
+			try {
+				EphemerisComparison comparison = comparator.compare(jdstart, jdfinish, jdstep);
+				comparison.print(System.out);
+			} catch (JPLEphemerisException jplee) {
+				jplee.printStackTrace();
+			}
+
+			comparator.shutdown();
+
+			return;
+		}
+
+		int kBody = bodies[0];
+
 		ApparentPlace ap1 = createApparentPlace(ephemeris1, kBody);
 		
 		ApparentPlace ap2 = createApparentPlace(ephemeris2, kBody);
@@ -189,6 +234,9 @@ public class CompareEphemerides {
 		if (bodyname.equalsIgnoreCase("sun"))
 			return JPLEphemeris.SUN;
 
+		if (bodyname.equalsIgnoreCase("emb"))
+			return JPLEphemeris.EMB;
+
 		if (bodyname.equalsIgnoreCase("moon"))
 			return JPLEphemeris.MOON;
 
@@ -246,5 +294,9 @@ public class CompareEphemerides {
 		System.err.println();
 		System.err.println("OPTIONAL PARAMETERS");
 		System.err.println("\t-step\t\tStep size (days)");
+		System.err.println("\t-summary\tPrint statistics for each body instead of every difference");
+		System.err.println("\t-threads\tNumber of threads to use with -summary [default: number of processors]");
+		System.err.println();
+		System.err.println("With -summary, -body is optional and may be a comma-separated list.");
 	}
 }
@@ -0,0 +1,223 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.CompressedEphemerisFile;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EphemerisCompressor;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.Vector;
+
+public class CompressEphemeris {
+	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
+	
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final String[] COMPONENT_NAMES = { "mercury", "venus", "emb", "mars", "jupiter", "saturn",
+			"uranus", "neptune", "pluto", "moon", "sun", "nutations", "librations" };
+
+	public static void main(String args[]) {
+		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String outputname = null;
+		String startdate = null;
+		String enddate = null;
+		double tolerance = EphemerisCompressor.DEFAULT_TOLERANCE;
+		double angleTolerance = EphemerisCompressor.DEFAULT_ANGLE_TOLERANCE;
+		int nSamples = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-output"))
+				outputname = args[++i];
+
+			if (args[i].equalsIgnoreCase("-startdate"))
+				startdate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-enddate"))
+				enddate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-tolerance"))
+				tolerance = Double.parseDouble(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-angletolerance"))
+				angleTolerance = Double.parseDouble(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-verify"))
+				nSamples = Integer.parseInt(args[++i]);
+		}
+
+		if (filename == null || outputname == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		try {
+			double jdstart = startdate == null ? 0.0 : parseDate(startdate);
+			double jdfinish = enddate == null ? 0.0 : parseDate(enddate);
+			
+			File output = new File(outputname);
+			
+			EphemerisCompressor compressor = new EphemerisCompressor(tolerance, angleTolerance);
+			
+			long ticks = System.currentTimeMillis();
+			
+			compressor.compress(new File(filename), jdstart, jdfinish, output);
+			
+			ticks = System.currentTimeMillis() - ticks;
+			
+			System.out.printf("Compressed %d bytes to %d bytes (%.1f%%) in %d ms\n\n", compressor.getOriginalSize(),
+					compressor.getCompressedSize(),
+					100.0 * (double)compressor.getCompressedSize() / (double)compressor.getOriginalSize(), ticks);
+			
+			try (CompressedEphemerisFile compressed = new CompressedEphemerisFile(output)) {
+				verify(new File(filename), compressor, compressed, nSamples);
+			}
+		} catch (JPLEphemerisException | IOException | ParseException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static double parseDate(String str) throws ParseException {
+		Date date = datefmt.parse(str);
+		return UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+	}
+	
+	private static void verify(File source, EphemerisCompressor compressor, CompressedEphemerisFile compressed,
+			int nSamples) throws IOException, JPLEphemerisException {
+		double jdstart = compressed.getEarliestDate();
+		double jdfinish = compressed.getLatestDate();
+		
+		JPLEphemeris original = nSamples > 0 ? new JPLEphemeris(source, jdstart, jdfinish - 0.5 * compressed.getRecordSpan()) : null;
+		
+		JPLEphemeris ephemeris = compressed.getEphemeris(jdstart, jdstart);
+		
+		double[] observed = new double[COMPONENT_NAMES.length];
+		
+		Random random = new Random(1);
+		
+		Vector p1 = new Vector(), p2 = new Vector();
+		
+		for (int j = 0; j < nSamples; j++) {
+			double t = jdstart + (jdfinish - jdstart) * random.nextDouble();
+			
+			for (int k = 0; k < COMPONENT_NAMES.length; k++) {
+				if (!original.hasComponent(k))
+					continue;
+				
+				original.calculatePositionAndVelocity(t, k, p1, null);
+				ephemeris.calculatePositionAndVelocity(t, k, p2, null);
+				
+				// Only two coordinates are evaluated for nutations and librations.
+				double dx = p1.getX() - p2.getX();
+				double dy = p1.getY() - p2.getY();
+				double dz = k <= JPLEphemeris.SUN ? p1.getZ() - p2.getZ() : 0.0;
+				
+				observed[k] = Math.max(observed[k], Math.sqrt(dx * dx + dy * dy + dz * dz));
+			}
+		}
+		
+		System.out.println("Component     kept   error bound  observed error");
+		
+		for (int k = 0; k < COMPONENT_NAMES.length; k++) {
+			if (compressor.getFractionOfCoefficientsKept(k) == 0.0)
+				continue;
+			
+			String units = k <= JPLEphemeris.SUN ? "km " : "rad";
+			
+			System.out.printf("%-11s %5.1f%%  %10.3e %s  %10.3e %s\n", COMPONENT_NAMES[k],
+					100.0 * compressor.getFractionOfCoefficientsKept(k), compressed.getMaximumError(k), units,
+					observed[k], nSamples > 0 ? units : "(not verified)");
+		}
+		
+		/*
+		 * Evaluate a geocentric distance through the usual MovingPoint classes,
+		 * so that the compressed ephemeris is exercised the way an almanac
+		 * program would use it.
+		 */
+		
+		if (nSamples > 0) {
+			MovingPoint earth1 = new EarthCentre(original), mars1 = new PlanetCentre(original, JPLEphemeris.MARS);
+			MovingPoint earth2 = new EarthCentre(ephemeris), mars2 = new PlanetCentre(ephemeris, JPLEphemeris.MARS);
+			
+			double maxError = 0.0;
+			
+			long ticks = System.nanoTime();
+			
+			for (int j = 0; j < nSamples; j++) {
+				double t = jdstart + (jdfinish - jdstart) * random.nextDouble();
+				
+				Vector d1 = new Vector(mars1.getPosition(t));
+				d1.subtract(earth1.getPosition(t));
+				
+				Vector d2 = new Vector(mars2.getPosition(t));
+				d2.subtract(earth2.getPosition(t));
+				
+				d1.subtract(d2);
+				
+				maxError = Math.max(maxError, d1.magnitude() * original.getAU());
+			}
+			
+			ticks = System.nanoTime() - ticks;
+			
+			System.out.printf("\nEarth-Mars vector through MovingPoint: largest error %.3e km (%.0f ns per comparison)\n",
+					maxError, (double)ticks / (double)nSamples);
+			System.out.println("Records reconstructed on demand: " + ephemeris.getNumberOfDataRecords() + " of "
+					+ compressed.getNumberOfDataRecords());
+		}
+	}
+
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS");
+		System.err.println("\t-ephemeris\tName of binary JPL ephemeris file");
+		System.err.println("\t-output\t\tName of compressed ephemeris file to create");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-startdate\tStart date [default: start of ephemeris]");
+		System.err.println("\t-enddate\tEnd date [default: end of ephemeris]");
+		System.err.println("\t-tolerance\tLargest position error, in km [default: " + EphemerisCompressor.DEFAULT_TOLERANCE + "]");
+		System.err.println("\t-angletolerance\tLargest nutation or libration error, in radians [default: "
+				+ EphemerisCompressor.DEFAULT_ANGLE_TOLERANCE + "]");
+		System.err.println("\t-verify\t\tNumber of random instants at which to compare with the original");
+	}
+}
@@ -57,9 +57,6 @@ public class ConjunctionFinder {
 		}
 	};
 	
-	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd");
-
 	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
 	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
 
@@ -94,6 +91,11 @@ public class ConjunctionFinder {
 	}
 
 	public static void main(String args[]) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	public static int run(String[] args, PrintStream out, PrintStream err) {
+		SimpleDateFormat datefmtIn = new SimpleDateFormat("yyyy-MM-dd");
 		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
 
 		String filename = null;
@@ -129,27 +131,27 @@ public class ConjunctionFinder {
 
 		if (filename == null || startdate == null
 				|| enddate == null) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 		int kBody1 = body1name == null ? WILDCARD : parseBody(body1name);
 
 		if (kBody1 < 0) {
-			System.err.println("Unknown name for -body1: \"" + body1name + "\"");
-			System.exit(1);
+			err.println("Unknown name for -body1: \"" + body1name + "\"");
+			return 1;
 		}
 
 		int kBody2 = body2name == null ? WILDCARD : parseBody(body2name);
 
 		if (kBody2 < 0) {
-			System.err.println("Unknown name for -body2: \"" + body2name + "\"");
-			System.exit(1);
+			err.println("Unknown name for -body2: \"" + body2name + "\"");
+			return 1;
 		}
 		
 		if (kBody1 == kBody2 && kBody1 != WILDCARD) {
-			System.err.println("Target bodies are the same.");
-			System.exit(1);
+			err.println("Target bodies are the same.");
+			return 1;
 		}
 
 		Date date = null;
@@ -157,10 +159,10 @@ public class ConjunctionFinder {
 		try {
 			date = datefmtIn.parse(startdate);
 		} catch (ParseException e) {
-			System.err.println(
+			err.println(
 					"Failed to parse \"" + startdate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
 		double jdstart = UNIX_EPOCH_AS_JD
@@ -169,10 +171,10 @@ public class ConjunctionFinder {
 		try {
 			date = datefmtIn.parse(enddate);
 		} catch (ParseException e) {
-			System.err.println(
+			err.println(
 					"Failed to parse \"" + enddate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
 		double jdfinish = UNIX_EPOCH_AS_JD
@@ -186,25 +188,27 @@ public class ConjunctionFinder {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		ConjunctionFinder finder = new ConjunctionFinder(ephemeris);
 		
 		try {
-			finder.run(kBody1, kBody2, jdstart, jdfinish, jdstep, inLongitude, System.out);
+			finder.run(kBody1, kBody2, jdstart, jdfinish, jdstep, inLongitude, out);
 		} catch (JPLEphemerisException e) {
-			e.printStackTrace();
+			e.printStackTrace(err);
 		}
+
+		return 0;
 	}
 
-	public static void showUsage() {
+	public static void showUsage(PrintStream err) {
 		String[] lines = { "MANDATORY PARAMETERS",
 				"\t-ephemeris\tName of ephemeris file",
 				"\t-startdate\tStart date",
@@ -229,7 +233,7 @@ public class ConjunctionFinder {
 		};
 		
 		for (String line : lines)
-			System.err.println(line);
+			err.println(line);
 	}
 
 	private static int parseBody(String bodyname) {
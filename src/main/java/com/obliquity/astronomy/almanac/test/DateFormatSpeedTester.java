@@ -0,0 +1,157 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.text.ParseException;
+import java.util.Random;
+
+import com.obliquity.astronomy.almanac.AstronomicalDate;
+import com.obliquity.astronomy.almanac.ISO8601Format;
+
+public class DateFormatSpeedTester {
+	private static final int NUMBER_OF_DATES = 4096;
+	private static final int ROUNDS = 5;
+	
+	public static void main(String args[]) {
+		double jdstart = 2305447.5;
+		double jdfinish = 2597640.5;
+		int nCalls = 2000000;
+		
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-startdate"))
+				jdstart = Double.parseDouble(args[++i]);
+			
+			if (args[i].equalsIgnoreCase("-enddate"))
+				jdfinish = Double.parseDouble(args[++i]);
+			
+			if (args[i].equalsIgnoreCase("-calls"))
+				nCalls = Integer.parseInt(args[++i]);
+		}
+		
+		if (!(jdfinish > jdstart) || nCalls < 1) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		Random random = new Random(1);
+		
+		double[] dates = new double[NUMBER_OF_DATES];
+		
+		for (int i = 0; i < dates.length; i++)
+			dates[i] = jdstart + (jdfinish - jdstart) * random.nextDouble();
+		
+		ISO8601Format format = new ISO8601Format(2);
+		
+		int nMismatches = 0;
+		double maxError = 0.0;
+		
+		for (double jd : dates) {
+			AstronomicalDate ad = new AstronomicalDate(jd);
+			
+			String expected = String.format("%04d-%02d-%02dT%02d:%02d:%05.2f", ad.getYear(), ad.getMonth(),
+					ad.getDay(), ad.getHour(), ad.getMinute(), ad.getSecond());
+			
+			String actual = format.format(jd);
+			
+			if (!expected.equals(actual)) {
+				nMismatches++;
+				System.out.println("String.format gives " + expected + " but ISO8601Format gives " + actual);
+			}
+			
+			try {
+				maxError = Math.max(maxError, Math.abs(ISO8601Format.parse(actual) - jd) * 86400.0);
+			} catch (ParseException e) {
+				System.err.println("Failed to parse \"" + actual + "\": " + e.getMessage());
+				System.exit(1);
+			}
+		}
+		
+		System.out.println("Formatted " + dates.length + " dates: " + nMismatches
+				+ " differ from String.format, maximum round-trip error " + String.format("%.4f", maxError)
+				+ " seconds");
+		
+		double oldTime = Double.MAX_VALUE, newTime = Double.MAX_VALUE;
+		
+		for (int round = 0; round < ROUNDS; round++) {
+			oldTime = Math.min(oldTime, timeStringFormat(dates, nCalls));
+			newTime = Math.min(newTime, timeISO8601Format(dates, nCalls, format));
+		}
+		
+		System.out.printf("String.format:  %8.1f ns per date\n", oldTime);
+		System.out.printf("ISO8601Format:  %8.1f ns per date\n", newTime);
+		System.out.printf("Speed-up:       %8.1f\n", oldTime / newTime);
+		
+		System.exit(0);
+	}
+	
+	private static double timeStringFormat(double[] dates, int nCalls) {
+		long checksum = 0;
+		
+		long ticks = System.nanoTime();
+		
+		for (int j = 0; j < nCalls; j++) {
+			AstronomicalDate ad = new AstronomicalDate(dates[j & (NUMBER_OF_DATES - 1)]);
+			
+			String s = String.format("%04d-%02d-%02dT%02d:%02d:%05.2f", ad.getYear(), ad.getMonth(), ad.getDay(),
+					ad.getHour(), ad.getMinute(), ad.getSecond());
+			
+			checksum += s.charAt(s.length() - 1);
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		if (checksum == 0)
+			System.out.println("Checksum is zero");
+		
+		return (double)ticks / (double)nCalls;
+	}
+	
+	private static double timeISO8601Format(double[] dates, int nCalls, ISO8601Format format) {
+		StringBuilder sb = new StringBuilder(32);
+		
+		long checksum = 0;
+		
+		long ticks = System.nanoTime();
+		
+		for (int j = 0; j < nCalls; j++) {
+			sb.setLength(0);
+			
+			format.format(dates[j & (NUMBER_OF_DATES - 1)], sb);
+			
+			checksum += sb.charAt(sb.length() - 1);
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		if (checksum == 0)
+			System.out.println("Checksum is zero");
+		
+		return (double)ticks / (double)nCalls;
+	}
+	
+	private static void showUsage() {
+		System.err.println("Usage: DateFormatSpeedTester [-startdate jd] [-enddate jd] [-calls n]");
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.chebyshev.CachedApparentPlace;
+
+public class ExerciseApparentPlaceCache {
+	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
+	
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final double RADIANS_TO_ARCSEC = 180.0 * 3600.0 / Math.PI;
+	
+	private static final String[] BODY_NAMES = { "mercury", "venus", "emb", "mars", "jupiter", "saturn",
+			"uranus", "neptune", "pluto", "moon", "sun" };
+
+	public static void main(String args[]) {
+		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String bodyname = null;
+		String startdate = null;
+		int nDays = 366;
+		int nSamples = 100000;
+		int nCoefficients = CachedApparentPlace.DEFAULT_NUMBER_OF_COEFFICIENTS;
+		double segmentLength = CachedApparentPlace.DEFAULT_SEGMENT_LENGTH;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-body"))
+				bodyname = args[++i];
+
+			if (args[i].equalsIgnoreCase("-startdate"))
+				startdate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-days"))
+				nDays = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-samples"))
+				nSamples = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-coefficients"))
+				nCoefficients = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-segment"))
+				segmentLength = Double.parseDouble(args[++i]);
+		}
+
+		if (filename == null || bodyname == null || startdate == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		int kBody = -1;
+		
+		for (int i = 0; i < BODY_NAMES.length; i++)
+			if (bodyname.equalsIgnoreCase(BODY_NAMES[i]) && i != JPLEphemeris.EMB)
+				kBody = i;
+		
+		if (kBody < 0) {
+			System.err.println("Unknown body name: \"" + bodyname + "\"");
+			System.exit(1);
+		}
+		
+		try {
+			Date date = datefmt.parse(startdate);
+			double jdstart = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+			
+			JPLEphemeris ephemeris = new JPLEphemeris(filename, jdstart - 1.0, jdstart + nDays + 1.0);
+			
+			run(ephemeris, kBody, jdstart, nDays, nSamples, nCoefficients, segmentLength);
+		} catch (JPLEphemerisException | IOException | ParseException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static void run(JPLEphemeris ephemeris, int kBody, double jdstart, int nDays, int nSamples,
+			int nCoefficients, double segmentLength) throws JPLEphemerisException {
+		EarthCentre earth = new EarthCentre(ephemeris);
+		
+		MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+		
+		MovingPoint target = kBody == JPLEphemeris.SUN ? sun
+				: (kBody == JPLEphemeris.MOON ? new MoonCentre(ephemeris) : new PlanetCentre(ephemeris, kBody));
+		
+		EarthRotationModel erm = new IAUEarthRotationModel();
+		
+		ApparentPlace exact = new ApparentPlace(earth, target, sun, erm);
+		
+		CachedApparentPlace cached = new CachedApparentPlace(new ApparentPlace(earth, target, sun, erm),
+				nCoefficients, segmentLength, CachedApparentPlace.DEFAULT_CAPACITY);
+		
+		Random random = new Random(1);
+		
+		double[] times = new double[nSamples];
+		
+		for (int i = 0; i < nSamples; i++)
+			times[i] = jdstart + nDays * random.nextDouble();
+		
+		long ticks = System.nanoTime();
+		
+		for (double t : times)
+			cached.calculateApparentPlace(t);
+		
+		ticks = System.nanoTime() - ticks;
+		
+		System.out.printf("First pass: %d queries, %d segments fitted, %.1f ns per query\n", nSamples,
+				cached.getMisses(), (double)ticks / (double)nSamples);
+		
+		double maxAngle = 0.0, maxMeanAngle = 0.0, maxJ2000Angle = 0.0, maxDistance = 0.0, maxVelocity = 0.0;
+		
+		long exactTicks = 0, cachedTicks = 0;
+		
+		for (double t : times) {
+			long t0 = System.nanoTime();
+			
+			exact.calculateApparentPlace(t);
+			
+			long t1 = System.nanoTime();
+			
+			cached.calculateApparentPlace(t);
+			
+			long t2 = System.nanoTime();
+			
+			exactTicks += t1 - t0;
+			cachedTicks += t2 - t1;
+			
+			maxAngle = Math.max(maxAngle, separation(exact.getRightAscensionOfDate(), exact.getDeclinationOfDate(),
+					cached.getRightAscensionOfDate(), cached.getDeclinationOfDate()));
+			
+			maxMeanAngle = Math.max(maxMeanAngle, separation(exact.getMeanRightAscension(),
+					exact.getMeanDeclination(), cached.getMeanRightAscension(), cached.getMeanDeclination()));
+			
+			maxJ2000Angle = Math.max(maxJ2000Angle, separation(exact.getRightAscensionJ2000(),
+					exact.getDeclinationJ2000(), cached.getRightAscensionJ2000(), cached.getDeclinationJ2000()));
+			
+			maxDistance = Math.max(maxDistance,
+					Math.abs(exact.getGeometricDistance() - cached.getGeometricDistance()));
+			
+			maxVelocity = Math.max(maxVelocity,
+					Math.abs(exact.getRadialVelocity() - cached.getRadialVelocity()));
+		}
+		
+		System.out.printf("Exact:  %8.1f ns per query\n", (double)exactTicks / (double)nSamples);
+		System.out.printf("Cached: %8.1f ns per query (timer overhead included)\n",
+				(double)cachedTicks / (double)nSamples);
+		
+		System.out.println();
+		System.out.printf("Estimated error bound     %10.3e arcsec\n", cached.getEstimatedError() * RADIANS_TO_ARCSEC);
+		System.out.printf("Largest error of date     %10.3e arcsec\n", maxAngle * RADIANS_TO_ARCSEC);
+		System.out.printf("Largest error, mean       %10.3e arcsec\n", maxMeanAngle * RADIANS_TO_ARCSEC);
+		System.out.printf("Largest error, J2000      %10.3e arcsec\n", maxJ2000Angle * RADIANS_TO_ARCSEC);
+		System.out.printf("Largest distance error    %10.3e AU\n", maxDistance);
+		System.out.printf("Largest velocity error    %10.3e km/s\n", maxVelocity);
+		
+		ticks = System.nanoTime();
+		
+		double sum = 0.0;
+		
+		for (double t : times) {
+			cached.calculateApparentPlace(t);
+			sum += cached.getDeclinationOfDate();
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		System.out.println();
+		System.out.printf("Warm pass, random order:     %6.1f ns per query (checksum %.6f)\n",
+				(double)ticks / (double)nSamples, sum);
+		
+		// A scan such as a rise/set search steps through time in order.
+		Arrays.sort(times);
+		
+		ticks = System.nanoTime();
+		
+		sum = 0.0;
+		
+		for (double t : times) {
+			cached.calculateApparentPlace(t);
+			sum += cached.getDeclinationOfDate();
+		}
+		
+		ticks = System.nanoTime() - ticks;
+		
+		System.out.printf("Warm pass, time order:       %6.1f ns per query (checksum %.6f)\n",
+				(double)ticks / (double)nSamples, sum);
+		System.out.printf("%d hits, %d misses\n", cached.getHits(), cached.getMisses());
+	}
+	
+	private static double separation(double ra1, double dec1, double ra2, double dec2) {
+		double dra = ra2 - ra1;
+		
+		double x = Math.cos(dec1) * Math.sin(dec2) - Math.sin(dec1) * Math.cos(dec2) * Math.cos(dra);
+		double y = Math.cos(dec2) * Math.sin(dra);
+		double z = Math.sin(dec1) * Math.sin(dec2) + Math.cos(dec1) * Math.cos(dec2) * Math.cos(dra);
+		
+		return Math.atan2(Math.sqrt(x * x + y * y), z);
+	}
+	
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS");
+		System.err.println("\t-ephemeris\tName of ephemeris file");
+		System.err.println("\t-body\t\tName of body");
+		System.err.println("\t-startdate\tStart date");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-days\t\tNumber of days to sample [default: 366]");
+		System.err.println("\t-samples\tNumber of random instants [default: 100000]");
+		System.err.println("\t-coefficients\tNumber of Chebyshev coefficients per segment");
+		System.err.println("\t-segment\tSegment length in days");
+	}
+}
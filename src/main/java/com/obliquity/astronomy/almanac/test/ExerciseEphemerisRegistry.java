@@ -0,0 +1,253 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import com.obliquity.astronomy.almanac.EphemerisFile;
+import com.obliquity.astronomy.almanac.EphemerisRegistry;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.RecordCache;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class issues a series of random ephemeris requests to an
+ * EphemerisRegistry, as a long-running service would, and compares the
+ * time taken with that needed to load a fresh JPLEphemeris for each request.
+ * 
+ * With -verify, it also checks that an ephemeris which was returned before the
+ * registry was closed keeps the records it holds but cannot load any more,
+ * and that re-registering the file does not give it another file's records.
+ */
+
+public class ExerciseEphemerisRegistry {
+	public static void main(String args[]) {
+		String filenames = null;
+		String dirname = null;
+		int nRequests = 1000;
+		double span = 30.0;
+		int capacity = EphemerisRegistry.DEFAULT_CACHE_CAPACITY;
+		long seed = 1L;
+		boolean verify = false;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filenames = args[++i];
+
+			if (args[i].equalsIgnoreCase("-directory"))
+				dirname = args[++i];
+
+			if (args[i].equalsIgnoreCase("-requests"))
+				nRequests = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-span"))
+				span = Double.parseDouble(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-capacity"))
+				capacity = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-seed"))
+				seed = Long.parseLong(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-verify"))
+				verify = true;
+		}
+
+		if (filenames == null && dirname == null) {
+			showUsage();
+			System.exit(1);
+		}
+
+		EphemerisRegistry registry = new EphemerisRegistry(capacity);
+
+		try {
+			if (filenames != null)
+				for (String filename : filenames.split(","))
+					registry.register(filename);
+
+			if (dirname != null)
+				registry.registerDirectory(new File(dirname));
+
+			run(registry, nRequests, span, seed, verify);
+
+			if (verify)
+				checkLoadAfterClose(registry, span);
+			else
+				registry.close();
+		} catch (JPLEphemerisException | IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+
+	private static void run(EphemerisRegistry registry, int nRequests, double span, long seed, boolean verify)
+			throws IOException, JPLEphemerisException {
+		double jdmin = Double.POSITIVE_INFINITY, jdmax = Double.NEGATIVE_INFINITY;
+
+		for (EphemerisFile file : registry.getFiles()) {
+			System.out.println("# Registered " + file);
+
+			jdmin = Math.min(jdmin, file.getEarliestDate());
+			jdmax = Math.max(jdmax, file.getLatestDate());
+		}
+
+		if (jdmax - jdmin < span)
+			throw new JPLEphemerisException("Span is longer than the registered ephemerides");
+
+		double[] starts = new double[nRequests];
+
+		Random random = new Random(seed);
+
+		for (int i = 0; i < nRequests; i++)
+			starts[i] = jdmin + random.nextDouble() * (jdmax - jdmin - span);
+
+		Vector p1 = new Vector(), p2 = new Vector();
+
+		int nChecked = 0;
+
+		long startTime = System.nanoTime();
+
+		for (int i = 0; i < nRequests; i++) {
+			JPLEphemeris ephemeris = registry.getEphemeris(starts[i], starts[i] + span);
+
+			if (verify) {
+				EphemerisFile file = registry.selectFile(starts[i], starts[i] + span);
+
+				JPLEphemeris direct = new JPLEphemeris(file.getFile(), starts[i], starts[i] + span);
+
+				for (int kBody = JPLEphemeris.MERCURY; kBody <= JPLEphemeris.SUN; kBody++) {
+					double t = starts[i] + random.nextDouble() * span;
+
+					ephemeris.calculatePositionAndVelocity(t, kBody, p1, null);
+					direct.calculatePositionAndVelocity(t, kBody, p2, null);
+
+					p1.subtract(p2);
+
+					if (p1.magnitude() != 0.0)
+						throw new JPLEphemerisException("Mismatch for body " + kBody + " at " + t);
+
+					nChecked++;
+				}
+			}
+		}
+
+		double registryTime = (System.nanoTime() - startTime) * 1.0e-9;
+
+		RecordCache cache = registry.getCache();
+
+		System.out.printf("# Registry: %d requests of %.1f days in %.3f s, %d records cached, %d hits, %d misses\n",
+				nRequests, span, registryTime, cache.size(), cache.getHitCount(), cache.getMissCount());
+
+		if (verify) {
+			System.out.println("# Verified " + nChecked + " positions against directly-loaded ephemerides");
+			return;
+		}
+
+		startTime = System.nanoTime();
+
+		for (int i = 0; i < nRequests; i++) {
+			EphemerisFile file = registry.selectFile(starts[i], starts[i] + span);
+
+			new JPLEphemeris(file.getFile(), starts[i], starts[i] + span);
+		}
+
+		double directTime = (System.nanoTime() - startTime) * 1.0e-9;
+
+		System.out.printf("# Direct:   %d requests of %.1f days in %.3f s\n", nRequests, span, directTime);
+	}
+
+	private static void checkLoadAfterClose(EphemerisRegistry registry, double span)
+			throws IOException, JPLEphemerisException {
+		EphemerisFile file = registry.getFiles().get(0);
+
+		// The span ends a little before the end of the file, so that the cached
+		// records below cover everything its loader would read for jdoutside.
+		double blockSpan = registry.getBlockSize() * file.getRecordSpan();
+		double jdoutside = file.getLatestDate() - 1.0;
+		double jdfinish = jdoutside - 2.0 * file.getRecordSpan();
+		double jdstart = jdfinish - span;
+		double jdcached = Math.max(file.getEarliestDate(), jdstart - blockSpan);
+
+		JPLEphemeris ephemeris = registry.getEphemeris(jdstart, jdfinish);
+		JPLEphemeris direct = new JPLEphemeris(file.getFile(), file.getEarliestDate(),
+				file.getLatestDate() - file.getRecordSpan());
+
+		Vector p1 = new Vector(), p2 = new Vector();
+
+		registry.close();
+
+		ephemeris.calculatePositionAndVelocity(jdstart, JPLEphemeris.EMB, p1, null);
+		direct.calculatePositionAndVelocity(jdstart, JPLEphemeris.EMB, p2, null);
+
+		p1.subtract(p2);
+
+		if (p1.magnitude() != 0.0)
+			throw new JPLEphemerisException("Records held before the registry was closed have changed");
+
+		// Register the file again and put the records outside the old span into
+		// the cache, which the old ephemeris must still not be able to reach.
+		registry.register(file.getFile());
+
+		JPLEphemeris reopened = registry.getEphemeris(jdcached, jdoutside);
+
+		reopened.calculatePositionAndVelocity(jdoutside, JPLEphemeris.EMB, p1, null);
+		direct.calculatePositionAndVelocity(jdoutside, JPLEphemeris.EMB, p2, null);
+
+		p1.subtract(p2);
+
+		if (p1.magnitude() != 0.0)
+			throw new JPLEphemerisException("Mismatch after the file was registered again");
+
+		try {
+			ephemeris.calculatePositionAndVelocity(jdoutside, JPLEphemeris.EMB, p1, null);
+			throw new IOException("An ephemeris loaded records after its registry was closed");
+		} catch (JPLEphemerisException e) {
+			System.out.println("# After close: " + e.getMessage());
+		}
+
+		registry.close();
+
+		System.out.println("# Verified loading after the registry was closed");
+	}
+
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS (at least one of)");
+		System.err.println("\t-ephemeris\tComma-separated list of ephemeris files");
+		System.err.println("\t-directory\tDirectory containing ephemeris files");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-requests\tNumber of requests [default: 1000]");
+		System.err.println("\t-span\t\tSpan of each request, in days [default: 30]");
+		System.err.println("\t-capacity\tCapacity of the record cache [default: "
+				+ EphemerisRegistry.DEFAULT_CACHE_CAPACITY + "]");
+		System.err.println("\t-seed\t\tRandom number seed");
+		System.err.println("\t-verify\t\tCompare positions with directly-loaded ephemerides");
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.Vector;
+
+/*
+ * This class loads a JPL ephemeris for a single day, enables incremental
+ * loading, and then evaluates it at random dates across the whole file from
+ * several threads at once, each with its own copy.  Every position is checked
+ * against a copy of the ephemeris which was loaded in full.
+ */
+
+public class GrowEphemeris {
+	public static void main(String args[]) {
+		String filename = null;
+		int nTests = 100000;
+		int nThreads = 4;
+		int blockSize = 32;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-count"))
+				nTests = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-threads"))
+				nThreads = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-blocksize"))
+				blockSize = Integer.parseInt(args[++i]);
+		}
+
+		if (filename == null) {
+			System.err.println("Usage: GrowEphemeris -ephemeris filename [-count n] [-threads n] [-blocksize n]");
+			System.exit(1);
+		}
+
+		try {
+			JPLEphemeris full = new JPLEphemeris(filename);
+
+			double tEarliest = full.getEarliestDate();
+			double tSpan = full.getLatestDate() - tEarliest;
+			double tMiddle = tEarliest + 0.5 * tSpan;
+
+			JPLEphemeris ephemeris = new JPLEphemeris(filename, tMiddle, tMiddle);
+
+			System.out.println("# Initially loaded " + ephemeris.getNumberOfDataRecords() + " of "
+					+ full.getNumberOfDataRecords() + " records");
+
+			ephemeris.enableIncrementalLoading(blockSize);
+
+			List<Thread> threads = new ArrayList<Thread>();
+			final int nPerThread = nTests / nThreads;
+			final List<Throwable> failures = new ArrayList<Throwable>();
+
+			long startTime = System.nanoTime();
+
+			for (int k = 0; k < nThreads; k++) {
+				final JPLEphemeris mine = new JPLEphemeris(ephemeris);
+				final JPLEphemeris reference = new JPLEphemeris(full);
+				final long seed = k + 1;
+
+				Thread thread = new Thread() {
+					public void run() {
+						try {
+							check(mine, reference, nPerThread, seed, tEarliest, tSpan);
+						} catch (JPLEphemerisException e) {
+							synchronized (failures) {
+								failures.add(e);
+							}
+						}
+					}
+				};
+
+				threads.add(thread);
+				thread.start();
+			}
+
+			for (Thread thread : threads)
+				thread.join();
+
+			double dt = (System.nanoTime() - startTime) * 1.0e-9;
+
+			if (!failures.isEmpty()) {
+				failures.get(0).printStackTrace();
+				System.exit(1);
+			}
+
+			System.out.printf("# Checked %d positions in %d threads in %.3f s\n", nPerThread * nThreads, nThreads, dt);
+			System.out.println("# Finally loaded " + ephemeris.getNumberOfDataRecords() + " records");
+		} catch (JPLEphemerisException | IOException | InterruptedException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		System.exit(0);
+	}
+
+	private static void check(JPLEphemeris ephemeris, JPLEphemeris reference, int nTests, long seed,
+			double tEarliest, double tSpan) throws JPLEphemerisException {
+		Random random = new Random(seed);
+
+		Vector p1 = new Vector(), p2 = new Vector();
+
+		for (int j = 0; j < nTests; j++) {
+			int nBody = random.nextInt(JPLEphemeris.SUN + 1);
+			double t = tEarliest + tSpan * random.nextDouble();
+
+			ephemeris.calculatePositionAndVelocity(t, nBody, p1, null);
+			reference.calculatePositionAndVelocity(t, nBody, p2, null);
+
+			p1.subtract(p2);
+
+			if (p1.magnitude() != 0.0)
+				throw new JPLEphemerisException("Mismatch for body " + nBody + " at " + t);
+		}
+	}
+}
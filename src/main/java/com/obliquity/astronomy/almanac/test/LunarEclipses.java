@@ -31,7 +31,6 @@ import java.text.DateFormatSymbols;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.TimeZone;
 
 import com.obliquity.astronomy.almanac.*;
@@ -51,9 +50,6 @@ public class LunarEclipses {
 
 	private final SimpleDateFormat datefmt = new SimpleDateFormat("G yyyy-MM-dd HH:mm:ss");
 	private final SimpleDateFormat prefixfmt = new SimpleDateFormat("yyyyMMdd: ");
-
-	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
-	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
 	
 	public static final int ALL_ECLIPSES = 0, ONLY_CENTRAL = 1, ONLY_TOTAL = 2;
 	
@@ -70,9 +66,6 @@ public class LunarEclipses {
 	private ApparentPlace apSun, apMoon;
 	
 	public static void main(String args[]) {
-		SimpleDateFormat parsefmt = new SimpleDateFormat("yyyy-MM-dd");
-		parsefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
-	
 		String filename = null;
 		String startdate = null;
 		String enddate = null;
@@ -100,28 +93,24 @@ public class LunarEclipses {
 			System.exit(1);
 		}
 		
-		Date date = null;
+		double jdstart = 0.0, jdfinish = 0.0;
 		
 		try {
-			date = parsefmt.parse(startdate);
+			jdstart = ISO8601Format.parse(startdate);
 		} catch (ParseException e) {
 			System.err.println("Failed to parse \"" + startdate + "\" as an ISO date");
 			e.printStackTrace();
 			System.exit(1);
 		}
 		
-		double jdstart = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
-		
 		try {
-			date = parsefmt.parse(enddate);
+			jdfinish = ISO8601Format.parse(enddate) + LUNAR_MONTH;
 		} catch (ParseException e) {
 			System.err.println("Failed to parse \"" + enddate + "\" as an ISO date");
 			e.printStackTrace();
 			System.exit(1);
 		}
 		
-		double jdfinish = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY + LUNAR_MONTH;
-		
 		JPLEphemeris ephemeris = null;
 
 		try {
@@ -0,0 +1,224 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.minorplanet.ApparentPlaceTable;
+import com.obliquity.astronomy.almanac.minorplanet.BatchApparentPlaceCalculator;
+import com.obliquity.astronomy.almanac.minorplanet.MPCOrbitReader;
+import com.obliquity.astronomy.almanac.minorplanet.OrbitCatalogue;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
+
+/*
+ * This class calculates the apparent places of every asteroid and comet in
+ * the Minor Planet Center orbit catalogues (MPCORB.DAT and CometEls.txt) at
+ * a single instant, and writes them to a column-oriented binary file.
+ */
+
+public class MinorPlanetBatch {
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd");
+
+	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd/HH:mm");
+
+	public static void main(String[] args) {
+		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String asteroidFilename = null;
+		String cometFilename = null;
+		String outputFilename = null;
+		String datestr = null;
+		int nThreads = 0;
+		boolean j2000 = false;
+		
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i].toLowerCase()) {
+			case "-ephemeris":
+				filename = args[++i];
+				break;
+				
+			case "-asteroids":
+				asteroidFilename = args[++i];
+				break;
+				
+			case "-comets":
+				cometFilename = args[++i];
+				break;
+				
+			case "-output":
+				outputFilename = args[++i];
+				break;
+				
+			case "-date":
+				datestr = args[++i];
+				break;
+				
+			case "-threads":
+				nThreads = Integer.parseInt(args[++i]);
+				break;
+				
+			case "-j2000":
+				j2000 = true;
+				break;
+				
+			case "-help":
+				showUsage(null);
+				System.exit(0);
+				return;
+				
+			default:
+				showUsage("Unknown option: " + args[i]);
+				System.exit(1);
+			}
+		}
+		
+		if (filename == null || datestr == null || outputFilename == null) {
+			showUsage("One or more mandatory options are missing.");
+			System.exit(1);
+		}
+		
+		if (asteroidFilename == null && cometFilename == null) {
+			showUsage("You must specify -asteroids or -comets or both.");
+			System.exit(1);
+		}
+		
+		Date date = null;
+		
+		try {
+			date = datestr.contains("/") ? datetimefmtIn.parse(datestr) : datefmtIn.parse(datestr);
+		} catch (ParseException e) {
+			System.err.println("Failed to parse \"" + datestr + "\" as an ISO date");
+			System.exit(1);
+		}
+		
+		double jd = UNIX_EPOCH_AS_JD + ((double) date.getTime()) / MILLISECONDS_PER_DAY;
+		
+		MinorPlanetBatch runner = new MinorPlanetBatch();
+		
+		try {
+			runner.run(filename, asteroidFilename, cometFilename, jd, j2000, nThreads, new File(outputFilename));
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	public void run(String filename, String asteroidFilename, String cometFilename, double jd, boolean j2000,
+			int nThreads, File outputFile) throws IOException, JPLEphemerisException {
+		long startTime = System.nanoTime();
+		
+		OrbitCatalogue catalogue = new OrbitCatalogue(1 << 20);
+		
+		MPCOrbitReader reader = new MPCOrbitReader();
+		
+		if (asteroidFilename != null) {
+			try (InputStream is = new FileInputStream(asteroidFilename)) {
+				int n = reader.readAsteroidOrbits(is, catalogue);
+				System.err.println("Read " + n + " asteroid orbits from " + asteroidFilename);
+			}
+		}
+		
+		if (cometFilename != null) {
+			try (InputStream is = new FileInputStream(cometFilename)) {
+				int n = reader.readCometOrbits(is, catalogue);
+				System.err.println("Read " + n + " comet orbits from " + cometFilename);
+			}
+		}
+		
+		if (reader.getErrorCount() > 0)
+			System.err.println("Skipped " + reader.getErrorCount() + " lines which could not be parsed");
+		
+		long loadedTime = System.nanoTime();
+		
+		EarthRotationModel erm = new IAUEarthRotationModel();
+		
+		double tt = TimeScales.ttFromUT(jd);
+		
+		JPLEphemeris ephemeris = new JPLEphemeris(filename, tt - 1.0, tt + 1.0);
+		
+		BatchApparentPlaceCalculator calculator = new BatchApparentPlaceCalculator(ephemeris, j2000 ? null : erm, nThreads);
+		
+		ApparentPlaceTable table = calculator.calculateApparentPlaces(catalogue, tt);
+		
+		calculator.shutdown();
+		
+		long calculatedTime = System.nanoTime();
+		
+		table.write(outputFile);
+		
+		long writtenTime = System.nanoTime();
+		
+		System.err.printf("Loaded %d orbits in %.3f s\n", catalogue.size(), 1.0e-9 * (loadedTime - startTime));
+		System.err.printf("Calculated apparent places on %d threads in %.3f s\n", calculator.getThreadCount(),
+				1.0e-9 * (calculatedTime - loadedTime));
+		System.err.printf("Wrote %s in %.3f s\n", outputFile, 1.0e-9 * (writtenTime - calculatedTime));
+	}
+	
+	private static void showUsage(String message) {
+		if (message != null) {
+			System.err.print("ERROR: ");
+			System.err.println(message);
+			System.err.println();
+		}
+		
+		String[] lines = {
+				"MANDATORY OPTIONS:",
+				"\t-ephemeris\tName of JPL ephemeris file",
+				"\t-date\t\tDate and time in UT [YYYY-MM-DD or YYYY-MM-DD/hh:mm]",
+				"\t-output\t\tName of output file",
+				"",
+				"At least one of:",
+				"\t-asteroids\tName of asteroid orbit file in MPCORB.DAT format",
+				"\t-comets\t\tName of comet orbit file in CometEls.txt format",
+				"",
+				"OPTIONAL PARAMETERS:",
+				"\t-j2000\t\tCalculate positions referred to J2000 instead of true equator and equinox of date",
+				"\t-threads\tNumber of threads to use [default: number of processors]"
+		};
+		
+		for (String line : lines)
+			System.err.println(line);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.dynamics.BarycentricElements;
+import com.obliquity.astronomy.almanac.dynamics.ConservationMonitor;
+import com.obliquity.astronomy.almanac.dynamics.ConservationReport;
+import com.obliquity.astronomy.almanac.dynamics.SolarSystemState;
+
+/*
+ * This class reports how well a JPL ephemeris conserves the total angular
+ * momentum and energy of the major bodies over a range of dates, or
+ * tabulates the barycentric elements of one body.
+ */
+
+public class MonitorConservation {
+	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
+	
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+
+	public static void main(String args[]) {
+		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String startdate = null;
+		String enddate = null;
+		String stepsize = null;
+		String bodyname = null;
+		int nThreads = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-startdate"))
+				startdate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-enddate"))
+				enddate = args[++i];
+
+			if (args[i].equalsIgnoreCase("-step"))
+				stepsize = args[++i];
+
+			if (args[i].equalsIgnoreCase("-elements"))
+				bodyname = args[++i];
+
+			if (args[i].equalsIgnoreCase("-threads"))
+				nThreads = Integer.parseInt(args[++i]);
+		}
+
+		if (filename == null || startdate == null || enddate == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		int kBody = -1;
+		
+		if (bodyname != null) {
+			for (int i = 0; i < SolarSystemState.NUMBER_OF_BODIES; i++)
+				if (bodyname.equalsIgnoreCase(SolarSystemState.getBodyName(i)))
+					kBody = i;
+			
+			if (kBody < 0 || kBody == SolarSystemState.SUN) {
+				System.err.println("Unknown body name: \"" + bodyname + "\"");
+				System.exit(1);
+			}
+		}
+
+		double jdstart = 0.0, jdfinish = 0.0;
+		
+		try {
+			Date date = datefmt.parse(startdate);
+			jdstart = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+			
+			date = datefmt.parse(enddate);
+			jdfinish = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+		} catch (ParseException e) {
+			System.err.println("Failed to parse date: " + e.getMessage());
+			System.exit(1);
+		}
+
+		double jdstep = (stepsize == null) ? 1.0 : Double.parseDouble(stepsize);
+
+		try {
+			JPLEphemeris ephemeris = new JPLEphemeris(filename, jdstart - 1.0, jdfinish + 1.0);
+			
+			if (kBody < 0) {
+				ConservationMonitor monitor = new ConservationMonitor(ephemeris, nThreads);
+				
+				ConservationReport report = monitor.monitor(jdstart, jdfinish, jdstep);
+				
+				monitor.shutdown();
+				
+				report.print(System.out);
+			} else
+				printElements(ephemeris, kBody, jdstart, jdfinish, jdstep);
+		} catch (JPLEphemerisException | IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	/*
+	 * The elements are calculated with respect to the total mass of the
+	 * bodies which are interior to the orbit of the body, as in
+	 * NeptuneBarycentricElements.
+	 */
+	
+	private static void printElements(JPLEphemeris ephemeris, int kBody, double jdstart, double jdfinish,
+			double jdstep) throws JPLEphemerisException {
+		SolarSystemState state = new SolarSystemState(ephemeris);
+		
+		double[] gm = state.getGM();
+		
+		double mu = 0.0;
+		
+		for (int i = 0; i <= kBody; i++)
+			mu += gm[i];
+		
+		double[] elements = new double[BarycentricElements.NUMBER_OF_ELEMENTS];
+		
+		for (double t = jdstart; t <= jdfinish; t += jdstep) {
+			state.evaluate(t);
+			
+			BarycentricElements.calculateElements(state.getPositions(), state.getVelocities(), kBody, mu, elements);
+			
+			System.out.printf("%10.2f %14.9f %12.9f %12.7f %12.7f %12.7f %12.7f\n", t,
+					elements[BarycentricElements.SEMI_MAJOR_AXIS], elements[BarycentricElements.ECCENTRICITY],
+					Math.toDegrees(elements[BarycentricElements.INCLINATION]),
+					Math.toDegrees(elements[BarycentricElements.LONGITUDE_OF_NODE]),
+					Math.toDegrees(elements[BarycentricElements.LONGITUDE_OF_PERIHELION]),
+					Math.toDegrees(elements[BarycentricElements.MEAN_LONGITUDE]));
+		}
+	}
+	
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS");
+		System.err.println("\t-ephemeris\tName of ephemeris file");
+		System.err.println("\t-startdate\tStart date");
+		System.err.println("\t-enddate\tEnd date");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-step\t\tStep size (days)");
+		System.err.println("\t-threads\tNumber of threads to use [default: number of processors]");
+		System.err.println("\t-elements\tTabulate the barycentric elements of this body instead");
+	}
+}
@@ -27,12 +27,14 @@ package com.obliquity.astronomy.almanac.test;
 import static java.lang.Math.*;
 
 import java.io.IOException;
+import java.io.PrintStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
 
 import com.obliquity.astronomy.almanac.*;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
 
 public class MoonAndSunPhenomena {
 	private static final double TWO_PI = 2.0 * PI;
@@ -54,9 +56,15 @@ public class MoonAndSunPhenomena {
 	private final ApparentPlace apSun, apMoon;
 	private final double AU;
 	
+	private final PrintStream output;
+	
 	private static final String[] dayOfWeek = {"Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"};
 	
 	public static void main(String args[]) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
 		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
 		
@@ -110,19 +118,19 @@ public class MoonAndSunPhenomena {
 				sunApsides = true;
 			
 			if (args[i].equalsIgnoreCase("-help")) {
-				showUsage();
-				System.exit(0);
+				showUsage(err);
+				return 0;
 			}
 		}
 
 		if (filename == null || startdate == null || enddate == null) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 		
 		if (!(phases || moonApsides || nodes || sunApsides || seasons)) {
-			System.err.println("You should specify at least one of -phases or -apsides or -nodes or -sunapsides or -seasons");
-			System.exit(1);
+			err.println("You should specify at least one of -phases or -apsides or -nodes or -sunapsides or -seasons");
+			return 1;
 		}
 		
 		Date date = null;
@@ -130,9 +138,9 @@ public class MoonAndSunPhenomena {
 		try {
 			date = datefmt.parse(startdate);
 		} catch (ParseException e) {
-			System.err.println("Failed to parse \"" + startdate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			err.println("Failed to parse \"" + startdate + "\" as an ISO date");
+			e.printStackTrace(err);
+			return 1;
 		}
 		
 		double jdstart = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
@@ -140,9 +148,9 @@ public class MoonAndSunPhenomena {
 		try {
 			date = datefmt.parse(enddate);
 		} catch (ParseException e) {
-			System.err.println("Failed to parse \"" + enddate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			err.println("Failed to parse \"" + enddate + "\" as an ISO date");
+			e.printStackTrace(err);
+			return 1;
 		}
 		
 		double jdfinish = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
@@ -153,51 +161,53 @@ public class MoonAndSunPhenomena {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
-		MoonAndSunPhenomena mp = new MoonAndSunPhenomena(ephemeris);
+		MoonAndSunPhenomena mp = new MoonAndSunPhenomena(ephemeris, out);
 		
 		if (phases)
 			try {
 				mp.showMoonPhases(jdstart, jdfinish, useUT, showSeconds, dow);
 			} catch (JPLEphemerisException e) {
-				e.printStackTrace();
+				e.printStackTrace(err);
 			}
 		
 		if (moonApsides)
 			try {
 				mp.showMoonApsides(jdstart, jdfinish, useUT, showSeconds, dow);
 			} catch (JPLEphemerisException e) {
-				e.printStackTrace();
+				e.printStackTrace(err);
 			}
 		
 		if (nodes)
 			try {
 				mp.showMoonNodes(jdstart, jdfinish, useUT, showSeconds, dow);
 			} catch (JPLEphemerisException e) {
-				e.printStackTrace();
+				e.printStackTrace(err);
 			}
 		
 		if (seasons)
 			try {
 				mp.showSolarSeasons(jdstart, jdfinish, useUT, showSeconds, dow);
 			} catch (JPLEphemerisException e) {
-				e.printStackTrace();
+				e.printStackTrace(err);
 			}
 		
 		if (sunApsides)
 			try {
 				mp.showSunApsides(jdstart, jdfinish, useUT, showSeconds, dow);
 			} catch (JPLEphemerisException e) {
-				e.printStackTrace();
-			}	
+				e.printStackTrace(err);
+			}
+
+		return 0;
 	}
 
 	public static final char phaseCodes[] = { 'N', 'Q', 'F', 'L' };
@@ -208,33 +218,33 @@ public class MoonAndSunPhenomena {
 		if (!showSeconds)
 			ad.roundToNearestMinute();
 		
-		System.out.printf("%c %4d %2d %2d %02d:%02d", code, ad.getYear(), ad.getMonth(), ad.getDay(),
+		output.printf("%c %4d %2d %2d %02d:%02d", code, ad.getYear(), ad.getMonth(), ad.getDay(),
 				ad.getHour(), ad.getMinute());
 			
 		if (showSeconds)
-			System.out.printf(":%02d", (int)ad.getSecond());
+			output.printf(":%02d", (int)ad.getSecond());
 
 		if (showDayOfWeek) {
 			int dow = ((int)(t + 3500000.5)) % 7;
 		
-			System.out.printf(" %s", dayOfWeek[dow]);
+			output.printf(" %s", dayOfWeek[dow]);
 		}
 
 		switch (body) {
 		case MOON:
 			apMoon.calculateApparentPlace(t);
 			double moonDistance = apMoon.getGeometricDistance() * AU;
-			System.out.printf(" %6.0f", moonDistance);
+			output.printf(" %6.0f", moonDistance);
 			break;
 			
 		case SUN:
 			apSun.calculateApparentPlace(t);
 			double sunDistance = apSun.getGeometricDistance() * AU;
-			System.out.printf(" %9.0f", sunDistance);
+			output.printf(" %9.0f", sunDistance);
 			break;
 		}
 	
-		System.out.println();
+		output.println();
 	}
 	
 	public void showMoonPhases( double jdstart, double jdfinish, boolean useUT, boolean showSeconds, boolean showDayOfWeek) throws JPLEphemerisException {
@@ -267,7 +277,7 @@ public class MoonAndSunPhenomena {
 				double tExact = calculateExactTimeOfNodeCrossing(t0, beta0, t1, beta1);
 				
 				if (useUT)
-					tExact -= erm.deltaT(tExact);
+					tExact = TimeScales.utFromTT(tExact);
 				
 				displayDateAndTime(tExact, beta0 < 0.0 ? '\u2197' : '\u2198', showSeconds, showDayOfWeek, MOON);
 			}	
@@ -311,7 +321,7 @@ public class MoonAndSunPhenomena {
 				double tExact = calculateExactTimeOfMoonApseEvent(t0, rv0, t1, rv1);
 				
 				if (useUT)
-					tExact -= erm.deltaT(tExact);
+					tExact = TimeScales.utFromTT(tExact);
 				
 				displayDateAndTime(tExact, rv0 < 0.0 ? 'P' : 'A', showSeconds, showDayOfWeek, MOON);
 			}
@@ -356,7 +366,7 @@ public class MoonAndSunPhenomena {
 				double tExact = calculateExactTimeOfSunApseEvent(t0, rv0, t1, rv1);
 				
 				if (useUT)
-					tExact -= erm.deltaT(tExact);
+					tExact = TimeScales.utFromTT(tExact);
 				
 				displayDateAndTime(tExact, rv0 < 0.0 ? 'p' : 'a', showSeconds, showDayOfWeek, SUN);
 			}
@@ -461,32 +471,36 @@ public class MoonAndSunPhenomena {
 		}
 		
 		if (useUT)
-			t -= erm.deltaT(t);
+			t = TimeScales.utFromTT(t);
 		
 		return t;
 	}
 
-	public static void showUsage() {
-		System.err.println("MANDATORY PARAMETERS");
-		System.err.println("\t-ephemeris\tName of ephemeris file");
-		System.err.println("\t-startdate\tStart date");
-		System.err.println("\t-enddate\tEnd date");
-		System.err.println();
-		System.err.println("MODE PARAMETERS");
-		System.err.println("\t-phases\t\tCalculate the phases of the Moon");
-		System.err.println("\t-apsides\tCalculate the apsides of the Moon");
-		System.err.println("\t-nodes\t\tCalculate the node crossings of the Moon");
-		System.err.println();
-		System.err.println("\t-seasons\tCalculate the solar seasons");
-		System.err.println("\t-sunapsides\tCalculate the apsides of the Sun");
-		System.err.println();
-		System.err.println("OPTIONAL PARAMETERS");
-		System.err.println("\t-ut\t\tDisplay times in UT instead of TT");
-		System.err.println("\t-seconds\tDisplay time to nearest second");
-		System.err.println("\t-dow\t\tDisplay day of week");
+	public static void showUsage(PrintStream err) {
+		err.println("MANDATORY PARAMETERS");
+		err.println("\t-ephemeris\tName of ephemeris file");
+		err.println("\t-startdate\tStart date");
+		err.println("\t-enddate\tEnd date");
+		err.println();
+		err.println("MODE PARAMETERS");
+		err.println("\t-phases\t\tCalculate the phases of the Moon");
+		err.println("\t-apsides\tCalculate the apsides of the Moon");
+		err.println("\t-nodes\t\tCalculate the node crossings of the Moon");
+		err.println();
+		err.println("\t-seasons\tCalculate the solar seasons");
+		err.println("\t-sunapsides\tCalculate the apsides of the Sun");
+		err.println();
+		err.println("OPTIONAL PARAMETERS");
+		err.println("\t-ut\t\tDisplay times in UT instead of TT");
+		err.println("\t-seconds\tDisplay time to nearest second");
+		err.println("\t-dow\t\tDisplay day of week");
 	}
 
 	public MoonAndSunPhenomena(JPLEphemeris ephemeris) {
+		this(ephemeris, System.out);
+	}
+	
+	public MoonAndSunPhenomena(JPLEphemeris ephemeris, PrintStream output) {
 		MovingPoint moon = new MoonCentre(ephemeris);
 		
 		MovingPoint earth = new EarthCentre(ephemeris);
@@ -498,12 +512,15 @@ public class MoonAndSunPhenomena {
 		apMoon = new ApparentPlace(earth, moon, sun, erm);
 		
 		AU = ephemeris.getAU();
+		
+		this.output = output;
 	}
 	
 	public MoonAndSunPhenomena(ApparentPlace apMoon, ApparentPlace apSun) {
 		this.apMoon = apMoon;
 		this.apSun = apSun;
 		AU = apMoon.getTarget().getEphemeris().getAU();
+		output = System.out;
 	}
 
 	private double getLunarElongation(double t) throws JPLEphemerisException {
@@ -577,7 +594,7 @@ public class MoonAndSunPhenomena {
 		}
 		
 		if (useUT)
-			t -= erm.deltaT(t);
+			t = TimeScales.utFromTT(t);
 		
 		return t;
 	}
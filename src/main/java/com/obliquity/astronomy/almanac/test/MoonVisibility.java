@@ -62,16 +62,8 @@ public class MoonVisibility {
 
 	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
 
-	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd");
-
-	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd/HH:mm");
-
 	static {
 		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
-		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
-		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
 	}
 
 	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
@@ -87,6 +79,10 @@ public class MoonVisibility {
 	};
 
 	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		String filename = null;
 		String startdate = null;
 		String enddate = null;
@@ -115,8 +111,8 @@ public class MoonVisibility {
 		}
 
 		if (filename == null || startdate == null ) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 
@@ -125,8 +121,8 @@ public class MoonVisibility {
 		try {
 			startDate = parseDate(startdate);
 		} catch (ParseException e1) {
-			e1.printStackTrace();
-			System.exit(1);;
+			e1.printStackTrace(err);
+			return 1;
 		}
 
 		double jdstart = UNIX_EPOCH_AS_JD + ((double)startDate.getTime())/MILLISECONDS_PER_DAY;
@@ -139,8 +135,8 @@ public class MoonVisibility {
 			try {
 				endDate = parseDate(enddate);
 			} catch (ParseException e) {
-				e.printStackTrace();
-				System.exit(1);
+				e.printStackTrace(err);
+				return 1;
 			}
 
 			jdfinish = UNIX_EPOCH_AS_JD + ((double)endDate.getTime())/MILLISECONDS_PER_DAY + 1.0;
@@ -153,13 +149,13 @@ public class MoonVisibility {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 30.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		MovingPoint moon = new MoonCentre(ephemeris);
@@ -185,8 +181,8 @@ public class MoonVisibility {
 			place = new Place(lat, lon, 0.0, tz);
 		}
 		catch (ParseException e) {
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
 		TerrestrialObserver observer = new TerrestrialObserver(ephemeris, erm, place);
@@ -196,10 +192,12 @@ public class MoonVisibility {
 		MoonVisibility runner = new MoonVisibility();
 
 		try {
-			runner.run(apMoonGeocentric, apSunGeocentric, apMoonTopocentric, place, jdstart, jdfinish, System.out);
+			runner.run(apMoonGeocentric, apSunGeocentric, apMoonTopocentric, place, jdstart, jdfinish, out);
 		} catch (JPLEphemerisException e) {
-			e.printStackTrace();
+			e.printStackTrace(err);
 		}
+
+		return 0;
 	}
 
 	private static final Pattern dmPattern = Pattern.compile("([NSEW])([\\d]+):([\\d]+)");
@@ -230,26 +228,32 @@ public class MoonVisibility {
 	private static Date parseDate(String str) throws ParseException {
 		if (str != null) {
 			try {
-				return datetimefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd/HH:mm").parse(str);
 			} catch (ParseException e) {
-				return datefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd").parse(str);
 			}
 		} else
 			return new Date();
 	}
+	
+	private static SimpleDateFormat createDateFormat(String pattern) {
+		SimpleDateFormat fmt = new SimpleDateFormat(pattern);
+		fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return fmt;
+	}
 
-	public static void showUsage() {
-		System.err.println("MANDATORY PARAMETERS");
-		System.err.println("\t-ephemeris\tName of ephemeris file");
-		System.err.println("\t-startdate\tStart date");
-		System.err.println("\t-longitude\tLongitude (format: [NS]dd:mm)");
-		System.err.println("\t-latitude\tLatitude (format: [EW]ddd:mm");
+	public static void showUsage(PrintStream err) {
+		err.println("MANDATORY PARAMETERS");
+		err.println("\t-ephemeris\tName of ephemeris file");
+		err.println("\t-startdate\tStart date");
+		err.println("\t-longitude\tLongitude (format: [NS]dd:mm)");
+		err.println("\t-latitude\tLatitude (format: [EW]ddd:mm");
 
-		System.err.println();
+		err.println();
 
-		System.err.println("OPTIONAL PARAMETERS");
-		System.err.println("\t-enddate\tEnd date [DEFAULT: startdate + 1.0]");
-		System.err.println("\t-timezone\tTimezone offset from UTC (format: [EW]hh:mm) [DEFAULT: 0]");
+		err.println("OPTIONAL PARAMETERS");
+		err.println("\t-enddate\tEnd date [DEFAULT: startdate + 1.0]");
+		err.println("\t-timezone\tTimezone offset from UTC (format: [EW]hh:mm) [DEFAULT: 0]");
 	}
 
 	String[] DISCLAIMER = {
@@ -40,6 +40,7 @@ import com.obliquity.astronomy.almanac.JPLEphemeris;
 import com.obliquity.astronomy.almanac.JPLEphemerisException;
 import com.obliquity.astronomy.almanac.MovingPoint;
 import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
 
 public class NereidDataAnalyser {
 	private class NereidObservation implements Comparable<NereidObservation> {
@@ -181,9 +182,7 @@ public class NereidDataAnalyser {
 		for (NereidObservation obs : observations) {
 			double ut = obs.julianDate;
 			
-			double dt = erm.deltaT(ut);
-			
-			double tt = ut + dt;
+			double tt = TimeScales.ttFromUT(ut);
 			
 			ap.calculateApparentPlace(tt);
 			
@@ -24,278 +24,54 @@
 
 package com.obliquity.astronomy.almanac.test;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.List;
 
 import com.obliquity.astronomy.almanac.JPLEphemeris;
-import com.obliquity.astronomy.almanac.JPLEphemerisException;
-import com.obliquity.astronomy.almanac.MovingPoint;
 import com.obliquity.astronomy.almanac.PlanetCentre;
-import com.obliquity.astronomy.almanac.StateVector;
-import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevEphemeris;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevSegment;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevTextReader;
+import com.obliquity.astronomy.almanac.satellite.ChebyshevTheory;
+import com.obliquity.astronomy.almanac.satellite.Satellite;
 
 /*
  * This class encapsulates an orbit model for Nereid in the form
  * of sets of Chebyshev coefficients spanning a range of dates.
+ * 
+ * The coefficients give the Neptune-centric position of Nereid in km.
+ * When the model is loaded from a named file, a binary copy of the
+ * coefficients is kept alongside it, which is much faster to load.
  */
 
-public class NereidIntegration implements MovingPoint {
-	class NereidChebyshevData {
-		public double jdStart, jdEnd;
-		double[][] coeffs;
-	}
-	
+public class NereidIntegration extends Satellite {
 	public static final int BODY_CODE = 1802;
 	
-	private NereidChebyshevData[] chebyshevData = null;
-	private double jdEarliest = Double.NaN, jdLatest = Double.NaN;
-	private double[] ChebyP, ChebyV;
-	
-	/*
-	 * JPL ephemeris object for calculating the position of Neptune.
-	 */
-	
-	private JPLEphemeris ephemeris;
-	private double AU;
-	private PlanetCentre neptune;
-	
-	private boolean debug = Boolean.getBoolean("nereid.debug");
-	
 	public NereidIntegration(String filename, JPLEphemeris ephemeris) throws IOException {
-		this(new FileInputStream(filename), ephemeris);
+		this(new File(filename), ephemeris);
 	}
 	
 	public NereidIntegration(File file, JPLEphemeris ephemeris) throws IOException {
-		this(new FileInputStream(file), ephemeris);
+		super("Nereid", BODY_CODE, new ChebyshevTheory(ChebyshevTextReader.load(file, BODY_CODE, 2451545.0, ephemeris)),
+				new PlanetCentre(ephemeris, JPLEphemeris.NEPTUNE));
 	}
 	
 	public NereidIntegration(InputStream is, JPLEphemeris ephemeris) throws IOException {
-		this.ephemeris = ephemeris;
-		AU = 1.0 / ephemeris.getAU();
-		neptune = new PlanetCentre(ephemeris, JPLEphemeris.NEPTUNE);
-
-		BufferedReader br = new BufferedReader(new InputStreamReader(is));
-		
-		List<NereidChebyshevData> dataList = new ArrayList<NereidChebyshevData>();
-		
-		while (true) {
-			NereidChebyshevData nextData = readChebyshevData(br);
-			
-			if (nextData != null)
-				dataList.add(nextData);
-			else
-				break;
-		}
-		
-		chebyshevData = new NereidChebyshevData[dataList.size()];
-		
-		dataList.toArray(chebyshevData);
-		
-		jdEarliest = chebyshevData[0].jdStart;
-		jdLatest = chebyshevData[chebyshevData.length - 1].jdEnd;
-		
-		int maxCoeffs = 0;
-		
-		for (NereidChebyshevData data : chebyshevData) {
-			int nCoeffs = data.coeffs[0].length;
-			
-			if (nCoeffs > maxCoeffs)
-				maxCoeffs = nCoeffs; 
-		}
-		
-		ChebyP = new double[maxCoeffs];
-		ChebyV = new double[maxCoeffs];
+		super("Nereid", BODY_CODE, new ChebyshevTheory(createChebyshevEphemeris(ChebyshevTextReader.readSegments(is), ephemeris)),
+				new PlanetCentre(ephemeris, JPLEphemeris.NEPTUNE));
 	}
 	
-	private NereidChebyshevData readChebyshevData(BufferedReader br) throws IOException {
-		String line = br.readLine();
-		
-		if (line == null)
-			return null;
-		
-		String[] words = line.trim().split("\\s+");
-		
-		if (words == null || words.length < 3)
-			return null;
+	private static ChebyshevEphemeris createChebyshevEphemeris(List<ChebyshevSegment> segments,
+			JPLEphemeris ephemeris) throws IOException {
+		if (segments.isEmpty())
+			throw new IOException("No Chebyshev data found");
 		
-		NereidChebyshevData data = new NereidChebyshevData();
-
 		try {
-			data.jdStart = Double.parseDouble(words[0]);
-			data.jdEnd = Double.parseDouble(words[1]);
-			int nCoeffs = Integer.parseInt(words[2]);
-			
-			data.coeffs = new double[3][nCoeffs];
-			
-			for (int i = 0; i < nCoeffs; i++) {
-				line = br.readLine();
-				
-				if (line == null)
-					return null;
-				
-				words = line.trim().split("\\s+");
-				
-				if (words == null || words.length < 3)
-					return null;
-
-				for (int j = 0; j < 3; j++)
-					data.coeffs[j][i] = Double.parseDouble(words[j]);
-			}
-		}
-		catch (NumberFormatException nfe) {
-			return null;
-		}	
-		
-		return data;
-	}
-	
-	public void calculatePlanetocentricPositionAndVelocity(double time, Vector position, Vector velocity) throws JPLEphemerisException {
-		if (position == null)
-			throw new JPLEphemerisException("Input position vector was null");
-		
-		if (!isValidDate(time))
-			throw new JPLEphemerisException("Date is outside valid range");
-		
-		NereidChebyshevData data = findChebyshevDataForTime(time);
-		
-		if (data == null)
-			throw new JPLEphemerisException("Failed to find Chebyshev data for date");
-		
-		double x = 2.0 * (time - data.jdStart)/(data.jdEnd - data.jdStart) - 1.0;
-		
-		int nCoeffs = data.coeffs[0].length;
-		
-		ChebyP[0] = 1.0;
-		ChebyP[1] = x;
-		
-		if (velocity != null) {
-			ChebyV[0] = 0.0;
-			ChebyV[1] = 1.0;
-		}
-		
-		for (int k = 2; k < nCoeffs; k++) {
-			ChebyP[k] = 2.0 * x * ChebyP[k-1] - ChebyP[k-2];
-			
-			if (velocity != null)
-				ChebyV[k] = 2.0 * x * ChebyV[k-1] - ChebyV[k-2] + 2.0 * ChebyP[k-1];
-		}
-		
-		double[] pos = new double[3];
-		double[] vel = (velocity != null) ? new double[3] : null;
-		
-		for (int i = 0; i < 3; i++) {
-			pos[i] = 0.5 * data.coeffs[i][0];
-			
-			for (int k = 1; k < nCoeffs; k++)
-				pos[i] += data.coeffs[i][k] * ChebyP[k];
-			
-			if (velocity != null) {
-				vel[i] = 0.0;
-				
-				for (int k = 1; k < nCoeffs; k++)
-					vel[i] += data.coeffs[i][k] * ChebyV[k];
-				
-				vel[i] *= 2.0/(data.jdEnd - data.jdStart);
-			}
-		}
-		
-		position.setComponents(pos);
-		
-		if (velocity != null)
-			velocity.setComponents(vel);
-	}
-	
-	private NereidChebyshevData findChebyshevDataForTime(double time) {
-		for (NereidChebyshevData data : chebyshevData) {
-			if (data.jdStart <= time && time <= data.jdEnd)
-				return data;
+			return new ChebyshevEphemeris(segments, BODY_CODE, 2451545.0, ephemeris);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid Chebyshev data: " + e.getMessage());
 		}
-		
-		return null;
-	}
-
-	private Vector nereidPosition = new Vector(), nereidVelocity = new Vector();
-	
-	private StateVector nereidStateVector = new StateVector(nereidPosition, nereidVelocity);
-	
-	private Vector neptunePosition = new Vector(), neptuneVelocity = new Vector();
-	
-	private StateVector neptuneStateVector = new StateVector(neptunePosition, neptuneVelocity);
-
-	public StateVector getStateVector(double time)
-			throws JPLEphemerisException {
-		neptune.getStateVector(time, neptuneStateVector);
-		
-		getStateVector(time, nereidStateVector);
-		
-		nereidStateVector.add(neptuneStateVector);
-		
-		return nereidStateVector;
-	}
-
-	public void getStateVector(double time, StateVector sv)
-			throws JPLEphemerisException {
-		neptune.getStateVector(time, neptuneStateVector);
-		
-		Vector position = sv.getPosition();
-		Vector velocity = sv.getVelocity();
-		
-		calculatePlanetocentricPositionAndVelocity(time, position, velocity);
-		
-		position.multiplyBy(AU);
-		velocity.multiplyBy(AU);
-		
-		sv.add(neptuneStateVector);
-	}
-
-	public Vector getPosition(double time) throws JPLEphemerisException {
-		neptune.getPosition(time, neptunePosition);
-		
-		getPosition(time, nereidPosition);
-
-		nereidPosition.add(neptunePosition);
-		
-		return nereidPosition;
-	}
-
-	public void getPosition(double time, Vector p)
-			throws JPLEphemerisException {
-		neptune.getPosition(time, neptunePosition);
-		
-		calculatePlanetocentricPositionAndVelocity(time, p, null);
-		
-		p.multiplyBy(AU);
-		
-		p.add(neptunePosition);
-	}
-
-	public boolean isValidDate(double time) {
-		return jdEarliest <= time && time <= jdLatest && ephemeris.isValidDate(time);
-	}
-
-	public double getEarliestDate() {
-		return Math.max(jdEarliest, ephemeris.getEarliestDate());
-	}
-
-	public double getLatestDate() {
-		return Math.min(jdLatest, ephemeris.getLatestDate());
-	}
-
-	public double getEpoch() {
-		return 2451545.0;
-	}
-
-	public int getBodyCode() {
-		return BODY_CODE;
-	}
-
-	public JPLEphemeris getEphemeris() {
-		return ephemeris;
 	}
 }
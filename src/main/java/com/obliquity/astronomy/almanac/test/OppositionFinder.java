@@ -82,6 +82,10 @@ public class OppositionFinder {
 	}
 
 	public static void main(String args[]) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		String filename = null;
 		String bodyname = null;
 		String startdate = null;
@@ -108,15 +112,15 @@ public class OppositionFinder {
 
 		if (filename == null || startdate == null
 				|| enddate == null || bodyname == null) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 		int kBody = parseBody(bodyname);
 
 		if (kBody < 0) {
-			System.err.println("Unknown body: \"" + bodyname + "\"");
-			System.exit(1);
+			err.println("Unknown body: \"" + bodyname + "\"");
+			return 1;
 		}
 
 
@@ -132,25 +136,27 @@ public class OppositionFinder {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		OppositionFinder finder = new OppositionFinder(ephemeris, kBody);
 		
 		try {
-			finder.run(jdstart, jdfinish, jdstep, System.out);
+			finder.run(jdstart, jdfinish, jdstep, out);
 		} catch (JPLEphemerisException e) {
-			e.printStackTrace();
+			e.printStackTrace(err);
 		}
+
+		return 0;
 	}
 
-	public static void showUsage() {
+	public static void showUsage(PrintStream err) {
 		String[] lines = { "MANDATORY PARAMETERS",
 				"\t-ephemeris\tName of ephemeris file",
 				"\t-startdate\tStart date",
@@ -174,7 +180,7 @@ public class OppositionFinder {
 		};
 		
 		for (String line : lines)
-			System.err.println(line);
+			err.println(line);
 	}
 
 	private static int parseBody(String bodyname) {
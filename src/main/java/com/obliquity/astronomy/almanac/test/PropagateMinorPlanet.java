@@ -0,0 +1,180 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.StateVector;
+import com.obliquity.astronomy.almanac.Vector;
+import com.obliquity.astronomy.almanac.integration.IntegratedOrbit;
+import com.obliquity.astronomy.almanac.integration.SmallBodyPropagator;
+import com.obliquity.astronomy.almanac.minorplanet.KeplerianOrbit;
+import com.obliquity.astronomy.almanac.minorplanet.MPCOrbitReader;
+import com.obliquity.astronomy.almanac.minorplanet.OrbitCatalogue;
+
+/*
+ * This class propagates the first few orbits in an MPCORB.DAT file by
+ * numerical integration, starting from the osculating elements, and prints
+ * the difference between the integrated and two-body positions, which shows
+ * the effect of the planetary perturbations.
+ */
+
+public class PropagateMinorPlanet {
+	public static void main(String[] args) {
+		String filename = null;
+		String asteroidFilename = null;
+		double epoch = Double.NaN;
+		double days = 3650.0;
+		double step = 100.0;
+		int count = 10;
+		
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i].toLowerCase()) {
+			case "-ephemeris":
+				filename = args[++i];
+				break;
+				
+			case "-asteroids":
+				asteroidFilename = args[++i];
+				break;
+				
+			case "-epoch":
+				epoch = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-days":
+				days = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-step":
+				step = Double.parseDouble(args[++i]);
+				break;
+				
+			case "-count":
+				count = Integer.parseInt(args[++i]);
+				break;
+				
+			case "-help":
+				showUsage(null);
+				System.exit(0);
+				return;
+				
+			default:
+				showUsage("Unknown option: " + args[i]);
+				System.exit(1);
+			}
+		}
+		
+		if (filename == null || asteroidFilename == null || Double.isNaN(epoch)) {
+			showUsage("One or more mandatory options are missing.");
+			System.exit(1);
+		}
+		
+		try {
+			run(filename, asteroidFilename, epoch, days, step, count);
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static void run(String filename, String asteroidFilename, double epoch, double days, double step,
+			int count) throws IOException, JPLEphemerisException {
+		OrbitCatalogue catalogue = new OrbitCatalogue();
+		
+		try (InputStream is = new FileInputStream(asteroidFilename)) {
+			new MPCOrbitReader().readAsteroidOrbits(is, catalogue);
+		}
+		
+		count = Math.min(count, catalogue.size());
+		
+		JPLEphemeris ephemeris = new JPLEphemeris(filename, epoch - days - 1.0, epoch + days + 1.0);
+		
+		KeplerianOrbit[] kepler = new KeplerianOrbit[count];
+		StateVector[] initial = new StateVector[count];
+		
+		for (int i = 0; i < count; i++) {
+			kepler[i] = new KeplerianOrbit(catalogue, i, ephemeris);
+			initial[i] = new StateVector(kepler[i].getStateVector(epoch));
+		}
+		
+		SmallBodyPropagator propagator = new SmallBodyPropagator(ephemeris);
+		
+		long startTime = System.nanoTime();
+		
+		IntegratedOrbit[] orbits = propagator.propagate(initial, null, epoch, epoch - days, epoch + days);
+		
+		long finishTime = System.nanoTime();
+		
+		System.out.printf("Integrated %d orbits over %.1f days in %.3f s with %d steps and %d evaluations\n",
+				count, 2.0 * days, 1.0e-9 * (finishTime - startTime), propagator.getNumberOfSteps(),
+				propagator.getNumberOfEvaluations());
+		
+		Vector p = new Vector(), q = new Vector();
+		
+		for (int i = 0; i < count; i++) {
+			System.out.println();
+			System.out.println(catalogue.getDesignation(i));
+			
+			for (double t = epoch - days; t <= epoch + days; t += step) {
+				orbits[i].getPosition(t, p);
+				kepler[i].getPosition(t, q);
+				
+				p.subtract(q);
+				
+				System.out.printf("%12.2f  %12.9f\n", t, p.magnitude());
+			}
+		}
+	}
+	
+	private static void showUsage(String message) {
+		if (message != null) {
+			System.err.print("ERROR: ");
+			System.err.println(message);
+			System.err.println();
+		}
+		
+		String[] lines = {
+				"MANDATORY OPTIONS:",
+				"\t-ephemeris\tName of JPL ephemeris file",
+				"\t-asteroids\tName of asteroid orbit file in MPCORB.DAT format",
+				"\t-epoch\t\tEpoch of osculation as a Julian Date (TDB)",
+				"",
+				"OPTIONAL PARAMETERS:",
+				"\t-days\t\tNumber of days to integrate before and after the epoch [default: 3650]",
+				"\t-step\t\tInterval between output lines in days [default: 100]",
+				"\t-count\t\tNumber of orbits to integrate [default: 10]"
+		};
+		
+		for (String line : lines)
+			System.err.println(line);
+	}
+}
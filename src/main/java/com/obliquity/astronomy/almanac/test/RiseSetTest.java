@@ -25,7 +25,6 @@
 package com.obliquity.astronomy.almanac.test;
 
 import java.io.*;
-import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -48,22 +47,18 @@ public class RiseSetTest {
 	
 	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
 
-	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd");
-
-	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd/HH:mm");
-
 	static {
 		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
-		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
-		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
 	}
 	
 	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
 	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
 	
 	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		String filename = null;
 		String bodyname = null;
 		String startdate = null;
@@ -96,15 +91,15 @@ public class RiseSetTest {
 		}
 
 		if (filename == null || bodyname == null || startdate == null ) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 		int kBody = parseBody(bodyname);
 
 		if (kBody < 0) {
-			System.err.println("Unknown body name: \"" + bodyname + "\"");
-			System.exit(1);
+			err.println("Unknown body name: \"" + bodyname + "\"");
+			return 1;
 		}
 
 		Date startDate = null;
@@ -112,8 +107,8 @@ public class RiseSetTest {
 		try {
 			startDate = parseDate(startdate);
 		} catch (ParseException e1) {
-			e1.printStackTrace();
-			System.exit(1);;
+			e1.printStackTrace(err);
+			return 1;
 		}
 		
 		double jdstart = UNIX_EPOCH_AS_JD + ((double)startDate.getTime())/MILLISECONDS_PER_DAY;
@@ -126,8 +121,8 @@ public class RiseSetTest {
 			try {
 				endDate = parseDate(enddate);
 			} catch (ParseException e) {
-				e.printStackTrace();
-				System.exit(1);
+				e.printStackTrace(err);
+				return 1;
 			}
 			
 			jdfinish = UNIX_EPOCH_AS_JD + ((double)endDate.getTime())/MILLISECONDS_PER_DAY + 1.0;
@@ -140,13 +135,13 @@ public class RiseSetTest {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		MovingPoint planet = null;
@@ -183,7 +178,7 @@ public class RiseSetTest {
 				RiseSetEvent[] events = lv.findRiseSetEvents(ap, place, jd, rsType);
 				
 				for (int i = 0; i < events.length; i++) {
-					System.out.print((events[i].type == RiseSetEventType.RISE ? "RISE " : "SET  ") + dateToString(events[i].date));
+					out.print((events[i].type == RiseSetEventType.RISE ? "RISE " : "SET  ") + dateToString(events[i].date));
 					
 					HorizontalCoordinates hc = lv.calculateApparentAltitudeAndAzimuth(ap, place, events[i].date);
 					double azi = (180.0/Math.PI) * hc.azimuth;
@@ -193,12 +188,14 @@ public class RiseSetTest {
 					hc = lv.calculateGeometricAltitudeAndAzimuth(ap, place, events[i].date);
 					double alt = (180.0/Math.PI)* hc.altitude;
 					
-					System.out.printf("  %6.2f  %6.2f\n", azi, alt);
+					out.printf("  %6.2f  %6.2f\n", azi, alt);
 				}
 			}
 		} catch (JPLEphemerisException e) {
-			e.printStackTrace();
+			e.printStackTrace(err);
 		}
+
+		return 0;
 	}
 	
 	private static RiseSetType parseRiseSetType(String typename) {
@@ -238,23 +235,25 @@ public class RiseSetTest {
 	private static Date parseDate(String str) throws ParseException {
 		if (str != null) {
 			try {
-				return datetimefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd/HH:mm").parse(str);
 			} catch (ParseException e) {
-				return datefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd").parse(str);
 			}
 		} else
 			return new Date();		
 	}
 	
-		
-	private static final DecimalFormat dfmt1 = new DecimalFormat("0000");
-	private static final DecimalFormat dfmt2 = new DecimalFormat("00");
+	private static SimpleDateFormat createDateFormat(String pattern) {
+		SimpleDateFormat fmt = new SimpleDateFormat(pattern);
+		fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return fmt;
+	}
 	
+		
 	private static String dateToString(double t) {
 		AstronomicalDate ad = new AstronomicalDate(t);
 		ad.roundToNearestMinute();
-		return dfmt1.format(ad.getYear()) + "-" + dfmt2.format(ad.getMonth()) + "-" + dfmt2.format(ad.getDay()) 
-				+ " " + dfmt2.format(ad.getHour()) + ":" + dfmt2.format(ad.getMinute());
+		return String.format("%04d-%02d-%02d %02d:%02d", ad.getYear(), ad.getMonth(), ad.getDay(), ad.getHour(), ad.getMinute());
 	}
 
 	private static int parseBody(String bodyname) {
@@ -291,19 +290,19 @@ public class RiseSetTest {
 		return -1;
 	}
 
-	public static void showUsage() {
-		System.err.println("MANDATORY PARAMETERS");
-		System.err.println("\t-ephemeris\tName of ephemeris file");
-		System.err.println("\t-body\t\tName of body");
-		System.err.println("\t-startdate\tStart date");
-		System.err.println("\t-longitude\tLongitude, in degrees");
-		System.err.println("\t-latitude\tLatitude, in degrees");
+	public static void showUsage(PrintStream err) {
+		err.println("MANDATORY PARAMETERS");
+		err.println("\t-ephemeris\tName of ephemeris file");
+		err.println("\t-body\t\tName of body");
+		err.println("\t-startdate\tStart date");
+		err.println("\t-longitude\tLongitude, in degrees");
+		err.println("\t-latitude\tLatitude, in degrees");
 		
-		System.err.println();
+		err.println();
 		
-		System.err.println("OPTIONAL PARAMETERS");
-		System.err.println("\t-enddate\tEnd date [DEFAULT: startdate + 1.0]");
-		System.err.println("\t-type\t\tType code (upper|lower|centre|civil|nautical|astronomical) [DEFAULT: upper]");
+		err.println("OPTIONAL PARAMETERS");
+		err.println("\t-enddate\tEnd date [DEFAULT: startdate + 1.0]");
+		err.println("\t-type\t\tType code (upper|lower|centre|civil|nautical|astronomical) [DEFAULT: upper]");
 	}
 
 }
@@ -0,0 +1,119 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+
+import com.obliquity.astronomy.almanac.EphemerisRegistry;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.batch.BatchJob;
+import com.obliquity.astronomy.almanac.batch.BatchRunner;
+import com.obliquity.astronomy.almanac.batch.JobManifest;
+
+/*
+ * This class runs the jobs in a manifest (see JobManifest) in a single JVM,
+ * using a pool with one thread per processor unless -threads is given, and
+ * then prints the wall time and CPU time of each job.
+ * 
+ * The -ephemeris option sets the ephemeris of every job which does not name
+ * its own.
+ */
+
+public class RunBatch {
+	public static void main(String args[]) {
+		String manifestName = null;
+		String ephemerisName = null;
+		String reportName = null;
+		int threads = 0;
+		int cacheCapacity = EphemerisRegistry.DEFAULT_CACHE_CAPACITY;
+		boolean quiet = false;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-manifest"))
+				manifestName = args[++i];
+
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				ephemerisName = args[++i];
+
+			if (args[i].equalsIgnoreCase("-report"))
+				reportName = args[++i];
+
+			if (args[i].equalsIgnoreCase("-threads"))
+				threads = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-cachesize"))
+				cacheCapacity = Integer.parseInt(args[++i]);
+
+			if (args[i].equalsIgnoreCase("-quiet"))
+				quiet = true;
+		}
+
+		if (manifestName == null || threads < 0 || cacheCapacity < 1) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		PrintStream out = System.out;
+		PrintStream err = System.err;
+
+		try {
+			List<BatchJob> jobs = JobManifest.read(new File(manifestName));
+
+			BatchRunner runner = new BatchRunner(new EphemerisRegistry(cacheCapacity), threads);
+
+			if (ephemerisName != null)
+				runner.setDefaultEphemeris(new File(ephemerisName));
+
+			if (!quiet)
+				runner.setProgressStream(err);
+
+			int failures = runner.run(jobs);
+
+			if (reportName != null) {
+				try (PrintStream ps = new PrintStream(reportName)) {
+					runner.writeReport(ps, jobs);
+				}
+			} else
+				runner.writeReport(out, jobs);
+
+			System.exit(failures == 0 ? 0 : 2);
+		} catch (FileNotFoundException e) {
+			err.println("Cannot open file: " + e.getMessage());
+			System.exit(1);
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private static void showUsage() {
+		System.err.println("Usage: RunBatch -manifest filename [-ephemeris filename] [-threads n] [-cachesize records]"
+				+ " [-report filename] [-quiet]");
+	}
+}
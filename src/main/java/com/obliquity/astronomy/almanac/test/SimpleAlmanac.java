@@ -72,12 +72,6 @@ public class SimpleAlmanac {
 	private Matrix precessJ2000toB1875 = null;
 	private int targetEpoch;
 
-	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd");
-
-	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
-			"yyyy-MM-dd/HH:mm");
-
 	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
 	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
 
@@ -107,9 +101,10 @@ public class SimpleAlmanac {
 	}
 
 	public static void main(String args[]) {
-		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
-		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		System.exit(run(args, System.out, System.err));
+	}
 
+	public static int run(String[] args, PrintStream out, PrintStream err) {
 		String filename = null;
 		String bodyname = null;
 		String startdate = null;
@@ -168,15 +163,15 @@ public class SimpleAlmanac {
 		}
 
 		if (filename == null || bodyname == null) {
-			showUsage();
-			System.exit(1);
+			showUsage(err);
+			return 1;
 		}
 
 		int kBody = parseBody(bodyname);
 
 		if (kBody < 0) {
-			System.err.println("Unknown body name: \"" + bodyname + "\"");
-			System.exit(1);
+			err.println("Unknown body name: \"" + bodyname + "\"");
+			return 1;
 		}
 		
 		if (poleModelName != null) {
@@ -190,10 +185,10 @@ public class SimpleAlmanac {
 		try {
 			date = parseDate(startdate);
 		} catch (ParseException e) {
-			System.err.println(
+			err.println(
 					"Failed to parse -startdate value \"" + startdate + "\" as an ISO date");
-			e.printStackTrace();
-			System.exit(1);
+			e.printStackTrace(err);
+			return 1;
 		}
 
 		double jdstart = UNIX_EPOCH_AS_JD
@@ -203,10 +198,10 @@ public class SimpleAlmanac {
 			try {
 				date = parseDate(enddate);
 			} catch (ParseException e) {
-				System.err.println(
+				err.println(
 						"Failed to parse -enddate value \"" + enddate + "\" as an ISO date");
-				e.printStackTrace();
-				System.exit(1);
+				e.printStackTrace(err);
+				return 1;
 			}
 		} 
 
@@ -223,13 +218,13 @@ public class SimpleAlmanac {
 			ephemeris = new JPLEphemeris(filename, jdstart - 1.0,
 					jdfinish + 1.0);
 		} catch (JPLEphemerisException jee) {
-			jee.printStackTrace();
-			System.err.println("JPLEphemerisException ... " + jee);
-			System.exit(1);
+			jee.printStackTrace(err);
+			err.println("JPLEphemerisException ... " + jee);
+			return 1;
 		} catch (IOException ioe) {
-			ioe.printStackTrace();
-			System.err.println("IOException ... " + ioe);
-			System.exit(1);
+			ioe.printStackTrace(err);
+			err.println("IOException ... " + ioe);
+			return 1;
 		}
 
 		MovingPoint planet = null;
@@ -268,22 +263,35 @@ public class SimpleAlmanac {
 		
 		almanac.setElongationDeltas(elongationDeltas);
 		
-		PrintStream ps = Boolean.getBoolean("silent") ? null : System.out;
+		PrintStream ps = Boolean.getBoolean("silent") ? null : out;
 
-		almanac.run(jdstart, jdfinish, jdstep, ps);
+		try {
+			almanac.run(jdstart, jdfinish, jdstep, ps);
+		} catch (JPLEphemerisException jplee) {
+			jplee.printStackTrace(err);
+			return 1;
+		}
+
+		return 0;
 	}
 	
 	private static Date parseDate(String str) throws ParseException {
 		if (str != null) {
 			try {
-				return datetimefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd/HH:mm").parse(str);
 			} catch (ParseException e) {
-				return datefmtIn.parse(str);
+				return createDateFormat("yyyy-MM-dd").parse(str);
 			}
 		} else
 			return new Date();		
 	}
 	
+	private static SimpleDateFormat createDateFormat(String pattern) {
+		SimpleDateFormat fmt = new SimpleDateFormat(pattern);
+		fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		return fmt;
+	}
+	
 	private static double parseStepSize(String str) {
 		Pattern pattern = Pattern.compile("(\\d+)([a-zA-Z]?)");
 		
@@ -375,22 +383,18 @@ public class SimpleAlmanac {
 		}
 	}
 
-	public void run(double jdstart, double jdfinish, double jdstep, PrintStream ps) {
-		try {
-			ExtendedAlmanacData lastData = null;
+	public void run(double jdstart, double jdfinish, double jdstep, PrintStream ps) throws JPLEphemerisException {
+		ExtendedAlmanacData lastData = null;
+		
+		for (double t = jdstart; t <= jdfinish; t += jdstep) {
+			ExtendedAlmanacData data = calculateAlmanacData(t);
 			
-			for (double t = jdstart; t <= jdfinish; t += jdstep) {
-				ExtendedAlmanacData data = calculateAlmanacData(t);
-				
-				if (elongationDeltas && lastData != null)
-					displayElongationDelta(lastData, data, ps);
-				
-				lastData = data;
-				
-				displayApparentPlace(data, ps);
-			}
-		} catch (JPLEphemerisException jplee) {
-			jplee.printStackTrace();
+			if (elongationDeltas && lastData != null)
+				displayElongationDelta(lastData, data, ps);
+			
+			lastData = data;
+			
+			displayApparentPlace(data, ps);
 		}
 	}
 	
@@ -572,7 +576,7 @@ public class SimpleAlmanac {
 		return apTarget.getTarget().getBodyCode() == JPLEphemeris.SUN;
 	}
 
-	public static void showUsage() {
+	public static void showUsage(PrintStream err) {
 		String[] lines = { "MANDATORY PARAMETERS",
 				"\t-ephemeris\tName of ephemeris file",
 				"\t-body\t\tName of body",
@@ -638,7 +642,7 @@ public class SimpleAlmanac {
 		};
 		
 		for (String line : lines)
-			System.err.println(line);
+			err.println(line);
 	}
 
 }
@@ -0,0 +1,269 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.star.StarApparentPlaceCalculator;
+import com.obliquity.astronomy.almanac.star.StarCatalogue;
+import com.obliquity.astronomy.almanac.star.StarCatalogueReader;
+import com.obliquity.astronomy.almanac.star.StarPlaceTable;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
+
+/*
+ * This class calculates the apparent places of every star in a catalogue at
+ * a single instant.  The catalogue may be a delimited text file exported
+ * from Gaia or VizieR, one or more star property files, or a randomly
+ * generated catalogue which is used to measure throughput.
+ */
+
+public class StarCatalogueBatch {
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final SimpleDateFormat datefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd");
+
+	private static final SimpleDateFormat datetimefmtIn = new SimpleDateFormat(
+			"yyyy-MM-dd/HH:mm");
+
+	public static void main(String[] args) {
+		datefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		datetimefmtIn.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String catalogueFilename = null;
+		String datestr = null;
+		int nThreads = 0;
+		int nRandom = 0;
+		boolean j2000 = false;
+		boolean quiet = false;
+		
+		StarCatalogue catalogue = new StarCatalogue();
+		StarCatalogueReader reader = new StarCatalogueReader();
+		
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i].toLowerCase()) {
+				case "-ephemeris":
+					filename = args[++i];
+					break;
+					
+				case "-catalogue":
+					catalogueFilename = args[++i];
+					
+					try (InputStream is = new FileInputStream(catalogueFilename)) {
+						reader.readDelimited(is, catalogue);
+					}
+					break;
+					
+				case "-star":
+					reader.readProperties(new File(args[++i]), catalogue);
+					break;
+					
+				case "-random":
+					nRandom = Integer.parseInt(args[++i]);
+					break;
+					
+				case "-date":
+					datestr = args[++i];
+					break;
+					
+				case "-threads":
+					nThreads = Integer.parseInt(args[++i]);
+					break;
+					
+				case "-j2000":
+					j2000 = true;
+					break;
+					
+				case "-quiet":
+					quiet = true;
+					break;
+					
+				case "-help":
+					showUsage(null);
+					System.exit(0);
+					return;
+					
+				default:
+					showUsage("Unknown option: " + args[i]);
+					System.exit(1);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		if (filename == null || datestr == null) {
+			showUsage("One or more mandatory options are missing.");
+			System.exit(1);
+		}
+		
+		if (nRandom > 0)
+			addRandomStars(catalogue, nRandom);
+		
+		if (catalogue.size() == 0) {
+			showUsage("You must specify at least one of -catalogue, -star or -random.");
+			System.exit(1);
+		}
+		
+		if (reader.getErrorCount() > 0)
+			System.err.println("Skipped " + reader.getErrorCount() + " lines which could not be parsed");
+		
+		Date date = null;
+		
+		try {
+			date = datestr.contains("/") ? datetimefmtIn.parse(datestr) : datefmtIn.parse(datestr);
+		} catch (ParseException e) {
+			System.err.println("Failed to parse \"" + datestr + "\" as an ISO date");
+			System.exit(1);
+		}
+		
+		double jd = UNIX_EPOCH_AS_JD + ((double) date.getTime()) / MILLISECONDS_PER_DAY;
+		
+		StarCatalogueBatch runner = new StarCatalogueBatch();
+		
+		try {
+			runner.run(filename, catalogue, jd, j2000, nThreads, quiet ? null : System.out);
+		} catch (IOException | JPLEphemerisException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	private static void addRandomStars(StarCatalogue catalogue, int n) {
+		Random random = new Random(314159265L);
+		
+		for (int i = 0; i < n; i++) {
+			double ra = 2.0 * Math.PI * random.nextDouble();
+			double dec = Math.asin(2.0 * random.nextDouble() - 1.0);
+			double parallax = 10.0 * random.nextDouble();
+			double pmRA = 100.0 * random.nextGaussian();
+			double pmDec = 100.0 * random.nextGaussian();
+			double rv = 30.0 * random.nextGaussian();
+			double magnitude = 6.0 + 14.0 * random.nextDouble();
+			
+			catalogue.addStar("R" + i, ra, dec, parallax, pmRA, pmDec, rv, StarCatalogue.J2000, magnitude);
+		}
+	}
+	
+	public void run(String filename, StarCatalogue catalogue, double jd, boolean j2000, int nThreads, PrintStream ps)
+			throws IOException, JPLEphemerisException {
+		EarthRotationModel erm = new IAUEarthRotationModel();
+		
+		double tt = TimeScales.ttFromUT(jd);
+		
+		JPLEphemeris ephemeris = new JPLEphemeris(filename, tt - 1.0, tt + 1.0);
+		
+		StarApparentPlaceCalculator calculator = new StarApparentPlaceCalculator(ephemeris, j2000 ? null : erm, nThreads);
+		
+		long startTime = System.nanoTime();
+		
+		StarPlaceTable table = calculator.calculateApparentPlaces(catalogue, tt);
+		
+		long endTime = System.nanoTime();
+		
+		calculator.shutdown();
+		
+		if (ps != null) {
+			for (int i = 0; i < table.getRowCount(); i++)
+				ps.printf("%-20s  %s  %s  %6.2f\n", catalogue.getName(i), formatRightAscension(table.getRightAscension(i)),
+						formatDeclination(table.getDeclination(i)), catalogue.getMagnitude(i));
+		}
+		
+		double seconds = 1.0e-9 * (endTime - startTime);
+		
+		System.err.printf("Calculated %d apparent places on %d threads in %.3f s (%.0f stars/s)\n", table.getRowCount(),
+				calculator.getThreadCount(), seconds, table.getRowCount() / seconds);
+	}
+	
+	private static String formatRightAscension(double ra) {
+		double hours = ra * 12.0 / Math.PI;
+		
+		int h = (int) hours;
+		hours = 60.0 * (hours - h);
+		int m = (int) hours;
+		double s = 60.0 * (hours - m);
+		
+		return String.format("%02d %02d %07.4f", h, m, s);
+	}
+	
+	private static String formatDeclination(double dec) {
+		char sign = dec < 0.0 ? '-' : '+';
+		
+		double degrees = Math.abs(dec) * 180.0 / Math.PI;
+		
+		int d = (int) degrees;
+		degrees = 60.0 * (degrees - d);
+		int m = (int) degrees;
+		double s = 60.0 * (degrees - m);
+		
+		return String.format("%c%02d %02d %06.3f", sign, d, m, s);
+	}
+	
+	private static void showUsage(String message) {
+		if (message != null) {
+			System.err.print("ERROR: ");
+			System.err.println(message);
+			System.err.println();
+		}
+		
+		String[] lines = {
+				"MANDATORY OPTIONS:",
+				"\t-ephemeris\tName of JPL ephemeris file",
+				"\t-date\t\tDate and time in UT [YYYY-MM-DD or YYYY-MM-DD/hh:mm]",
+				"",
+				"At least one of:",
+				"\t-catalogue\tName of delimited star catalogue file (Gaia or VizieR export)",
+				"\t-star\t\tName of star property file [may be repeated]",
+				"\t-random\t\tNumber of randomly generated stars to add",
+				"",
+				"OPTIONAL PARAMETERS:",
+				"\t-j2000\t\tCalculate positions referred to J2000 instead of true equator and equinox of date",
+				"\t-threads\tNumber of threads to use [default: number of processors]",
+				"\t-quiet\t\tDo not print the apparent places"
+		};
+		
+		for (String line : lines)
+			System.err.println(line);
+	}
+}
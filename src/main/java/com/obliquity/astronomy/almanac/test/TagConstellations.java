@@ -0,0 +1,151 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.obliquity.astronomy.almanac.ConstellationLocator;
+import com.obliquity.astronomy.almanac.star.StarCatalogue;
+import com.obliquity.astronomy.almanac.star.StarCatalogueReader;
+
+/*
+ * This class identifies the constellation of every star in a catalogue and
+ * prints the number of stars in each constellation.
+ */
+
+public class TagConstellations {
+	public static void main(String[] args) {
+		StarCatalogue catalogue = new StarCatalogue();
+		StarCatalogueReader reader = new StarCatalogueReader();
+		boolean verbose = false;
+		
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i].toLowerCase()) {
+				case "-catalogue":
+					try (InputStream is = new FileInputStream(args[++i])) {
+						reader.readDelimited(is, catalogue);
+					}
+					break;
+					
+				case "-star":
+					reader.readProperties(new File(args[++i]), catalogue);
+					break;
+					
+				case "-random":
+					addRandomStars(catalogue, Integer.parseInt(args[++i]));
+					break;
+					
+				case "-verbose":
+					verbose = true;
+					break;
+					
+				default:
+					System.err.println("Unknown option: " + args[i]);
+					showUsage();
+					System.exit(1);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		if (catalogue.size() == 0) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		int n = catalogue.size();
+		
+		double[] ra = new double[n];
+		double[] dec = new double[n];
+		
+		for (int i = 0; i < n; i++) {
+			ra[i] = catalogue.getRightAscension(i);
+			dec[i] = catalogue.getDeclination(i);
+		}
+		
+		long startTime = System.nanoTime();
+		
+		ConstellationLocator locator = ConstellationLocator.getInstance();
+		
+		long builtTime = System.nanoTime();
+		
+		String[] constellations = new String[n];
+		
+		locator.getConstellationsJ2000(ra, dec, constellations, 0, n);
+		
+		long taggedTime = System.nanoTime();
+		
+		Map<String, Integer> counts = new TreeMap<String, Integer>();
+		
+		for (int i = 0; i < n; i++) {
+			counts.merge(constellations[i], 1, Integer::sum);
+			
+			if (verbose)
+				System.out.printf("%-20s  %s\n", catalogue.getName(i), constellations[i]);
+		}
+		
+		for (Map.Entry<String, Integer> entry : counts.entrySet())
+			System.out.printf("%s  %8d\n", entry.getKey(), entry.getValue());
+		
+		System.err.printf("Built lookup grid in %.3f s (%.1f%% boundary cells)\n", 1.0e-9 * (builtTime - startTime),
+				100.0 * locator.getBoundaryCellFraction());
+		System.err.printf("Tagged %d positions in %.3f s\n", n, 1.0e-9 * (taggedTime - builtTime));
+	}
+	
+	private static void addRandomStars(StarCatalogue catalogue, int n) {
+		Random random = new Random(161803399L);
+		
+		for (int i = 0; i < n; i++) {
+			double ra = 2.0 * Math.PI * random.nextDouble();
+			double dec = Math.asin(2.0 * random.nextDouble() - 1.0);
+			
+			catalogue.addStar("R" + i, ra, dec, 0.0, 0.0, 0.0, 0.0, StarCatalogue.J2000, Double.NaN);
+		}
+	}
+	
+	private static void showUsage() {
+		String[] lines = {
+				"At least one of:",
+				"\t-catalogue\tName of delimited star catalogue file (Gaia or VizieR export)",
+				"\t-star\t\tName of star property file [may be repeated]",
+				"\t-random\t\tNumber of randomly generated positions to add",
+				"",
+				"OPTIONAL PARAMETERS:",
+				"\t-verbose\tPrint the constellation of each star"
+		};
+		
+		for (String line : lines)
+			System.err.println(line);
+	}
+}
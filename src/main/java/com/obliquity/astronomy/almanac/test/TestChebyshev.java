@@ -25,6 +25,7 @@ package com.obliquity.astronomy.almanac.test;
  */
 
 import com.obliquity.astronomy.almanac.chebyshev.Chebyshev;
+import com.obliquity.astronomy.almanac.chebyshev.ChebyshevTransform;
 import com.obliquity.astronomy.almanac.chebyshev.Evaluatable;
 
 public class TestChebyshev {
@@ -51,6 +52,77 @@ public class TestChebyshev {
 		testFunction(new Sine(2.0 * Math.PI), "sine function (double-cycle)", N);
 
 		testFunction(new Cosine(2.0 * Math.PI), "cosine function (double-cycle)", N);
+		
+		System.out.println("\nComparing fast transform with direct projection:\n");
+		
+		int[] sizes = { 2, 3, 7, 12, 13, 14, 16, 24, 27, 30, 32, 64, 100, 127, 128, 256 };
+		
+		for (int n : sizes)
+			compareTransforms(new Sine(2.0 * Math.PI), n);
+	}
+	
+	private void compareTransforms(Evaluatable e, int N) {
+		double[] zeroes = new double[N];
+		
+		Chebyshev.calculateChebyshevZeroes(zeroes);
+		
+		double[] values = new double[N];
+		
+		for (int i = 0; i < N; i++)
+			values[i] = e.evaluate(zeroes[i]);
+		
+		double[] direct = new double[N];
+		double[] fast = new double[N];
+		
+		ChebyshevTransform transform = new ChebyshevTransform(N);
+		
+		int nLoops = Math.max(1, 2000000 / (N * N));
+		
+		long ticks = System.nanoTime();
+		
+		for (int j = 0; j < nLoops; j++)
+			directProjection(zeroes, values, direct);
+		
+		double directTime = (double)(System.nanoTime() - ticks) / (double)nLoops;
+		
+		ticks = System.nanoTime();
+		
+		for (int j = 0; j < nLoops; j++)
+			transform.transform(values, fast);
+		
+		double fastTime = (double)(System.nanoTime() - ticks) / (double)nLoops;
+		
+		double maxDiff = 0.0;
+		
+		for (int k = 0; k < N; k++)
+			maxDiff = Math.max(maxDiff, Math.abs(fast[k] - direct[k]));
+		
+		double maxError = 0.0;
+		
+		for (double x = -1.0; x <= 1.0; x += 1.0/64.0)
+			maxError = Math.max(maxError, Math.abs(Chebyshev.evaluate(fast, x) - e.evaluate(x)));
+		
+		System.out.printf("N = %3d : max difference %9.2e, fit error %9.2e, %2d coefficients to 1e-10, direct %9.1f ns, fast %9.1f ns\n",
+				N, maxDiff, maxError, Chebyshev.truncate(fast, 1.0e-10), directTime, fastTime);
+	}
+	
+	private void directProjection(double[] zeroes, double[] values, double[] coeffs) {
+		int N = coeffs.length;
+		
+		double[] T = new double[N];
+		
+		for (int k = 0; k < N; k++)
+			coeffs[k] = 0.0;
+		
+		for (int i = 0; i < N; i++) {
+			Chebyshev.calculateChebyshevPolynomials(zeroes[i], T);
+			
+			for (int k = 0; k < N; k++)
+				coeffs[k] += T[k] * values[i];
+		}
+		
+		for (int k = 0; k < N; k++)
+			coeffs[k] *= (k == 0 ? 1.0 : 2.0) / (double)N;
 	}
 	
 	private void testFunction(Evaluatable e, String name, int N) {
@@ -0,0 +1,100 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.text.DecimalFormat;
+
+import com.obliquity.astronomy.almanac.timescale.DeltaT;
+import com.obliquity.astronomy.almanac.timescale.LeapSeconds;
+import com.obliquity.astronomy.almanac.timescale.TDB;
+import com.obliquity.astronomy.almanac.timescale.TimeScale;
+import com.obliquity.astronomy.almanac.timescale.TimeScales;
+
+public class TimeScaleTable {
+	private static final TimeScale[] SCALES = TimeScale.values();
+	
+	public static void main(String args[]) {
+		if (args.length < 3) {
+			System.err.println("Usage: TimeScaleTable start-date end-date step [UT1|UTC|TAI|TT|TDB]");
+			System.exit(1);
+		}
+		
+		double jdstart = Double.parseDouble(args[0]);
+		double jdfinish = Double.parseDouble(args[1]);
+		double jdstep = Double.parseDouble(args[2]);
+		
+		TimeScale from = args.length > 3 ? TimeScale.valueOf(args[3].toUpperCase()) : TimeScale.UTC;
+		
+		if (!(jdstep > 0.0) || jdfinish < jdstart) {
+			System.err.println("The step must be positive and the end date must not precede the start date");
+			System.exit(1);
+		}
+		
+		int n = 1 + (int)Math.floor((jdfinish - jdstart) / jdstep);
+		
+		double[] input = new double[n];
+		
+		for (int i = 0; i < n; i++)
+			input[i] = jdstart + i * jdstep;
+		
+		double[][] output = new double[SCALES.length][n];
+		
+		for (int k = 0; k < SCALES.length; k++)
+			TimeScales.convert(input, from, output[k], SCALES[k]);
+		
+		DecimalFormat dfmt = new DecimalFormat("0.00000000");
+		DecimalFormat sfmt = new DecimalFormat("0.000");
+		DecimalFormat msfmt = new DecimalFormat("0.000000");
+		
+		System.out.print("#");
+		
+		for (TimeScale scale : SCALES)
+			System.out.print(" " + scale);
+		
+		System.out.println(" DeltaT(s) TAI-UTC(s) TDB-TT(s)");
+		
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < SCALES.length; k++)
+				System.out.print((k > 0 ? " " : "") + dfmt.format(output[k][i]));
+			
+			double jdTT = output[TimeScale.TT.ordinal()][i];
+			double jdUTC = output[TimeScale.UTC.ordinal()][i];
+			
+			System.out.print(" " + sfmt.format(DeltaT.deltaT(jdTT) * 86400.0));
+			
+			System.out.print(" " + (LeapSeconds.isCovered(jdUTC) ? sfmt.format(LeapSeconds.taiMinusUTC(jdUTC)) : "-"));
+			
+			System.out.println(" " + msfmt.format(TDB.tdbMinusTT(jdTT)));
+			
+			for (int k = 0; k < SCALES.length; k++) {
+				double jd = TimeScales.convert(input[i], from, SCALES[k]);
+				
+				if (jd != output[k][i])
+					System.err.println("Bulk and scalar " + from + " to " + SCALES[k] + " conversions disagree at " +
+							input[i] + ": " + output[k][i] + " versus " + jd);
+			}
+		}
+	}
+}
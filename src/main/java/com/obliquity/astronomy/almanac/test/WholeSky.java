@@ -0,0 +1,197 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.test;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Map;
+import java.util.TimeZone;
+
+import com.obliquity.astronomy.almanac.ApparentPlace;
+import com.obliquity.astronomy.almanac.EarthCentre;
+import com.obliquity.astronomy.almanac.EarthRotationModel;
+import com.obliquity.astronomy.almanac.EpochContext;
+import com.obliquity.astronomy.almanac.IAUEarthRotationModel;
+import com.obliquity.astronomy.almanac.JPLEphemeris;
+import com.obliquity.astronomy.almanac.JPLEphemerisException;
+import com.obliquity.astronomy.almanac.MoonCentre;
+import com.obliquity.astronomy.almanac.MovingPoint;
+import com.obliquity.astronomy.almanac.PlanetCentre;
+import com.obliquity.astronomy.almanac.metrics.Metrics;
+
+public class WholeSky {
+	private static final SimpleDateFormat datefmt = new SimpleDateFormat("yyyy-MM-dd");
+	
+	private static final double UNIX_EPOCH_AS_JD = 2440587.5;
+	private static final double MILLISECONDS_PER_DAY = 1000.0 * 86400.0;
+	
+	private static final int[] BODIES = { JPLEphemeris.SUN, JPLEphemeris.MOON, JPLEphemeris.MERCURY,
+			JPLEphemeris.VENUS, JPLEphemeris.MARS, JPLEphemeris.JUPITER, JPLEphemeris.SATURN,
+			JPLEphemeris.URANUS, JPLEphemeris.NEPTUNE, JPLEphemeris.PLUTO };
+	
+	private static final String[] BODY_NAMES = { "Sun", "Moon", "Mercury", "Venus", "Mars", "Jupiter", "Saturn",
+			"Uranus", "Neptune", "Pluto" };
+
+	public static void main(String args[]) {
+		datefmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+		
+		String filename = null;
+		String datestr = null;
+		int nIterations = 1000;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equalsIgnoreCase("-ephemeris"))
+				filename = args[++i];
+
+			if (args[i].equalsIgnoreCase("-date"))
+				datestr = args[++i];
+
+			if (args[i].equalsIgnoreCase("-iterations"))
+				nIterations = Integer.parseInt(args[++i]);
+		}
+
+		if (filename == null || datestr == null) {
+			showUsage();
+			System.exit(1);
+		}
+		
+		try {
+			Date date = datefmt.parse(datestr);
+			double jd = UNIX_EPOCH_AS_JD + ((double)date.getTime())/MILLISECONDS_PER_DAY;
+			
+			JPLEphemeris ephemeris = new JPLEphemeris(filename, jd - 1.0, jd + nIterations * 0.01 + 1.0);
+			
+			run(ephemeris, jd, nIterations);
+		} catch (JPLEphemerisException | IOException | ParseException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+	
+	/*
+	 * Calculates the apparent places of all of the bodies at a series of
+	 * instants, firstly with each apparent place calculated independently,
+	 * and then with all of them sharing an epoch context.
+	 */
+	
+	private static void run(JPLEphemeris ephemeris, double jd, int nIterations) throws JPLEphemerisException {
+		EarthCentre earth = new EarthCentre(ephemeris);
+		
+		MovingPoint sun = new PlanetCentre(ephemeris, JPLEphemeris.SUN);
+		
+		EarthRotationModel erm = new IAUEarthRotationModel();
+		
+		EpochContext context = new EpochContext(earth, sun, erm);
+		
+		ApparentPlace[] independent = new ApparentPlace[BODIES.length];
+		ApparentPlace[] shared = new ApparentPlace[BODIES.length];
+		
+		for (int i = 0; i < BODIES.length; i++) {
+			MovingPoint target = BODIES[i] == JPLEphemeris.SUN ? sun
+					: (BODIES[i] == JPLEphemeris.MOON ? new MoonCentre(ephemeris) : new PlanetCentre(ephemeris, BODIES[i]));
+			
+			independent[i] = new ApparentPlace(earth, target, sun, erm);
+			shared[i] = new ApparentPlace(context, target);
+		}
+		
+		System.out.printf("Apparent places at JD %.1f\n\n", jd);
+		
+		for (int i = 0; i < BODIES.length; i++) {
+			independent[i].calculateApparentPlace(jd);
+			shared[i].calculateApparentPlace(jd);
+			
+			double dra = (shared[i].getRightAscensionOfDate() - independent[i].getRightAscensionOfDate())
+					* Math.cos(independent[i].getDeclinationOfDate());
+			double ddec = shared[i].getDeclinationOfDate() - independent[i].getDeclinationOfDate();
+			
+			double ra = Math.toDegrees(shared[i].getRightAscensionOfDate()) / 15.0;
+			
+			if (ra < 0.0)
+				ra += 24.0;
+			
+			System.out.printf("%-8s  %12.8f  %12.7f  difference %.2e arcsec\n", BODY_NAMES[i], ra,
+					Math.toDegrees(shared[i].getDeclinationOfDate()),
+					Math.toDegrees(Math.hypot(dra, ddec)) * 3600.0);
+		}
+		
+		System.out.println();
+		
+		long evaluations = countEvaluations();
+		
+		long ticks = System.nanoTime();
+		
+		for (int k = 0; k < nIterations; k++)
+			for (ApparentPlace ap : independent)
+				ap.calculateApparentPlace(jd + 0.01 * k);
+		
+		ticks = System.nanoTime() - ticks;
+		
+		report("Independent", nIterations, ticks, countEvaluations() - evaluations);
+		
+		evaluations = countEvaluations();
+		
+		ticks = System.nanoTime();
+		
+		for (int k = 0; k < nIterations; k++)
+			for (ApparentPlace ap : shared)
+				ap.calculateApparentPlace(jd + 0.01 * k);
+		
+		ticks = System.nanoTime() - ticks;
+		
+		report("Shared context", nIterations, ticks, countEvaluations() - evaluations);
+	}
+	
+	private static long countEvaluations() {
+		long count = 0;
+		
+		for (Map.Entry<String, Long> entry : Metrics.snapshot().getCounters().entrySet())
+			if (entry.getKey().startsWith("ephemeris.evaluations."))
+				count += entry.getValue();
+		
+		return count;
+	}
+	
+	private static void report(String caption, int nIterations, long ticks, long evaluations) {
+		System.out.printf("%-16s %8.2f us per sky", caption, 1.0e-3 * (double)ticks / (double)nIterations);
+		
+		if (Metrics.ENABLED)
+			System.out.printf(", %5.1f ephemeris evaluations per sky", (double)evaluations / (double)nIterations);
+		
+		System.out.println();
+	}
+	
+	public static void showUsage() {
+		System.err.println("MANDATORY PARAMETERS");
+		System.err.println("\t-ephemeris\tName of ephemeris file");
+		System.err.println("\t-date\t\tDate");
+		System.err.println();
+		System.err.println("OPTIONAL PARAMETERS");
+		System.err.println("\t-iterations\tNumber of instants to time [default: 1000]");
+	}
+}
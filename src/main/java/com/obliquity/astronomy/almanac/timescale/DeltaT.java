@@ -0,0 +1,150 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.timescale;
+
+/*
+ * This class calculates Delta T = TT - UT from piecewise cubic polynomials in
+ * Julian centuries from J2000.0.  The polynomials are the ones which have long
+ * been used by IAUEarthRotationModel, so the values are unchanged; the table
+ * is now built once and searched by bisection.
+ * 
+ * Beyond the end of the table (the year 2200), Delta T is taken to be zero,
+ * as it always has been.
+ * 
+ * All times are Julian Dates and Delta T is returned in days.
+ */
+
+public class DeltaT {
+	private static final double J2000 = 2451545.0;
+	private static final double JCY = 36525.0;
+	private static final double SECONDS_PER_DAY = 86400.0;
+	
+	/*
+	 * Upper limit in T of each segment, and the coefficients of the cubic
+	 * polynomial in T which gives Delta T in seconds within that segment.
+	 */
+	private static final double[] LIMITS = { -25.0, -17.0, -10.0, -3.5, -3.0,
+			-2.0, -1.5, -1.0, -0.7, +0.2, +2.0 };
+	
+	private static final double[][] COEFFICIENTS = { 
+			{ 184.4, 111.6, 31.0, 0.0 },
+			{ -31527.7, -4773.29, -212.0889, -3.93731 },
+			{ 6833.0, 1996.25, 186.1189, 3.87068 },
+			{ -116.0, -88.45, -22.3509, -3.07831 },
+			{ -4586.4, -4715.24, -1615.08, -184.71 },
+			{ -427.3, -556.12, -228.71, -30.67 },
+			{ 150.7, 310.8, 204.8, 41.6 },
+			{ -150.5, -291.7, -196.9, -47.7 },
+			{ 486.0, 1896.4, 2606.9, 1204.6 },
+			{ 65.9, 96.0, 35.0, -20.2 },
+			{ 63.4, 111.6, 31.0, 0.0 } };
+	
+	private DeltaT() {
+	}
+	
+	public static double deltaT(double jd) {
+		double T = (jd - J2000) / JCY;
+		
+		int j = findSegment(T);
+		
+		return j < 0 ? 0.0 : evaluate(j, T);
+	}
+	
+	/*
+	 * Calculate Delta T for each element of jd, storing the results in dt.
+	 * The two arrays may be the same array.
+	 */
+	public static void deltaT(double[] jd, double[] dt) {
+		apply(jd, dt, 0.0, 1.0);
+	}
+	
+	/*
+	 * Store jd[i] + sign * Delta T(jd[i]) in out[i], for converting between UT
+	 * and TT in bulk.  The two arrays may be the same array.
+	 */
+	static void addDeltaT(double[] jd, double[] out, double sign) {
+		apply(jd, out, 1.0, sign);
+	}
+	
+	/*
+	 * Consecutive dates usually fall in the same segment, so the previous
+	 * segment is tried before bisecting.
+	 */
+	private static void apply(double[] jd, double[] out, double dateFactor, double sign) {
+		checkLengths(jd, out);
+		
+		int j = -1;
+		
+		for (int i = 0; i < jd.length; i++) {
+			double T = (jd[i] - J2000) / JCY;
+			
+			if (j < 0 || !inSegment(j, T))
+				j = findSegment(T);
+			
+			double dt = j < 0 ? 0.0 : evaluate(j, T);
+			
+			out[i] = dateFactor == 0.0 ? dt : jd[i] + sign * dt;
+		}
+	}
+	
+	public static double getUpperLimit() {
+		return J2000 + JCY * LIMITS[LIMITS.length - 1];
+	}
+	
+	private static double evaluate(int j, double T) {
+		double[] c = COEFFICIENTS[j];
+		
+		return (c[0] + T * (c[1] + T * (c[2] + T * c[3]))) / SECONDS_PER_DAY;
+	}
+	
+	private static boolean inSegment(int j, double T) {
+		return T < LIMITS[j] && (j == 0 || T >= LIMITS[j - 1]);
+	}
+	
+	/*
+	 * Return the index of the first segment whose upper limit exceeds T, or
+	 * -1 if T lies beyond the end of the table (or is NaN).
+	 */
+	private static int findSegment(double T) {
+		int lo = 0, hi = LIMITS.length;
+		
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			
+			if (T < LIMITS[mid])
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		
+		return lo < LIMITS.length ? lo : -1;
+	}
+	
+	static void checkLengths(double[] in, double[] out) {
+		if (out.length < in.length)
+			throw new IllegalArgumentException("Output array is shorter than input array: " +
+					out.length + " < " + in.length);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.timescale;
+
+/*
+ * This class holds the table of leap seconds, giving TAI - UTC in seconds
+ * from the start of the modern UTC system on 1972 January 1 onwards.
+ * 
+ * Before 1972, UTC was not an integral number of seconds from TAI, and this
+ * class does not attempt to model it; callers should test isCovered first.
+ * After the last entry, the final value of TAI - UTC is assumed to persist.
+ * 
+ * The table must be extended when the IERS announces a new leap second.
+ */
+
+public class LeapSeconds {
+	private static final double SECONDS_PER_DAY = 86400.0;
+	
+	/*
+	 * The Julian Date (UTC) at which each value of TAI - UTC took effect.
+	 */
+	private static final double[] UTC_DATES = {
+			2441317.5, 2441499.5, 2441683.5, 2442048.5, 2442413.5, // 1972 Jan 1 - 1975 Jan 1
+			2442778.5, 2443144.5, 2443509.5, 2443874.5, 2444239.5, // 1976 Jan 1 - 1980 Jan 1
+			2444786.5, 2445151.5, 2445516.5, 2446247.5, 2447161.5, // 1981 Jul 1 - 1988 Jan 1
+			2447892.5, 2448257.5, 2448804.5, 2449169.5, 2449534.5, // 1990 Jan 1 - 1994 Jul 1
+			2450083.5, 2450630.5, 2451179.5, 2453736.5, 2454832.5, // 1996 Jan 1 - 2009 Jan 1
+			2456109.5, 2457204.5, 2457754.5 };                     // 2012 Jul 1 - 2017 Jan 1
+	
+	private static final double[] TAI_MINUS_UTC = {
+			10.0, 11.0, 12.0, 13.0, 14.0,
+			15.0, 16.0, 17.0, 18.0, 19.0,
+			20.0, 21.0, 22.0, 23.0, 24.0,
+			25.0, 26.0, 27.0, 28.0, 29.0,
+			30.0, 31.0, 32.0, 33.0, 34.0,
+			35.0, 36.0, 37.0 };
+	
+	/*
+	 * The same instants expressed as Julian Dates (TAI), for lookups which
+	 * start from TAI or TT.
+	 */
+	private static final double[] TAI_DATES = new double[UTC_DATES.length];
+	
+	static {
+		for (int i = 0; i < UTC_DATES.length; i++)
+			TAI_DATES[i] = UTC_DATES[i] + TAI_MINUS_UTC[i] / SECONDS_PER_DAY;
+	}
+	
+	private LeapSeconds() {
+	}
+	
+	public static double getFirstDate() {
+		return UTC_DATES[0];
+	}
+	
+	public static double getLastDate() {
+		return UTC_DATES[UTC_DATES.length - 1];
+	}
+	
+	public static boolean isCovered(double jdUTC) {
+		return jdUTC >= UTC_DATES[0];
+	}
+	
+	public static boolean isCoveredTAI(double jdTAI) {
+		return jdTAI >= TAI_DATES[0];
+	}
+	
+	/*
+	 * Return TAI - UTC in seconds at the given Julian Date (UTC).
+	 */
+	public static double taiMinusUTC(double jdUTC) {
+		return TAI_MINUS_UTC[findEntry(UTC_DATES, jdUTC)];
+	}
+	
+	/*
+	 * Return TAI - UTC in seconds at the given Julian Date (TAI).
+	 */
+	public static double taiMinusUTCFromTAI(double jdTAI) {
+		return TAI_MINUS_UTC[findEntry(TAI_DATES, jdTAI)];
+	}
+	
+	/*
+	 * Return the index of the last entry whose date does not exceed jd.
+	 */
+	private static int findEntry(double[] dates, double jd) {
+		if (!(jd >= dates[0]))
+			throw new IllegalArgumentException("Date " + jd + " precedes the leap second table");
+		
+		int lo = 0, hi = dates.length - 1;
+		
+		while (lo < hi) {
+			int mid = (lo + hi + 1) >>> 1;
+			
+			if (jd >= dates[mid])
+				lo = mid;
+			else
+				hi = mid - 1;
+		}
+		
+		return lo;
+	}
+}
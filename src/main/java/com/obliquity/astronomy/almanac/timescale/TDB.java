@@ -0,0 +1,57 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.timescale;
+
+/*
+ * This class calculates TDB - TT, the periodic difference between Barycentric
+ * Dynamical Time and Terrestrial Time, using the series given in USNO
+ * Circular 179 (Kaplan 2005), which is accurate to about 10 microseconds
+ * between 1600 and 2200.
+ * 
+ * The argument may be TT or TDB; the difference is too small to matter.
+ */
+
+public class TDB {
+	private static final double J2000 = 2451545.0;
+	private static final double JCY = 36525.0;
+	
+	private TDB() {
+	}
+	
+	/*
+	 * Return TDB - TT in seconds at the given Julian Date.
+	 */
+	public static double tdbMinusTT(double jd) {
+		double T = (jd - J2000) / JCY;
+		
+		return 0.001657 * Math.sin(628.3076 * T + 6.2401)
+				+ 0.000022 * Math.sin(575.3385 * T + 4.2970)
+				+ 0.000014 * Math.sin(1256.6152 * T + 6.1969)
+				+ 0.000005 * Math.sin(606.9777 * T + 4.0212)
+				+ 0.000005 * Math.sin(52.9691 * T + 0.4444)
+				+ 0.000002 * Math.sin(21.3299 * T + 5.5431)
+				+ 0.000010 * T * Math.sin(628.3076 * T + 4.2490);
+	}
+}
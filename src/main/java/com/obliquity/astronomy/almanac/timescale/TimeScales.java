@@ -0,0 +1,165 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac.timescale;
+
+/*
+ * This class converts Julian Dates between the time scales UT1, UTC, TAI, TT
+ * and TDB.  Every conversion passes through TT.
+ * 
+ * UT1 and TT are related by Delta T.  The inverse conversion evaluates Delta T
+ * at the TT date, which is how the almanac programs have always done it; the
+ * error is negligible because Delta T changes so slowly.
+ * 
+ * UTC is TAI less the number of leap seconds in force.  Before 1972, when
+ * there were no leap seconds, UTC is treated as UT1.
+ * 
+ * The array methods convert each element of the input array and store the
+ * result in the output array, which may be the same array.
+ */
+
+public class TimeScales {
+	private static final double SECONDS_PER_DAY = 86400.0;
+	
+	public static final double TT_MINUS_TAI = 32.184 / SECONDS_PER_DAY;
+	
+	private TimeScales() {
+	}
+	
+	public static double ttFromUT(double jdUT) {
+		return jdUT + DeltaT.deltaT(jdUT);
+	}
+	
+	public static double utFromTT(double jdTT) {
+		return jdTT - DeltaT.deltaT(jdTT);
+	}
+	
+	public static double ttFromTAI(double jdTAI) {
+		return jdTAI + TT_MINUS_TAI;
+	}
+	
+	public static double taiFromTT(double jdTT) {
+		return jdTT - TT_MINUS_TAI;
+	}
+	
+	public static double ttFromUTC(double jdUTC) {
+		if (!LeapSeconds.isCovered(jdUTC))
+			return ttFromUT(jdUTC);
+		
+		return jdUTC + LeapSeconds.taiMinusUTC(jdUTC) / SECONDS_PER_DAY + TT_MINUS_TAI;
+	}
+	
+	public static double utcFromTT(double jdTT) {
+		double jdTAI = taiFromTT(jdTT);
+		
+		if (!LeapSeconds.isCoveredTAI(jdTAI))
+			return utFromTT(jdTT);
+		
+		return jdTAI - LeapSeconds.taiMinusUTCFromTAI(jdTAI) / SECONDS_PER_DAY;
+	}
+	
+	public static double tdbFromTT(double jdTT) {
+		return jdTT + TDB.tdbMinusTT(jdTT) / SECONDS_PER_DAY;
+	}
+	
+	public static double ttFromTDB(double jdTDB) {
+		return jdTDB - TDB.tdbMinusTT(jdTDB) / SECONDS_PER_DAY;
+	}
+	
+	public static double toTT(double jd, TimeScale from) {
+		switch (from) {
+			case UT1:
+				return ttFromUT(jd);
+				
+			case UTC:
+				return ttFromUTC(jd);
+				
+			case TAI:
+				return ttFromTAI(jd);
+				
+			case TT:
+				return jd;
+				
+			case TDB:
+				return ttFromTDB(jd);
+				
+			default:
+				throw new IllegalArgumentException("Unknown time scale: " + from);
+		}
+	}
+	
+	public static double fromTT(double jdTT, TimeScale to) {
+		switch (to) {
+			case UT1:
+				return utFromTT(jdTT);
+				
+			case UTC:
+				return utcFromTT(jdTT);
+				
+			case TAI:
+				return taiFromTT(jdTT);
+				
+			case TT:
+				return jdTT;
+				
+			case TDB:
+				return tdbFromTT(jdTT);
+				
+			default:
+				throw new IllegalArgumentException("Unknown time scale: " + to);
+		}
+	}
+	
+	public static double convert(double jd, TimeScale from, TimeScale to) {
+		return from == to ? jd : fromTT(toTT(jd, from), to);
+	}
+	
+	public static void convert(double[] in, TimeScale from, double[] out, TimeScale to) {
+		DeltaT.checkLengths(in, out);
+		
+		if (from == to) {
+			if (in != out)
+				System.arraycopy(in, 0, out, 0, in.length);
+		} else if (from == TimeScale.UT1 && to == TimeScale.TT) {
+			ttFromUT(in, out);
+		} else if (from == TimeScale.TT && to == TimeScale.UT1) {
+			utFromTT(in, out);
+		} else {
+			for (int i = 0; i < in.length; i++)
+				out[i] = fromTT(toTT(in[i], from), to);
+		}
+	}
+	
+	/*
+	 * The UT1/TT conversions are the ones the almanac programs perform in
+	 * bulk, so they use the segment-caching Delta T method.
+	 */
+	public static void ttFromUT(double[] in, double[] out) {
+		DeltaT.addDeltaT(in, out, 1.0);
+	}
+	
+	public static void utFromTT(double[] in, double[] out) {
+		DeltaT.addDeltaT(in, out, -1.0);
+	}
+}
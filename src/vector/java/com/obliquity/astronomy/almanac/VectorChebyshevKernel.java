@@ -0,0 +1,114 @@
+/*
+ * astrojava - a package for reading JPL ephemeris files
+ *
+ * Copyright (C) 2006-2026 David Harper at obliquity.com
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Library General Public
+ * License as published by the Free Software Foundation; either
+ * version 2 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Library General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Library General Public
+ * License along with this library; if not, write to the
+ * Free Software Foundation, Inc., 59 Temple Place - Suite 330,
+ * Boston, MA  02111-1307, USA.
+ *
+ * See the COPYING file located in the top-level-directory of
+ * the archive of this library for complete text of license.
+ */
+
+package com.obliquity.astronomy.almanac;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class evaluates the Chebyshev series for a granule using the
+ * incubating Vector API. It is compiled separately from the rest of the
+ * library and is loaded by ChebyshevKernel only when the
+ * jdk.incubator.vector module is present.
+ * <P>
+ * The coefficients are processed in 256-bit lanes, which suits the 11 to 15
+ * coefficients used by the DE4xx ephemerides better than the wider preferred
+ * species on AVX-512 hardware. The coefficients which do not fill a lane are
+ * added by a scalar loop.
+ */
+
+final class VectorChebyshevKernel extends ChebyshevKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_256;
+
+	public void evaluate(double[] data, int offset, int nCoeffs,
+			int nCoords, double[] P, double[] V, double[] pos, double[] vel) {
+		/*
+		 * The position-only and position-and-velocity cases have separate
+		 * loops. A test on vel inside the loop prevents the JIT compiler from
+		 * keeping the velocity sum in a register, which makes it much slower.
+		 */
+		if (vel == null)
+			evaluatePosition(data, offset, nCoeffs, nCoords, P, pos);
+		else
+			evaluatePositionAndVelocity(data, offset, nCoeffs, nCoords, P, V, pos, vel);
+	}
+
+	private static void evaluatePosition(double[] data, int offset, int nCoeffs,
+			int nCoords, double[] P, double[] pos) {
+		int upper = SPECIES.loopBound(nCoeffs);
+
+		for (int i = 0; i < nCoords; i++, offset += nCoeffs) {
+			DoubleVector sumP = DoubleVector.zero(SPECIES);
+
+			int j = 0;
+
+			for (; j < upper; j += SPECIES.length())
+				sumP = DoubleVector.fromArray(SPECIES, data, offset + j)
+						.fma(DoubleVector.fromArray(SPECIES, P, j), sumP);
+
+			double p = sumP.reduceLanes(VectorOperators.ADD);
+
+			for (; j < nCoeffs; j++)
+				p += P[j] * data[offset + j];
+
+			pos[i] = p;
+		}
+	}
+
+	private static void evaluatePositionAndVelocity(double[] data, int offset, int nCoeffs,
+			int nCoords, double[] P, double[] V, double[] pos, double[] vel) {
+		int upper = SPECIES.loopBound(nCoeffs);
+
+		for (int i = 0; i < nCoords; i++, offset += nCoeffs) {
+			DoubleVector sumP = DoubleVector.zero(SPECIES);
+			DoubleVector sumV = DoubleVector.zero(SPECIES);
+
+			int j = 0;
+
+			for (; j < upper; j += SPECIES.length()) {
+				DoubleVector c = DoubleVector.fromArray(SPECIES, data, offset + j);
+
+				sumP = c.fma(DoubleVector.fromArray(SPECIES, P, j), sumP);
+				sumV = c.fma(DoubleVector.fromArray(SPECIES, V, j), sumV);
+			}
+
+			double p = sumP.reduceLanes(VectorOperators.ADD);
+			double v = sumV.reduceLanes(VectorOperators.ADD);
+
+			for (; j < nCoeffs; j++) {
+				p += P[j] * data[offset + j];
+				v += V[j] * data[offset + j];
+			}
+
+			pos[i] = p;
+			vel[i] = v;
+		}
+	}
+
+	public String getName() {
+		return "vector";
+	}
+}